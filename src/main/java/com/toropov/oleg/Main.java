@@ -1,8 +1,11 @@
 package com.toropov.oleg;
 
+import com.toropov.oleg.world.HeadlessSimulation;
 import com.toropov.oleg.world.Simulation;
+import com.toropov.oleg.world.SimulationConfig;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -12,6 +15,12 @@ import java.util.logging.Logger;
  */
 public class Main {
     private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
+    private static final String USAGE = "Usage: java -jar simulation_of_2d_world.jar [--headless] [--size=N] " +
+            "[--male-foxes=N] [--female-foxes=N] [--roosters=N] [--hens=N] [--grass=N] [--rocks=N] [--trees=N] " +
+            "[--seed=N] [--ticks=N] [--tick-rate=fast|<N>ms|<N>tps] [--fps=N] " +
+            "[--scheduler=sequential|two-phase|checkerboard|concurrent] [--threads=N] [--tile-size=N] " +
+            "[--grass-regrowth=N] [--spatial-index=buckets|pyramid] [--creature-store=true|false] " +
+            "[--flow-fields=true|false] [--path=a-star|jump-point]";
 
     /**
      * Default constructor.
@@ -23,6 +32,8 @@ public class Main {
 
     /**
      * Main method to start the application.
+     * With {@code --headless} the simulation runs without a window as fast as possible and prints a report,
+     * otherwise the graphical simulation is started with the same configuration.
      *
      * @param args command line arguments
      */
@@ -32,7 +43,31 @@ public class Main {
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Could not read logging configuration", e);
         }
-        Simulation app = new Simulation();
+
+        SimulationConfig config;
+        try {
+            config = SimulationConfig.fromArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        if (Arrays.asList(args).contains(SimulationConfig.HEADLESS_FLAG)) {
+            new HeadlessSimulation(config).run(System.out);
+            return;
+        }
+
+        Simulation app;
+        try {
+            app = new Simulation(config);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
         app.run();
     }
 }
@@ -1,33 +1,46 @@
 package com.toropov.oleg.entity;
 
 import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityType;
 import com.toropov.oleg.map.WorldMap;
+import com.toropov.oleg.pathfinding.PathFinder;
+import com.toropov.oleg.pathfinding.TargetSearch;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Abstract class representing a creature in the simulation.
+ * A creature that changes the map takes ownership of itself and of the creatures its move affects, so that on a map
+ * shared by several threads a creature is never eaten or paired while it is in the middle of its own move.
+ * While a creature is attached to a {@link CreatureStore}, its attributes live only in the store: the object
+ * holding them in the creature is dropped on attaching and created again on detaching. The accessors read the store
+ * and the slot once, so a creature being moved to another slot at the same time is never read through a stale
+ * slot; the store itself still allows only one thread at a time.
  */
 public abstract class Creature extends Entity {
-    private static final int MAX_HEALTH = 20;
-    private boolean skipNextMove = false;
-    private int speed;
-    private int healthPoints;
-    private int generation;
-
+    /**
+     * The largest Manhattan distance at which a creature looks up food or a mate in the map,
+     * so a lookup never scans further than a creature could sensibly walk.
+     */
+    public static final int SIGHT_RADIUS = 64;
+    static final int MAX_HEALTH = 20;
+    private final AtomicBoolean owned = new AtomicBoolean(false);
+    private Attributes attributes;
+    private CreatureStore store;
+    private int slot = -1;
 
     /**
      * Constructs a Creature with specified coordinates, speed, health points, and generation.
      *
      * @param coordinates the coordinates of the creature
+     * @param type        the type of the creature
      * @param speed       the speed of the creature
      * @param healthPoints the health points of the creature
      * @param generation   the generation of the creature
      */
-    protected Creature(Coordinates coordinates, int speed, int healthPoints, int generation) {
-        super(coordinates);
-        this.speed = speed;
-        this.healthPoints = healthPoints;
-        this.generation = generation;
+    protected Creature(Coordinates coordinates, EntityType type, int speed, int healthPoints, int generation) {
+        super(coordinates, type);
+        this.attributes = new Attributes(speed, healthPoints, generation, false);
     }
 
     /**
@@ -36,7 +49,9 @@ public abstract class Creature extends Entity {
      * @return the speed of the creature
      */
     public int getSpeed() {
-        return speed;
+        CreatureStore current = store;
+        int currentSlot = slot;
+        return current == null ? attributes.speed : current.getSpeed(currentSlot);
     }
 
     /**
@@ -45,7 +60,13 @@ public abstract class Creature extends Entity {
      * @param speed the speed to set
      */
     public void setSpeed(int speed) {
-        this.speed = speed;
+        CreatureStore current = store;
+        int currentSlot = slot;
+        if (current == null) {
+            attributes.speed = speed;
+        } else {
+            current.setSpeed(currentSlot, speed);
+        }
     }
 
     /**
@@ -54,7 +75,9 @@ public abstract class Creature extends Entity {
      * @return the health points of the creature
      */
     public int getHealthPoints() {
-        return healthPoints;
+        CreatureStore current = store;
+        int currentSlot = slot;
+        return current == null ? attributes.healthPoints : current.getHealthPoints(currentSlot);
     }
 
     /**
@@ -63,7 +86,13 @@ public abstract class Creature extends Entity {
      * @param healthPoints the health points to set
      */
     public void setHealthPoints(int healthPoints) {
-        this.healthPoints = healthPoints;
+        CreatureStore current = store;
+        int currentSlot = slot;
+        if (current == null) {
+            attributes.healthPoints = healthPoints;
+        } else {
+            current.setHealthPoints(currentSlot, healthPoints);
+        }
     }
 
     /**
@@ -72,7 +101,9 @@ public abstract class Creature extends Entity {
      * @return true if the creature should skip the next move, false otherwise
      */
     public boolean isSkipNextMove() {
-        return skipNextMove;
+        CreatureStore current = store;
+        int currentSlot = slot;
+        return current == null ? attributes.skipNextMove : current.isSkipNextMove(currentSlot);
     }
 
     /**
@@ -81,7 +112,13 @@ public abstract class Creature extends Entity {
      * @param skipNextMove true if the creature should skip the next move, false otherwise
      */
     public void setSkipNextMove(boolean skipNextMove) {
-        this.skipNextMove = skipNextMove;
+        CreatureStore current = store;
+        int currentSlot = slot;
+        if (current == null) {
+            attributes.skipNextMove = skipNextMove;
+        } else {
+            current.setSkipNextMove(currentSlot, skipNextMove);
+        }
     }
 
     /**
@@ -90,7 +127,9 @@ public abstract class Creature extends Entity {
      * @return the generation of the creature
      */
     public int getGeneration() {
-        return generation;
+        CreatureStore current = store;
+        int currentSlot = slot;
+        return current == null ? attributes.generation : current.getGeneration(currentSlot);
     }
 
     /**
@@ -99,7 +138,68 @@ public abstract class Creature extends Entity {
      * @param generation the generation to set
      */
     public void setGeneration(int generation) {
-        this.generation = generation;
+        CreatureStore current = store;
+        int currentSlot = slot;
+        if (current == null) {
+            attributes.generation = generation;
+        } else {
+            current.setGeneration(currentSlot, generation);
+        }
+    }
+
+    /**
+     * Gets the number of health points the creature regains when it rests.
+     *
+     * @return the health points regained by a rest, 0 for a creature that never rests
+     */
+    public int getRestHealthPoints() {
+        return 0;
+    }
+
+    /**
+     * Gets the store the creature is attached to.
+     *
+     * @return the store, or null if the creature keeps its attributes in its own fields
+     */
+    public CreatureStore getStore() {
+        return store;
+    }
+
+    /**
+     * Gets the slot of the creature in its store.
+     *
+     * @return the slot, or -1 if the creature is not attached to a store
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Points the creature at its slot in a store and drops its own attributes.
+     * Called by the store once it has copied the attributes into the slot, and again when the slot changes.
+     *
+     * @param store the store
+     * @param slot the slot in the store
+     */
+    void bind(CreatureStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+        this.attributes = null;
+    }
+
+    /**
+     * Gives the creature its own attributes again and points it away from its store.
+     * Called by the store with the values of the slot the creature leaves.
+     *
+     * @param speed the speed of the creature
+     * @param healthPoints the health points of the creature
+     * @param generation the generation of the creature
+     * @param skipNextMove true if the creature skips its next move
+     */
+    void unbind(int speed, int healthPoints, int generation, boolean skipNextMove) {
+        this.attributes = new Attributes(speed, healthPoints, generation, skipNextMove);
+        this.store = null;
+        this.slot = -1;
     }
 
     /**
@@ -120,27 +220,156 @@ public abstract class Creature extends Entity {
     }
 
     /**
-     * Moves the creature to the specified coordinates on the map.
+     * Ends the rest of the creature, which moves again on its next turn and regains
+     * {@link #getRestHealthPoints()} health points. A creature attached to a store regains them
+     * in the {@link CreatureStore#regenerateRested()} pass at the end of the tick.
+     */
+    protected void finishRest() {
+        CreatureStore current = store;
+        int currentSlot = slot;
+        if (current == null) {
+            regenerateHealth(getRestHealthPoints());
+            setSkipNextMove(false);
+        } else {
+            current.finishRest(currentSlot);
+        }
+    }
+
+    /**
+     * Moves the creature to the specified coordinates on the map, replacing whatever is there.
      *
      * @param coordinates the target coordinates
      * @param map         the map on which the creature moves
      */
     public void move(Coordinates coordinates, WorldMap map) {
-        Entity entity = map.getEntity(getCoordinates());
-        map.removeEntity(getCoordinates());
+        move(coordinates, map, map.getEntity(coordinates));
+    }
+
+    /**
+     * Moves the creature to the specified coordinates on the map if they still hold the expected occupant.
+     * The target cell is claimed before the current one is left, so on a map shared by several threads
+     * a creature that loses the race for the cell, or whose prey is busy with its own move, simply stays where it is.
+     * A creature without health points left is removed from the map instead, and a creature that is
+     * no longer in its cell, because it has been eaten earlier in the tick, does nothing.
+     *
+     * @param coordinates      the target coordinates
+     * @param map              the map on which the creature moves
+     * @param expectedOccupant the entity expected in the target cell, or null if it is expected to be empty
+     * @return true if the creature has moved, false otherwise
+     */
+    public boolean move(Coordinates coordinates, WorldMap map, Entity expectedOccupant) {
+        if (!tryAcquire()) {
+            return false;
+        }
+        try {
+            Coordinates current = getCoordinates();
+            if (map.getEntity(current) != this) {
+                return false;
+            }
 
-        if (getHealthPoints() > 0) {
-            map.setEntity(coordinates, entity);
+            if (getHealthPoints() <= 0) {
+                map.releaseEntity(current, this);
+                return false;
+            }
+
+            if (!tryAcquire(expectedOccupant)) {
+                return false;
+            }
+            try {
+                if (!map.claimEntity(coordinates, expectedOccupant, this)) {
+                    return false;
+                }
+            } finally {
+                release(expectedOccupant);
+            }
+            map.releaseEntity(current, this);
             decreaseHealth();
+            return true;
+        } finally {
+            release();
         }
     }
 
     /**
-     * Makes a move for the creature on the map. This method should be implemented by subclasses.
+     * Tries to take exclusive ownership of the creature for a change of the map.
+     * Ownership is never waited for: a caller that does not get it leaves the map as it is.
+     *
+     * @return true if the ownership was taken, false if another thread owns the creature
+     */
+    public boolean tryAcquire() {
+        return owned.compareAndSet(false, true);
+    }
+
+    /**
+     * Gives up the ownership taken with {@link #tryAcquire()}.
+     */
+    public void release() {
+        owned.set(false);
+    }
+
+    /**
+     * Tries to take ownership of an entity if it is a creature. Other entities and empty cells need no ownership.
+     *
+     * @param entity the entity, or null
+     * @return true if the entity is not a creature or its ownership was taken, false otherwise
+     */
+    protected static boolean tryAcquire(Entity entity) {
+        return !(entity instanceof Creature creature) || creature.tryAcquire();
+    }
+
+    /**
+     * Gives up the ownership of an entity taken with {@link #tryAcquire(Entity)}.
+     *
+     * @param entity the entity, or null
+     */
+    protected static void release(Entity entity) {
+        if (entity instanceof Creature creature) {
+            creature.release();
+        }
+    }
+
+    /**
+     * Makes a move for the creature on the map by planning it and applying the plan right away.
+     *
+     * @param map the map on which the creature moves
+     */
+    public void makeMove(WorldMap map) {
+        applyMove(map, planMove(map));
+    }
+
+    /**
+     * Decides what the creature does in the current tick without changing the map or the creature.
+     * Planning only reads shared state, so the intents of many creatures can be computed concurrently.
      *
      * @param map the map on which the creature moves
+     * @return the intent of the creature
+     */
+    public abstract MoveIntent planMove(WorldMap map);
+
+    /**
+     * Carries out an intent returned by {@link #planMove}.
+     *
+     * @param map    the map on which the creature moves
+     * @param intent the intent to carry out
+     */
+    public abstract void applyMove(WorldMap map, MoveIntent intent);
+
+    /**
+     * Checks if an intent planned earlier in the tick can still be applied to the map as it is now:
+     * the creature must still be in its cell, and the cell it steps onto must hold the same occupant
+     * and still be available for a move.
+     *
+     * @param map    the map on which the creature moves
+     * @param intent the intent to check
+     * @return true if the intent can be applied, false if it has to be planned again
      */
-    public abstract void makeMove(WorldMap map);
+    public boolean isIntentStillValid(WorldMap map, MoveIntent intent) {
+        if (map.getEntity(getCoordinates()) != this) {
+            return false;
+        }
+        Coordinates step = intent.getStep();
+        return step == null || map.getEntity(step) == intent.getExpectedOccupant() && isSquareAvailableForMove(step, map);
+    }
 
     /**
      * Checks if the square at the specified coordinates is available for the creature to move.
@@ -150,8 +379,94 @@ public abstract class Creature extends Entity {
      * @return true if the square is available for move, false otherwise
      */
     public boolean isSquareAvailableForMove(Coordinates coordinates, WorldMap map) {
-        return map.isSquareEmpty(coordinates) && map.isWithinBounds(coordinates);
+        return isSquareAvailableForMove(coordinates.getX(), coordinates.getY(), map);
     }
-}
 
+    /**
+     * Checks if the specified square is available for the creature to move.
+     * Squares outside the map or holding terrain are ruled out by a bit test on the terrain layer of the map.
+     * For the rest the rules come from the {@link InteractionTable}: the creature may enter the square if it is empty
+     * or holds something the creature eats, or a mate while {@link #isMatingAllowed} says so.
+     * Searches call this for every cell they look at, so it does not allocate coordinates.
+     *
+     * @param x the x coordinate of the square to check
+     * @param y the y coordinate of the square to check
+     * @param map the map on which to check the square
+     * @return true if the square is available for move, false otherwise
+     */
+    public boolean isSquareAvailableForMove(int x, int y, WorldMap map) {
+        if (map.getTerrain().isBlocked(x, y)) {
+            return false;
+        }
+        int flags = InteractionTable.get(getType(), map.getEntity(x, y));
+        return (flags & (InteractionTable.ENTER | InteractionTable.EAT)) != 0 ||
+                (flags & InteractionTable.MATE) != 0 && isMatingAllowed(map);
+    }
+
+    /**
+     * Finds the nearest mate of the creature and the first step of a path to it.
+     * Mates are sparse, so the mate is looked up in the spatial index of the map and only a point-to-point search
+     * runs towards it, instead of a breadth-first search flooding the area around the creature.
+     * Only mates within {@link #SIGHT_RADIUS} are seen. A mate that terrain cuts off is rejected before any search.
+     *
+     * @param map the world map
+     * @return the mate and the first step towards it, or null if the creature does not mate or no mate can be reached
+     */
+    protected TargetSearch.Result findMate(WorldMap map) {
+        EntityType mate = InteractionTable.mateOf(getType());
+        Coordinates start = getCoordinates();
+        Coordinates target = mate == null ? null : rejectUnreachable(map, map.nearest(mate, start, SIGHT_RADIUS));
+        if (target == null) {
+            return null;
+        }
+        Coordinates step = PathFinder.findNextStep(map, start, target, this);
+        return step == null ? null : new TargetSearch.Result(target, step);
+    }
 
+    /**
+     * Drops a target that terrain cuts off from the creature, so no path search is started towards it.
+     * The check is two lookups in the terrain components of the map.
+     *
+     * @param map the world map
+     * @param target the coordinates of the target, or null
+     * @return the target, or null if there is none or the creature cannot reach it
+     */
+    protected Coordinates rejectUnreachable(WorldMap map, Coordinates target) {
+        return target != null && map.getTerrainComponents().isConnected(getCoordinates(), target) ? target : null;
+    }
+
+    /**
+     * Checks if the creature may currently step onto a mate. Creatures that mate override this.
+     *
+     * @param map the map on which the creature moves
+     * @return true if mating is allowed, false otherwise
+     */
+    protected boolean isMatingAllowed(WorldMap map) {
+        return false;
+    }
+
+    /**
+     * The attributes of a creature that is not attached to a store.
+     */
+    private static final class Attributes {
+        private int speed;
+        private int healthPoints;
+        private int generation;
+        private boolean skipNextMove;
+
+        /**
+         * Constructs the attributes with the specified values.
+         *
+         * @param speed the speed of the creature
+         * @param healthPoints the health points of the creature
+         * @param generation the generation of the creature
+         * @param skipNextMove true if the creature skips its next move
+         */
+        private Attributes(int speed, int healthPoints, int generation, boolean skipNextMove) {
+            this.speed = speed;
+            this.healthPoints = healthPoints;
+            this.generation = generation;
+            this.skipNextMove = skipNextMove;
+        }
+    }
+}
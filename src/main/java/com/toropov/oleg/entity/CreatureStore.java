@@ -0,0 +1,277 @@
+package com.toropov.oleg.entity;
+
+import java.util.Arrays;
+
+/**
+ * The CreatureStore class keeps the attributes of creatures in parallel primitive arrays, one slot per creature.
+ * An attached creature becomes a view over its slot: its getters and setters read and write the arrays instead of
+ * its own fields, so passes over many creatures stream through contiguous memory instead of following references.
+ * Slots are dense: a detached creature's slot is filled with the last slot, and its values are copied back into
+ * the creature, which then works on its own fields again.
+ * Regeneration after a rest is a pass over the slots, {@link #regenerateRested()}, run at the end of every tick:
+ * a resting creature only marks its slot on its turn. Health lost to a step stays with the creature that takes it,
+ * since whether the step happens is decided by that creature's own move.
+ * The store is not thread-safe. Attached creatures may be read from several threads as long as none of them
+ * changes the store or the creatures at the same time.
+ */
+public class CreatureStore {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Creature[] creatures = new Creature[INITIAL_CAPACITY];
+    private int[] healthPoints = new int[INITIAL_CAPACITY];
+    private int[] speeds = new int[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    private boolean[] skipNextMoves = new boolean[INITIAL_CAPACITY];
+    private int[] restHealthPoints = new int[INITIAL_CAPACITY];
+    private boolean[] rested = new boolean[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Gets the number of attached creatures.
+     *
+     * @return the number of attached creatures
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if a creature is attached to this store.
+     *
+     * @param creature the creature
+     * @return true if the creature is attached to this store, false otherwise
+     */
+    public boolean contains(Creature creature) {
+        return creature.getStore() == this;
+    }
+
+    /**
+     * Attaches a creature, moving its attributes into a new slot. A creature attached to another store is detached
+     * from it first; a creature already attached to this store is left as it is.
+     *
+     * @param creature the creature to attach
+     */
+    public void attach(Creature creature) {
+        CreatureStore current = creature.getStore();
+        if (current == this) {
+            return;
+        }
+        if (current != null) {
+            current.detach(creature);
+        }
+
+        if (size == creatures.length) {
+            int capacity = size * 2;
+            creatures = Arrays.copyOf(creatures, capacity);
+            healthPoints = Arrays.copyOf(healthPoints, capacity);
+            speeds = Arrays.copyOf(speeds, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+            skipNextMoves = Arrays.copyOf(skipNextMoves, capacity);
+            restHealthPoints = Arrays.copyOf(restHealthPoints, capacity);
+            rested = Arrays.copyOf(rested, capacity);
+        }
+        int slot = size++;
+        creatures[slot] = creature;
+        healthPoints[slot] = creature.getHealthPoints();
+        speeds[slot] = creature.getSpeed();
+        generations[slot] = creature.getGeneration();
+        skipNextMoves[slot] = creature.isSkipNextMove();
+        restHealthPoints[slot] = creature.getRestHealthPoints();
+        rested[slot] = false;
+        creature.bind(this, slot);
+    }
+
+    /**
+     * Detaches a creature, copying the attributes of its slot back into the creature together with the health
+     * of a rest taken in the current tick. Does nothing if the creature is not attached to this store.
+     *
+     * @param creature the creature to detach
+     */
+    public void detach(Creature creature) {
+        if (creature.getStore() != this) {
+            return;
+        }
+        int slot = creature.getSlot();
+        if (rested[slot]) {
+            regenerate(slot);
+        }
+        creature.unbind(speeds[slot], healthPoints[slot], generations[slot], skipNextMoves[slot]);
+
+        int last = --size;
+        if (slot != last) {
+            Creature moved = creatures[last];
+            creatures[slot] = moved;
+            healthPoints[slot] = healthPoints[last];
+            speeds[slot] = speeds[last];
+            generations[slot] = generations[last];
+            skipNextMoves[slot] = skipNextMoves[last];
+            restHealthPoints[slot] = restHealthPoints[last];
+            rested[slot] = rested[last];
+            moved.bind(this, slot);
+        }
+        creatures[last] = null;
+    }
+
+    /**
+     * Detaches all creatures.
+     */
+    public void clear() {
+        while (size > 0) {
+            detach(creatures[size - 1]);
+        }
+    }
+
+    /**
+     * Gives every creature that has rested since the last pass the health points it regains by its rest.
+     * Runs once per tick, after all creatures have made their move.
+     */
+    public void regenerateRested() {
+        for (int slot = 0; slot < size; slot++) {
+            if (rested[slot]) {
+                regenerate(slot);
+            }
+        }
+    }
+
+    /**
+     * Adds the health points of a rest to a slot, up to the maximum health, and clears its rest mark.
+     *
+     * @param slot the slot
+     */
+    private void regenerate(int slot) {
+        healthPoints[slot] = Math.min(healthPoints[slot] + restHealthPoints[slot], Creature.MAX_HEALTH);
+        rested[slot] = false;
+    }
+
+    /**
+     * Sums the health points of all attached creatures.
+     *
+     * @return the total health points
+     */
+    public long getTotalHealth() {
+        long total = 0;
+        for (int slot = 0; slot < size; slot++) {
+            total += healthPoints[slot];
+        }
+        return total;
+    }
+
+    /**
+     * Counts the attached creatures that skip their next move to rest.
+     *
+     * @return the number of resting creatures
+     */
+    public int countSkippingNextMove() {
+        int count = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (skipNextMoves[slot]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the highest generation among the attached creatures.
+     *
+     * @return the highest generation, or 0 if no creature is attached
+     */
+    public int getMaxGeneration() {
+        int max = 0;
+        for (int slot = 0; slot < size; slot++) {
+            max = Math.max(max, generations[slot]);
+        }
+        return max;
+    }
+
+    /**
+     * Gets the health points stored in a slot.
+     *
+     * @param slot the slot
+     * @return the health points
+     */
+    int getHealthPoints(int slot) {
+        return healthPoints[slot];
+    }
+
+    /**
+     * Sets the health points stored in a slot.
+     *
+     * @param slot the slot
+     * @param value the health points
+     */
+    void setHealthPoints(int slot, int value) {
+        healthPoints[slot] = value;
+    }
+
+    /**
+     * Ends the rest of the creature in a slot: clears its skip flag and marks the slot for the next
+     * {@link #regenerateRested()} pass.
+     *
+     * @param slot the slot
+     */
+    void finishRest(int slot) {
+        skipNextMoves[slot] = false;
+        rested[slot] = true;
+    }
+
+    /**
+     * Gets the speed stored in a slot.
+     *
+     * @param slot the slot
+     * @return the speed
+     */
+    int getSpeed(int slot) {
+        return speeds[slot];
+    }
+
+    /**
+     * Sets the speed stored in a slot.
+     *
+     * @param slot the slot
+     * @param value the speed
+     */
+    void setSpeed(int slot, int value) {
+        speeds[slot] = value;
+    }
+
+    /**
+     * Gets the generation stored in a slot.
+     *
+     * @param slot the slot
+     * @return the generation
+     */
+    int getGeneration(int slot) {
+        return generations[slot];
+    }
+
+    /**
+     * Sets the generation stored in a slot.
+     *
+     * @param slot the slot
+     * @param value the generation
+     */
+    void setGeneration(int slot, int value) {
+        generations[slot] = value;
+    }
+
+    /**
+     * Gets the skip flag stored in a slot.
+     *
+     * @param slot the slot
+     * @return true if the creature skips its next move
+     */
+    boolean isSkipNextMove(int slot) {
+        return skipNextMoves[slot];
+    }
+
+    /**
+     * Sets the skip flag stored in a slot.
+     *
+     * @param slot the slot
+     * @param value true if the creature skips its next move
+     */
+    void setSkipNextMove(int slot, boolean value) {
+        skipNextMoves[slot] = value;
+    }
+}
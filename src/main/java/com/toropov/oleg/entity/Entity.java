@@ -1,20 +1,50 @@
 package com.toropov.oleg.entity;
 
 import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityType;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 /**
  * Abstract class representing an entity in the simulation.
+ * Every entity carries its {@link EntityType} as a tag, so code dispatching on the kind of an entity reads a field
+ * instead of testing classes. An entity that is part of a world has a handle given out by the {@link EntityRegistry} of the world.
  */
 public abstract class Entity {
+    private static final VarHandle PRESENCE;
+
+    static {
+        try {
+            PRESENCE = MethodHandles.lookup().findVarHandle(Entity.class, "presence", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final EntityType type;
     private Coordinates coordinates;
+    private volatile long handle = EntityRegistry.NO_HANDLE;
+    private volatile int presence = 0;
 
     /**
-     * Constructs an Entity with specified coordinates.
+     * Constructs an Entity with specified coordinates and type.
      *
      * @param coordinates the coordinates of the entity
+     * @param type the type of the entity
      */
-    public Entity(Coordinates coordinates) {
+    public Entity(Coordinates coordinates, EntityType type) {
         this.coordinates = coordinates;
+        this.type = type;
+    }
+
+    /**
+     * Returns the type of the entity.
+     *
+     * @return the type of the entity
+     */
+    public EntityType getType() {
+        return type;
     }
 
     /**
@@ -34,4 +64,41 @@ public abstract class Entity {
     public void setCoordinates(Coordinates coordinates) {
         this.coordinates = coordinates;
     }
+
+    /**
+     * Gets the handle of the entity in the registry of its world.
+     *
+     * @return the handle, or {@link EntityRegistry#NO_HANDLE} if the entity is not registered
+     */
+    public long getHandle() {
+        return handle;
+    }
+
+    /**
+     * Sets the handle of the entity. Called by the registry.
+     *
+     * @param handle the handle, or {@link EntityRegistry#NO_HANDLE}
+     */
+    void setHandle(long handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * Gets the number of places in the world the entity currently takes: cells, or children carrying it.
+     *
+     * @return the presence count
+     */
+    int getPresence() {
+        return presence;
+    }
+
+    /**
+     * Atomically adds to the presence count of the entity.
+     *
+     * @param delta the value to add
+     * @return the new presence count
+     */
+    int addPresence(int delta) {
+        return (int) PRESENCE.getAndAdd(this, delta) + delta;
+    }
 }
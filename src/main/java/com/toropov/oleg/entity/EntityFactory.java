@@ -5,8 +5,12 @@ import com.toropov.oleg.entity.herbivore.Rooster;
 import com.toropov.oleg.entity.predator.FemaleFox;
 import com.toropov.oleg.entity.predator.MaleFox;
 import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.FreeCellIndex;
+import com.toropov.oleg.world.RandomStreams;
+import com.toropov.oleg.world.SimulationConfig;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * Factory class for creating entities and populating the world map.
@@ -53,12 +57,24 @@ public class EntityFactory {
      */
     public static final int MAP_SIZE = 20;
 
+    private final SimulationConfig config;
+
     /**
-     * Default constructor.
-     * This class is not intended to be instantiated.
+     * Constructs an EntityFactory with the default populations and a random seed.
      */
     public EntityFactory() {
-        // Utility class, no instances allowed.
+        this(new SimulationConfig());
+    }
+
+    /**
+     * Constructs an EntityFactory creating the populations of the specified configuration.
+     * The placement of the entities is fully determined by the seed of the configuration,
+     * drawn from the {@link RandomStreams.Purpose#PLACEMENT} stream.
+     *
+     * @param config the simulation configuration
+     */
+    public EntityFactory(SimulationConfig config) {
+        this.config = config;
     }
 
     /**
@@ -76,24 +92,26 @@ public class EntityFactory {
     }
 
     /**
-     * Generates a list of random coordinates within the map size.
+     * Generates a list of distinct random coordinates within the map size, in random order.
+     * Cells are drawn without replacement from an index of the cells not taken yet,
+     * so every draw costs the same however many entities the map has to hold.
      *
      * @return a list of random coordinates
      */
     private List<Coordinates> createRandomCoordinates() {
-        Random random = new Random();
-        Set<Coordinates> randomCoordinates = new HashSet<>();
+        RandomGenerator random = RandomStreams.forPurpose(config.getSeed(), RandomStreams.Purpose.PLACEMENT);
+        int mapSize = config.getMapSize();
+        FreeCellIndex freeCells = new FreeCellIndex(mapSize, mapSize);
 
-        int count = MALE_FOX_COUNT + FEMALE_FOX_COUNT + ROOSTER_COUNT + HEN_COUNT + GRASS_COUNT + TREE_COUNT + ROCK_COUNT;
+        long count = config.getTotalEntityCount();
+        List<Coordinates> randomCoordinates = new ArrayList<>();
         while (randomCoordinates.size() < count) {
-            int x = random.nextInt(MAP_SIZE);
-            int y = random.nextInt(MAP_SIZE);
-            randomCoordinates.add(new Coordinates(x, y));
+            int cell = freeCells.sample(random);
+            freeCells.remove(cell);
+            randomCoordinates.add(new Coordinates(cell % mapSize, cell / mapSize));
         }
 
-        List<Coordinates> coordinatesList = new ArrayList<>(randomCoordinates);
-        Collections.shuffle(coordinatesList);
-        return coordinatesList;
+        return randomCoordinates;
     }
 
     /**
@@ -105,13 +123,13 @@ public class EntityFactory {
     private void addEntities(Map<Coordinates, Entity> createdEntities, List<Coordinates> randomCoordinates) {
         int index = 0;
 
-        index = addEntitiesOfType(createdEntities, randomCoordinates, index, MALE_FOX_COUNT, coordinates -> new MaleFox(coordinates, 1, 20, 1));
-        index = addEntitiesOfType(createdEntities, randomCoordinates, index, FEMALE_FOX_COUNT, coordinates -> new FemaleFox(coordinates, 1, 20, 1));
-        index = addEntitiesOfType(createdEntities, randomCoordinates, index, ROOSTER_COUNT, coordinates -> new Rooster(coordinates, 1, 20, 1));
-        index = addEntitiesOfType(createdEntities, randomCoordinates, index, HEN_COUNT, coordinates -> new Hen(coordinates, 1, 20, 1));
-        index = addEntitiesOfType(createdEntities, randomCoordinates, index, GRASS_COUNT, Grass::new);
-        index = addEntitiesOfType(createdEntities, randomCoordinates, index, ROCK_COUNT, Rock::new);
-        addEntitiesOfType(createdEntities, randomCoordinates, index, TREE_COUNT, Tree::new);
+        index = addEntitiesOfType(createdEntities, randomCoordinates, index, config.getMaleFoxCount(), coordinates -> new MaleFox(coordinates, 1, 20, 1));
+        index = addEntitiesOfType(createdEntities, randomCoordinates, index, config.getFemaleFoxCount(), coordinates -> new FemaleFox(coordinates, 1, 20, 1));
+        index = addEntitiesOfType(createdEntities, randomCoordinates, index, config.getRoosterCount(), coordinates -> new Rooster(coordinates, 1, 20, 1));
+        index = addEntitiesOfType(createdEntities, randomCoordinates, index, config.getHenCount(), coordinates -> new Hen(coordinates, 1, 20, 1));
+        index = addEntitiesOfType(createdEntities, randomCoordinates, index, config.getGrassCount(), Grass::new);
+        index = addEntitiesOfType(createdEntities, randomCoordinates, index, config.getRockCount(), Rock::new);
+        addEntitiesOfType(createdEntities, randomCoordinates, index, config.getTreeCount(), Tree::new);
     }
 
     /**
@@ -0,0 +1,176 @@
+package com.toropov.oleg.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The EntityRegistry class gives the entities of a world compact long handles.
+ * A handle packs the index of a slot in its low {@link #INDEX_BITS} bits and the generation of the slot in the bits
+ * above, so a handle can be resolved to its entity in constant time, and a handle kept after its entity has left
+ * the world is recognized as stale even once the slot has been reused by another entity.
+ * Released slots are reused in the order they were released, so a slot is reused only after all the others
+ * released before it, and a slot whose generation has reached {@link Integer#MAX_VALUE} is retired instead of
+ * being reused: a stale handle never becomes alive again.
+ * An entity is registered when it first enters the world: a cell of the map, or a child carrying it as a parent.
+ * Leaving the world only marks it as absent; its slot is released by {@link #releaseAbsent()}, called once per tick,
+ * so an entity that leaves one cell and enters another within the tick keeps its handle.
+ * All methods are safe to call from several threads.
+ */
+public class EntityRegistry {
+    /**
+     * The handle of an entity that is not registered.
+     */
+    public static final long NO_HANDLE = -1;
+
+    /**
+     * The number of low bits of a handle holding the index of its slot.
+     */
+    public static final int INDEX_BITS = Integer.SIZE;
+
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final int MAX_GENERATION = Integer.MAX_VALUE;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Entity[] entities = new Entity[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    private int[] freeIndexes = new int[INITIAL_CAPACITY];
+    private int freeHead = 0;
+    private int freeCount = 0;
+    private int nextIndex = 0;
+    private int size = 0;
+    private final List<Entity> absent = new ArrayList<>();
+
+    /**
+     * Gets the number of registered entities.
+     *
+     * @return the number of registered entities
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the entity a handle refers to.
+     *
+     * @param handle the handle
+     * @return the entity, or null if the handle is stale or was never given out
+     */
+    public synchronized Entity get(long handle) {
+        long index = handle & INDEX_MASK;
+        if (handle < 0 || index >= nextIndex || generations[(int) index] != handle >>> INDEX_BITS) {
+            return null;
+        }
+        return entities[(int) index];
+    }
+
+    /**
+     * Checks if a handle still refers to a registered entity.
+     *
+     * @param handle the handle
+     * @return true if the entity of the handle is registered, false otherwise
+     */
+    public boolean isAlive(long handle) {
+        return get(handle) != null;
+    }
+
+    /**
+     * Registers an entity, reusing the slot released longest ago if there is one.
+     * An entity already registered here keeps its handle.
+     *
+     * @param entity the entity
+     * @return the handle of the entity
+     * @throws IllegalStateException if all slots are taken
+     */
+    public synchronized long register(Entity entity) {
+        if (get(entity.getHandle()) == entity) {
+            return entity.getHandle();
+        }
+
+        int index;
+        if (freeCount > 0) {
+            index = freeIndexes[freeHead];
+            freeHead = (freeHead + 1) % freeIndexes.length;
+            freeCount--;
+        } else {
+            if (nextIndex == entities.length) {
+                if (entities.length > Integer.MAX_VALUE / 2) {
+                    throw new IllegalStateException("Entity registry is full");
+                }
+                int capacity = entities.length * 2;
+                entities = Arrays.copyOf(entities, capacity);
+                generations = Arrays.copyOf(generations, capacity);
+                freeIndexes = new int[capacity];
+                freeHead = 0;
+            }
+            index = nextIndex++;
+        }
+        entities[index] = entity;
+        size++;
+        long handle = (long) generations[index] << INDEX_BITS | index;
+        entity.setHandle(handle);
+        return handle;
+    }
+
+    /**
+     * Releases the slot of a registered entity. Its handle becomes stale and the slot may be given to another entity,
+     * unless its generation is exhausted.
+     * Does nothing if the entity is not registered here.
+     *
+     * @param entity the entity
+     */
+    public synchronized void release(Entity entity) {
+        long handle = entity.getHandle();
+        if (get(handle) != entity) {
+            return;
+        }
+        int index = (int) (handle & INDEX_MASK);
+        entities[index] = null;
+        size--;
+        entity.setHandle(NO_HANDLE);
+        if (generations[index] == MAX_GENERATION) {
+            return;
+        }
+        generations[index]++;
+        freeIndexes[(freeHead + freeCount++) % freeIndexes.length] = index;
+    }
+
+    /**
+     * Notes that an entity has entered a cell of the world or been taken along by a child,
+     * and registers it if it has just appeared.
+     *
+     * @param entity the entity
+     */
+    public void enter(Entity entity) {
+        if (entity.addPresence(1) == 1 && get(entity.getHandle()) != entity) {
+            register(entity);
+        }
+    }
+
+    /**
+     * Notes that an entity has left a cell of the world or been let go by a child.
+     * If it is nowhere in the world any more, its slot is released by the next {@link #releaseAbsent()}.
+     *
+     * @param entity the entity
+     */
+    public void leave(Entity entity) {
+        if (entity.addPresence(-1) == 0) {
+            synchronized (this) {
+                absent.add(entity);
+            }
+        }
+    }
+
+    /**
+     * Releases the slots of the entities that have left the world and not come back since.
+     * Should be called once per tick, when no entities are moving.
+     */
+    public synchronized void releaseAbsent() {
+        for (Entity entity : absent) {
+            if (entity.getPresence() == 0) {
+                release(entity);
+            }
+        }
+        absent.clear();
+    }
+}
@@ -1,19 +1,17 @@
 package com.toropov.oleg.entity;
 
 import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityGrid;
+import com.toropov.oleg.map.FreeCellIndex;
 import com.toropov.oleg.map.WorldMap;
 
-import java.util.HashSet;
-import java.util.Random;
-import java.util.Set;
+import java.util.random.RandomGenerator;
 
 /**
- * Factory class for adding extra grass to the world map when needed.
+ * Factory class for adding extra grass to random empty squares of the world map.
+ * When grass grows back is decided by the {@link com.toropov.oleg.map.GrassRegrowth} of each map.
  */
 public class ExtraGrassFactory {
-    private static final int AMOUNT_OF_ADDITIONAL_GRASS = EntityFactory.GRASS_COUNT - EntityFactory.GRASS_COUNT / 3;
-    private static final int MAP_SIZE = 20;
-    private static boolean isGrassOver = false;
 
     /**
      * Default constructor.
@@ -24,63 +22,24 @@ public class ExtraGrassFactory {
     }
 
     /**
-     * Sets the flag indicating if the grass is over.
-     *
-     * @param isGrassOver true if the grass is over, false otherwise
-     */
-    public static void setIsGrassOver(boolean isGrassOver) {
-        ExtraGrassFactory.isGrassOver = isGrassOver;
-    }
-
-    /**
-     * Checks if the grass is over in the simulation.
-     * This method returns the value of the isGrassOver flag,
-     * which indicates whether additional grass needs to be added to the map.
-     *
-     * @return true if the grass is over and additional grass should be added, false otherwise
-     */
-    public static boolean isGrassOver() {
-        return isGrassOver;
-    }
-
-    /**
-     * Adds additional grass to the world map if the grass is over.
+     * Adds the specified amount of grass to random empty squares of the world map.
+     * The squares are drawn from the index of empty cells of the map, so the cost does not depend on how full it is.
+     * If the map has fewer empty squares than that, all of them are filled.
      *
      * @param map the world map
+     * @param amount the amount of grass to add
+     * @param random the random number generator choosing the squares
+     * @return the amount of grass added
      */
-    public static void addingGrass(WorldMap map) {
-        if (isGrassOver) {
-            Set<Coordinates> randomCoordinates = createRandomCoordinates(map);
-            for (Coordinates coordinates : randomCoordinates) {
-                map.setEntity(coordinates, new Grass(coordinates));
-            }
-
-            isGrassOver = false;
+    public static int addingGrass(WorldMap map, int amount, RandomGenerator random) {
+        FreeCellIndex freeCells = map.getFreeCells();
+        EntityGrid grid = map.getGrid();
+        int count = Math.min(amount, freeCells.size());
+        for (int i = 0; i < count; i++) {
+            int cell = freeCells.sample(random);
+            Coordinates coordinates = new Coordinates(grid.xOf(cell), grid.yOf(cell));
+            map.setEntity(coordinates, new Grass(coordinates));
         }
-    }
-
-    /**
-     * Creates a set of random coordinates within the map where the grass can be added.
-     *
-     * @param map the world map
-     * @return a set of random coordinates
-     */
-    private static Set<Coordinates> createRandomCoordinates(WorldMap map) {
-        Random random = new Random();
-        Set<Coordinates> randomCoordinates = new HashSet<>();
-
-        int count = AMOUNT_OF_ADDITIONAL_GRASS;
-        while (count > 0) {
-            int x = random.nextInt(MAP_SIZE);
-            int y = random.nextInt(MAP_SIZE);
-            Coordinates currentRandomCoordinates = new Coordinates(x, y);
-
-            if (map.isSquareEmpty(currentRandomCoordinates)) {
-                randomCoordinates.add(currentRandomCoordinates);
-                count--;
-            }
-        }
-
-        return randomCoordinates;
+        return count;
     }
 }
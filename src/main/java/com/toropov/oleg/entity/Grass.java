@@ -1,6 +1,7 @@
 package com.toropov.oleg.entity;
 
 import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityType;
 
 /**
  * Represents a grass entity on the map.
@@ -13,6 +14,6 @@ public class Grass extends Entity{
      * @param coordinates the coordinates of the grass entity
      */
     public Grass(Coordinates coordinates) {
-        super(coordinates);
+        super(coordinates, EntityType.GRASS);
     }
 }
@@ -0,0 +1,111 @@
+package com.toropov.oleg.entity;
+
+import com.toropov.oleg.map.EntityType;
+
+/**
+ * The InteractionTable class says what a creature of each type may do with each kind of occupant of a cell.
+ * The rules are a matrix of bit flags indexed by the type of the moving creature and the type of the occupant,
+ * with an extra column for empty cells, so checking a cell costs one array load instead of a chain of type tests.
+ * Adding a species means adding its rules here rather than another branch to every movement method.
+ */
+public class InteractionTable {
+    /**
+     * The creature may step into the cell.
+     */
+    public static final int ENTER = 1;
+
+    /**
+     * The creature may step into the cell and eat its occupant.
+     */
+    public static final int EAT = 2;
+
+    /**
+     * The creature may step into the cell to mate with its occupant, if mating is currently allowed.
+     */
+    public static final int MATE = 4;
+
+    /**
+     * The creature stops next to the occupant and tries to pair with it instead of stepping into its cell.
+     */
+    public static final int MEET = 8;
+
+    private static final int EMPTY = EntityType.values().length;
+    private static final byte[][] RULES = new byte[EntityType.values().length][EMPTY + 1];
+    private static final EntityType[] MATES = new EntityType[EntityType.values().length];
+
+    static {
+        for (EntityType chicken : new EntityType[]{EntityType.ROOSTER, EntityType.HEN, EntityType.CHICK}) {
+            allow(chicken, null, ENTER);
+            allow(chicken, EntityType.GRASS, EAT);
+        }
+        allow(EntityType.HEN, EntityType.ROOSTER, MATE | MEET);
+        allow(EntityType.HEN, EntityType.HEN, MEET);
+        allow(EntityType.ROOSTER, EntityType.HEN, MATE | MEET);
+        allow(EntityType.ROOSTER, EntityType.ROOSTER, MEET);
+
+        for (EntityType fox : new EntityType[]{EntityType.MALE_FOX, EntityType.FEMALE_FOX, EntityType.FOX_CUB}) {
+            allow(fox, null, ENTER);
+            allow(fox, EntityType.HEN, EAT);
+            allow(fox, EntityType.ROOSTER, EAT);
+        }
+        allow(EntityType.MALE_FOX, EntityType.FEMALE_FOX, MATE | MEET);
+        allow(EntityType.MALE_FOX, EntityType.MALE_FOX, MEET);
+        allow(EntityType.FEMALE_FOX, EntityType.MALE_FOX, MATE | MEET);
+        allow(EntityType.FEMALE_FOX, EntityType.FEMALE_FOX, MEET);
+    }
+
+    /**
+     * Default constructor.
+     * This class is not intended to be instantiated.
+     */
+    public InteractionTable() {
+        // Utility class, no instances allowed.
+    }
+
+    /**
+     * Gets the flags of a creature type towards an occupant.
+     *
+     * @param mover the type of the moving creature
+     * @param occupant the occupant of the cell, or null if the cell is empty
+     * @return the flags, 0 if the creature may not interact with the occupant at all
+     */
+    public static int get(EntityType mover, Entity occupant) {
+        return RULES[mover.ordinal()][occupant == null ? EMPTY : occupant.getType().ordinal()];
+    }
+
+    /**
+     * Checks if a creature type has any of the specified flags towards an occupant.
+     *
+     * @param mover the type of the moving creature
+     * @param occupant the occupant of the cell, or null if the cell is empty
+     * @param flags the flags to check
+     * @return true if any of the flags is set, false otherwise
+     */
+    public static boolean has(EntityType mover, Entity occupant, int flags) {
+        return (get(mover, occupant) & flags) != 0;
+    }
+
+    /**
+     * Gets the type a creature type mates with.
+     *
+     * @param mover the type of the creature
+     * @return the type of its mates, or null if it does not mate
+     */
+    public static EntityType mateOf(EntityType mover) {
+        return MATES[mover.ordinal()];
+    }
+
+    /**
+     * Adds flags to the rules of a creature type towards an occupant type.
+     *
+     * @param mover the type of the moving creature
+     * @param occupant the type of the occupant, or null for empty cells
+     * @param flags the flags to add
+     */
+    private static void allow(EntityType mover, EntityType occupant, int flags) {
+        RULES[mover.ordinal()][occupant == null ? EMPTY : occupant.ordinal()] |= (byte) flags;
+        if ((flags & MATE) != 0) {
+            MATES[mover.ordinal()] = occupant;
+        }
+    }
+}
@@ -13,17 +13,24 @@ import java.util.Map;
  */
 public interface Kids {
 
+    /**
+     * Gets all parents that are still attached to the child entity.
+     *
+     * @return a list of parent entities
+     */
+    List<Entity> getAllParents();
+
     /**
      * Retrieves a parent entity based on the priority of their type.
      *
-     * @param countEntities  a map of entity type counts
+     * @param map            the world map providing the entity counts
      * @param parents        a map of parent entities
      * @param primaryType    the primary entity type to check
      * @param secondaryType  the secondary entity type to check
      * @return the parent entity of the higher priority type
      */
-    default Entity getParentByPriority(Map<EntityType, Integer> countEntities, Map<EntityType, Entity> parents, EntityType primaryType, EntityType secondaryType) {
-        return (countEntities.get(primaryType) < countEntities.get(secondaryType)) ? parents.remove(primaryType) :
+    default Entity getParentByPriority(WorldMap map, Map<EntityType, Entity> parents, EntityType primaryType, EntityType secondaryType) {
+        return (map.countEntities(primaryType) < map.countEntities(secondaryType)) ? parents.remove(primaryType) :
                 parents.remove(secondaryType);
     }
 
@@ -40,27 +47,43 @@ public interface Kids {
     }
 
     /**
-     * Moves the parent entity of a child entity to a target location.
+     * Finds the cell next to the child entity where a released parent should go to head for the target.
      *
-     * @param map          the world map
-     * @param current      the current coordinates of the child entity
-     * @param target       the target coordinates
-     * @param kids         the child entity
-     * @param parentEntity the parent entity to be moved
+     * @param map     the world map
+     * @param current the current coordinates of the child entity
+     * @param target  the target coordinates, or null if there is no target
+     * @param kids    the child entity
+     * @return the coordinates of the cell, or null if there is no target or no way to it
      */
-    default void moveParentOfChild(WorldMap map, Coordinates current, Coordinates target, Creature kids, Entity parentEntity) {
-        if (target != null) {
-            List<Coordinates> path = PathFinder.findPathAStar(map, current, target, kids);
-
-            if (!path.isEmpty()) {
-                Coordinates nextMove = path.get(0);
-                if (parentEntity instanceof Creature creature) {
-                    map.setEntity(nextMove, creature);
+    default Coordinates findParentStep(WorldMap map, Coordinates current, Coordinates target, Creature kids) {
+        return target == null ? null : PathFinder.findNextStep(map, current, target, kids);
+    }
 
-                    if (nextMove.equals(target)) {
-                        creature.setSkipNextMove(true);
-                    }
+    /**
+     * Places a released parent entity on the map. A parent with nowhere to go, or whose cell has been taken
+     * by another thread in the meantime, is left off the map.
+     *
+     * @param map          the world map
+     * @param nextMove     the cell found by {@link #findParentStep}, or null
+     * @param target       the target coordinates, or null
+     * @param parentEntity the parent entity to be placed
+     */
+    default void placeParent(WorldMap map, Coordinates nextMove, Coordinates target, Entity parentEntity) {
+        if (nextMove != null && parentEntity instanceof Creature creature) {
+            Entity occupant = map.getEntity(nextMove);
+            if (!Creature.tryAcquire(occupant)) {
+                return;
+            }
+            try {
+                if (!map.claimEntity(nextMove, occupant, creature)) {
+                    return;
                 }
+            } finally {
+                Creature.release(occupant);
+            }
+
+            if (nextMove.equals(target)) {
+                creature.setSkipNextMove(true);
             }
         }
     }
@@ -0,0 +1,153 @@
+package com.toropov.oleg.entity;
+
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.WorldMap;
+
+/**
+ * The MoveIntent class describes what a creature has decided to do in the current tick, before anything is changed.
+ * It records the step the creature wants to take, the target it heads for and the occupant of the step
+ * at planning time, so a scheduler can tell whether the plan still fits the map when it is applied.
+ * Instances are immutable.
+ */
+public final class MoveIntent {
+    private static final MoveIntent NONE = new MoveIntent(Action.NONE, null, null, null);
+    private static final MoveIntent REST = new MoveIntent(Action.REST, null, null, null);
+    private static final MoveIntent GROW_UP = new MoveIntent(Action.GROW_UP, null, null, null);
+
+    private final Action action;
+    private final Coordinates step;
+    private final Coordinates target;
+    private final Entity expectedOccupant;
+
+    /**
+     * Enumeration of the things a creature can do in one tick.
+     */
+    public enum Action {
+        /**
+         * The creature does nothing.
+         */
+        NONE,
+
+        /**
+         * The creature skips its move and regenerates health.
+         */
+        REST,
+
+        /**
+         * The creature steps onto a cell, eating or mating with its occupant if there is one.
+         */
+        STEP,
+
+        /**
+         * The kid releases one of its parents onto a cell next to it.
+         */
+        RELEASE_PARENT,
+
+        /**
+         * The kid transforms into an adult.
+         */
+        GROW_UP
+    }
+
+    /**
+     * Constructs a MoveIntent.
+     *
+     * @param action the planned action
+     * @param step the cell the action affects, or null
+     * @param target the target the creature heads for, or null
+     * @param expectedOccupant the occupant of the step at planning time
+     */
+    private MoveIntent(Action action, Coordinates step, Coordinates target, Entity expectedOccupant) {
+        this.action = action;
+        this.step = step;
+        this.target = target;
+        this.expectedOccupant = expectedOccupant;
+    }
+
+    /**
+     * Gets the intent of a creature that does nothing.
+     *
+     * @return the intent
+     */
+    public static MoveIntent none() {
+        return NONE;
+    }
+
+    /**
+     * Gets the intent of a creature that skips its move to regenerate health.
+     *
+     * @return the intent
+     */
+    public static MoveIntent rest() {
+        return REST;
+    }
+
+    /**
+     * Gets the intent of a kid that transforms into an adult.
+     *
+     * @return the intent
+     */
+    public static MoveIntent growUp() {
+        return GROW_UP;
+    }
+
+    /**
+     * Creates the intent of a creature stepping onto a cell.
+     *
+     * @param map the world map the plan was made on
+     * @param step the cell to step onto
+     * @param target the target the creature heads for, or null
+     * @return the intent
+     */
+    public static MoveIntent step(WorldMap map, Coordinates step, Coordinates target) {
+        return new MoveIntent(Action.STEP, step, target, map.getEntity(step));
+    }
+
+    /**
+     * Creates the intent of a kid releasing a parent.
+     *
+     * @param map the world map the plan was made on
+     * @param step the cell to place the parent on, or null if the parent has nowhere to go
+     * @param target the target the kid heads for, or null
+     * @return the intent
+     */
+    public static MoveIntent releaseParent(WorldMap map, Coordinates step, Coordinates target) {
+        return new MoveIntent(Action.RELEASE_PARENT, step, target, step == null ? null : map.getEntity(step));
+    }
+
+    /**
+     * Gets the planned action.
+     *
+     * @return the action
+     */
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * Gets the cell the action affects.
+     *
+     * @return the step, or null if the action does not affect another cell
+     */
+    public Coordinates getStep() {
+        return step;
+    }
+
+    /**
+     * Gets the target the creature heads for.
+     *
+     * @return the target, or null if there is none
+     */
+    public Coordinates getTarget() {
+        return target;
+    }
+
+    /**
+     * Gets the occupant of the step at planning time.
+     *
+     * @return the expected occupant, or null if the step was empty or there is no step
+     */
+    public Entity getExpectedOccupant() {
+        return expectedOccupant;
+    }
+}
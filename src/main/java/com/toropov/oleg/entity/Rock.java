@@ -1,6 +1,7 @@
 package com.toropov.oleg.entity;
 
 import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityType;
 
 /**
  * Represents a rock entity in the world map.
@@ -13,6 +14,6 @@ public class Rock extends Entity{
      * @param coordinates the coordinates of the rock
      */
     public Rock(Coordinates coordinates) {
-        super(coordinates);
+        super(coordinates, EntityType.ROCK);
     }
 }
@@ -1,6 +1,7 @@
 package com.toropov.oleg.entity;
 
 import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityType;
 
 /**
  * Represents a tree entity in the world map.
@@ -13,6 +14,6 @@ public class Tree extends Entity{
      * @param coordinates the coordinates of the tree
      */
     public Tree(Coordinates coordinates) {
-        super(coordinates);
+        super(coordinates, EntityType.TREE);
     }
 }
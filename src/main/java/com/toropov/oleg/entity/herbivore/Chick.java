@@ -2,6 +2,7 @@ package com.toropov.oleg.entity.herbivore;
 
 import com.toropov.oleg.entity.Entity;
 import com.toropov.oleg.entity.Kids;
+import com.toropov.oleg.entity.MoveIntent;
 import com.toropov.oleg.map.Coordinates;
 import com.toropov.oleg.map.EntityType;
 import com.toropov.oleg.map.WorldMap;
@@ -27,11 +28,12 @@ public class Chick extends Chickens implements Kids {
      * @param generation the generation of the chick
      */
     public Chick(Coordinates coordinates, int speed, int healthPoints, int generation) {
-        super(coordinates, speed, healthPoints, generation);
+        super(coordinates, EntityType.CHICK, speed, healthPoints, generation);
     }
 
     /**
      * Sets the parents of the chick.
+     * Parents should be attached before the chick is placed on the map, so that the map counts them.
      *
      * @param type the type of the parent entity
      * @param entity the parent entity
@@ -45,6 +47,7 @@ public class Chick extends Chickens implements Kids {
      *
      * @return a list of parent entities
      */
+    @Override
     public List<Entity> getAllParents() {
         return new ArrayList<>(parents.values());
     }
@@ -57,28 +60,56 @@ public class Chick extends Chickens implements Kids {
      * @return the parent entity
      */
     public Entity getParents(WorldMap map, int healthPoints) {
-        Map<EntityType, Integer> countEntities = map.countEntities();
-        if (healthPoints == 1) {
-            return getParentByPriority(countEntities, parents, EntityType.ROOSTER, EntityType.HEN);
-        } else {
-            return getParentByPresence(parents, EntityType.ROOSTER, EntityType.HEN);
-        }
+        Entity parent = (healthPoints == 1) ?
+                getParentByPriority(map, parents, EntityType.ROOSTER, EntityType.HEN) :
+                getParentByPresence(parents, EntityType.ROOSTER, EntityType.HEN);
+        map.detachParent(this, parent);
+        return parent;
     }
 
     /**
-     * Makes a move for the chick. If the chick still has parents, it waits for them to leave the current cell.
+     * Plans the move of the chick. If the chick still has parents, it releases one of them towards the nearest target.
      * Otherwise, it transforms into an adult.
      *
      * @param map the world map
+     * @return the intent of the chick
+     */
+    @Override
+    public MoveIntent planMove(WorldMap map) {
+        if (parents.isEmpty()) {
+            return MoveIntent.growUp();
+        }
+
+        Coordinates target = findNearestGrassOrCouple(map);
+        return MoveIntent.releaseParent(map, findParentStep(map, getCoordinates(), target, this), target);
+    }
+
+    /**
+     * Applies the planned move of the chick: releases a parent or transforms into an adult.
+     *
+     * @param map the world map
+     * @param intent the intent returned by {@link #planMove}
      */
     @Override
-    public void makeMove(WorldMap map) {
-        if (!parents.isEmpty()) {
-            decreaseHealth();
-            Coordinates target = findNearestGrassOrCouple(map);
-            moveParentOfChild(map, getCoordinates(), target, this, getParents(map, getHealthPoints()));
-        } else {
-            transformIntoAdult(map);
+    public void applyMove(WorldMap map, MoveIntent intent) {
+        switch (intent.getAction()) {
+            case RELEASE_PARENT -> {
+                if (!tryAcquire()) {
+                    return;
+                }
+                try {
+                    if (map.getEntity(getCoordinates()) == this) {
+                        decreaseHealth();
+                        placeParent(map, intent.getStep(), intent.getTarget(), getParents(map, getHealthPoints()));
+                    }
+                } finally {
+                    release();
+                }
+            }
+            case GROW_UP -> transformIntoAdult(map);
+            default -> {
+                // Nothing to do.
+            }
         }
     }
 
@@ -88,12 +119,10 @@ public class Chick extends Chickens implements Kids {
      * @param map the world map
      */
     private void transformIntoAdult(WorldMap map) {
-        map.removeEntity(getCoordinates());
-        Map<EntityType, Integer> countEntities = map.countEntities();
-        Entity newEntity = (countEntities.get(EntityType.ROOSTER) < countEntities.get(EntityType.HEN)) ?
+        Entity newEntity = (map.countEntities(EntityType.ROOSTER) < map.countEntities(EntityType.HEN)) ?
                 new Rooster(getCoordinates(), 1, 20, getGeneration()) :
                 new Hen(getCoordinates(), 1, 20, getGeneration());
 
-        map.setEntity(getCoordinates(), newEntity);
+        map.claimEntity(getCoordinates(), this, newEntity);
     }
 }
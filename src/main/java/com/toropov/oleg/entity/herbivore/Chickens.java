@@ -1,13 +1,13 @@
 package com.toropov.oleg.entity.herbivore;
 
 import com.toropov.oleg.entity.Entity;
-import com.toropov.oleg.entity.EntityFactory;
+import com.toropov.oleg.entity.InteractionTable;
+import com.toropov.oleg.entity.MoveIntent;
 import com.toropov.oleg.map.Coordinates;
 import com.toropov.oleg.map.EntityType;
 import com.toropov.oleg.map.WorldMap;
-import com.toropov.oleg.pathfinding.PathFinder;
-
-import java.util.*;
+import com.toropov.oleg.pathfinding.FlowFields;
+import com.toropov.oleg.pathfinding.TargetSearch;
 
 /**
  * Represents chickens in the simulation.
@@ -20,52 +20,98 @@ public abstract class Chickens extends Herbivore {
      * Constructs a Chicken with the specified coordinates, speed, health points, and generation.
      *
      * @param coordinates the coordinates of the chicken
+     * @param type the type of the chicken
      * @param speed the speed of the chicken
      * @param healthPoints the health points of the chicken
      * @param generation the generation of the chicken
      */
-    public Chickens(Coordinates coordinates, int speed, int healthPoints, int generation) {
-        super(coordinates, speed, healthPoints, generation);
+    public Chickens(Coordinates coordinates, EntityType type, int speed, int healthPoints, int generation) {
+        super(coordinates, type, speed, healthPoints, generation);
+    }
+
+    /**
+     * Gets the number of health points the chicken regains when it rests.
+     *
+     * @return the health points regained by a rest
+     */
+    @Override
+    public int getRestHealthPoints() {
+        return ADDITIONAL_HEALTH;
     }
 
 
     /**
-     * Checks if the number of hens and roosters exceeds the threshold.
+     * Checks if the number of hens and roosters exceeds twice the population the map was populated with.
      *
-     * @param countEntities a map of entity counts
+     * @param map the world map
      * @return true if the number of hens and roosters exceeds the threshold, false otherwise
      */
-    protected boolean areEntitiesExceedingThreshold(Map<EntityType, Integer> countEntities) {
-        return countEntities.get(EntityType.HEN) > EntityFactory.HEN_COUNT * 2 &&
-                countEntities.get(EntityType.ROOSTER) > EntityFactory.ROOSTER_COUNT * 2;
+    protected boolean areEntitiesExceedingThreshold(WorldMap map) {
+        return map.countEntities(EntityType.HEN) > map.getInitialPopulation(EntityType.HEN) * 2 &&
+                map.countEntities(EntityType.ROOSTER) > map.getInitialPopulation(EntityType.ROOSTER) * 2;
+    }
+
+    /**
+     * Allows stepping onto a mate while the population is below the threshold.
+     *
+     * @param map the world map
+     * @return true if mating is allowed, false otherwise
+     */
+    @Override
+    protected boolean isMatingAllowed(WorldMap map) {
+        return !areEntitiesExceedingThreshold(map);
     }
 
     /**
-     * Makes a move for the chicken. If the chicken is set to skip the next move, it regenerates health.
+     * Plans the move of the chicken. If the chicken is set to skip the next move, it regenerates health.
      * Otherwise, it finds the nearest grass or mate and moves towards it.
+     * When the flow fields of the map are enabled, the way to grass is read from the shared grass field;
+     * if the field offers no step, the chicken searches on its own.
      *
      * @param map the world map
+     * @return the intent of the chicken
      */
     @Override
-    public void makeMove(WorldMap map) {
+    public MoveIntent planMove(WorldMap map) {
         if (isSkipNextMove()) {
-            regenerateHealth(ADDITIONAL_HEALTH);
-            setSkipNextMove(false);
-        } else {
-            Coordinates target = findNearestGrassOrCouple(map);
-            if (target != null) {
-                List<Coordinates> path = PathFinder.findPathAStar(map, getCoordinates(), target, this);
-                if (!path.isEmpty()) {
-                    Coordinates nextMove = path.get(0);
-                    handleMove(map, nextMove, target);
-                }
+            return MoveIntent.rest();
+        }
+
+        FlowFields flowFields = map.getFlowFields();
+        if (flowFields.isEnabled() && !needsMating(map)) {
+            Coordinates nextMove = flowFields.nextStepTowardsGrass(this);
+            if (nextMove != null) {
+                boolean eats = InteractionTable.has(getType(), map.getEntity(nextMove), InteractionTable.EAT);
+                return MoveIntent.step(map, nextMove, eats ? nextMove : null);
+            }
+        }
+        TargetSearch.Result result = findReachableGrassOrCouple(map);
+        if (result != null) {
+            return MoveIntent.step(map, result.getFirstStep(), result.getTarget());
+        }
+        return MoveIntent.none();
+    }
+
+    /**
+     * Applies the planned move of the chicken: regenerates health after a rest, or steps towards the target.
+     *
+     * @param map the world map
+     * @param intent the intent returned by {@link #planMove}
+     */
+    @Override
+    public void applyMove(WorldMap map, MoveIntent intent) {
+        switch (intent.getAction()) {
+            case REST -> finishRest();
+            case STEP -> handleMove(map, intent.getStep(), intent.getTarget());
+            default -> {
+                // Nothing to do.
             }
         }
     }
 
     /**
      * Handles the movement of the chicken to the next position.
-     * If the next position contains a hen or rooster, it checks if creating a chick is necessary.
+     * If the chicken meets another adult chicken there, it checks if creating a chick is necessary.
      * Otherwise, it moves to the next position.
      *
      * @param map the world map
@@ -73,10 +119,11 @@ public abstract class Chickens extends Herbivore {
      * @param target the target coordinates
      */
     private void handleMove(WorldMap map, Coordinates nextMove, Coordinates target) {
-        if (map.getEntity(nextMove) instanceof Hen || map.getEntity(nextMove) instanceof Rooster) {
+        Entity occupant = map.getEntity(nextMove);
+        if (InteractionTable.has(getType(), occupant, InteractionTable.MEET)) {
             checkForCreateChick(map, nextMove);
         } else {
-            move(nextMove, map);
+            move(nextMove, map, occupant);
         }
 
         if (nextMove.equals(target)) {
@@ -103,6 +150,7 @@ public abstract class Chickens extends Herbivore {
 
     /**
      * Creates a chick at the specified position.
+     * Nothing happens if either parent has left its cell or is busy with a move on another thread.
      *
      * @param map the world map
      * @param nextMove the coordinates of the next move
@@ -110,16 +158,30 @@ public abstract class Chickens extends Herbivore {
      * @param rooster the rooster involved in creating the chick
      */
     private void createChick(WorldMap map, Coordinates nextMove, Hen hen, Rooster rooster) {
-        map.removeEntity(getCoordinates());
-        map.removeEntity(nextMove);
-
-        int generationChick = Math.max(rooster.getGeneration(), hen.getGeneration()) + 1;
-        Chick chick = new Chick(nextMove, 0, 2, generationChick);
+        Entity partner = this == hen ? rooster : hen;
+        if (!tryAcquire()) {
+            return;
+        }
+        try {
+            if (map.getEntity(getCoordinates()) != this || !tryAcquire(partner)) {
+                return;
+            }
+            try {
+                int generationChick = Math.max(rooster.getGeneration(), hen.getGeneration()) + 1;
+                Chick chick = new Chick(nextMove, 0, 2, generationChick);
 
-        chick.setParents(EntityType.ROOSTER, rooster);
-        chick.setParents(EntityType.HEN, hen);
+                chick.setParents(EntityType.ROOSTER, rooster);
+                chick.setParents(EntityType.HEN, hen);
 
-        map.setEntity(nextMove, chick);
+                if (map.claimEntity(nextMove, partner, chick)) {
+                    map.releaseEntity(getCoordinates(), this);
+                }
+            } finally {
+                release(partner);
+            }
+        } finally {
+            release();
+        }
     }
 }
 
@@ -1,16 +1,12 @@
 package com.toropov.oleg.entity.herbivore;
 
 import com.toropov.oleg.entity.Creature;
-import com.toropov.oleg.entity.Entity;
-import com.toropov.oleg.entity.EntityFactory;
-import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.InteractionTable;
 import com.toropov.oleg.map.Coordinates;
 import com.toropov.oleg.map.EntityType;
 import com.toropov.oleg.map.WorldMap;
-import com.toropov.oleg.map.WorldMapUtils;
-
-import java.util.List;
-import java.util.Map;
+import com.toropov.oleg.pathfinding.CellFilter;
+import com.toropov.oleg.pathfinding.TargetSearch;
 
 /**
  * Represents a herbivore in the simulation.
@@ -22,59 +18,48 @@ public abstract class Herbivore extends Creature {
      * Constructs a Herbivore with the specified coordinates, speed, health points, and generation.
      *
      * @param coordinates the coordinates of the herbivore
+     * @param type the type of the herbivore
      * @param speed the speed of the herbivore
      * @param healthPoints the health points of the herbivore
      * @param generation the generation of the herbivore
      */
-    public Herbivore(Coordinates coordinates, int speed, int healthPoints, int generation) {
-        super(coordinates, speed, healthPoints, generation);
+    public Herbivore(Coordinates coordinates, EntityType type, int speed, int healthPoints, int generation) {
+        super(coordinates, type, speed, healthPoints, generation);
     }
 
-    /**
-     * Checks if the square at the given coordinates is available for the herbivore to move into.
-     * A square is considered available if it is empty or contains grass.
-     *
-     * @param coordinates the coordinates of the square to check
-     * @param map the world map
-     * @return true if the square is available for move, false otherwise
-     */
-    @Override
-    public boolean isSquareAvailableForMove(Coordinates coordinates, WorldMap map) {
-        boolean isEmpty = super.isSquareAvailableForMove(coordinates, map);
-        boolean isGrass = map.getEntity(coordinates) instanceof Grass;
-
-        return isEmpty || isGrass;
-    }
 
     /**
      * Finds the nearest grass or a potential mate for the herbivore.
      * If mating is needed, prioritizes finding a mate over grass.
      *
      * @param map the world map
-     * @return the coordinates of the nearest grass or mate, or null if none found
+     * @return the coordinates of the nearest grass or mate within {@link #SIGHT_RADIUS}, or null if none found
+     *         or terrain cuts it off
      */
     protected Coordinates findNearestGrassOrCouple(WorldMap map) {
         Coordinates start = getCoordinates();
-        List<int[]> shifts = WorldMapUtils.getAllSortedShiftsForCoordinates(map.getMapSize());
-
-        for (int[] shift : shifts) {
-            Coordinates neighbor = new Coordinates(start.getX() + shift[0], start.getY() + shift[1]);
-
-            if (map.isWithinBounds(neighbor)) {
-                Entity entity = map.getEntity(neighbor);
-                if (needsMating(map)) {
-                    Entity currentEntity = map.getEntity(start);
-                    if (currentEntity instanceof Hen && entity instanceof Rooster ||
-                            currentEntity instanceof Rooster && entity instanceof Hen) {
-                        return neighbor;
-                    }
-                } else if (entity instanceof Grass) {
-                    return neighbor;
-                }
-            }
+        if (needsMating(map)) {
+            EntityType mate = InteractionTable.mateOf(getType());
+            return mate == null ? null : rejectUnreachable(map, map.nearest(mate, start, SIGHT_RADIUS));
         }
+        return rejectUnreachable(map, map.nearest(EntityType.GRASS, start, SIGHT_RADIUS));
+    }
 
-        return null;
+    /**
+     * Finds the nearest grass or potential mate the herbivore can actually reach, and the first step towards it.
+     * If mating is needed, looks for a mate instead of grass: the mate comes from the spatial index and only
+     * a path towards it is searched, see {@link #findMate}. Food is dense, so it is found with one breadth-first
+     * search that stops at the first reachable grass within {@link #SIGHT_RADIUS} moves.
+     *
+     * @param map the world map
+     * @return the target and the first step towards it, or null if none can be reached
+     */
+    protected TargetSearch.Result findReachableGrassOrCouple(WorldMap map) {
+        if (needsMating(map)) {
+            return findMate(map);
+        }
+        CellFilter targets = entity -> InteractionTable.has(getType(), entity, InteractionTable.EAT);
+        return TargetSearch.findNearest(map, this, targets, SIGHT_RADIUS);
     }
 
     /**
@@ -83,16 +68,14 @@ public abstract class Herbivore extends Creature {
      * @param map the world map
      * @return true if mating is needed, false otherwise
      */
-    private boolean needsMating(WorldMap map) {
-        Map<EntityType, Integer> countEntities = map.countEntities();
-        boolean roosterDeficit = countEntities.get(EntityType.ROOSTER) <= EntityFactory.ROOSTER_COUNT / 2 &&
-                countEntities.get(EntityType.ROOSTER) > 0 &&
-                countEntities.get(EntityType.HEN) >= 2 &&
-                countEntities.get(EntityType.CHICK) == 0;
-        boolean henDeficit = countEntities.get(EntityType.HEN) <= EntityFactory.HEN_COUNT / 2 &&
-                countEntities.get(EntityType.HEN) > 0 &&
-                countEntities.get(EntityType.ROOSTER) >= 2 &&
-                countEntities.get(EntityType.CHICK) == 0;
+    protected boolean needsMating(WorldMap map) {
+        int roosters = map.countEntities(EntityType.ROOSTER);
+        int hens = map.countEntities(EntityType.HEN);
+        int chicks = map.countEntities(EntityType.CHICK);
+        boolean roosterDeficit = roosters <= map.getInitialPopulation(EntityType.ROOSTER) / 2 && roosters > 0 &&
+                hens >= 2 && chicks == 0;
+        boolean henDeficit = hens <= map.getInitialPopulation(EntityType.HEN) / 2 && hens > 0 &&
+                roosters >= 2 && chicks == 0;
 
         return roosterDeficit || henDeficit;
     }
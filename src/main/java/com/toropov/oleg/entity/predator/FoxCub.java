@@ -2,6 +2,7 @@ package com.toropov.oleg.entity.predator;
 
 import com.toropov.oleg.entity.Entity;
 import com.toropov.oleg.entity.Kids;
+import com.toropov.oleg.entity.MoveIntent;
 import com.toropov.oleg.map.Coordinates;
 import com.toropov.oleg.map.EntityType;
 import com.toropov.oleg.map.WorldMap;
@@ -27,11 +28,12 @@ public class FoxCub extends Foxes implements Kids {
      * @param generation the generation of the fox cub
      */
     public FoxCub(Coordinates coordinates, int speed, int healthPoints, int generation) {
-        super(coordinates, speed, healthPoints, generation);
+        super(coordinates, EntityType.FOX_CUB, speed, healthPoints, generation);
     }
 
     /**
      * Sets a parent entity for the fox cub.
+     * Parents should be attached before the fox cub is placed on the map, so that the map counts them.
      *
      * @param type the type of the parent entity
      * @param entity the parent entity
@@ -45,6 +47,7 @@ public class FoxCub extends Foxes implements Kids {
      *
      * @return a list of parent entities
      */
+    @Override
     public List<Entity> getAllParents() {
         return new ArrayList<>(parents.values());
     }
@@ -57,28 +60,56 @@ public class FoxCub extends Foxes implements Kids {
      * @return the selected parent entity
      */
     public Entity getParents(WorldMap map, int healthPoints) {
-        Map<EntityType, Integer> countEntities = map.countEntities();
-        if (healthPoints == 1) {
-            return getParentByPriority(countEntities, parents, EntityType.MALE_FOX, EntityType.FEMALE_FOX);
-        } else {
-            return getParentByPresence(parents, EntityType.MALE_FOX, EntityType.FEMALE_FOX);
-        }
+        Entity parent = (healthPoints == 1) ?
+                getParentByPriority(map, parents, EntityType.MALE_FOX, EntityType.FEMALE_FOX) :
+                getParentByPresence(parents, EntityType.MALE_FOX, EntityType.FEMALE_FOX);
+        map.detachParent(this, parent);
+        return parent;
     }
 
     /**
-     * Makes a move for the fox cub. If the fox cub still has parents, it waits for them to leave the current cell.
+     * Plans the move of the fox cub. If the fox cub still has parents, it releases one of them towards the nearest target.
      * Otherwise, it transforms into an adult.
      *
      * @param map the world map
+     * @return the intent of the fox cub
+     */
+    @Override
+    public MoveIntent planMove(WorldMap map) {
+        if (parents.isEmpty()) {
+            return MoveIntent.growUp();
+        }
+
+        Coordinates target = findNearestHerbivoreOrCouple(map);
+        return MoveIntent.releaseParent(map, findParentStep(map, getCoordinates(), target, this), target);
+    }
+
+    /**
+     * Applies the planned move of the fox cub: releases a parent or transforms into an adult.
+     *
+     * @param map the world map
+     * @param intent the intent returned by {@link #planMove}
      */
     @Override
-    public void makeMove(WorldMap map) {
-        if (!parents.isEmpty()) {
-            decreaseHealth();
-            Coordinates target = findNearestHerbivoreOrCouple(map);
-            moveParentOfChild(map, getCoordinates(), target, this, getParents(map, getHealthPoints()));
-        } else {
-            transformIntoAdult(map);
+    public void applyMove(WorldMap map, MoveIntent intent) {
+        switch (intent.getAction()) {
+            case RELEASE_PARENT -> {
+                if (!tryAcquire()) {
+                    return;
+                }
+                try {
+                    if (map.getEntity(getCoordinates()) == this) {
+                        decreaseHealth();
+                        placeParent(map, intent.getStep(), intent.getTarget(), getParents(map, getHealthPoints()));
+                    }
+                } finally {
+                    release();
+                }
+            }
+            case GROW_UP -> transformIntoAdult(map);
+            default -> {
+                // Nothing to do.
+            }
         }
     }
 
@@ -88,12 +119,10 @@ public class FoxCub extends Foxes implements Kids {
      * @param map the world map
      */
     private void transformIntoAdult(WorldMap map) {
-        map.removeEntity(getCoordinates());
-        Map<EntityType, Integer> countEntities = map.countEntities();
-        Entity newEntity = (countEntities.get(EntityType.MALE_FOX) < countEntities.get(EntityType.FEMALE_FOX)) ?
+        Entity newEntity = (map.countEntities(EntityType.MALE_FOX) < map.countEntities(EntityType.FEMALE_FOX)) ?
                 new MaleFox(getCoordinates(), 1, 20, getGeneration()) :
                 new FemaleFox(getCoordinates(), 1, 20, getGeneration());
 
-        map.setEntity(getCoordinates(), newEntity);
+        map.claimEntity(getCoordinates(), this, newEntity);
     }
 }
@@ -1,14 +1,13 @@
 package com.toropov.oleg.entity.predator;
 
 import com.toropov.oleg.entity.Entity;
-import com.toropov.oleg.entity.EntityFactory;
+import com.toropov.oleg.entity.InteractionTable;
+import com.toropov.oleg.entity.MoveIntent;
 import com.toropov.oleg.map.Coordinates;
 import com.toropov.oleg.map.EntityType;
 import com.toropov.oleg.map.WorldMap;
-import com.toropov.oleg.pathfinding.PathFinder;
-
-import java.util.List;
-import java.util.Map;
+import com.toropov.oleg.pathfinding.FlowFields;
+import com.toropov.oleg.pathfinding.TargetSearch;
 
 /**
  * Represents a fox in the simulation. Foxes can hunt herbivores or find a mate to reproduce.
@@ -20,43 +19,89 @@ public abstract class Foxes extends Predator {
      * Constructs a new Fox.
      *
      * @param coordinates the initial coordinates of the fox
+     * @param type the type of the fox
      * @param speed the speed of the fox
      * @param healthPoints the health points of the fox
      * @param generation the generation of the fox
      */
-    public Foxes(Coordinates coordinates, int speed, int healthPoints, int generation) {
-        super(coordinates, speed, healthPoints, generation);
+    public Foxes(Coordinates coordinates, EntityType type, int speed, int healthPoints, int generation) {
+        super(coordinates, type, speed, healthPoints, generation);
     }
 
     /**
-     * Checks if the fox population exceeds the predefined threshold.
+     * Gets the number of health points the fox regains when it rests.
      *
-     * @param countEntities the map of entity counts
+     * @return the health points regained by a rest
+     */
+    @Override
+    public int getRestHealthPoints() {
+        return ADDITIONAL_HEALTH;
+    }
+
+    /**
+     * Checks if the fox population exceeds twice the population the map was populated with.
+     *
+     * @param map the world map
      * @return true if the fox population exceeds the threshold, false otherwise
      */
-    protected boolean areEntitiesExceedingThreshold(Map<EntityType, Integer> countEntities) {
-        return countEntities.get(EntityType.FEMALE_FOX) > EntityFactory.FEMALE_FOX_COUNT * 2 &&
-                countEntities.get(EntityType.MALE_FOX) > EntityFactory.MALE_FOX_COUNT * 2;
+    protected boolean areEntitiesExceedingThreshold(WorldMap map) {
+        return map.countEntities(EntityType.FEMALE_FOX) > map.getInitialPopulation(EntityType.FEMALE_FOX) * 2 &&
+                map.countEntities(EntityType.MALE_FOX) > map.getInitialPopulation(EntityType.MALE_FOX) * 2;
+    }
+
+    /**
+     * Allows stepping onto a mate while the population is below the threshold.
+     *
+     * @param map the world map
+     * @return true if mating is allowed, false otherwise
+     */
+    @Override
+    protected boolean isMatingAllowed(WorldMap map) {
+        return !areEntitiesExceedingThreshold(map);
     }
 
     /**
-     * Makes a move for the fox in the world map. The fox can regenerate health, hunt herbivores, or find a mate.
+     * Plans the move of the fox in the world map. The fox can regenerate health, hunt herbivores, or find a mate.
+     * When the flow fields of the map are enabled, the way to herbivores is read from the shared herbivore field;
+     * if the field offers no step, the fox searches on its own.
      *
      * @param map the world map
+     * @return the intent of the fox
      */
     @Override
-    public void makeMove(WorldMap map) {
+    public MoveIntent planMove(WorldMap map) {
         if (isSkipNextMove()) {
-            regenerateHealth(ADDITIONAL_HEALTH);
-            setSkipNextMove(false);
-        } else {
-            Coordinates target = findNearestHerbivoreOrCouple(map);
-            if (target != null) {
-                List<Coordinates> path = PathFinder.findPathAStar(map, getCoordinates(), target, this);
-                if (!path.isEmpty()) {
-                    Coordinates nextMove = path.get(0);
-                    handleMove(map, nextMove, target);
-                }
+            return MoveIntent.rest();
+        }
+
+        FlowFields flowFields = map.getFlowFields();
+        if (flowFields.isEnabled() && !needsMating(map)) {
+            Coordinates nextMove = flowFields.nextStepTowardsHerbivore(this);
+            if (nextMove != null) {
+                boolean eats = InteractionTable.has(getType(), map.getEntity(nextMove), InteractionTable.EAT);
+                return MoveIntent.step(map, nextMove, eats ? nextMove : null);
+            }
+        }
+        TargetSearch.Result result = findReachableHerbivoreOrCouple(map);
+        if (result != null) {
+            return MoveIntent.step(map, result.getFirstStep(), result.getTarget());
+        }
+        return MoveIntent.none();
+    }
+
+    /**
+     * Applies the planned move of the fox: regenerates health after a rest, or steps towards the target.
+     *
+     * @param map the world map
+     * @param intent the intent returned by {@link #planMove}
+     */
+    @Override
+    public void applyMove(WorldMap map, MoveIntent intent) {
+        switch (intent.getAction()) {
+            case REST -> finishRest();
+            case STEP -> handleMove(map, intent.getStep(), intent.getTarget());
+            default -> {
+                // Nothing to do.
             }
         }
     }
@@ -69,10 +114,11 @@ public abstract class Foxes extends Predator {
      * @param target the target coordinates
      */
     private void handleMove(WorldMap map, Coordinates nextMove, Coordinates target) {
-        if (map.getEntity(nextMove) instanceof FemaleFox || map.getEntity(nextMove) instanceof MaleFox) {
+        Entity occupant = map.getEntity(nextMove);
+        if (InteractionTable.has(getType(), occupant, InteractionTable.MEET)) {
             checkForCreateFoxCub(map, nextMove);
         } else {
-            move(nextMove, map);
+            move(nextMove, map, occupant);
         }
 
         if (nextMove.equals(target)) {
@@ -99,6 +145,7 @@ public abstract class Foxes extends Predator {
 
     /**
      * Creates a fox cub at the given coordinates.
+     * Nothing happens if either parent has left its cell or is busy with a move on another thread.
      *
      * @param map the world map
      * @param nextMove the coordinates of the next move
@@ -106,16 +153,30 @@ public abstract class Foxes extends Predator {
      * @param maleFox the male fox
      */
     private void createFoxCub(WorldMap map, Coordinates nextMove, FemaleFox femaleFox, MaleFox maleFox) {
-        map.removeEntity(getCoordinates());
-        map.removeEntity(nextMove);
-
-        int generationFoxCub = Math.max(maleFox.getGeneration(), femaleFox.getGeneration()) + 1;
-        FoxCub foxCub = new FoxCub(nextMove, 0, 2, generationFoxCub);
+        Entity partner = this == femaleFox ? maleFox : femaleFox;
+        if (!tryAcquire()) {
+            return;
+        }
+        try {
+            if (map.getEntity(getCoordinates()) != this || !tryAcquire(partner)) {
+                return;
+            }
+            try {
+                int generationFoxCub = Math.max(maleFox.getGeneration(), femaleFox.getGeneration()) + 1;
+                FoxCub foxCub = new FoxCub(nextMove, 0, 2, generationFoxCub);
 
-        foxCub.setParents(EntityType.MALE_FOX, maleFox);
-        foxCub.setParents(EntityType.FEMALE_FOX, femaleFox);
+                foxCub.setParents(EntityType.MALE_FOX, maleFox);
+                foxCub.setParents(EntityType.FEMALE_FOX, femaleFox);
 
-        map.setEntity(nextMove, foxCub);
+                if (map.claimEntity(nextMove, partner, foxCub)) {
+                    map.releaseEntity(getCoordinates(), this);
+                }
+            } finally {
+                release(partner);
+            }
+        } finally {
+            release();
+        }
     }
 }
 
@@ -1,17 +1,12 @@
 package com.toropov.oleg.entity.predator;
 
 import com.toropov.oleg.entity.Creature;
-import com.toropov.oleg.entity.Entity;
-import com.toropov.oleg.entity.herbivore.Hen;
-import com.toropov.oleg.entity.herbivore.Herbivore;
-import com.toropov.oleg.entity.herbivore.Rooster;
+import com.toropov.oleg.entity.InteractionTable;
 import com.toropov.oleg.map.Coordinates;
 import com.toropov.oleg.map.EntityType;
 import com.toropov.oleg.map.WorldMap;
-import com.toropov.oleg.map.WorldMapUtils;
-
-import java.util.List;
-import java.util.Map;
+import com.toropov.oleg.pathfinding.CellFilter;
+import com.toropov.oleg.pathfinding.TargetSearch;
 
 /**
  * Represents a predator in the simulation.
@@ -23,59 +18,47 @@ public abstract class Predator extends Creature {
      * Constructs a new Predator.
      *
      * @param coordinates the initial coordinates of the predator
+     * @param type the type of the predator
      * @param speed the speed of the predator
      * @param healthPoints the health points of the predator
      * @param generation the generation of the predator
      */
-    public Predator(Coordinates coordinates, int speed, int healthPoints, int generation) {
-        super(coordinates, speed, healthPoints, generation);
+    public Predator(Coordinates coordinates, EntityType type, int speed, int healthPoints, int generation) {
+        super(coordinates, type, speed, healthPoints, generation);
     }
 
+
     /**
-     * Checks if a given square is available for the predator to move into.
-     * A square is available if it is empty or contains a hen or rooster.
+     * Finds the nearest herbivore or a suitable mate for the predator.
      *
-     * @param coordinates the coordinates of the square to check
      * @param map the world map
-     * @return true if the square is available for move, false otherwise
+     * @return the coordinates of the nearest herbivore or mate within {@link #SIGHT_RADIUS}, or null if none found
+     *         or terrain cuts it off
      */
-    @Override
-    public boolean isSquareAvailableForMove(Coordinates coordinates, WorldMap map) {
-        boolean isEmpty = super.isSquareAvailableForMove(coordinates, map);
-        boolean isHen = map.getEntity(coordinates) instanceof Hen;
-        boolean isRooster = map.getEntity(coordinates) instanceof Rooster;
-
-        return isEmpty || isHen || isRooster;
+    protected Coordinates findNearestHerbivoreOrCouple(WorldMap map) {
+        Coordinates start = getCoordinates();
+        if (needsMating(map)) {
+            EntityType mate = InteractionTable.mateOf(getType());
+            return mate == null ? null : rejectUnreachable(map, map.nearest(mate, start, SIGHT_RADIUS));
+        }
+        return rejectUnreachable(map, map.nearest(EntityType.ALL_CHICKEN, start, SIGHT_RADIUS));
     }
 
     /**
-     * Finds the nearest herbivore or a suitable mate for the predator.
+     * Finds the nearest herbivore or suitable mate the predator can actually reach, and the first step towards it.
+     * If mating is needed, looks for a mate instead of prey: the mate comes from the spatial index and only
+     * a path towards it is searched, see {@link #findMate}. Food is dense, so it is found with one breadth-first
+     * search that stops at the first reachable herbivore within {@link #SIGHT_RADIUS} moves.
      *
      * @param map the world map
-     * @return the coordinates of the nearest herbivore or mate, or null if none found
+     * @return the target and the first step towards it, or null if none can be reached
      */
-    protected Coordinates findNearestHerbivoreOrCouple(WorldMap map) {
-        Coordinates start = getCoordinates();
-        List<int[]> shifts = WorldMapUtils.getAllSortedShiftsForCoordinates(map.getMapSize());
-
-        for (int[] shift : shifts) {
-            Coordinates neighbor = new Coordinates(start.getX() + shift[0], start.getY() + shift[1]);
-
-            if (map.isWithinBounds(neighbor)) {
-                Entity entity = map.getEntity(neighbor);
-                if (needsMating(map)) {
-                    Entity currentEntity = map.getEntity(start);
-                    if (currentEntity instanceof FemaleFox && entity instanceof MaleFox ||
-                            currentEntity instanceof MaleFox && entity instanceof FemaleFox) {
-                        return neighbor;
-                    }
-                } else if (entity instanceof Herbivore) {
-                    return neighbor;
-                }
-            }
+    protected TargetSearch.Result findReachableHerbivoreOrCouple(WorldMap map) {
+        if (needsMating(map)) {
+            return findMate(map);
         }
-
-        return null;
+        CellFilter targets = entity -> InteractionTable.has(getType(), entity, InteractionTable.EAT);
+        return TargetSearch.findNearest(map, this, targets, SIGHT_RADIUS);
     }
 
     /**
@@ -85,10 +68,8 @@ public abstract class Predator extends Creature {
      * @param map the world map
      * @return true if mating is needed, false otherwise
      */
-    private boolean needsMating(WorldMap map) {
-        Map<EntityType, Integer> countEntities = map.countEntities();
-
-        return countEntities.get(EntityType.MALE_FOX) == 1 && countEntities.get(EntityType.FEMALE_FOX) == 1 &&
-                countEntities.get(EntityType.FOX_CUB) == 0;
+    protected boolean needsMating(WorldMap map) {
+        return map.countEntities(EntityType.MALE_FOX) == 1 && map.countEntities(EntityType.FEMALE_FOX) == 1 &&
+                map.countEntities(EntityType.FOX_CUB) == 0;
     }
 }
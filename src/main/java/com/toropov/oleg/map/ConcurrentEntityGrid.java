@@ -0,0 +1,129 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Entity;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ConcurrentEntityGrid class is an {@link EntityGrid} that is safe to read and write from many threads.
+ * Reads have acquire semantics and writes atomically exchange the cell, so every thread sees the entities
+ * placed by others and the previous occupant returned by {@link #set} is exact even under contention.
+ * Chunks are allocated with compare-and-set by whichever thread first writes into them. They are never released,
+ * because a thread may still be writing into a chunk another thread has just emptied.
+ */
+public class ConcurrentEntityGrid extends EntityGrid {
+    private static final VarHandle CHUNKS = MethodHandles.arrayElementVarHandle(Entity[][].class);
+
+    private final AtomicInteger allocatedChunkCount = new AtomicInteger();
+
+    /**
+     * Constructs an empty ConcurrentEntityGrid with the specified dimensions.
+     *
+     * @param width the number of columns
+     * @param height the number of rows
+     */
+    public ConcurrentEntityGrid(int width, int height) {
+        super(width, height);
+    }
+
+    /**
+     * Gets the number of chunks currently allocated.
+     *
+     * @return the number of allocated chunks
+     */
+    @Override
+    public int getAllocatedChunkCount() {
+        return allocatedChunkCount.get();
+    }
+
+    /**
+     * Gets the entity stored in the cell with the specified flat index.
+     *
+     * @param index the flat index of the cell
+     * @return the entity in the cell, or null if the cell is empty
+     */
+    @Override
+    public Entity get(int index) {
+        int x = xOf(index);
+        int y = yOf(index);
+        Entity[] chunk = chunk(chunkIndex(x, y));
+        return chunk == null ? null : (Entity) CELLS.getAcquire(chunk, offset(x, y));
+    }
+
+    /**
+     * Atomically stores an entity in the cell with the specified flat index.
+     *
+     * @param index the flat index of the cell
+     * @param entity the entity to store, or null to clear the cell
+     * @return the entity previously stored in the cell, or null if it was empty
+     */
+    @Override
+    public Entity set(int index, Entity entity) {
+        int x = xOf(index);
+        int y = yOf(index);
+        int chunkIndex = chunkIndex(x, y);
+        Entity[] chunk = chunk(chunkIndex);
+        if (chunk == null) {
+            if (entity == null) {
+                return null;
+            }
+            chunk = allocate(chunkIndex);
+        }
+        return (Entity) CELLS.getAndSet(chunk, offset(x, y), entity);
+    }
+
+    /**
+     * Atomically stores an entity in the cell with the specified flat index if the cell still holds the expected entity.
+     *
+     * @param index the flat index of the cell
+     * @param expected the entity the cell is expected to hold, or null if it is expected to be empty
+     * @param entity the entity to store, or null to clear the cell
+     * @return true if the cell held the expected entity and was updated, false otherwise
+     */
+    @Override
+    public boolean compareAndSet(int index, Entity expected, Entity entity) {
+        int x = xOf(index);
+        int y = yOf(index);
+        int chunkIndex = chunkIndex(x, y);
+        Entity[] chunk = chunk(chunkIndex);
+        if (chunk == null) {
+            if (expected != null) {
+                return false;
+            }
+            if (entity == null) {
+                return true;
+            }
+            chunk = allocate(chunkIndex);
+        }
+        return CELLS.compareAndSet(chunk, offset(x, y), expected, entity);
+    }
+
+    /**
+     * Gets the chunk with the specified index with acquire semantics.
+     *
+     * @param chunkIndex the index of the chunk
+     * @return the cells of the chunk, or null if it is not allocated
+     */
+    @Override
+    Entity[] chunk(int chunkIndex) {
+        return (Entity[]) CHUNKS.getAcquire(chunks, chunkIndex);
+    }
+
+    /**
+     * Allocates a chunk unless another thread has just done so.
+     *
+     * @param chunkIndex the index of the chunk
+     * @return the chunk now stored at the index
+     */
+    private Entity[] allocate(int chunkIndex) {
+        Entity[] chunk = new Entity[CHUNK_SIZE * CHUNK_SIZE];
+        Entity[] witness = (Entity[]) CHUNKS.compareAndExchange(chunks, chunkIndex, null, chunk);
+        if (witness != null) {
+            return witness;
+        }
+        allocatedChunkCount.incrementAndGet();
+        return chunk;
+    }
+}
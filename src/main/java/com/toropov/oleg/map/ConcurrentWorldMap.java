@@ -0,0 +1,197 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Entity;
+
+import java.util.function.IntConsumer;
+
+/**
+ * The ConcurrentWorldMap class is a {@link WorldMap} whose cells may be changed by many threads at once.
+ * It stores its entities in a {@link ConcurrentEntityGrid}, so creatures updated on different threads see each other's
+ * moves, and they claim the cells they move into with {@link #claimEntity} instead of overwriting them.
+ * Claims do not touch the index of empty cells, which is not thread-safe; they only mark it stale,
+ * and it is rebuilt the next time it is asked for, when the threads of the tick have finished.
+ * For the same reason the map keeps no spatial index at all: nearest-entity queries scan rings of cells
+ * around the query cell, nearer rings first, and range queries scan the cells of their rectangle.
+ */
+public class ConcurrentWorldMap extends WorldMap {
+    /**
+     * The largest map size whose {@link SpiralOffsets} table nearest searches use. Larger maps share the table of
+     * this size for their closest rings, so no table grows with the map.
+     */
+    public static final int MAX_SPIRAL_MAP_SIZE = 65;
+
+    private volatile boolean freeCellsStale = false;
+
+    /**
+     * Constructs a ConcurrentWorldMap with the specified size.
+     *
+     * @param mapSize the size of the map
+     */
+    public ConcurrentWorldMap(int mapSize) {
+        super(mapSize, new ConcurrentEntityGrid(mapSize, mapSize), null);
+    }
+
+    /**
+     * Gets the index of the empty cells of this map, rebuilding it first if cells have been claimed since it was built.
+     * Must not be called while creatures are moving on other threads.
+     *
+     * @return the index of the empty cells
+     */
+    @Override
+    public FreeCellIndex getFreeCells() {
+        FreeCellIndex freeCells = super.getFreeCells();
+        if (freeCellsStale) {
+            freeCellsStale = false;
+            freeCells.rebuild(getGrid());
+        }
+        return freeCells;
+    }
+
+    /**
+     * Marks the index of empty cells stale instead of updating it from the claiming thread.
+     *
+     * @param index the flat index of the cell
+     * @param previous the entity the cell held before, or null
+     * @param current the entity the cell holds now, or null
+     */
+    @Override
+    protected void onCellClaimed(int index, Entity previous, Entity current) {
+        freeCellsStale = true;
+    }
+
+    /**
+     * A concurrent map keeps no spatial index, so there is none to get.
+     *
+     * @return never returns normally
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public SpatialIndex getSpatialIndex() {
+        throw new UnsupportedOperationException("A concurrent map keeps no spatial index");
+    }
+
+    /**
+     * Ignores the spatial index type: a concurrent map keeps no spatial index and scans its cells instead.
+     *
+     * @param type the type of the index, ignored
+     */
+    @Override
+    public void setSpatialIndexType(SpatialIndexType type) {
+        // Queries scan the cells, see nearest and visitCells.
+    }
+
+    /**
+     * Keeps the creature store disabled: it is not thread-safe, and creatures enter and leave it on every thread.
+     *
+     * @param enabled must be false
+     * @throws UnsupportedOperationException if enabled is true
+     */
+    @Override
+    public void setCreatureStoreEnabled(boolean enabled) {
+        if (enabled) {
+            throw new UnsupportedOperationException("A concurrent map cannot use a creature store");
+        }
+    }
+
+    /**
+     * Finds the entity of the specified type nearest to a cell, not counting the cell itself.
+     * The closest rings are scanned in the order of the shared {@link SpiralOffsets} table, whose first match is
+     * the nearest entity. On maps larger than {@link #MAX_SPIRAL_MAP_SIZE}, the rings beyond that table are scanned
+     * directly at Manhattan distance after distance, clipped to the map, stopping after the first ring holding
+     * a match with ties resolved as in the table. Nothing is allocated per cell, and the work grows with
+     * the distance to the result, not with the size of the map.
+     *
+     * @param type the entity type, where {@link EntityType#ALL_CHICKEN} and {@link EntityType#ALL_FOXES}
+     *             match any of their members
+     * @param from the cell to measure from
+     * @param maxRadius the largest Manhattan distance to consider
+     * @return the coordinates of the nearest entity, or null if there is none within the radius
+     */
+    @Override
+    public Coordinates nearest(EntityType type, Coordinates from, int maxRadius) {
+        EntityGrid grid = getGrid();
+        int x = from.getX();
+        int y = from.getY();
+        if (!grid.isWithinBounds(x, y)) {
+            return null;
+        }
+        boolean[] members = memberMaskOf(type);
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int farthest = Math.max(x, width - 1 - x) + Math.max(y, height - 1 - y);
+        int limit = Math.min(maxRadius, farthest);
+
+        SpiralOffsets spiral = WorldMapUtils.getSpiralOffsets(Math.min(getMapSize(), MAX_SPIRAL_MAP_SIZE));
+        int covered = spiral.getMaxShift() >= Math.max(width, height) - 1 ? limit : Math.min(limit, spiral.getMaxShift());
+        int count = spiral.count(covered);
+        for (int i = 0; i < count; i++) {
+            int cellX = x + spiral.getDx(i);
+            int cellY = y + spiral.getDy(i);
+            if (grid.isWithinBounds(cellX, cellY) && matches(members, grid.get(grid.indexOf(cellX, cellY)))) {
+                return new Coordinates(cellX, cellY);
+            }
+        }
+
+        NearestSearch search = new NearestSearch(width, x, y, maxRadius);
+        for (int distance = covered + 1; distance <= limit; distance++) {
+            int minDx = Math.max(-distance, -x);
+            int maxDx = Math.min(distance, width - 1 - x);
+            for (int dx = minDx; dx <= maxDx; dx++) {
+                int dy = distance - Math.abs(dx);
+                offerIfMember(grid, members, search, x + dx, y - dy);
+                if (dy != 0) {
+                    offerIfMember(grid, members, search, x + dx, y + dy);
+                }
+            }
+            if (search.getBest() >= 0) {
+                int cell = search.getBest();
+                return new Coordinates(grid.xOf(cell), grid.yOf(cell));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Offers a cell to a nearest-entity search if it lies within the map and holds one of the types.
+     *
+     * @param grid the grid of the map
+     * @param members the mask of the entity types looked for, indexed by ordinal
+     * @param search the search
+     * @param x the x coordinate of the cell
+     * @param y the y coordinate of the cell
+     */
+    private static void offerIfMember(EntityGrid grid, boolean[] members, NearestSearch search, int x, int y) {
+        if (grid.isWithinBounds(x, y)) {
+            int cell = grid.indexOf(x, y);
+            if (matches(members, grid.get(cell))) {
+                search.offer(cell);
+            }
+        }
+    }
+
+    /**
+     * Passes the flat index of every cell in a rectangle holding an entity of the specified type to a visitor,
+     * scanning all cells of the rectangle.
+     *
+     * @param type the entity type, where {@link EntityType#ALL_CHICKEN} and {@link EntityType#ALL_FOXES}
+     *             match any of their members
+     * @param left the first column of the rectangle, within the map
+     * @param top the first row of the rectangle, within the map
+     * @param right the last column of the rectangle, within the map
+     * @param bottom the last row of the rectangle, within the map
+     * @param visitor the visitor receiving the flat index of every matching cell
+     */
+    @Override
+    protected void visitCells(EntityType type, int left, int top, int right, int bottom, IntConsumer visitor) {
+        boolean[] members = memberMaskOf(type);
+        EntityGrid grid = getGrid();
+        for (int y = top; y <= bottom; y++) {
+            for (int x = left; x <= right; x++) {
+                int cell = grid.indexOf(x, y);
+                if (matches(members, grid.get(cell))) {
+                    visitor.accept(cell);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Entity;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The EntityGrid class is the storage for the entities of a map.
+ * Cells are addressed by the flat index {@code y * width + x}, but stored in square chunks of
+ * {@link #CHUNK_SIZE} by {@link #CHUNK_SIZE} cells. A chunk is allocated when the first entity enters it and released
+ * when the last one leaves, so the memory of a large, mostly empty map grows with the number of entities
+ * rather than with its area; only one reference per chunk is kept for the whole map.
+ * Cells can also be updated with {@link #compareAndSet}; {@link ConcurrentEntityGrid} makes this atomic,
+ * which lets concurrent writers claim cells without locks.
+ */
+public class EntityGrid {
+    /**
+     * The side of a chunk in cells.
+     */
+    public static final int CHUNK_SIZE = 64;
+
+    /**
+     * Gives atomic access to the elements of the cell array of a chunk.
+     */
+    static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(Entity[].class);
+
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int width;
+    private final int height;
+    private final int chunksPerRow;
+    final Entity[][] chunks;
+    private final int[] chunkOccupancy;
+    private int allocatedChunkCount = 0;
+
+    /**
+     * Constructs an empty EntityGrid with the specified dimensions. No chunks are allocated yet.
+     *
+     * @param width the number of columns
+     * @param height the number of rows
+     * @throws IllegalArgumentException if a dimension is not positive or the grid has more cells than an int can index
+     */
+    public EntityGrid(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Grid dimensions must be positive: " + width + "x" + height);
+        }
+        if ((long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid has too many cells: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.chunksPerRow = (width + CHUNK_MASK) >> CHUNK_SHIFT;
+        int chunkCount = chunksPerRow * ((height + CHUNK_MASK) >> CHUNK_SHIFT);
+        this.chunks = new Entity[chunkCount][];
+        this.chunkOccupancy = new int[chunkCount];
+    }
+
+    /**
+     * Gets the number of columns of the grid.
+     *
+     * @return the width of the grid
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the number of rows of the grid.
+     *
+     * @return the height of the grid
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the total number of cells of the grid.
+     *
+     * @return the number of cells
+     */
+    public int size() {
+        return width * height;
+    }
+
+    /**
+     * Gets the number of chunks currently allocated.
+     *
+     * @return the number of allocated chunks
+     */
+    public int getAllocatedChunkCount() {
+        return allocatedChunkCount;
+    }
+
+    /**
+     * Checks if the chunk containing the specified cell is allocated. Cells of unallocated chunks are empty.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if the chunk is allocated, false otherwise
+     */
+    public boolean isChunkAllocated(int x, int y) {
+        return chunk(chunkIndex(x, y)) != null;
+    }
+
+    /**
+     * Checks if the specified cell lies inside the grid.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if the cell is inside the grid, false otherwise
+     */
+    public boolean isWithinBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Converts cell coordinates into the flat index of the cell.
+     * The coordinates are expected to be within bounds.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the flat index of the cell
+     */
+    public int indexOf(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * Gets the x coordinate of the cell with the specified flat index.
+     *
+     * @param index the flat index of the cell
+     * @return the x coordinate
+     */
+    public int xOf(int index) {
+        return index % width;
+    }
+
+    /**
+     * Gets the y coordinate of the cell with the specified flat index.
+     *
+     * @param index the flat index of the cell
+     * @return the y coordinate
+     */
+    public int yOf(int index) {
+        return index / width;
+    }
+
+    /**
+     * Gets the entity stored in the cell with the specified flat index.
+     *
+     * @param index the flat index of the cell
+     * @return the entity in the cell, or null if the cell is empty
+     */
+    public Entity get(int index) {
+        int x = index % width;
+        int y = index / width;
+        Entity[] chunk = chunks[chunkIndex(x, y)];
+        return chunk == null ? null : chunk[offset(x, y)];
+    }
+
+    /**
+     * Stores an entity in the cell with the specified flat index,
+     * allocating its chunk if needed and releasing it if the cell was the last occupied one.
+     *
+     * @param index the flat index of the cell
+     * @param entity the entity to store, or null to clear the cell
+     * @return the entity previously stored in the cell, or null if it was empty
+     */
+    public Entity set(int index, Entity entity) {
+        int x = index % width;
+        int y = index / width;
+        int chunkIndex = chunkIndex(x, y);
+        Entity[] chunk = chunks[chunkIndex];
+        if (chunk == null) {
+            if (entity == null) {
+                return null;
+            }
+            chunk = new Entity[CHUNK_SIZE * CHUNK_SIZE];
+            chunks[chunkIndex] = chunk;
+            allocatedChunkCount++;
+        }
+
+        int offset = offset(x, y);
+        Entity previous = chunk[offset];
+        chunk[offset] = entity;
+        if (previous == null && entity != null) {
+            chunkOccupancy[chunkIndex]++;
+        } else if (previous != null && entity == null && --chunkOccupancy[chunkIndex] == 0) {
+            chunks[chunkIndex] = null;
+            allocatedChunkCount--;
+        }
+        return previous;
+    }
+
+    /**
+     * Stores an entity in the cell with the specified flat index if the cell still holds the expected entity.
+     * This grid is meant for one thread at a time and checks and stores in two steps;
+     * {@link ConcurrentEntityGrid} does it atomically.
+     *
+     * @param index the flat index of the cell
+     * @param expected the entity the cell is expected to hold, or null if it is expected to be empty
+     * @param entity the entity to store, or null to clear the cell
+     * @return true if the cell held the expected entity and was updated, false otherwise
+     */
+    public boolean compareAndSet(int index, Entity expected, Entity entity) {
+        if (get(index) != expected) {
+            return false;
+        }
+        set(index, entity);
+        return true;
+    }
+
+    /**
+     * Gets the chunk with the specified index, which subclasses may read with stronger memory ordering.
+     *
+     * @param chunkIndex the index of the chunk
+     * @return the cells of the chunk, or null if it is not allocated
+     */
+    Entity[] chunk(int chunkIndex) {
+        return chunks[chunkIndex];
+    }
+
+    /**
+     * Gets the index of the chunk containing a cell.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the index of the chunk
+     */
+    int chunkIndex(int x, int y) {
+        return (y >> CHUNK_SHIFT) * chunksPerRow + (x >> CHUNK_SHIFT);
+    }
+
+    /**
+     * Gets the position of a cell within its chunk.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the offset of the cell in the cell array of its chunk
+     */
+    static int offset(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+    }
+}
@@ -39,6 +39,16 @@ public enum EntityType {
      */
     CHICK,
 
+    /**
+     * Represents a rock.
+     */
+    ROCK,
+
+    /**
+     * Represents a tree.
+     */
+    TREE,
+
     /**
      * Represents all chicken types combined.
      */
@@ -47,5 +57,14 @@ public enum EntityType {
     /**
      * Represents all fox types combined.
      */
-    ALL_FOXES
+    ALL_FOXES;
+
+    /**
+     * Checks if entities of this type are static terrain, which never moves once the map has been populated.
+     *
+     * @return true for rocks and trees, false otherwise
+     */
+    public boolean isTerrain() {
+        return this == ROCK || this == TREE;
+    }
 }
@@ -0,0 +1,286 @@
+package com.toropov.oleg.map;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * The FreeCellIndex class is the set of empty cells of a grid.
+ * It follows the chunks of {@link EntityGrid}: a chunk without occupied cells is wholly empty and stores nothing,
+ * and only a chunk with occupied cells keeps a dense array of its empty cells, where every cell knows its position
+ * so that adding and removing a cell are constant time (a removed cell is overwritten by the last one).
+ * The number of empty cells of every chunk is kept in a Fenwick tree, so a uniformly random empty cell is found
+ * in time logarithmic in the number of chunks, however full the grid is.
+ * The memory grows with the number of chunks holding entities, plus one int per chunk, rather than with the area.
+ */
+public class FreeCellIndex {
+    private static final int CHUNK_SIZE = EntityGrid.CHUNK_SIZE;
+
+    private final int width;
+    private final int height;
+    private final int chunksPerRow;
+    private final int chunkCount;
+    private final short[][] chunkCells;
+    private final short[][] chunkPositions;
+    private final int[] chunkFree;
+    private final int[] tree;
+    private int size;
+
+    /**
+     * Constructs a FreeCellIndex for a grid with the specified dimensions, all of its cells empty.
+     *
+     * @param width the number of columns of the grid
+     * @param height the number of rows of the grid
+     */
+    public FreeCellIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.chunksPerRow = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunkCount = chunksPerRow * ((height + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        this.chunkCells = new short[chunkCount][];
+        this.chunkPositions = new short[chunkCount][];
+        this.chunkFree = new int[chunkCount];
+        this.tree = new int[chunkCount + 1];
+        reset();
+    }
+
+    /**
+     * Gets the number of empty cells.
+     *
+     * @return the number of empty cells
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the specified cell is empty.
+     *
+     * @param cell the flat index of the cell
+     * @return true if the cell is in the index, false otherwise
+     */
+    public boolean contains(int cell) {
+        short[] positions = chunkPositions[chunkOf(cell)];
+        return positions == null || positions[offsetOf(cell)] >= 0;
+    }
+
+    /**
+     * Gets the empty cell at the specified position of the index.
+     * Positions follow the order of the chunks; a position stays valid only until the index changes.
+     *
+     * @param position the position, from 0 inclusive to {@link #size()} exclusive
+     * @return the flat index of the cell
+     */
+    public int get(int position) {
+        int chunk = 0;
+        int remaining = position;
+        for (int step = Integer.highestOneBit(chunkCount); step > 0; step >>= 1) {
+            int next = chunk + step;
+            if (next <= chunkCount && tree[next] <= remaining) {
+                chunk = next;
+                remaining -= tree[next];
+            }
+        }
+
+        short[] cells = chunkCells[chunk];
+        int offset = cells == null ? remaining / chunkWidth(chunk) * CHUNK_SIZE + remaining % chunkWidth(chunk) :
+                cells[remaining];
+        return cellOf(chunk, offset);
+    }
+
+    /**
+     * Picks a uniformly random empty cell.
+     *
+     * @param random the random number generator
+     * @return the flat index of the cell
+     * @throws IllegalStateException if there are no empty cells
+     */
+    public int sample(RandomGenerator random) {
+        if (size == 0) {
+            throw new IllegalStateException("There are no empty cells");
+        }
+        return get(random.nextInt(size));
+    }
+
+    /**
+     * Marks a cell as empty. Does nothing if it is already in the index.
+     *
+     * @param cell the flat index of the cell
+     */
+    public void add(int cell) {
+        int chunk = chunkOf(cell);
+        short[] positions = chunkPositions[chunk];
+        int offset = offsetOf(cell);
+        if (positions == null || positions[offset] >= 0) {
+            return;
+        }
+        int free = chunkFree[chunk];
+        if (free + 1 == chunkWidth(chunk) * chunkHeight(chunk)) {
+            chunkCells[chunk] = null;
+            chunkPositions[chunk] = null;
+        } else {
+            chunkCells[chunk][free] = (short) offset;
+            positions[offset] = (short) free;
+        }
+        chunkFree[chunk] = free + 1;
+        change(chunk, 1);
+    }
+
+    /**
+     * Marks a cell as occupied. Does nothing if it is not in the index.
+     *
+     * @param cell the flat index of the cell
+     */
+    public void remove(int cell) {
+        int chunk = chunkOf(cell);
+        if (chunkPositions[chunk] == null) {
+            allocate(chunk);
+        }
+        short[] cells = chunkCells[chunk];
+        short[] positions = chunkPositions[chunk];
+        int offset = offsetOf(cell);
+        int position = positions[offset];
+        if (position < 0) {
+            return;
+        }
+        int free = chunkFree[chunk] - 1;
+        short last = cells[free];
+        cells[position] = last;
+        positions[last] = (short) position;
+        positions[offset] = -1;
+        chunkFree[chunk] = free;
+        change(chunk, -1);
+    }
+
+    /**
+     * Rebuilds the index from the current content of a grid. Only the allocated chunks of the grid are scanned.
+     *
+     * @param grid the grid whose empty cells are indexed
+     */
+    public void rebuild(EntityGrid grid) {
+        reset();
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int left = chunk % chunksPerRow * CHUNK_SIZE;
+            int top = chunk / chunksPerRow * CHUNK_SIZE;
+            if (!grid.isChunkAllocated(left, top)) {
+                continue;
+            }
+            for (int y = top; y < top + chunkHeight(chunk); y++) {
+                for (int x = left; x < left + chunkWidth(chunk); x++) {
+                    int cell = grid.indexOf(x, y);
+                    if (grid.get(cell) != null) {
+                        remove(cell);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Empties every chunk and releases their arrays.
+     */
+    private void reset() {
+        size = 0;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            chunkCells[chunk] = null;
+            chunkPositions[chunk] = null;
+            chunkFree[chunk] = chunkWidth(chunk) * chunkHeight(chunk);
+            size += chunkFree[chunk];
+        }
+        for (int i = 1; i <= chunkCount; i++) {
+            tree[i] = chunkFree[i - 1];
+        }
+        for (int i = 1; i <= chunkCount; i++) {
+            int parent = i + (i & -i);
+            if (parent <= chunkCount) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * Gives a wholly empty chunk the arrays of its empty cells, in row order.
+     *
+     * @param chunk the index of the chunk
+     */
+    private void allocate(int chunk) {
+        short[] cells = new short[CHUNK_SIZE * CHUNK_SIZE];
+        short[] positions = new short[CHUNK_SIZE * CHUNK_SIZE];
+        Arrays.fill(positions, (short) -1);
+        int count = 0;
+        for (int y = 0; y < chunkHeight(chunk); y++) {
+            for (int x = 0; x < chunkWidth(chunk); x++) {
+                int offset = y * CHUNK_SIZE + x;
+                cells[count] = (short) offset;
+                positions[offset] = (short) count++;
+            }
+        }
+        chunkCells[chunk] = cells;
+        chunkPositions[chunk] = positions;
+    }
+
+    /**
+     * Adds a value to the number of empty cells of a chunk.
+     *
+     * @param chunk the index of the chunk
+     * @param delta the value to add
+     */
+    private void change(int chunk, int delta) {
+        size += delta;
+        for (int i = chunk + 1; i <= chunkCount; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Gets the chunk containing a cell.
+     *
+     * @param cell the flat index of the cell
+     * @return the index of the chunk
+     */
+    private int chunkOf(int cell) {
+        return cell / width / CHUNK_SIZE * chunksPerRow + cell % width / CHUNK_SIZE;
+    }
+
+    /**
+     * Gets the position of a cell within its chunk.
+     *
+     * @param cell the flat index of the cell
+     * @return the offset of the cell in its chunk
+     */
+    private int offsetOf(int cell) {
+        return cell / width % CHUNK_SIZE * CHUNK_SIZE + cell % width % CHUNK_SIZE;
+    }
+
+    /**
+     * Gets the flat index of a cell from its chunk and its position within the chunk.
+     *
+     * @param chunk the index of the chunk
+     * @param offset the offset of the cell in its chunk
+     * @return the flat index of the cell
+     */
+    private int cellOf(int chunk, int offset) {
+        int x = chunk % chunksPerRow * CHUNK_SIZE + offset % CHUNK_SIZE;
+        int y = chunk / chunksPerRow * CHUNK_SIZE + offset / CHUNK_SIZE;
+        return y * width + x;
+    }
+
+    /**
+     * Gets the number of columns of a chunk, which is smaller at the right edge of the grid.
+     *
+     * @param chunk the index of the chunk
+     * @return the width of the chunk
+     */
+    private int chunkWidth(int chunk) {
+        return Math.min(CHUNK_SIZE, width - chunk % chunksPerRow * CHUNK_SIZE);
+    }
+
+    /**
+     * Gets the number of rows of a chunk, which is smaller at the bottom edge of the grid.
+     *
+     * @param chunk the index of the chunk
+     * @return the height of the chunk
+     */
+    private int chunkHeight(int chunk) {
+        return Math.min(CHUNK_SIZE, height - chunk / chunksPerRow * CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,102 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.ExtraGrassFactory;
+import com.toropov.oleg.entity.Grass;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The GrassRegrowth class lets the grass of one map grow back where it has been eaten.
+ * Every cell that loses its grass is scheduled on a {@link TimingWheel} to regrow a fixed number of ticks later,
+ * so each tick only handles the cells that are due instead of topping the whole map up at once.
+ * A due cell that is still occupied grows its grass on a random empty cell instead, keeping the amount of grass
+ * on the map steady. Scheduling is synchronized because grass may be eaten on several threads within a tick.
+ */
+public class GrassRegrowth {
+    /**
+     * The default number of ticks after which eaten grass grows back.
+     */
+    public static final int DEFAULT_DELAY = 20;
+
+    private static final int SLOT_COUNT = 64;
+
+    private final WorldMap map;
+    private final TimingWheel wheel = new TimingWheel(SLOT_COUNT);
+    private int delay = DEFAULT_DELAY;
+
+    /**
+     * Constructs the GrassRegrowth of the specified map.
+     *
+     * @param map the world map
+     */
+    public GrassRegrowth(WorldMap map) {
+        this.map = map;
+    }
+
+    /**
+     * Gets the number of ticks after which eaten grass grows back.
+     *
+     * @return the regrowth delay in ticks
+     */
+    public int getDelay() {
+        return delay;
+    }
+
+    /**
+     * Sets the number of ticks after which eaten grass grows back. Applies to grass eaten from now on.
+     *
+     * @param delay the regrowth delay in ticks
+     * @throws IllegalArgumentException if the delay is not positive
+     */
+    public synchronized void setDelay(int delay) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("Regrowth delay must be positive: " + delay);
+        }
+        this.delay = delay;
+    }
+
+    /**
+     * Gets the number of cells waiting for their grass to grow back.
+     *
+     * @return the number of pending cells
+     */
+    public synchronized int getPendingCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Schedules the regrowth of the grass of a cell. Called by the map when grass leaves a cell.
+     *
+     * @param cell the flat index of the cell
+     */
+    public synchronized void schedule(int cell) {
+        wheel.schedule(cell, delay);
+    }
+
+    /**
+     * Advances regrowth by one tick and grows the grass that is due.
+     * Should be called once per tick, after the creatures have moved.
+     *
+     * @param random the random number generator choosing a cell for grass whose own cell is occupied
+     * @return the number of cells that were due
+     */
+    public synchronized int advance(RandomGenerator random) {
+        return wheel.advance(cell -> regrow(cell, random));
+    }
+
+    /**
+     * Grows grass on a cell if it is empty, otherwise on a random empty cell, if there is one.
+     *
+     * @param cell the flat index of the cell
+     * @param random the random number generator
+     */
+    private void regrow(int cell, RandomGenerator random) {
+        EntityGrid grid = map.getGrid();
+        if (grid.get(cell) == null) {
+            Coordinates coordinates = new Coordinates(grid.xOf(cell), grid.yOf(cell));
+            map.setEntity(coordinates, new Grass(coordinates));
+        } else {
+            ExtraGrassFactory.addingGrass(map, 1, random);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.toropov.oleg.map;
+
+/**
+ * The NearestSearch class holds the state of one nearest-cell query of a spatial index.
+ * Cells are ranked as in a {@link SpiralOffsets} scan: by Manhattan distance from the query cell,
+ * then by Chebyshev distance, then by dx and then by dy. The query cell itself never matches.
+ */
+class NearestSearch {
+    private final int width;
+    private final int x;
+    private final int y;
+    private final int maxRadius;
+    private int best = -1;
+    private int bestManhattan = Integer.MAX_VALUE;
+
+    /**
+     * Constructs a NearestSearch.
+     *
+     * @param width the number of columns of the grid
+     * @param x the x coordinate of the query cell
+     * @param y the y coordinate of the query cell
+     * @param maxRadius the largest Manhattan distance to consider
+     */
+    NearestSearch(int width, int x, int y, int maxRadius) {
+        this.width = width;
+        this.x = x;
+        this.y = y;
+        this.maxRadius = maxRadius;
+    }
+
+    /**
+     * Gets the best cell found so far.
+     *
+     * @return the flat index of the best cell, or -1 if none has been found
+     */
+    int getBest() {
+        return best;
+    }
+
+    /**
+     * Checks if a cell at the specified Manhattan distance could still be the result.
+     *
+     * @param manhattan the Manhattan distance
+     * @return true if the distance is within the radius and not beyond the best cell found so far
+     */
+    boolean mayBeWithin(int manhattan) {
+        return manhattan <= maxRadius && manhattan <= bestManhattan;
+    }
+
+    /**
+     * Gets the smallest Manhattan distance from the query cell to a rectangle of cells.
+     *
+     * @param left the first column of the rectangle
+     * @param top the first row of the rectangle
+     * @param right the last column of the rectangle
+     * @param bottom the last row of the rectangle
+     * @return the distance, 0 if the rectangle contains the query cell
+     */
+    int distanceTo(int left, int top, int right, int bottom) {
+        int gapX = Math.max(0, Math.max(left - x, x - right));
+        int gapY = Math.max(0, Math.max(top - y, y - bottom));
+        return gapX + gapY;
+    }
+
+    /**
+     * Checks if a rectangle of cells could hold a cell closer than the best one found so far.
+     *
+     * @param left the first column of the rectangle
+     * @param top the first row of the rectangle
+     * @param right the last column of the rectangle
+     * @param bottom the last row of the rectangle
+     * @return true if the rectangle has to be searched
+     */
+    boolean mayContainCloser(int left, int top, int right, int bottom) {
+        return mayBeWithin(distanceTo(left, top, right, bottom));
+    }
+
+    /**
+     * Offers a matching cell and keeps it if it ranks before the best cell found so far.
+     *
+     * @param cell the flat index of the cell
+     */
+    void offer(int cell) {
+        int dx = cell % width - x;
+        int dy = cell / width - y;
+        int manhattan = Math.abs(dx) + Math.abs(dy);
+        if (manhattan == 0 || !mayBeWithin(manhattan)) {
+            return;
+        }
+        if (best < 0 || manhattan < bestManhattan || isBeforeBest(dx, dy)) {
+            best = cell;
+            bestManhattan = manhattan;
+        }
+    }
+
+    /**
+     * Breaks a tie in Manhattan distance with the best cell in the order of the spiral table.
+     *
+     * @param dx the horizontal shift of the candidate
+     * @param dy the vertical shift of the candidate
+     * @return true if the candidate comes first
+     */
+    private boolean isBeforeBest(int dx, int dy) {
+        int bestDx = best % width - x;
+        int bestDy = best / width - y;
+        int chebyshev = Math.max(Math.abs(dx), Math.abs(dy));
+        int bestChebyshev = Math.max(Math.abs(bestDx), Math.abs(bestDy));
+        if (chebyshev != bestChebyshev) {
+            return chebyshev < bestChebyshev;
+        }
+        return dx != bestDx ? dx < bestDx : dy < bestDy;
+    }
+}
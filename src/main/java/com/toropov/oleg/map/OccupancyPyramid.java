@@ -0,0 +1,446 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Entity;
+
+import java.util.function.IntConsumer;
+
+/**
+ * The OccupancyPyramid class is a multi-level count pyramid over the cells of a grid, like a summed quadtree.
+ * Level {@code l} splits the grid into square blocks with a side of {@code 2^l} cells and stores, for every block,
+ * how many entities of each type it holds; the top level is a single block covering the whole grid.
+ * Every change of a cell updates one block per level, and searches descend from the top, skipping every block
+ * without entities of the wanted types or too far away to hold a better result, so large empty regions cost nothing.
+ * The counts of the upper levels also serve as density maps of the world.
+ * <p>
+ * Only the seven concrete types that come and go, the creatures and grass, are counted: terrain is looked up in the
+ * {@link TerrainLayer} and the group types are expanded by the map before they get here, so queries for them find
+ * nothing. The lowest counted level is {@link #BASE_LEVEL}, with blocks of 8 x 8 cells, which are scanned in the grid.
+ * The levels up to the side of a chunk of {@link EntityGrid} follow its chunks: a chunk holding counted entities
+ * keeps the counts of its blocks on those levels, and a chunk without any keeps nothing. Only the levels above,
+ * with blocks of more than one chunk, are stored whole, at seven ints per four chunks or fewer, so the memory
+ * grows with the chunks holding creatures and grass rather than with the area.
+ * <p>
+ * Cells themselves are not stored; the lowest level looks them up in the grid, which must already hold the change
+ * when {@link #add} or {@link #remove} is called. The class is not thread-safe.
+ */
+public class OccupancyPyramid implements SpatialIndex {
+    /**
+     * The lowest level that stores counts. Blocks of this level are scanned cell by cell.
+     */
+    public static final int BASE_LEVEL = 3;
+
+    /**
+     * The number of counted types, which come first in {@link EntityType}.
+     */
+    private static final int KIND_COUNT = EntityType.ROCK.ordinal();
+    private static final int CHUNK_SIZE = EntityGrid.CHUNK_SIZE;
+    private static final int CHUNK_LEVEL = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+    private static final int[] CHUNK_LEVEL_STARTS = new int[CHUNK_LEVEL + 2];
+
+    static {
+        for (int level = BASE_LEVEL; level <= CHUNK_LEVEL; level++) {
+            int blocks = CHUNK_SIZE >> level;
+            CHUNK_LEVEL_STARTS[level + 1] = CHUNK_LEVEL_STARTS[level] + blocks * blocks * KIND_COUNT;
+        }
+    }
+
+    private final EntityGrid grid;
+    private final int width;
+    private final int height;
+    private final int levelCount;
+    private final int[] blocksPerRow;
+    private final int chunksPerRow;
+    private final int[][] chunkCounts;
+    private final int[] chunkTotals;
+    private final int[][] counts;
+
+    /**
+     * Constructs an empty OccupancyPyramid over the specified grid.
+     *
+     * @param grid the grid whose cells are counted
+     */
+    public OccupancyPyramid(EntityGrid grid) {
+        this.grid = grid;
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+
+        int levels = BASE_LEVEL;
+        while ((1 << levels) < Math.max(width, height)) {
+            levels++;
+        }
+        this.levelCount = levels + 1;
+        this.blocksPerRow = new int[levelCount];
+        this.counts = new int[levelCount][];
+        for (int level = BASE_LEVEL; level < levelCount; level++) {
+            int side = 1 << level;
+            blocksPerRow[level] = (width + side - 1) / side;
+            int blockRows = (height + side - 1) / side;
+            if (level > CHUNK_LEVEL) {
+                counts[level] = new int[blocksPerRow[level] * blockRows * KIND_COUNT];
+            }
+        }
+        this.chunksPerRow = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int chunkCount = chunksPerRow * ((height + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        this.chunkCounts = new int[chunkCount][];
+        this.chunkTotals = new int[chunkCount];
+    }
+
+    /**
+     * Gets the number of levels, including the levels below {@link #BASE_LEVEL}, which store no counts.
+     *
+     * @return the number of levels
+     */
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Gets the number of block columns of a level.
+     *
+     * @param level the level, from {@link #BASE_LEVEL} to {@link #getLevelCount()} - 1
+     * @return the number of blocks per row
+     */
+    public int getBlocksPerRow(int level) {
+        return blocksPerRow[level];
+    }
+
+    /**
+     * Gets the number of entities of a type in one block of a level.
+     *
+     * @param type the entity type
+     * @param level the level, from {@link #BASE_LEVEL} to {@link #getLevelCount()} - 1
+     * @param blockX the column of the block
+     * @param blockY the row of the block
+     * @return the number of entities of the type in the block, always 0 for types that are not counted
+     */
+    public int getBlockCount(EntityType type, int level, int blockX, int blockY) {
+        if (!isCounted(type)) {
+            return 0;
+        }
+        return countOf(level, blockX, blockY, type.ordinal());
+    }
+
+    /**
+     * Adds a cell holding an entity of the specified type.
+     *
+     * @param type the type of the entity
+     * @param cell the flat index of the cell
+     */
+    @Override
+    public void add(EntityType type, int cell) {
+        update(type, cell, 1);
+    }
+
+    /**
+     * Removes a cell added with {@link #add}.
+     *
+     * @param type the type the cell was added with
+     * @param cell the flat index of the cell
+     */
+    @Override
+    public void remove(EntityType type, int cell) {
+        update(type, cell, -1);
+    }
+
+    /**
+     * Finds the nearest cell, other than the query cell itself, holding an entity of any of the specified types.
+     *
+     * @param types the entity types to look for
+     * @param x the x coordinate of the query cell
+     * @param y the y coordinate of the query cell
+     * @param maxRadius the largest Manhattan distance to consider
+     * @return the flat index of the nearest cell, or -1 if there is none within the radius
+     */
+    @Override
+    public int nearest(EntityType[] types, int x, int y, int maxRadius) {
+        NearestSearch search = new NearestSearch(width, x, y, maxRadius);
+        searchBlock(search, types, levelCount - 1, 0, 0);
+        return search.getBest();
+    }
+
+    /**
+     * Counts the entities of a type in a rectangle of cells, adding up whole blocks wherever they fit.
+     *
+     * @param type the entity type
+     * @param left the first column of the rectangle
+     * @param top the first row of the rectangle
+     * @param right the last column of the rectangle
+     * @param bottom the last row of the rectangle
+     * @return the number of entities of the type in the rectangle
+     */
+    public int count(EntityType type, int left, int top, int right, int bottom) {
+        return countBlock(type, levelCount - 1, 0, 0, Math.max(left, 0), Math.max(top, 0),
+                Math.min(right, width - 1), Math.min(bottom, height - 1));
+    }
+
+    /**
+     * Visits every cell in a rectangle holding an entity of any of the specified types, in no particular order.
+     * Only blocks that overlap the rectangle and hold entities of the types are descended into.
+     *
+     * @param types the entity types to look for
+     * @param left the first column of the rectangle
+     * @param top the first row of the rectangle
+     * @param right the last column of the rectangle
+     * @param bottom the last row of the rectangle
+     * @param visitor the visitor receiving the flat index of every matching cell
+     */
+    @Override
+    public void forEachInRectangle(EntityType[] types, int left, int top, int right, int bottom,
+                                   IntConsumer visitor) {
+        visitBlock(types, levelCount - 1, 0, 0, left, top, right, bottom, visitor);
+    }
+
+    /**
+     * Adds a value to the counters of the blocks containing a cell on every level.
+     *
+     * @param type the entity type
+     * @param cell the flat index of the cell
+     * @param delta the value to add
+     */
+    private void update(EntityType type, int cell, int delta) {
+        if (!isCounted(type)) {
+            return;
+        }
+        int x = cell % width;
+        int y = cell / width;
+        int chunk = (y >> CHUNK_LEVEL) * chunksPerRow + (x >> CHUNK_LEVEL);
+        int[] local = chunkCounts[chunk];
+        if (local == null) {
+            local = new int[CHUNK_LEVEL_STARTS[CHUNK_LEVEL + 1]];
+            chunkCounts[chunk] = local;
+        }
+        for (int level = BASE_LEVEL; level < levelCount; level++) {
+            if (level <= CHUNK_LEVEL) {
+                local[localIndex(level, x, y) + type.ordinal()] += delta;
+            } else {
+                int block = (y >> level) * blocksPerRow[level] + (x >> level);
+                counts[level][block * KIND_COUNT + type.ordinal()] += delta;
+            }
+        }
+        chunkTotals[chunk] += delta;
+        if (chunkTotals[chunk] == 0) {
+            chunkCounts[chunk] = null;
+        }
+    }
+
+    /**
+     * Gets the counter of one type in one block.
+     *
+     * @param level the level of the block
+     * @param blockX the column of the block
+     * @param blockY the row of the block
+     * @param t the ordinal of a counted type
+     * @return the number of entities of the type in the block
+     */
+    private int countOf(int level, int blockX, int blockY, int t) {
+        if (level > CHUNK_LEVEL) {
+            return counts[level][(blockY * blocksPerRow[level] + blockX) * KIND_COUNT + t];
+        }
+        int x = blockX << level;
+        int y = blockY << level;
+        int[] local = chunkCounts[(y >> CHUNK_LEVEL) * chunksPerRow + (x >> CHUNK_LEVEL)];
+        return local == null ? 0 : local[localIndex(level, x, y) + t];
+    }
+
+    /**
+     * Gets the position of the counters of a block within the counters of its chunk.
+     *
+     * @param level the level of the block, at most the level of a chunk
+     * @param x the x coordinate of a cell of the block
+     * @param y the y coordinate of a cell of the block
+     * @return the position of the counter of the first type
+     */
+    private static int localIndex(int level, int x, int y) {
+        int blocks = CHUNK_SIZE >> level;
+        int block = ((y & (CHUNK_SIZE - 1)) >> level) * blocks + ((x & (CHUNK_SIZE - 1)) >> level);
+        return CHUNK_LEVEL_STARTS[level] + block * KIND_COUNT;
+    }
+
+    /**
+     * Sums the counters of several types in one block.
+     *
+     * @param types the entity types
+     * @param level the level of the block
+     * @param blockX the column of the block
+     * @param blockY the row of the block
+     * @return the number of entities of the types in the block
+     */
+    private int countTypes(EntityType[] types, int level, int blockX, int blockY) {
+        int count = 0;
+        for (EntityType type : types) {
+            if (isCounted(type)) {
+                count += countOf(level, blockX, blockY, type.ordinal());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Searches one block for the nearest matching cell, visiting its closest non-empty children first.
+     *
+     * @param search the search
+     * @param types the entity types to look for
+     * @param level the level of the block
+     * @param blockX the column of the block
+     * @param blockY the row of the block
+     */
+    private void searchBlock(NearestSearch search, EntityType[] types, int level, int blockX, int blockY) {
+        int side = 1 << level;
+        int left = blockX * side;
+        int top = blockY * side;
+        if (left >= width || top >= height || countTypes(types, level, blockX, blockY) == 0 ||
+                !search.mayContainCloser(left, top, left + side - 1, top + side - 1)) {
+            return;
+        }
+
+        if (level == BASE_LEVEL) {
+            for (int y = top; y < Math.min(top + side, height); y++) {
+                for (int x = left; x < Math.min(left + side, width); x++) {
+                    int cell = grid.indexOf(x, y);
+                    if (matches(types, grid.get(cell))) {
+                        search.offer(cell);
+                    }
+                }
+            }
+            return;
+        }
+
+        int half = side >> 1;
+        int[] order = {0, 1, 2, 3};
+        int[] distances = new int[4];
+        for (int child = 0; child < 4; child++) {
+            int childLeft = left + (child & 1) * half;
+            int childTop = top + (child >> 1) * half;
+            distances[child] = search.distanceTo(childLeft, childTop, childLeft + half - 1, childTop + half - 1);
+        }
+        for (int i = 1; i < 4; i++) {
+            for (int j = i; j > 0 && distances[order[j]] < distances[order[j - 1]]; j--) {
+                int swap = order[j];
+                order[j] = order[j - 1];
+                order[j - 1] = swap;
+            }
+        }
+        for (int child : order) {
+            searchBlock(search, types, level - 1, 2 * blockX + (child & 1), 2 * blockY + (child >> 1));
+        }
+    }
+
+    /**
+     * Counts the entities of a type in the part of one block that lies in a rectangle.
+     *
+     * @param type the entity type
+     * @param level the level of the block
+     * @param blockX the column of the block
+     * @param blockY the row of the block
+     * @param left the first column of the rectangle
+     * @param top the first row of the rectangle
+     * @param right the last column of the rectangle
+     * @param bottom the last row of the rectangle
+     * @return the number of entities of the type in the intersection
+     */
+    private int countBlock(EntityType type, int level, int blockX, int blockY,
+                           int left, int top, int right, int bottom) {
+        int side = 1 << level;
+        int blockLeft = blockX * side;
+        int blockTop = blockY * side;
+        int blockRight = Math.min(blockLeft + side, width) - 1;
+        int blockBottom = Math.min(blockTop + side, height) - 1;
+        if (blockLeft > right || blockTop > bottom || blockRight < left || blockBottom < top ||
+                blockLeft >= width || blockTop >= height) {
+            return 0;
+        }
+        int count = getBlockCount(type, level, blockX, blockY);
+        if (count == 0 || blockLeft >= left && blockTop >= top && blockRight <= right && blockBottom <= bottom) {
+            return count;
+        }
+
+        if (level == BASE_LEVEL) {
+            int inside = 0;
+            for (int y = Math.max(blockTop, top); y <= Math.min(blockBottom, bottom); y++) {
+                for (int x = Math.max(blockLeft, left); x <= Math.min(blockRight, right); x++) {
+                    if (WorldMap.typeOf(grid.get(grid.indexOf(x, y))) == type) {
+                        inside++;
+                    }
+                }
+            }
+            return inside;
+        }
+
+        int inside = 0;
+        for (int child = 0; child < 4; child++) {
+            inside += countBlock(type, level - 1, 2 * blockX + (child & 1), 2 * blockY + (child >> 1),
+                    left, top, right, bottom);
+        }
+        return inside;
+    }
+
+    /**
+     * Checks if the pyramid counts a type.
+     *
+     * @param type the entity type
+     * @return true if the type has counters, false for terrain and the group types
+     */
+    private static boolean isCounted(EntityType type) {
+        return type.ordinal() < KIND_COUNT;
+    }
+
+    /**
+     * Visits the matching cells in the part of one block that lies in a rectangle.
+     *
+     * @param types the entity types to look for
+     * @param level the level of the block
+     * @param blockX the column of the block
+     * @param blockY the row of the block
+     * @param left the first column of the rectangle
+     * @param top the first row of the rectangle
+     * @param right the last column of the rectangle
+     * @param bottom the last row of the rectangle
+     * @param visitor the visitor receiving the flat index of every matching cell
+     */
+    private void visitBlock(EntityType[] types, int level, int blockX, int blockY,
+                            int left, int top, int right, int bottom, IntConsumer visitor) {
+        int side = 1 << level;
+        int blockLeft = blockX * side;
+        int blockTop = blockY * side;
+        if (blockLeft > right || blockTop > bottom || blockLeft + side - 1 < left || blockTop + side - 1 < top ||
+                blockLeft >= width || blockTop >= height || countTypes(types, level, blockX, blockY) == 0) {
+            return;
+        }
+
+        if (level == BASE_LEVEL) {
+            int lastY = Math.min(Math.min(blockTop + side, height) - 1, bottom);
+            int lastX = Math.min(Math.min(blockLeft + side, width) - 1, right);
+            for (int y = Math.max(blockTop, top); y <= lastY; y++) {
+                for (int x = Math.max(blockLeft, left); x <= lastX; x++) {
+                    int cell = grid.indexOf(x, y);
+                    if (matches(types, grid.get(cell))) {
+                        visitor.accept(cell);
+                    }
+                }
+            }
+            return;
+        }
+
+        for (int child = 0; child < 4; child++) {
+            visitBlock(types, level - 1, 2 * blockX + (child & 1), 2 * blockY + (child >> 1),
+                    left, top, right, bottom, visitor);
+        }
+    }
+
+    /**
+     * Checks if an entity is of any of the specified types.
+     *
+     * @param types the entity types
+     * @param entity the entity, or null
+     * @return true if the entity matches, false otherwise
+     */
+    private static boolean matches(EntityType[] types, Entity entity) {
+        EntityType type = WorldMap.typeOf(entity);
+        for (EntityType candidate : types) {
+            if (candidate == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
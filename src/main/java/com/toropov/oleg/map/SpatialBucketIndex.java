@@ -0,0 +1,451 @@
+package com.toropov.oleg.map;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The SpatialBucketIndex class is a per-type spatial hash of the cells of a grid.
+ * The grid is split into square buckets, and every bucket keeps, for every entity type, the list of cells holding
+ * an entity of that type. Each type also keeps the list of its non-empty buckets, so nearest-entity queries only
+ * look at buckets that hold candidates: a sparse type is found by going through its few buckets directly,
+ * a dense type by visiting the buckets ring by ring around the query cell until no closer cell can follow.
+ * Results are the same as those of a {@link SpiralOffsets} scan.
+ * Range queries look only at the buckets overlapping the range, or at the non-empty buckets of the type
+ * if there are fewer of them.
+ * Every type keeps its non-empty buckets only, in a hash table from the index of the bucket to its cell list,
+ * so the tables grow with the number of buckets holding entities rather than with the area of the grid.
+ * The position of every indexed cell in its bucket list is kept in arrays that follow the chunks of
+ * {@link EntityGrid}: one is allocated when the first cell of a chunk is added and released when the last one
+ * is removed, so they take memory for the chunks holding entities only.
+ * The class is not thread-safe.
+ */
+public class SpatialBucketIndex implements SpatialIndex {
+    /**
+     * The default side of a bucket in cells.
+     */
+    public static final int DEFAULT_BUCKET_SIZE = 8;
+
+    private static final int INITIAL_BUCKET_CAPACITY = 4;
+    private static final int SPARSE_FACTOR = 4;
+    private static final int CHUNK_SIZE = EntityGrid.CHUNK_SIZE;
+
+    private final int width;
+    private final int bucketSize;
+    private final int bucketsPerRow;
+    private final int bucketRows;
+    private final TypeBuckets[] typeBuckets;
+    private final int chunksPerRow;
+    private final int[][] cellPositions;
+    private final int[] chunkCellCounts;
+
+    /**
+     * Constructs an empty SpatialBucketIndex for a grid with the specified dimensions.
+     *
+     * @param width the number of columns of the grid
+     * @param height the number of rows of the grid
+     * @param bucketSize the side of a bucket in cells
+     * @throws IllegalArgumentException if the bucket size is not positive
+     */
+    public SpatialBucketIndex(int width, int height, int bucketSize) {
+        if (bucketSize <= 0) {
+            throw new IllegalArgumentException("Bucket size must be positive: " + bucketSize);
+        }
+        this.width = width;
+        this.bucketSize = bucketSize;
+        this.bucketsPerRow = (width + bucketSize - 1) / bucketSize;
+        this.bucketRows = (height + bucketSize - 1) / bucketSize;
+
+        typeBuckets = new TypeBuckets[EntityType.values().length];
+        for (int t = 0; t < typeBuckets.length; t++) {
+            typeBuckets[t] = new TypeBuckets();
+        }
+        chunksPerRow = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int chunkCount = chunksPerRow * ((height + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        cellPositions = new int[chunkCount][];
+        chunkCellCounts = new int[chunkCount];
+    }
+
+    /**
+     * Adds a cell holding an entity of the specified type.
+     *
+     * @param type the type of the entity
+     * @param cell the flat index of the cell
+     */
+    @Override
+    public void add(EntityType type, int cell) {
+        TypeBuckets buckets = typeBuckets[type.ordinal()];
+        int slot = buckets.slotOrAdd(bucketOf(cell));
+        int[] cells = buckets.cells[slot];
+        int size = buckets.sizes[slot];
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+            buckets.cells[slot] = cells;
+        }
+        cells[size] = cell;
+        int chunk = chunkOf(cell);
+        if (chunkCellCounts[chunk]++ == 0) {
+            cellPositions[chunk] = new int[CHUNK_SIZE * CHUNK_SIZE];
+        }
+        cellPositions[chunk][offsetOf(cell)] = size;
+        buckets.sizes[slot] = size + 1;
+    }
+
+    /**
+     * Removes a cell added with {@link #add}.
+     *
+     * @param type the type the cell was added with
+     * @param cell the flat index of the cell
+     */
+    @Override
+    public void remove(EntityType type, int cell) {
+        TypeBuckets buckets = typeBuckets[type.ordinal()];
+        int slot = buckets.slotOf(bucketOf(cell));
+        int[] cells = buckets.cells[slot];
+        int size = buckets.sizes[slot] - 1;
+        int chunk = chunkOf(cell);
+        int position = cellPositions[chunk][offsetOf(cell)];
+        int last = cells[size];
+        cells[position] = last;
+        cellPositions[chunkOf(last)][offsetOf(last)] = position;
+        buckets.sizes[slot] = size;
+        if (--chunkCellCounts[chunk] == 0) {
+            cellPositions[chunk] = null;
+        }
+
+        if (size == 0) {
+            buckets.removeSlot(slot);
+        }
+    }
+
+    /**
+     * Gets the number of cells of the specified type.
+     *
+     * @param type the entity type
+     * @return the number of indexed cells of the type
+     */
+    public int count(EntityType type) {
+        TypeBuckets buckets = typeBuckets[type.ordinal()];
+        int count = 0;
+        for (int slot = 0; slot < buckets.count; slot++) {
+            count += buckets.sizes[slot];
+        }
+        return count;
+    }
+
+    /**
+     * Finds the nearest cell, other than the query cell itself, holding an entity of any of the specified types.
+     *
+     * @param types the entity types to look for
+     * @param x the x coordinate of the query cell
+     * @param y the y coordinate of the query cell
+     * @param maxRadius the largest Manhattan distance to consider
+     * @return the flat index of the nearest cell, or -1 if there is none within the radius
+     */
+    @Override
+    public int nearest(EntityType[] types, int x, int y, int maxRadius) {
+        int nonEmpty = 0;
+        for (EntityType type : types) {
+            nonEmpty += typeBuckets[type.ordinal()].count;
+        }
+        if (nonEmpty == 0 || maxRadius <= 0) {
+            return -1;
+        }
+
+        NearestSearch search = new NearestSearch(width, x, y, maxRadius);
+        if ((long) nonEmpty * SPARSE_FACTOR < (long) bucketsPerRow * bucketRows) {
+            for (EntityType type : types) {
+                TypeBuckets buckets = typeBuckets[type.ordinal()];
+                for (int slot = 0; slot < buckets.count; slot++) {
+                    int bucket = buckets.buckets[slot];
+                    int left = bucket % bucketsPerRow * bucketSize;
+                    int top = bucket / bucketsPerRow * bucketSize;
+                    if (search.mayContainCloser(left, top, left + bucketSize - 1, top + bucketSize - 1)) {
+                        scan(search, buckets, slot);
+                    }
+                }
+            }
+        } else {
+            int originX = x / bucketSize;
+            int originY = y / bucketSize;
+            int maxRing = Math.max(bucketsPerRow, bucketRows);
+            for (int ring = 0; ring <= maxRing; ring++) {
+                int bound = ring == 0 ? 0 : (ring - 1) * bucketSize + 1;
+                if (!search.mayBeWithin(bound)) {
+                    break;
+                }
+                for (int by = originY - ring; by <= originY + ring; by++) {
+                    if (by < 0 || by >= bucketRows) {
+                        continue;
+                    }
+                    boolean edgeRow = by == originY - ring || by == originY + ring;
+                    int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+                    for (int bx = originX - ring; bx <= originX + ring; bx += step) {
+                        if (bx >= 0 && bx < bucketsPerRow) {
+                            for (EntityType type : types) {
+                                TypeBuckets buckets = typeBuckets[type.ordinal()];
+                                scan(search, buckets, buckets.slotOf(by * bucketsPerRow + bx));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return search.getBest();
+    }
+
+    /**
+     * Visits every cell in a rectangle holding an entity of any of the specified types, in no particular order.
+     *
+     * @param types the entity types to look for
+     * @param left the first column of the rectangle
+     * @param top the first row of the rectangle
+     * @param right the last column of the rectangle
+     * @param bottom the last row of the rectangle
+     * @param visitor the visitor receiving the flat index of every matching cell
+     */
+    @Override
+    public void forEachInRectangle(EntityType[] types, int left, int top, int right, int bottom,
+                                   IntConsumer visitor) {
+        int firstBucketX = left / bucketSize;
+        int firstBucketY = top / bucketSize;
+        int lastBucketX = right / bucketSize;
+        int lastBucketY = bottom / bucketSize;
+        long overlapping = (long) (lastBucketX - firstBucketX + 1) * (lastBucketY - firstBucketY + 1);
+        for (EntityType type : types) {
+            TypeBuckets buckets = typeBuckets[type.ordinal()];
+            if (buckets.count < overlapping) {
+                for (int slot = 0; slot < buckets.count; slot++) {
+                    int bucket = buckets.buckets[slot];
+                    int bucketX = bucket % bucketsPerRow;
+                    int bucketY = bucket / bucketsPerRow;
+                    if (bucketX >= firstBucketX && bucketX <= lastBucketX &&
+                            bucketY >= firstBucketY && bucketY <= lastBucketY) {
+                        visit(buckets, slot, left, top, right, bottom, visitor);
+                    }
+                }
+            } else {
+                for (int bucketY = firstBucketY; bucketY <= lastBucketY; bucketY++) {
+                    for (int bucketX = firstBucketX; bucketX <= lastBucketX; bucketX++) {
+                        int slot = buckets.slotOf(bucketY * bucketsPerRow + bucketX);
+                        visit(buckets, slot, left, top, right, bottom, visitor);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the bucket containing a cell.
+     *
+     * @param cell the flat index of the cell
+     * @return the index of the bucket
+     */
+    private int bucketOf(int cell) {
+        return (cell / width / bucketSize) * bucketsPerRow + (cell % width) / bucketSize;
+    }
+
+    /**
+     * Gets the grid chunk containing a cell.
+     *
+     * @param cell the flat index of the cell
+     * @return the index of the chunk
+     */
+    private int chunkOf(int cell) {
+        return cell / width / CHUNK_SIZE * chunksPerRow + cell % width / CHUNK_SIZE;
+    }
+
+    /**
+     * Gets the position of a cell within its grid chunk.
+     *
+     * @param cell the flat index of the cell
+     * @return the offset of the cell in its chunk
+     */
+    private int offsetOf(int cell) {
+        return cell / width % CHUNK_SIZE * CHUNK_SIZE + cell % width % CHUNK_SIZE;
+    }
+
+    /**
+     * Offers the cells of one type in one bucket to a search.
+     *
+     * @param search the search
+     * @param buckets the buckets of the entity type
+     * @param slot the slot of the bucket, or -1 if the bucket holds no cells of the type
+     */
+    private static void scan(NearestSearch search, TypeBuckets buckets, int slot) {
+        if (slot < 0) {
+            return;
+        }
+        int[] cells = buckets.cells[slot];
+        int size = buckets.sizes[slot];
+        for (int i = 0; i < size; i++) {
+            search.offer(cells[i]);
+        }
+    }
+
+    /**
+     * Passes the cells of one type in one bucket that lie in a rectangle to a visitor.
+     *
+     * @param buckets the buckets of the entity type
+     * @param slot the slot of the bucket, or -1 if the bucket holds no cells of the type
+     * @param left the first column of the rectangle
+     * @param top the first row of the rectangle
+     * @param right the last column of the rectangle
+     * @param bottom the last row of the rectangle
+     * @param visitor the visitor receiving the flat index of every matching cell
+     */
+    private void visit(TypeBuckets buckets, int slot, int left, int top, int right, int bottom, IntConsumer visitor) {
+        if (slot < 0) {
+            return;
+        }
+        int[] cells = buckets.cells[slot];
+        int size = buckets.sizes[slot];
+        for (int i = 0; i < size; i++) {
+            int x = cells[i] % width;
+            int y = cells[i] / width;
+            if (x >= left && x <= right && y >= top && y <= bottom) {
+                visitor.accept(cells[i]);
+            }
+        }
+    }
+
+    /**
+     * The non-empty buckets of one entity type. Every bucket holding a cell of the type has a slot with its cell list,
+     * the slots are kept dense so they double as the list of non-empty buckets, and an open-addressing hash table
+     * with linear probing maps the index of a bucket to its slot.
+     */
+    private static class TypeBuckets {
+        private static final int INITIAL_CAPACITY = 8;
+        private static final int NO_BUCKET = -1;
+
+        private int count = 0;
+        private int[] buckets = new int[INITIAL_CAPACITY];
+        private int[][] cells = new int[INITIAL_CAPACITY][];
+        private int[] sizes = new int[INITIAL_CAPACITY];
+        private int[] tableBuckets = newTable(INITIAL_CAPACITY * 2);
+        private int[] tableSlots = new int[INITIAL_CAPACITY * 2];
+
+        /**
+         * Finds the slot of a bucket.
+         *
+         * @param bucket the index of the bucket
+         * @return the slot, or -1 if the bucket holds no cells of the type
+         */
+        private int slotOf(int bucket) {
+            int mask = tableBuckets.length - 1;
+            for (int i = hash(bucket) & mask; tableBuckets[i] != NO_BUCKET; i = (i + 1) & mask) {
+                if (tableBuckets[i] == bucket) {
+                    return tableSlots[i];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Finds the slot of a bucket, giving the bucket a new slot with an empty cell list if it has none.
+         *
+         * @param bucket the index of the bucket
+         * @return the slot
+         */
+        private int slotOrAdd(int bucket) {
+            int slot = slotOf(bucket);
+            if (slot >= 0) {
+                return slot;
+            }
+            if (count == buckets.length) {
+                int capacity = count * 2;
+                buckets = Arrays.copyOf(buckets, capacity);
+                cells = Arrays.copyOf(cells, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                tableBuckets = newTable(capacity * 2);
+                tableSlots = new int[capacity * 2];
+                for (int i = 0; i < count; i++) {
+                    put(buckets[i], i);
+                }
+            }
+            slot = count++;
+            buckets[slot] = bucket;
+            cells[slot] = new int[INITIAL_BUCKET_CAPACITY];
+            sizes[slot] = 0;
+            put(bucket, slot);
+            return slot;
+        }
+
+        /**
+         * Releases the slot of a bucket that no longer holds cells of the type, moving the last slot into its place.
+         *
+         * @param slot the slot
+         */
+        private void removeSlot(int slot) {
+            delete(buckets[slot]);
+            int last = --count;
+            if (slot != last) {
+                buckets[slot] = buckets[last];
+                cells[slot] = cells[last];
+                sizes[slot] = sizes[last];
+                put(buckets[slot], slot);
+            }
+            cells[last] = null;
+        }
+
+        /**
+         * Maps a bucket to a slot in the hash table, replacing its previous slot if it has one.
+         *
+         * @param bucket the index of the bucket
+         * @param slot the slot
+         */
+        private void put(int bucket, int slot) {
+            int mask = tableBuckets.length - 1;
+            int i = hash(bucket) & mask;
+            while (tableBuckets[i] != NO_BUCKET && tableBuckets[i] != bucket) {
+                i = (i + 1) & mask;
+            }
+            tableBuckets[i] = bucket;
+            tableSlots[i] = slot;
+        }
+
+        /**
+         * Removes a bucket from the hash table, shifting the entries after it back so no probe sequence is broken.
+         *
+         * @param bucket the index of the bucket
+         */
+        private void delete(int bucket) {
+            int mask = tableBuckets.length - 1;
+            int hole = hash(bucket) & mask;
+            while (tableBuckets[hole] != bucket) {
+                hole = (hole + 1) & mask;
+            }
+            for (int i = (hole + 1) & mask; tableBuckets[i] != NO_BUCKET; i = (i + 1) & mask) {
+                int home = hash(tableBuckets[i]) & mask;
+                if (((i - home) & mask) >= ((i - hole) & mask)) {
+                    tableBuckets[hole] = tableBuckets[i];
+                    tableSlots[hole] = tableSlots[i];
+                    hole = i;
+                }
+            }
+            tableBuckets[hole] = NO_BUCKET;
+        }
+
+        /**
+         * Creates an empty hash table.
+         *
+         * @param capacity the capacity, a power of two
+         * @return the bucket column of the table, every entry free
+         */
+        private static int[] newTable(int capacity) {
+            int[] table = new int[capacity];
+            Arrays.fill(table, NO_BUCKET);
+            return table;
+        }
+
+        /**
+         * Spreads the bits of a bucket index so that neighbouring buckets land far apart in the hash table.
+         *
+         * @param bucket the index of the bucket
+         * @return the hash of the bucket
+         */
+        private static int hash(int bucket) {
+            int h = bucket * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
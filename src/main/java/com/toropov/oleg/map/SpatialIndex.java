@@ -0,0 +1,51 @@
+package com.toropov.oleg.map;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A SpatialIndex keeps track of which cells of a map hold entities of each type and finds the nearest of them.
+ * The map calls {@link #add} and {@link #remove} whenever a typed entity enters or leaves a cell.
+ */
+public interface SpatialIndex {
+    /**
+     * Adds a cell holding an entity of the specified type. A cell can hold only one indexed entity at a time.
+     *
+     * @param type the type of the entity
+     * @param cell the flat index of the cell
+     */
+    void add(EntityType type, int cell);
+
+    /**
+     * Removes a cell added with {@link #add}.
+     *
+     * @param type the type the cell was added with
+     * @param cell the flat index of the cell
+     */
+    void remove(EntityType type, int cell);
+
+    /**
+     * Finds the nearest cell, other than the query cell itself, holding an entity of any of the specified types.
+     * Cells are ranked as in a {@link SpiralOffsets} scan: by Manhattan distance, then by Chebyshev distance,
+     * then by dx and then by dy.
+     *
+     * @param types the entity types to look for
+     * @param x the x coordinate of the query cell
+     * @param y the y coordinate of the query cell
+     * @param maxRadius the largest Manhattan distance to consider
+     * @return the flat index of the nearest cell, or -1 if there is none within the radius
+     */
+    int nearest(EntityType[] types, int x, int y, int maxRadius);
+
+    /**
+     * Visits every cell in a rectangle holding an entity of any of the specified types, in no particular order.
+     * The rectangle must lie within the grid. The index must not be changed while the cells are visited.
+     *
+     * @param types the entity types to look for
+     * @param left the first column of the rectangle
+     * @param top the first row of the rectangle
+     * @param right the last column of the rectangle
+     * @param bottom the last row of the rectangle
+     * @param visitor the visitor receiving the flat index of every matching cell
+     */
+    void forEachInRectangle(EntityType[] types, int left, int top, int right, int bottom, IntConsumer visitor);
+}
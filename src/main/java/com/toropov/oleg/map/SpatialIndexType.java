@@ -0,0 +1,30 @@
+package com.toropov.oleg.map;
+
+/**
+ * Enumeration of the available {@link SpatialIndex} implementations.
+ */
+public enum SpatialIndexType {
+    /**
+     * Fixed-size buckets with a list of entities per type, see {@link SpatialBucketIndex}.
+     */
+    BUCKETS,
+
+    /**
+     * A pyramid of per-type counts over blocks of growing size, see {@link OccupancyPyramid}.
+     */
+    PYRAMID;
+
+    /**
+     * Creates an empty index of this type for the specified grid.
+     *
+     * @param grid the grid to index
+     * @return the new spatial index
+     */
+    public SpatialIndex create(EntityGrid grid) {
+        return switch (this) {
+            case BUCKETS -> new SpatialBucketIndex(grid.getWidth(), grid.getHeight(),
+                    SpatialBucketIndex.DEFAULT_BUCKET_SIZE);
+            case PYRAMID -> new OccupancyPyramid(grid);
+        };
+    }
+}
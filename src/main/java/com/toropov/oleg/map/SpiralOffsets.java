@@ -0,0 +1,152 @@
+package com.toropov.oleg.map;
+
+import java.util.Arrays;
+
+/**
+ * The SpiralOffsets class is a precomputed table of coordinate shifts ordered by their distance from the origin.
+ * Shifts are sorted by Manhattan distance, then by Chebyshev distance, then by dx and dy, and every shift
+ * appears exactly once. The table is stored as one packed int array of dx/dy pairs together with the index
+ * at which every Manhattan ring starts, so scans limited to a radius can stop without looking at the rest.
+ * Instances are immutable and shared, see {@link WorldMapUtils#getSpiralOffsets(int)}.
+ * The table grows with the square of its bound, so it is only meant for small radii;
+ * bounds above {@link #MAX_SHIFT} are rejected rather than overflowing the packed arrays and sort keys.
+ */
+public class SpiralOffsets {
+    /**
+     * The largest bound of a table. Twice the number of shifts must fit in an int array,
+     * and dx and dy offset by the bound must fit in the 16-bit fields of the sort key.
+     */
+    public static final int MAX_SHIFT = 16383;
+
+    private final int maxShift;
+    private final int[] shifts;
+    private final int[] ringEnds;
+
+    /**
+     * Constructs the table of all shifts with both components within the specified bound.
+     *
+     * @param maxShift the largest absolute value of dx and dy
+     * @throws IllegalArgumentException if the bound exceeds {@link #MAX_SHIFT}
+     */
+    SpiralOffsets(int maxShift) {
+        if (maxShift > MAX_SHIFT) {
+            throw new IllegalArgumentException("Spiral offset tables are limited to shifts of " + MAX_SHIFT + ": " + maxShift);
+        }
+        this.maxShift = Math.max(maxShift, 0);
+        long side = 2L * this.maxShift + 1;
+        int count = Math.toIntExact(side * side - 1);
+        long[] keys = new long[count];
+        int index = 0;
+        for (int dx = -this.maxShift; dx <= this.maxShift; dx++) {
+            for (int dy = -this.maxShift; dy <= this.maxShift; dy++) {
+                if (dx == 0 && dy == 0) continue;
+                keys[index++] = sortKey(dx, dy);
+            }
+        }
+        Arrays.sort(keys);
+
+        shifts = new int[count * 2];
+        ringEnds = new int[2 * this.maxShift + 1];
+        for (int i = 0; i < count; i++) {
+            int dx = (int) ((keys[i] >> 16) & 0xFFFF) - this.maxShift;
+            int dy = (int) (keys[i] & 0xFFFF) - this.maxShift;
+            shifts[2 * i] = dx;
+            shifts[2 * i + 1] = dy;
+            ringEnds[Math.abs(dx) + Math.abs(dy)] = i + 1;
+        }
+    }
+
+    /**
+     * Builds a key whose natural order is the order of the table.
+     *
+     * @param dx the horizontal shift
+     * @param dy the vertical shift
+     * @return the sort key
+     */
+    private long sortKey(int dx, int dy) {
+        long manhattan = Math.abs(dx) + Math.abs(dy);
+        long chebyshev = Math.max(Math.abs(dx), Math.abs(dy));
+        return manhattan << 48 | chebyshev << 32 | (long) (dx + maxShift) << 16 | (dy + maxShift);
+    }
+
+    /**
+     * Gets the largest absolute value of dx and dy in the table.
+     *
+     * @return the largest shift component
+     */
+    public int getMaxShift() {
+        return maxShift;
+    }
+
+    /**
+     * Gets the number of shifts whose Manhattan distance does not exceed the specified radius.
+     * Shifts with indices below this number form a prefix of the table.
+     *
+     * @param maxRadius the largest Manhattan distance to include
+     * @return the number of shifts within the radius
+     */
+    public int count(int maxRadius) {
+        if (maxRadius <= 0) {
+            return 0;
+        }
+        return ringEnds[Math.min(maxRadius, ringEnds.length - 1)];
+    }
+
+    /**
+     * Gets the horizontal component of the shift at the specified index.
+     *
+     * @param index the index of the shift
+     * @return the horizontal shift
+     */
+    public int getDx(int index) {
+        return shifts[2 * index];
+    }
+
+    /**
+     * Gets the vertical component of the shift at the specified index.
+     *
+     * @param index the index of the shift
+     * @return the vertical shift
+     */
+    public int getDy(int index) {
+        return shifts[2 * index + 1];
+    }
+
+    /**
+     * Visits the in-bounds cells around a center in table order until the visitor accepts one.
+     *
+     * @param map the world map
+     * @param center the center of the spiral
+     * @param maxRadius the largest Manhattan distance to visit
+     * @param visitor the visitor deciding whether to stop at a cell
+     * @return the coordinates of the accepted cell, or null if the visitor accepted none
+     */
+    public Coordinates find(WorldMap map, Coordinates center, int maxRadius, CellVisitor visitor) {
+        int centerX = center.getX();
+        int centerY = center.getY();
+        int count = count(maxRadius);
+        for (int i = 0; i < count; i++) {
+            int x = centerX + shifts[2 * i];
+            int y = centerY + shifts[2 * i + 1];
+            if (map.isWithinBounds(x, y) && visitor.accept(x, y)) {
+                return new Coordinates(x, y);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Callback for cells visited by {@link #find}.
+     */
+    @FunctionalInterface
+    public interface CellVisitor {
+        /**
+         * Decides whether the scan should stop at the specified cell.
+         *
+         * @param x the x coordinate of the cell
+         * @param y the y coordinate of the cell
+         * @return true to stop at this cell, false to continue
+         */
+        boolean accept(int x, int y);
+    }
+}
@@ -0,0 +1,322 @@
+package com.toropov.oleg.map;
+
+import java.util.Arrays;
+
+/**
+ * The TerrainComponents class labels the connected areas of a map that are not cut off from each other by terrain.
+ * Creatures move to any of the eight neighboring cells and never through rocks or trees, so two cells in different
+ * components can never be joined by a path, whatever the creatures on the map do. A search between them can
+ * therefore be rejected with a few array loads instead of exploring the whole area around the start.
+ * The components are found with a union-find pass over the {@link TerrainLayer}. The labels follow the chunks of
+ * {@link EntityGrid}: a chunk without terrain is wholly connected and shares one label, and only a chunk holding
+ * terrain keeps a label per cell, so the memory grows with the chunks the terrain touches rather than with the area.
+ * They are recomputed whenever the terrain has changed since they were last computed;
+ * once the terrain is frozen that never happens again.
+ */
+public class TerrainComponents {
+    /**
+     * Label of cells holding terrain, which belong to no component.
+     */
+    public static final int NO_COMPONENT = -1;
+
+    private static final int CHUNK_SIZE = EntityGrid.CHUNK_SIZE;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+    private static final int[] EARLIER_X = {-1, -1, 0, 1};
+    private static final int[] EARLIER_Y = {0, -1, -1, -1};
+
+    private final TerrainLayer terrain;
+    private final int chunksPerRow;
+    private volatile Labels labels;
+    private volatile int computedVersion = -1;
+
+    /**
+     * Constructs the TerrainComponents of the specified terrain. They are computed on first use.
+     *
+     * @param terrain the terrain layer
+     */
+    public TerrainComponents(TerrainLayer terrain) {
+        this.terrain = terrain;
+        this.chunksPerRow = (terrain.getWidth() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * Gets the number of components.
+     *
+     * @return the number of connected areas of passable cells
+     */
+    public int getComponentCount() {
+        update();
+        return labels.componentCount;
+    }
+
+    /**
+     * Gets the component of the specified cell.
+     *
+     * @param cell the flat index of the cell
+     * @return the label of the component, or {@link #NO_COMPONENT} if the cell holds terrain
+     */
+    public int componentOf(int cell) {
+        update();
+        return labelOf(labels, cell);
+    }
+
+    /**
+     * Checks if a path between two cells may exist, that is, if neither holds terrain and they are in the same component.
+     *
+     * @param from the flat index of the first cell
+     * @param to the flat index of the second cell
+     * @return true if the cells are connected, false otherwise
+     */
+    public boolean isConnected(int from, int to) {
+        update();
+        Labels current = labels;
+        int label = labelOf(current, from);
+        return label != NO_COMPONENT && label == labelOf(current, to);
+    }
+
+    /**
+     * Checks if a path between two cells may exist. Cells outside the map are connected to nothing.
+     *
+     * @param from the coordinates of the first cell
+     * @param to the coordinates of the second cell
+     * @return true if the cells are connected, false otherwise
+     */
+    public boolean isConnected(Coordinates from, Coordinates to) {
+        if (terrain.isBlocked(from.getX(), from.getY()) || terrain.isBlocked(to.getX(), to.getY())) {
+            return false;
+        }
+        int width = terrain.getWidth();
+        return isConnected(from.getY() * width + from.getX(), to.getY() * width + to.getX());
+    }
+
+    /**
+     * Recomputes the components if the terrain has changed since they were last computed.
+     */
+    public void update() {
+        if (computedVersion != terrain.getVersion()) {
+            compute();
+        }
+    }
+
+    /**
+     * Gets the label of a cell from a set of labels.
+     *
+     * @param current the labels
+     * @param cell the flat index of the cell
+     * @return the label of the component, or {@link #NO_COMPONENT} if the cell holds terrain
+     */
+    private int labelOf(Labels current, int cell) {
+        int width = terrain.getWidth();
+        int x = cell % width;
+        int y = cell / width;
+        int chunk = chunkIndex(x, y);
+        int[] cellLabels = current.cellLabels[chunk];
+        return cellLabels == null ? current.chunkLabels[chunk] : cellLabels[EntityGrid.offset(x, y)];
+    }
+
+    /**
+     * Joins every passable cell with its passable neighbors that come before it in row order,
+     * then gives every root a compact label. A chunk without terrain is a single node of the union-find, and only
+     * the cells along its top row and its side columns can have such neighbors outside of it; if none of those
+     * neighbors holds terrain either, the chunk is joined with its neighboring chunks as a whole.
+     */
+    private synchronized void compute() {
+        int version = terrain.getVersion();
+        if (computedVersion == version) {
+            return;
+        }
+
+        int width = terrain.getWidth();
+        int height = terrain.getHeight();
+        int chunkCount = chunksPerRow * ((height + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        int[] firstNodes = new int[chunkCount];
+        boolean[] clear = new boolean[chunkCount];
+        int nodeCount = 0;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            clear[chunk] = terrain.isChunkClear(chunk % chunksPerRow * CHUNK_SIZE, chunk / chunksPerRow * CHUNK_SIZE);
+            firstNodes[chunk] = nodeCount;
+            nodeCount += clear[chunk] ? 1 : CHUNK_CELLS;
+        }
+
+        int[] parents = new int[nodeCount];
+        int[] sizes = new int[nodeCount];
+        Arrays.fill(parents, NO_COMPONENT);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int left = chunk % chunksPerRow * CHUNK_SIZE;
+            int top = chunk / chunksPerRow * CHUNK_SIZE;
+            if (clear[chunk]) {
+                parents[firstNodes[chunk]] = firstNodes[chunk];
+                sizes[firstNodes[chunk]] = 1;
+                continue;
+            }
+            for (int y = top; y < Math.min(top + CHUNK_SIZE, height); y++) {
+                for (int x = left; x < Math.min(left + CHUNK_SIZE, width); x++) {
+                    int node = firstNodes[chunk] + EntityGrid.offset(x, y);
+                    if (!terrain.isBlocked(x, y)) {
+                        parents[node] = node;
+                        sizes[node] = 1;
+                    }
+                }
+            }
+        }
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int left = chunk % chunksPerRow * CHUNK_SIZE;
+            int top = chunk / chunksPerRow * CHUNK_SIZE;
+            int right = Math.min(left + CHUNK_SIZE, width) - 1;
+            int bottom = Math.min(top + CHUNK_SIZE, height) - 1;
+            if (clear[chunk] && isClearBefore(clear, chunk)) {
+                if (left > 0) {
+                    union(parents, sizes, firstNodes[chunk], firstNodes[chunk - 1]);
+                }
+                if (top > 0) {
+                    union(parents, sizes, firstNodes[chunk], firstNodes[chunk - chunksPerRow]);
+                }
+                continue;
+            }
+            for (int y = top; y <= bottom; y++) {
+                int step = clear[chunk] && y != top ? Math.max(right - left, 1) : 1;
+                for (int x = left; x <= right; x += step) {
+                    if (terrain.isBlocked(x, y)) {
+                        continue;
+                    }
+                    int node = nodeOf(firstNodes, clear, x, y);
+                    for (int i = 0; i < EARLIER_X.length; i++) {
+                        int neighborX = x + EARLIER_X[i];
+                        int neighborY = y + EARLIER_Y[i];
+                        if (!terrain.isBlocked(neighborX, neighborY)) {
+                            union(parents, sizes, node, nodeOf(firstNodes, clear, neighborX, neighborY));
+                        }
+                    }
+                }
+            }
+        }
+
+        int[] rootLabels = new int[nodeCount];
+        int count = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            rootLabels[node] = parents[node] == node ? count++ : NO_COMPONENT;
+        }
+        int[] chunkLabels = new int[chunkCount];
+        int[][] cellLabels = new int[chunkCount][];
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int first = firstNodes[chunk];
+            if (clear[chunk]) {
+                chunkLabels[chunk] = rootLabels[find(parents, first)];
+                continue;
+            }
+            int[] labelsOfChunk = new int[CHUNK_CELLS];
+            for (int offset = 0; offset < CHUNK_CELLS; offset++) {
+                labelsOfChunk[offset] = parents[first + offset] == NO_COMPONENT ? NO_COMPONENT :
+                        rootLabels[find(parents, first + offset)];
+            }
+            cellLabels[chunk] = labelsOfChunk;
+        }
+
+        labels = new Labels(chunkLabels, cellLabels, count);
+        computedVersion = version;
+    }
+
+    /**
+     * Checks if the chunks to the left of a chunk and above it, diagonals included, hold no terrain.
+     * Two such chunks share a wholly passable edge, so a chunk without terrain joins them as a whole.
+     *
+     * @param clear whether every chunk is without terrain
+     * @param chunk the index of the chunk
+     * @return true if none of the neighboring chunks before the chunk holds terrain, false otherwise
+     */
+    private boolean isClearBefore(boolean[] clear, int chunk) {
+        int column = chunk % chunksPerRow;
+        boolean hasLeft = column > 0;
+        boolean hasRight = column < chunksPerRow - 1;
+        boolean hasTop = chunk >= chunksPerRow;
+        return (!hasLeft || clear[chunk - 1]) &&
+                (!hasTop || clear[chunk - chunksPerRow]) &&
+                (!hasTop || !hasLeft || clear[chunk - chunksPerRow - 1]) &&
+                (!hasTop || !hasRight || clear[chunk - chunksPerRow + 1]);
+    }
+
+    /**
+     * Gets the union-find node of a cell: the single node of a chunk without terrain, or the node of the cell itself.
+     *
+     * @param firstNodes the first node of every chunk
+     * @param clear whether every chunk is without terrain
+     * @param x the x coordinate of the cell
+     * @param y the y coordinate of the cell
+     * @return the node of the cell
+     */
+    private int nodeOf(int[] firstNodes, boolean[] clear, int x, int y) {
+        int chunk = chunkIndex(x, y);
+        return clear[chunk] ? firstNodes[chunk] : firstNodes[chunk] + EntityGrid.offset(x, y);
+    }
+
+    /**
+     * Gets the index of the chunk containing a cell.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the index of the chunk
+     */
+    private int chunkIndex(int x, int y) {
+        return y / CHUNK_SIZE * chunksPerRow + x / CHUNK_SIZE;
+    }
+
+    /**
+     * Finds the root of the set of a node, halving the path on the way.
+     *
+     * @param parents the parent of every node
+     * @param node the node
+     * @return the root
+     */
+    private static int find(int[] parents, int node) {
+        while (parents[node] != node) {
+            parents[node] = parents[parents[node]];
+            node = parents[node];
+        }
+        return node;
+    }
+
+    /**
+     * Joins the sets of two nodes, hanging the smaller set under the larger one.
+     *
+     * @param parents the parent of every node
+     * @param sizes the size of the set of every root
+     * @param first the first node
+     * @param second the second node
+     */
+    private static void union(int[] parents, int[] sizes, int first, int second) {
+        int firstRoot = find(parents, first);
+        int secondRoot = find(parents, second);
+        if (firstRoot == secondRoot) {
+            return;
+        }
+        if (sizes[firstRoot] < sizes[secondRoot]) {
+            int swap = firstRoot;
+            firstRoot = secondRoot;
+            secondRoot = swap;
+        }
+        parents[secondRoot] = firstRoot;
+        sizes[firstRoot] += sizes[secondRoot];
+    }
+
+    /**
+     * The labels of one computation, published together.
+     */
+    private static class Labels {
+        private final int[] chunkLabels;
+        private final int[][] cellLabels;
+        private final int componentCount;
+
+        /**
+         * Constructs the labels of one computation.
+         *
+         * @param chunkLabels the label shared by all cells of every chunk without terrain
+         * @param cellLabels the label of every cell of every chunk holding terrain, null for the other chunks
+         * @param componentCount the number of components
+         */
+        private Labels(int[] chunkLabels, int[][] cellLabels, int componentCount) {
+            this.chunkLabels = chunkLabels;
+            this.cellLabels = cellLabels;
+            this.componentCount = componentCount;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.toropov.oleg.map;
+
+/**
+ * The TerrainLayer class marks the cells of a map that hold static terrain such as rocks and trees,
+ * one bit per cell in row order. Terrain never moves, so once the map has been populated the layer is frozen
+ * and from then on it is immutable: passability checks become a bit test and anything derived from the terrain
+ * alone can be computed once and kept.
+ * The entities of the terrain stay in their cells of the grid so that they are drawn and counted like any other;
+ * the layer only records where they are.
+ * The bits follow the chunks of {@link EntityGrid}: only a chunk holding terrain has a bitset, so the memory grows
+ * with the number of chunks the terrain touches, plus one reference and one int per chunk, rather than with the area.
+ */
+public class TerrainLayer {
+    private static final int CHUNK_SIZE = EntityGrid.CHUNK_SIZE;
+    private static final int WORD_SHIFT = 6;
+
+    private final int width;
+    private final int height;
+    private final int chunksPerRow;
+    private final long[][] chunkWords;
+    private final int[] chunkBlocked;
+    private int blockedCount;
+    private int version;
+    private volatile boolean frozen;
+
+    /**
+     * Constructs an empty TerrainLayer of the specified size.
+     *
+     * @param width the number of columns
+     * @param height the number of rows
+     */
+    public TerrainLayer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.chunksPerRow = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int chunkCount = chunksPerRow * ((height + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        this.chunkWords = new long[chunkCount][];
+        this.chunkBlocked = new int[chunkCount];
+    }
+
+    /**
+     * Gets the number of columns of the layer.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the number of rows of the layer.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of cells holding terrain.
+     *
+     * @return the number of blocked cells
+     */
+    public int getBlockedCount() {
+        return blockedCount;
+    }
+
+    /**
+     * Gets the number of changes made to the layer, so that data derived from it can tell when it is out of date.
+     *
+     * @return the version of the layer
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks if the specified cell holds terrain.
+     *
+     * @param cell the flat index of the cell
+     * @return true if the cell is blocked, false otherwise
+     */
+    public boolean isBlocked(int cell) {
+        return isBlockedWithin(cell % width, cell / width);
+    }
+
+    /**
+     * Checks if the specified cell holds terrain. Cells outside the layer count as blocked,
+     * so callers testing neighbors need no separate bounds check.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if the cell is blocked or outside the layer, false otherwise
+     */
+    public boolean isBlocked(int x, int y) {
+        return x < 0 || y < 0 || x >= width || y >= height || isBlockedWithin(x, y);
+    }
+
+    /**
+     * Checks if the chunk of {@link EntityGrid} containing the specified cell holds no terrain at all.
+     *
+     * @param x the x coordinate, within the layer
+     * @param y the y coordinate, within the layer
+     * @return true if every cell of the chunk is passable, false otherwise
+     */
+    public boolean isChunkClear(int x, int y) {
+        return chunkWords[chunkIndex(x, y)] == null;
+    }
+
+    /**
+     * Marks a cell as holding terrain or not.
+     *
+     * @param cell the flat index of the cell
+     * @param blocked true if the cell holds terrain, false otherwise
+     * @throws IllegalStateException if the layer is frozen and the cell would change
+     */
+    public void set(int cell, boolean blocked) {
+        if (isBlocked(cell) == blocked) {
+            return;
+        }
+        if (frozen) {
+            throw new IllegalStateException("The terrain is frozen, cell " + cell + " cannot change");
+        }
+        int x = cell % width;
+        int y = cell / width;
+        int chunk = chunkIndex(x, y);
+        if (chunkWords[chunk] == null) {
+            chunkWords[chunk] = new long[CHUNK_SIZE * CHUNK_SIZE / Long.SIZE];
+        }
+        int offset = EntityGrid.offset(x, y);
+        chunkWords[chunk][offset >>> WORD_SHIFT] ^= 1L << offset;
+        chunkBlocked[chunk] += blocked ? 1 : -1;
+        if (chunkBlocked[chunk] == 0) {
+            chunkWords[chunk] = null;
+        }
+        blockedCount += blocked ? 1 : -1;
+        version++;
+    }
+
+    /**
+     * Checks if the layer is frozen.
+     *
+     * @return true if the terrain can no longer change, false otherwise
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Freezes the layer. Afterwards no cell can gain or lose its terrain.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * Checks if a cell within the layer holds terrain.
+     *
+     * @param x the x coordinate, within the layer
+     * @param y the y coordinate, within the layer
+     * @return true if the cell is blocked, false otherwise
+     */
+    private boolean isBlockedWithin(int x, int y) {
+        long[] words = chunkWords[chunkIndex(x, y)];
+        if (words == null) {
+            return false;
+        }
+        int offset = EntityGrid.offset(x, y);
+        return (words[offset >>> WORD_SHIFT] & 1L << offset) != 0;
+    }
+
+    /**
+     * Gets the index of the chunk containing a cell.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the index of the chunk
+     */
+    private int chunkIndex(int x, int y) {
+        return y / CHUNK_SIZE * chunksPerRow + x / CHUNK_SIZE;
+    }
+}
@@ -0,0 +1,134 @@
+package com.toropov.oleg.map;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The TimingWheel class is a hashed timing wheel of cell indices, each due at a future tick.
+ * A cell due at tick {@code t} is kept in slot {@code t % slotCount} together with its due tick, so scheduling is
+ * an append to one slot and advancing the wheel by one tick only looks at the entries of one slot.
+ * As long as delays are shorter than the number of slots, every entry of that slot is due, and the work per tick
+ * is proportional to the number of cells that are due. Longer delays are allowed; their entries simply stay in the slot
+ * for more than one turn of the wheel.
+ * The class is not thread-safe.
+ */
+public class TimingWheel {
+    private static final int INITIAL_SLOT_CAPACITY = 4;
+
+    private final int mask;
+    private final int[][] cells;
+    private final long[][] dueTicks;
+    private final int[] sizes;
+    private int[] due = new int[INITIAL_SLOT_CAPACITY];
+    private long currentTick = 0;
+    private int size = 0;
+
+    /**
+     * Constructs an empty TimingWheel with at least the specified number of slots.
+     * The number of slots is rounded up to a power of two.
+     *
+     * @param slotCount the minimum number of slots
+     * @throws IllegalArgumentException if the number of slots is not positive
+     */
+    public TimingWheel(int slotCount) {
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("Number of slots must be positive: " + slotCount);
+        }
+        int slots = Integer.highestOneBit(slotCount);
+        if (slots < slotCount) {
+            slots <<= 1;
+        }
+        mask = slots - 1;
+        cells = new int[slots][INITIAL_SLOT_CAPACITY];
+        dueTicks = new long[slots][INITIAL_SLOT_CAPACITY];
+        sizes = new int[slots];
+    }
+
+    /**
+     * Gets the number of slots of the wheel.
+     *
+     * @return the number of slots
+     */
+    public int getSlotCount() {
+        return sizes.length;
+    }
+
+    /**
+     * Gets the tick the wheel has advanced to.
+     *
+     * @return the current tick
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Gets the number of scheduled cells that are not due yet.
+     *
+     * @return the number of pending cells
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules a cell to become due the specified number of ticks after the current tick.
+     *
+     * @param cell the flat index of the cell
+     * @param delay the number of ticks, at least one
+     * @throws IllegalArgumentException if the delay is not positive
+     */
+    public void schedule(int cell, int delay) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("Delay must be positive: " + delay);
+        }
+        long dueTick = currentTick + delay;
+        int slot = (int) (dueTick & mask);
+        int slotSize = sizes[slot];
+        if (slotSize == cells[slot].length) {
+            cells[slot] = Arrays.copyOf(cells[slot], slotSize * 2);
+            dueTicks[slot] = Arrays.copyOf(dueTicks[slot], slotSize * 2);
+        }
+        cells[slot][slotSize] = cell;
+        dueTicks[slot][slotSize] = dueTick;
+        sizes[slot] = slotSize + 1;
+        size++;
+    }
+
+    /**
+     * Advances the wheel by one tick and passes every cell due at the new tick to the consumer.
+     * The due cells are taken out of the wheel before the consumer runs, so it may schedule cells again.
+     *
+     * @param consumer the consumer of the due cells
+     * @return the number of due cells
+     */
+    public int advance(IntConsumer consumer) {
+        currentTick++;
+        int slot = (int) (currentTick & mask);
+        int[] slotCells = cells[slot];
+        long[] slotDueTicks = dueTicks[slot];
+        int slotSize = sizes[slot];
+        if (due.length < slotSize) {
+            due = new int[slotCells.length];
+        }
+
+        int dueCount = 0;
+        int kept = 0;
+        for (int i = 0; i < slotSize; i++) {
+            if (slotDueTicks[i] == currentTick) {
+                due[dueCount++] = slotCells[i];
+            } else {
+                slotCells[kept] = slotCells[i];
+                slotDueTicks[kept] = slotDueTicks[i];
+                kept++;
+            }
+        }
+        sizes[slot] = kept;
+        size -= dueCount;
+
+        for (int i = 0; i < dueCount; i++) {
+            consumer.accept(due[i]);
+        }
+        return dueCount;
+    }
+}
@@ -1,23 +1,54 @@
 package com.toropov.oleg.map;
 
 import com.toropov.oleg.entity.Creature;
+import com.toropov.oleg.entity.CreatureStore;
 import com.toropov.oleg.entity.Entity;
+import com.toropov.oleg.entity.EntityFactory;
+import com.toropov.oleg.entity.EntityRegistry;
 import com.toropov.oleg.entity.Grass;
-import com.toropov.oleg.entity.herbivore.Chick;
-import com.toropov.oleg.entity.predator.FemaleFox;
-import com.toropov.oleg.entity.predator.FoxCub;
-import com.toropov.oleg.entity.predator.MaleFox;
-import com.toropov.oleg.entity.herbivore.Hen;
-import com.toropov.oleg.entity.herbivore.Rooster;
+import com.toropov.oleg.entity.Kids;
+import com.toropov.oleg.pathfinding.FlowFields;
+import com.toropov.oleg.pathfinding.PathStrategy;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.logging.Logger;
 
 /**
  * The WorldMap class represents the map where entities are placed and interact.
  */
 public class WorldMap {
+    private static final Logger LOGGER = Logger.getLogger(WorldMap.class.getName());
+    private static final EntityType[][] MEMBERS = new EntityType[EntityType.values().length][];
+    private static final boolean[][] MEMBER_MASKS = new boolean[EntityType.values().length][EntityType.values().length];
+
+    static {
+        for (EntityType type : EntityType.values()) {
+            MEMBERS[type.ordinal()] = switch (type) {
+                case ALL_CHICKEN -> new EntityType[]{EntityType.ROOSTER, EntityType.HEN, EntityType.CHICK};
+                case ALL_FOXES -> new EntityType[]{EntityType.MALE_FOX, EntityType.FEMALE_FOX, EntityType.FOX_CUB};
+                default -> new EntityType[]{type};
+            };
+            for (EntityType member : MEMBERS[type.ordinal()]) {
+                MEMBER_MASKS[type.ordinal()][member.ordinal()] = true;
+            }
+        }
+    }
+
     private final int mapSize;
-    private final Map<Coordinates, Entity> entities = new HashMap<>();
+    private final EntityGrid grid;
+    private final FreeCellIndex freeCells;
+    private final TerrainLayer terrain;
+    private final TerrainComponents terrainComponents;
+    private SpatialIndex spatialIndex;
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(EntityType.values().length);
+    private final FlowFields flowFields = new FlowFields(this);
+    private final GrassRegrowth grassRegrowth = new GrassRegrowth(this);
+    private final EntityRegistry registry = new EntityRegistry();
+    private CreatureStore creatureStore;
+    private volatile PathStrategy pathStrategy = PathStrategy.A_STAR;
+    private final int[] initialPopulations = new int[EntityType.values().length];
 
     /**
      * Constructs a WorldMap with the specified size.
@@ -25,7 +56,31 @@ public class WorldMap {
      * @param mapSize the size of the map
      */
     public WorldMap(int mapSize) {
+        this(mapSize, new EntityGrid(mapSize, mapSize), SpatialIndexType.BUCKETS);
+    }
+
+    /**
+     * Constructs a WorldMap backed by the specified grid.
+     *
+     * @param mapSize the size of the map
+     * @param grid the grid storing the entities, of the same size
+     * @param spatialIndexType the type of the spatial index, or null if the map keeps no spatial index
+     *                         and overrides the queries that use it
+     */
+    protected WorldMap(int mapSize, EntityGrid grid, SpatialIndexType spatialIndexType) {
         this.mapSize = mapSize;
+        this.grid = grid;
+        this.freeCells = new FreeCellIndex(grid.getWidth(), grid.getHeight());
+        this.terrain = new TerrainLayer(grid.getWidth(), grid.getHeight());
+        this.terrainComponents = new TerrainComponents(terrain);
+        this.spatialIndex = spatialIndexType == null ? null : spatialIndexType.create(grid);
+        initialPopulations[EntityType.ROOSTER.ordinal()] = EntityFactory.ROOSTER_COUNT;
+        initialPopulations[EntityType.HEN.ordinal()] = EntityFactory.HEN_COUNT;
+        initialPopulations[EntityType.MALE_FOX.ordinal()] = EntityFactory.MALE_FOX_COUNT;
+        initialPopulations[EntityType.FEMALE_FOX.ordinal()] = EntityFactory.FEMALE_FOX_COUNT;
+        initialPopulations[EntityType.GRASS.ordinal()] = EntityFactory.GRASS_COUNT;
+        initialPopulations[EntityType.ROCK.ordinal()] = EntityFactory.ROCK_COUNT;
+        initialPopulations[EntityType.TREE.ordinal()] = EntityFactory.TREE_COUNT;
     }
 
     /**
@@ -37,15 +92,256 @@ public class WorldMap {
         return mapSize;
     }
 
+    /**
+     * Gets the grid storage backing this map.
+     *
+     * @return the grid of the map
+     */
+    public EntityGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Gets the index of the empty cells of this map, which is kept up to date as entities come and go.
+     * Sampling it picks a uniformly random empty cell in constant time however full the map is.
+     * The index must not be changed directly; it follows the cells of the map.
+     *
+     * @return the index of the empty cells
+     */
+    public FreeCellIndex getFreeCells() {
+        return freeCells;
+    }
+
+    /**
+     * Gets the static terrain layer of this map, which marks the cells holding rocks and trees.
+     * It follows the cells of the map until it is frozen; after that, placing an entity on a terrain cell,
+     * removing one from it or placing terrain anywhere else fails.
+     *
+     * @return the terrain layer
+     */
+    public TerrainLayer getTerrain() {
+        return terrain;
+    }
+
+    /**
+     * Gets the connected components of the passable cells of this map, which tell in constant time
+     * whether terrain cuts one cell off from another.
+     *
+     * @return the terrain components
+     */
+    public TerrainComponents getTerrainComponents() {
+        return terrainComponents;
+    }
+
+    /**
+     * Gets the spatial index of the typed entities of this map, which is kept up to date as entities come and go.
+     * The index must not be changed directly; it follows the cells of the map.
+     *
+     * @return the spatial index
+     */
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * Replaces the spatial index of this map with a new index of the specified type built from the current cells.
+     * Only the allocated chunks of the grid are scanned.
+     *
+     * @param type the type of the new index
+     */
+    public void setSpatialIndexType(SpatialIndexType type) {
+        SpatialIndex index = type.create(grid);
+        int chunkSize = EntityGrid.CHUNK_SIZE;
+        for (int top = 0; top < grid.getHeight(); top += chunkSize) {
+            for (int left = 0; left < grid.getWidth(); left += chunkSize) {
+                if (!grid.isChunkAllocated(left, top)) {
+                    continue;
+                }
+                for (int y = top; y < Math.min(top + chunkSize, grid.getHeight()); y++) {
+                    for (int x = left; x < Math.min(left + chunkSize, grid.getWidth()); x++) {
+                        int cell = grid.indexOf(x, y);
+                        EntityType entityType = typeOf(grid.get(cell));
+                        if (entityType != null) {
+                            index.add(entityType, cell);
+                        }
+                    }
+                }
+            }
+        }
+        spatialIndex = index;
+    }
+
+    /**
+     * Gets the registry giving handles to the entities of this map: those in its cells and the parents carried
+     * by the children in its cells. Handles of entities that have left the map become stale at the end of the tick.
+     *
+     * @return the entity registry
+     */
+    public EntityRegistry getEntityRegistry() {
+        return registry;
+    }
+
+    /**
+     * Gets the store holding the attributes of the creatures on this map.
+     *
+     * @return the creature store, or null if the creatures keep their attributes in their own fields
+     */
+    public CreatureStore getCreatureStore() {
+        return creatureStore;
+    }
+
+    /**
+     * Enables or disables the creature store of this map. While it is enabled, every creature on the map is attached
+     * to it when it enters the map and detached when it leaves, so the attributes of all creatures on the map
+     * lie side by side in primitive arrays. Creatures already on the map are attached or detached right away.
+     *
+     * @param enabled true to keep the attributes of the creatures in a store, false to keep them in the creatures
+     */
+    public void setCreatureStoreEnabled(boolean enabled) {
+        if (enabled == (creatureStore != null)) {
+            return;
+        }
+        if (enabled) {
+            creatureStore = new CreatureStore();
+            for (Creature creature : getAllCreatures()) {
+                creatureStore.attach(creature);
+            }
+        } else {
+            creatureStore.clear();
+            creatureStore = null;
+        }
+    }
+
+    /**
+     * Gets the population of a type the map was populated with. The mating rules of the creatures scale with it.
+     * Until {@link #setInitialPopulation} is called it is the default population of {@link EntityFactory}.
+     *
+     * @param type the concrete entity type
+     * @return the initial population
+     */
+    public int getInitialPopulation(EntityType type) {
+        return initialPopulations[type.ordinal()];
+    }
+
+    /**
+     * Sets the population of a type the map was populated with.
+     *
+     * @param type the concrete entity type
+     * @param population the initial population
+     */
+    public void setInitialPopulation(EntityType type, int population) {
+        initialPopulations[type.ordinal()] = population;
+    }
+
+    /**
+     * Gets the path search engine the creatures of this map use.
+     *
+     * @return the path strategy
+     */
+    public PathStrategy getPathStrategy() {
+        return pathStrategy;
+    }
+
+    /**
+     * Selects the path search engine the creatures of this map use. Other maps are not affected.
+     *
+     * @param pathStrategy the path strategy
+     */
+    public void setPathStrategy(PathStrategy pathStrategy) {
+        this.pathStrategy = pathStrategy;
+        LOGGER.fine(() -> "Path strategy set to " + pathStrategy);
+    }
+
+    /**
+     * Gets the regrowth of the grass of this map. Grass that leaves a cell is scheduled to grow back automatically.
+     *
+     * @return the grass regrowth of the map
+     */
+    public GrassRegrowth getGrassRegrowth() {
+        return grassRegrowth;
+    }
+
+    /**
+     * Gets the shared distance fields of this map.
+     *
+     * @return the flow fields of the map
+     */
+    public FlowFields getFlowFields() {
+        return flowFields;
+    }
+
     /**
      * Sets an entity at the specified coordinates.
      *
      * @param coordinates the coordinates where the entity is to be placed
      * @param entity the entity to be placed
+     * @throws IndexOutOfBoundsException if the coordinates are outside the map
+     * @throws IllegalStateException if the terrain is frozen and the entity would change it
      */
     public void setEntity(Coordinates coordinates, Entity entity) {
+        if (!isWithinBounds(coordinates)) {
+            throw new IndexOutOfBoundsException("Coordinates are outside the map: " + coordinates);
+        }
+        int index = grid.indexOf(coordinates.getX(), coordinates.getY());
+        terrain.set(index, entity.getType().isTerrain());
         entity.setCoordinates(coordinates);
-        entities.put(coordinates, entity);
+        Entity previous = grid.set(index, entity);
+        updateIndexes(index, previous, entity);
+        if (previous != entity) {
+            if (previous != null) {
+                trackEntity(previous, -1);
+            }
+            trackEntity(entity, 1);
+        }
+    }
+
+    /**
+     * Places an entity at the specified coordinates if the cell still holds the expected entity.
+     * The check and the update are one atomic step, so of several threads claiming the same cell only one succeeds.
+     *
+     * @param coordinates the coordinates where the entity is to be placed
+     * @param expected the entity the cell is expected to hold, or null if it is expected to be empty
+     * @param entity the entity to be placed
+     * @return true if the entity was placed, false if the cell has changed, holds terrain or is outside the map
+     */
+    public boolean claimEntity(Coordinates coordinates, Entity expected, Entity entity) {
+        if (!isWithinBounds(coordinates)) {
+            return false;
+        }
+        int index = grid.indexOf(coordinates.getX(), coordinates.getY());
+        if (terrain.isBlocked(index) || !grid.compareAndSet(index, expected, entity)) {
+            return false;
+        }
+        onCellClaimed(index, expected, entity);
+        entity.setCoordinates(coordinates);
+        if (expected != entity) {
+            if (expected != null) {
+                trackEntity(expected, -1);
+            }
+            trackEntity(entity, 1);
+        }
+        return true;
+    }
+
+    /**
+     * Removes an entity from the specified coordinates if the cell still holds it.
+     *
+     * @param coordinates the coordinates to remove the entity from
+     * @param expected the entity expected in the cell
+     * @return true if the entity was removed, false if the cell holds something else, holds terrain
+     *         or is outside the map
+     */
+    public boolean releaseEntity(Coordinates coordinates, Entity expected) {
+        if (expected == null || !isWithinBounds(coordinates)) {
+            return false;
+        }
+        int index = grid.indexOf(coordinates.getX(), coordinates.getY());
+        if (terrain.isBlocked(index) || !grid.compareAndSet(index, expected, null)) {
+            return false;
+        }
+        onCellClaimed(index, expected, null);
+        trackEntity(expected, -1);
+        return true;
     }
 
     /**
@@ -55,19 +351,45 @@ public class WorldMap {
      * @return the entity at the specified coordinates, or null if no entity is present
      */
     public Entity getEntity(Coordinates coordinates) {
-        return entities.get(coordinates);
+        return getEntity(coordinates.getX(), coordinates.getY());
     }
 
     /**
-     * Gets a list of all creatures on the map.
+     * Gets the entity at the specified cell.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the entity at the specified cell, or null if no entity is present or the cell is outside the map
+     */
+    public Entity getEntity(int x, int y) {
+        return grid.isWithinBounds(x, y) ? grid.get(grid.indexOf(x, y)) : null;
+    }
+
+    /**
+     * Gets a list of all creatures on the map in row order. Chunks of the grid that are not allocated are skipped.
      *
      * @return a list of all creatures
      */
     public List<Creature> getAllCreatures() {
         List<Creature> creatures = new ArrayList<>();
-        for (Entity entity : entities.values()) {
-            if (entity instanceof Creature) {
-                creatures.add((Creature) entity);
+        int chunkSize = EntityGrid.CHUNK_SIZE;
+        int[] allocated = new int[(grid.getWidth() + chunkSize - 1) / chunkSize];
+        for (int top = 0; top < grid.getHeight(); top += chunkSize) {
+            int allocatedCount = 0;
+            for (int left = 0; left < grid.getWidth(); left += chunkSize) {
+                if (grid.isChunkAllocated(left, top)) {
+                    allocated[allocatedCount++] = left;
+                }
+            }
+            for (int y = top; y < Math.min(top + chunkSize, grid.getHeight()) && allocatedCount > 0; y++) {
+                for (int i = 0; i < allocatedCount; i++) {
+                    int left = allocated[i];
+                    for (int x = left; x < Math.min(left + chunkSize, grid.getWidth()); x++) {
+                        if (grid.get(grid.indexOf(x, y)) instanceof Creature creature) {
+                            creatures.add(creature);
+                        }
+                    }
+                }
             }
         }
         return creatures;
@@ -77,9 +399,18 @@ public class WorldMap {
      * Removes the entity at the specified coordinates.
      *
      * @param coordinates the coordinates to remove the entity from
+     * @throws IllegalStateException if the terrain is frozen and the cell holds terrain
      */
     public void removeEntity(Coordinates coordinates) {
-        entities.remove(coordinates);
+        if (isWithinBounds(coordinates)) {
+            int index = grid.indexOf(coordinates.getX(), coordinates.getY());
+            terrain.set(index, false);
+            Entity previous = grid.set(index, null);
+            updateIndexes(index, previous, null);
+            if (previous != null) {
+                trackEntity(previous, -1);
+            }
+        }
     }
 
     /**
@@ -89,7 +420,18 @@ public class WorldMap {
      * @return true if the coordinates are empty, false otherwise
      */
     public boolean isSquareEmpty(Coordinates coordinates) {
-        return !entities.containsKey(coordinates);
+        return getEntity(coordinates.getX(), coordinates.getY()) == null;
+    }
+
+    /**
+     * Checks if the specified cell is empty (i.e., no entity is present).
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if the cell is empty, false otherwise
+     */
+    public boolean isSquareEmpty(int x, int y) {
+        return getEntity(x, y) == null;
     }
 
     /**
@@ -99,89 +441,380 @@ public class WorldMap {
      * @return true if the coordinates are within bounds, false otherwise
      */
     public boolean isWithinBounds(Coordinates coordinates) {
-        return coordinates.getX() >= 0 && coordinates.getX() < mapSize &&
-                coordinates.getY() >= 0 && coordinates.getY() < mapSize;
+        return grid.isWithinBounds(coordinates.getX(), coordinates.getY());
     }
 
     /**
-     * Counts the entities of each type on the map.
+     * Checks if the specified cell is within the bounds of the map.
      *
-     * @return a map with the count of each entity type
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if the cell is within bounds, false otherwise
      */
-    public Map<EntityType, Integer> countEntities() {
-        Map<EntityType, Integer> countEntities = initializeCountMap();
-
-        for (Entity entity : entities.values()) {
-            updateEntityCount(countEntities, entity);
-            if (entity instanceof FoxCub) {
-                updateParentCount(countEntities, ((FoxCub) entity).getAllParents());
-            } else if (entity instanceof Chick) {
-                updateParentCount(countEntities, ((Chick) entity).getAllParents());
-            }
+    public boolean isWithinBounds(int x, int y) {
+        return grid.isWithinBounds(x, y);
+    }
+
+    /**
+     * Finds the entity of the specified type nearest to a cell, not counting the cell itself.
+     * Only the parts of the spatial index that hold entities of the type are looked at, so sparse types are found
+     * quickly even on large maps. Distances and ties are resolved as in a {@link SpiralOffsets} scan.
+     *
+     * @param type the entity type, where {@link EntityType#ALL_CHICKEN} and {@link EntityType#ALL_FOXES}
+     *             match any of their members
+     * @param from the cell to measure from
+     * @param maxRadius the largest Manhattan distance to consider
+     * @return the coordinates of the nearest entity, or null if there is none within the radius
+     */
+    public Coordinates nearest(EntityType type, Coordinates from, int maxRadius) {
+        int cell = spatialIndex.nearest(membersOf(type), from.getX(), from.getY(), maxRadius);
+        return cell < 0 ? null : new Coordinates(grid.xOf(cell), grid.yOf(cell));
+    }
+
+    /**
+     * Visits every entity of the specified type in a rectangle of cells, in no particular order.
+     * The entities are looked up in the spatial index, so the cost grows with the number of matches
+     * rather than with the size of the map, and no collection is built.
+     * The rectangle is clipped to the map. The map must not be changed while the entities are visited.
+     *
+     * @param type the entity type, where {@link EntityType#ALL_CHICKEN} and {@link EntityType#ALL_FOXES}
+     *             match any of their members
+     * @param left the first column of the rectangle
+     * @param top the first row of the rectangle
+     * @param right the last column of the rectangle
+     * @param bottom the last row of the rectangle
+     * @param visitor the visitor receiving every matching entity
+     */
+    public void forEachInRectangle(EntityType type, int left, int top, int right, int bottom, EntityVisitor visitor) {
+        left = Math.max(left, 0);
+        top = Math.max(top, 0);
+        right = Math.min(right, grid.getWidth() - 1);
+        bottom = Math.min(bottom, grid.getHeight() - 1);
+        if (left > right || top > bottom) {
+            return;
         }
+        visitCells(type, left, top, right, bottom,
+                cell -> visitor.visit(grid.get(cell), grid.xOf(cell), grid.yOf(cell)));
+    }
 
-        countEntities.put(EntityType.ALL_CHICKEN, countEntities.get(EntityType.ROOSTER) +
-                countEntities.get(EntityType.HEN) + countEntities.get(EntityType.CHICK));
-        countEntities.put(EntityType.ALL_FOXES, countEntities.get(EntityType.MALE_FOX) +
-                countEntities.get(EntityType.FEMALE_FOX) + countEntities.get(EntityType.FOX_CUB));
+    /**
+     * Visits every entity of the specified type within a Euclidean radius of a cell, the cell itself included,
+     * in no particular order. The map must not be changed while the entities are visited.
+     *
+     * @param type the entity type, where {@link EntityType#ALL_CHICKEN} and {@link EntityType#ALL_FOXES}
+     *             match any of their members
+     * @param center the center of the circle
+     * @param radius the radius of the circle in cells
+     * @param visitor the visitor receiving every matching entity
+     */
+    public void forEachInRadius(EntityType type, Coordinates center, int radius, EntityVisitor visitor) {
+        int centerX = center.getX();
+        int centerY = center.getY();
+        long radiusSquared = (long) radius * radius;
+        forEachInRectangle(type, saturate((long) centerX - radius), saturate((long) centerY - radius),
+                saturate((long) centerX + radius), saturate((long) centerY + radius),
+                (entity, x, y) -> {
+                    long dx = x - centerX;
+                    long dy = y - centerY;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        visitor.visit(entity, x, y);
+                    }
+                });
+    }
 
-        return countEntities;
+    /**
+     * Narrows a bound computed in long to an int, saturating instead of wrapping around,
+     * so that huge radii cover the whole map rather than nothing.
+     *
+     * @param value the bound
+     * @return the bound clamped to the range of an int
+     */
+    private static int saturate(long value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
     }
 
     /**
-     * Initializes a map with all entity types set to a count of zero.
+     * Copies the entities of the specified type in a rectangle of cells into a buffer the caller reuses between
+     * queries. If there are more matches than the buffer holds, the rest are counted but not copied.
      *
-     * @return the initialized map
+     * @param type the entity type, where {@link EntityType#ALL_CHICKEN} and {@link EntityType#ALL_FOXES}
+     *             match any of their members
+     * @param left the first column of the rectangle
+     * @param top the first row of the rectangle
+     * @param right the last column of the rectangle
+     * @param bottom the last row of the rectangle
+     * @param buffer the buffer receiving the matching entities from index 0
+     * @return the number of matching entities, which may exceed the length of the buffer
+     */
+    public int collectInRectangle(EntityType type, int left, int top, int right, int bottom, Entity[] buffer) {
+        BufferFiller filler = new BufferFiller(buffer);
+        forEachInRectangle(type, left, top, right, bottom, filler);
+        return filler.count;
+    }
+
+    /**
+     * Copies the entities of the specified type within a Euclidean radius of a cell into a buffer the caller
+     * reuses between queries. If there are more matches than the buffer holds, the rest are counted but not copied.
+     *
+     * @param type the entity type, where {@link EntityType#ALL_CHICKEN} and {@link EntityType#ALL_FOXES}
+     *             match any of their members
+     * @param center the center of the circle
+     * @param radius the radius of the circle in cells
+     * @param buffer the buffer receiving the matching entities from index 0
+     * @return the number of matching entities, which may exceed the length of the buffer
+     */
+    public int collectInRadius(EntityType type, Coordinates center, int radius, Entity[] buffer) {
+        BufferFiller filler = new BufferFiller(buffer);
+        forEachInRadius(type, center, radius, filler);
+        return filler.count;
+    }
+
+    /**
+     * Passes the flat index of every cell in a rectangle holding an entity of the specified type to a visitor.
+     * Maps whose spatial index may lag behind their cells override it.
+     *
+     * @param type the entity type, where {@link EntityType#ALL_CHICKEN} and {@link EntityType#ALL_FOXES}
+     *             match any of their members
+     * @param left the first column of the rectangle, within the map
+     * @param top the first row of the rectangle, within the map
+     * @param right the last column of the rectangle, within the map
+     * @param bottom the last row of the rectangle, within the map
+     * @param visitor the visitor receiving the flat index of every matching cell
+     */
+    protected void visitCells(EntityType type, int left, int top, int right, int bottom, IntConsumer visitor) {
+        spatialIndex.forEachInRectangle(membersOf(type), left, top, right, bottom, visitor);
+    }
+
+    /**
+     * Gets the concrete entity types matched by a type. The array is built once per type and shared,
+     * so it must not be modified.
+     *
+     * @param type the entity type
+     * @return the members of a combined type, or the type itself
+     */
+    protected static EntityType[] membersOf(EntityType type) {
+        return MEMBERS[type.ordinal()];
+    }
+
+    /**
+     * Gets the concrete entity types matched by a type as a mask indexed by the ordinal of an entity type.
+     * The mask is built once per type and shared, so it must not be modified.
+     *
+     * @param type the entity type
+     * @return the mask, true at the ordinal of every member of a combined type, or of the type itself
+     */
+    protected static boolean[] memberMaskOf(EntityType type) {
+        return MEMBER_MASKS[type.ordinal()];
+    }
+
+    /**
+     * Checks if an entity matches a mask of entity types.
+     *
+     * @param mask the mask built by {@link #memberMaskOf(EntityType)}
+     * @param entity the entity, or null for an empty cell
+     * @return true if the entity is not null and its type is in the mask, false otherwise
+     */
+    protected static boolean matches(boolean[] mask, Entity entity) {
+        return entity != null && mask[entity.getType().ordinal()];
+    }
+
+    /**
+     * Counts the entities of each type on the map.
+     * Parents that are still attached to a chick or fox cub on the map are counted as well.
+     *
+     * @return a map with the count of each entity type
      */
-    private Map<EntityType, Integer> initializeCountMap() {
+    public Map<EntityType, Integer> countEntities() {
         Map<EntityType, Integer> countEntities = new EnumMap<>(EntityType.class);
         for (EntityType type : EntityType.values()) {
-            countEntities.put(type, 0);
+            countEntities.put(type, countEntities(type));
         }
         return countEntities;
     }
 
     /**
-     * Updates the entity count for a given entity.
+     * Gets the number of entities of the specified type on the map.
+     * The counters are maintained incrementally, so this is a constant time read.
+     * They are atomic, so creatures updated by different threads on disjoint parts of the map keep them exact.
+     *
+     * @param type the entity type to count
+     * @return the number of entities of the specified type
+     */
+    public int countEntities(EntityType type) {
+        return switch (type) {
+            case ALL_CHICKEN -> counts.get(EntityType.ROOSTER.ordinal()) + counts.get(EntityType.HEN.ordinal()) +
+                    counts.get(EntityType.CHICK.ordinal());
+            case ALL_FOXES -> counts.get(EntityType.MALE_FOX.ordinal()) + counts.get(EntityType.FEMALE_FOX.ordinal()) +
+                    counts.get(EntityType.FOX_CUB.ordinal());
+            default -> counts.get(type.ordinal());
+        };
+    }
+
+    /**
+     * Notifies the map that a parent has been detached from a chick or fox cub.
+     * If the child is on the map, the parent is no longer counted through it.
+     *
+     * @param child the child the parent was detached from
+     * @param parent the detached parent, or null if there was none
+     */
+    public void detachParent(Entity child, Entity parent) {
+        if (parent != null && child.getCoordinates() != null && getEntity(child.getCoordinates()) == child) {
+            updateEntityCount(parent, -1);
+            registry.leave(parent);
+        }
+    }
+
+    /**
+     * Called after {@link #claimEntity} or {@link #releaseEntity} has changed a cell.
+     * Keeps the indexes of the map in step; maps changed by several threads at once override it.
+     *
+     * @param index the flat index of the cell
+     * @param previous the entity the cell held before, or null
+     * @param current the entity the cell holds now, or null
+     */
+    protected void onCellClaimed(int index, Entity previous, Entity current) {
+        updateIndexes(index, previous, current);
+    }
+
+    /**
+     * Keeps the index of empty cells and the spatial index of typed entities, if the map has one,
+     * in step with a changed cell.
+     *
+     * @param index the flat index of the cell
+     * @param previous the entity the cell held before, or null
+     * @param current the entity the cell holds now, or null
+     */
+    private void updateIndexes(int index, Entity previous, Entity current) {
+        if (current == null) {
+            freeCells.add(index);
+        } else if (previous == null) {
+            freeCells.remove(index);
+        }
+
+        if (spatialIndex == null) {
+            return;
+        }
+        EntityType previousType = typeOf(previous);
+        if (previousType != null) {
+            spatialIndex.remove(previousType, index);
+        }
+        EntityType currentType = typeOf(current);
+        if (currentType != null) {
+            spatialIndex.add(currentType, index);
+        }
+    }
+
+    /**
+     * Updates the counters when an entity enters or leaves the map, and schedules the regrowth of grass that leaves it.
+     * A creature is attached to the creature store when it enters a cell and detached once it is in no cell at all;
+     * a creature moving from one cell to another enters the new cell before leaving the old one and stays attached.
+     *
+     * @param entity the entity entering or leaving the map
+     * @param delta +1 if the entity enters the map, -1 if it leaves
+     */
+    private void trackEntity(Entity entity, int delta) {
+        updateEntityCount(entity, delta);
+        if (creatureStore != null && entity instanceof Creature creature) {
+            if (delta > 0) {
+                creatureStore.attach(creature);
+            } else if (getEntity(creature.getCoordinates()) != creature) {
+                creatureStore.detach(creature);
+            }
+        }
+        if (delta < 0 && entity.getType() == EntityType.GRASS) {
+            Coordinates coordinates = entity.getCoordinates();
+            grassRegrowth.schedule(grid.indexOf(coordinates.getX(), coordinates.getY()));
+        }
+        if (entity instanceof Kids kids) {
+            for (Entity parent : kids.getAllParents()) {
+                updateEntityCount(parent, delta);
+                trackPresence(parent, delta);
+            }
+        }
+        trackPresence(entity, delta);
+    }
+
+    /**
+     * Tells the entity registry that an entity has entered or left a place in the world.
+     *
+     * @param entity the entity
+     * @param delta +1 if the entity enters, -1 if it leaves
+     */
+    private void trackPresence(Entity entity, int delta) {
+        if (delta > 0) {
+            registry.enter(entity);
+        } else {
+            registry.leave(entity);
+        }
+    }
+
+    /**
+     * Updates the counter of the entity type of a given entity.
      *
-     * @param countEntities the map of entity counts
      * @param entity the entity to update the count for
+     * @param delta the value to add to the counter
+     */
+    private void updateEntityCount(Entity entity, int delta) {
+        EntityType type = typeOf(entity);
+        if (type != null) {
+            counts.addAndGet(type.ordinal(), delta);
+        }
+    }
+
+    /**
+     * Determines the entity type of a given entity.
+     *
+     * @param entity the entity
+     * @return the entity type, or null if the cell is empty
+     */
+    protected static EntityType typeOf(Entity entity) {
+        return entity == null ? null : entity.getType();
+    }
+
+    /**
+     * Callback for entities visited by the range queries of a map.
      */
-    private void updateEntityCount(Map<EntityType, Integer> countEntities, Entity entity) {
-        if (entity instanceof Rooster) {
-            countEntities.merge(EntityType.ROOSTER, 1, Integer::sum);
-        } else if (entity instanceof Hen) {
-            countEntities.merge(EntityType.HEN, 1, Integer::sum);
-        } else if (entity instanceof Grass) {
-            countEntities.merge(EntityType.GRASS, 1, Integer::sum);
-        } else if (entity instanceof MaleFox) {
-            countEntities.merge(EntityType.MALE_FOX, 1, Integer::sum);
-        } else if (entity instanceof FemaleFox) {
-            countEntities.merge(EntityType.FEMALE_FOX, 1, Integer::sum);
-        } else if (entity instanceof FoxCub) {
-            countEntities.merge(EntityType.FOX_CUB, 1, Integer::sum);
-        } else if (entity instanceof Chick) {
-            countEntities.merge(EntityType.CHICK, 1, Integer::sum);
-        }
-    }
-
-    /**
-     * Updates the parent count for a given list of parents.
-     *
-     * @param countEntities the map of entity counts
-     * @param parents the list of parents to update the count for
-     */
-    private void updateParentCount(Map<EntityType, Integer> countEntities, List<Entity> parents) {
-        for (Entity parent : parents) {
-            if (parent instanceof FemaleFox) {
-                countEntities.merge(EntityType.FEMALE_FOX, 1, Integer::sum);
-            } else if (parent instanceof MaleFox) {
-                countEntities.merge(EntityType.MALE_FOX, 1, Integer::sum);
-            } else if (parent instanceof Hen) {
-                countEntities.merge(EntityType.HEN, 1, Integer::sum);
-            } else if (parent instanceof Rooster) {
-                countEntities.merge(EntityType.ROOSTER, 1, Integer::sum);
+    @FunctionalInterface
+    public interface EntityVisitor {
+        /**
+         * Receives one matching entity.
+         *
+         * @param entity the entity
+         * @param x the x coordinate of its cell
+         * @param y the y coordinate of its cell
+         */
+        void visit(Entity entity, int x, int y);
+    }
+
+    /**
+     * Visitor copying entities into a fixed buffer and counting all of them.
+     */
+    private static class BufferFiller implements EntityVisitor {
+        private final Entity[] buffer;
+        private int count = 0;
+
+        /**
+         * Constructs a BufferFiller writing into the specified buffer.
+         *
+         * @param buffer the buffer to fill
+         */
+        BufferFiller(Entity[] buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Copies the entity into the buffer if there is room and counts it.
+         *
+         * @param entity the entity
+         * @param x the x coordinate of its cell
+         * @param y the y coordinate of its cell
+         */
+        @Override
+        public void visit(Entity entity, int x, int y) {
+            if (count < buffer.length) {
+                buffer[count] = entity;
             }
+            count++;
         }
     }
 }
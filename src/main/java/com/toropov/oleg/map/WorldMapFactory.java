@@ -2,6 +2,7 @@ package com.toropov.oleg.map;
 
 import com.toropov.oleg.entity.Entity;
 import com.toropov.oleg.entity.EntityFactory;
+import com.toropov.oleg.world.SimulationConfig;
 
 import java.util.Map;
 
@@ -9,27 +10,54 @@ import java.util.Map;
  * Factory class to create and populate a WorldMap with entities.
  */
 public class WorldMapFactory {
-    private static final int MAP_SIZE = 20;
-    private final EntityFactory entityFactory = new EntityFactory();
+    private final SimulationConfig config;
+    private final EntityFactory entityFactory;
 
     /**
-     * Default constructor.
-     * This class is not intended to be instantiated.
+     * Constructs a WorldMapFactory with the default map size and populations and a random seed.
      */
     public WorldMapFactory() {
-        // Utility class, no instances allowed.
+        this(new SimulationConfig());
+    }
+
+    /**
+     * Constructs a WorldMapFactory creating maps of the specified configuration.
+     *
+     * @param config the simulation configuration
+     */
+    public WorldMapFactory(SimulationConfig config) {
+        this.config = config;
+        this.entityFactory = new EntityFactory(config);
     }
 
     /**
      * Creates a WorldMap and populates it with entities.
+     * The map is a {@link ConcurrentWorldMap} if the configured scheduler moves creatures from several threads at once.
+     * Its terrain is frozen once the map is populated and the components of the terrain are computed right away.
      *
      * @return a populated WorldMap
      */
     public WorldMap creatMap() {
-        WorldMap map = new WorldMap(MAP_SIZE);
+        WorldMap map = config.getSchedulerType().movesConcurrently() ?
+                new ConcurrentWorldMap(config.getMapSize()) :
+                new WorldMap(config.getMapSize());
+        map.getGrassRegrowth().setDelay(config.getGrassRegrowthDelay());
+        map.setSpatialIndexType(config.getSpatialIndexType());
+        map.setCreatureStoreEnabled(config.isCreatureStoreEnabled());
+        map.setPathStrategy(config.getPathStrategy());
+        map.getFlowFields().setEnabled(config.isFlowFieldsEnabled());
+        map.setInitialPopulation(EntityType.ROOSTER, config.getRoosterCount());
+        map.setInitialPopulation(EntityType.HEN, config.getHenCount());
+        map.setInitialPopulation(EntityType.MALE_FOX, config.getMaleFoxCount());
+        map.setInitialPopulation(EntityType.FEMALE_FOX, config.getFemaleFoxCount());
+        map.setInitialPopulation(EntityType.GRASS, config.getGrassCount());
+        map.setInitialPopulation(EntityType.ROCK, config.getRockCount());
+        map.setInitialPopulation(EntityType.TREE, config.getTreeCount());
         Map<Coordinates, Entity> createdEntities = entityFactory.createAllEntitiesForMap();
 
         populateMapWithEntities(map, createdEntities);
+        map.getTerrain().freeze();
+        map.getTerrainComponents().update();
 
         return map;
     }
@@ -2,12 +2,10 @@ package com.toropov.oleg.map;
 
 import com.toropov.oleg.entity.Creature;
 import com.toropov.oleg.entity.Entity;
-import com.toropov.oleg.entity.herbivore.Chickens;
-import com.toropov.oleg.entity.predator.Foxes;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -27,9 +25,14 @@ public class WorldMapPanel extends JPanel {
     private static final int PANEL_SIZE = 800;
 
     /**
-     * The size of each cell in the grid.
+     * The size of each cell in the grid when the whole map fits on the panel at that size.
      */
-    private static final int CELL_SIZE = 40;
+    private static final int MAX_CELL_SIZE = 40;
+
+    /**
+     * The smallest cell size at which the health and generation of creatures are drawn.
+     */
+    private static final int MIN_LABELED_CELL_SIZE = 40;
 
     /**
      * The font size for displaying text on the panel.
@@ -54,7 +57,7 @@ public class WorldMapPanel extends JPanel {
     /**
      * Collection of images used to render entities on the map.
      */
-    private final Map<String, Image> images;
+    private final Map<EntityType, Image> images;
 
     /**
      * Constructs a WorldMapPanel with a given map.
@@ -66,7 +69,7 @@ public class WorldMapPanel extends JPanel {
         setPreferredSize(new Dimension(PANEL_SIZE, PANEL_SIZE));
         setBackground(BACKGROUND_COLOR);
 
-        images = new HashMap<>();
+        images = new EnumMap<>(EntityType.class);
         loadImages();
     }
 
@@ -74,15 +77,15 @@ public class WorldMapPanel extends JPanel {
      * Loads images for different entity types.
      */
     private void loadImages() {
-        images.put("MaleFox", loadImage("/maleFox.png"));
-        images.put("FemaleFox", loadImage("/femaleFox.png"));
-        images.put("FoxCub", loadImage("/foxCub.png"));
-        images.put("Rooster", loadImage("/rooster.png"));
-        images.put("Hen", loadImage("/hen.png"));
-        images.put("Chick", loadImage("/chick.png"));
-        images.put("Grass", loadImage("/grass.png"));
-        images.put("Rock", loadImage("/rock.png"));
-        images.put("Tree", loadImage("/tree.png"));
+        images.put(EntityType.MALE_FOX, loadImage("/maleFox.png"));
+        images.put(EntityType.FEMALE_FOX, loadImage("/femaleFox.png"));
+        images.put(EntityType.FOX_CUB, loadImage("/foxCub.png"));
+        images.put(EntityType.ROOSTER, loadImage("/rooster.png"));
+        images.put(EntityType.HEN, loadImage("/hen.png"));
+        images.put(EntityType.CHICK, loadImage("/chick.png"));
+        images.put(EntityType.GRASS, loadImage("/grass.png"));
+        images.put(EntityType.ROCK, loadImage("/rock.png"));
+        images.put(EntityType.TREE, loadImage("/tree.png"));
     }
 
     /**
@@ -117,56 +120,62 @@ public class WorldMapPanel extends JPanel {
     }
 
     /**
-     * Draws the entire map with entities.
+     * Draws the map with entities. The cell size is chosen so that the map fills the panel;
+     * if the map has more cells per side than the panel has pixels, only its top-left corner is drawn.
      *
      * @param g the Graphics context
      */
     private void drawMap(Graphics g) {
-        for (int y = 19; y >= 0; y--) {
-            for (int x = 0; x < 20; x++) {
-                Coordinates coordinates = new Coordinates(x, y);
-                if (map.isSquareEmpty(coordinates)) {
-                    drawEmptySquare(g, coordinates);
+        int mapSize = map.getMapSize();
+        int cellSize = Math.max(1, Math.min(MAX_CELL_SIZE, PANEL_SIZE / mapSize));
+        int visibleCells = Math.min(mapSize, PANEL_SIZE / cellSize);
+        for (int row = 0; row < visibleCells; row++) {
+            int y = mapSize - 1 - row;
+            for (int x = 0; x < visibleCells; x++) {
+                Entity entity = map.getEntity(x, y);
+                if (entity == null) {
+                    drawEmptySquare(g, x, row, cellSize);
                 } else {
-                    drawEntity(g, map.getEntity(coordinates));
+                    drawEntity(g, entity, x, row, cellSize);
                 }
             }
         }
     }
 
     /**
-     * Draws an empty square at the specified coordinates.
+     * Draws an empty square in the specified column and row of the panel.
      *
      * @param g the Graphics context
-     * @param coordinates the coordinates of the square to be drawn
+     * @param column the column of the square on the panel
+     * @param row the row of the square on the panel
+     * @param cellSize the size of a cell in pixels
      */
-    private void drawEmptySquare(Graphics g, Coordinates coordinates) {
-        int x = coordinates.getX() * CELL_SIZE;
-        int y = (19 - coordinates.getY()) * CELL_SIZE;
-
+    private void drawEmptySquare(Graphics g, int column, int row, int cellSize) {
         g.setColor(BACKGROUND_COLOR);
-        g.fillRect(x, y, CELL_SIZE, CELL_SIZE);
+        g.fillRect(column * cellSize, row * cellSize, cellSize, cellSize);
     }
 
     /**
-     * Draws an entity at its coordinates.
+     * Draws an entity in the specified column and row of the panel.
      *
      * @param g the Graphics context
      * @param entity the Entity to be drawn
+     * @param column the column of the entity on the panel
+     * @param row the row of the entity on the panel
+     * @param cellSize the size of a cell in pixels
      */
-    private void drawEntity(Graphics g, Entity entity) {
-        int x = entity.getCoordinates().getX() * CELL_SIZE;
-        int y = (19 - entity.getCoordinates().getY()) * CELL_SIZE;
+    private void drawEntity(Graphics g, Entity entity, int column, int row, int cellSize) {
+        int x = column * cellSize;
+        int y = row * cellSize;
 
-        String entityType = entity.getClass().getSimpleName();
-        Image image = images.get(entityType);
+        Image image = images.get(entity.getType());
 
         if (image != null) {
-            g.drawImage(image, x, y, CELL_SIZE, CELL_SIZE, this);
+            g.drawImage(image, x, y, cellSize, cellSize, this);
         }
 
-        if (entity instanceof Creature creature) {
-            drawCreatureInfo(g, x, y, creature);
+        if (entity instanceof Creature creature && cellSize >= MIN_LABELED_CELL_SIZE) {
+            drawCreatureInfo(g, x, y, cellSize, creature);
         }
     }
 
@@ -176,21 +185,21 @@ public class WorldMapPanel extends JPanel {
      * @param g the Graphics context
      * @param x the x-coordinate of the creature
      * @param y the y-coordinate of the creature
+     * @param cellSize the size of a cell in pixels
      * @param creature the Creature whose information is to be drawn
      */
-    private void drawCreatureInfo(Graphics g, int x, int y, Creature creature) {
-        if (creature instanceof Foxes) {
-            g.setColor(FOX_TEXT_COLOR);
-        } else if (creature instanceof Chickens) {
-            g.setColor(TEXT_COLOR);
+    private void drawCreatureInfo(Graphics g, int x, int y, int cellSize, Creature creature) {
+        switch (creature.getType()) {
+            case MALE_FOX, FEMALE_FOX, FOX_CUB -> g.setColor(FOX_TEXT_COLOR);
+            default -> g.setColor(TEXT_COLOR);
         }
 
         Font originalFont = g.getFont();
         Font boldFont = originalFont.deriveFont(Font.BOLD, FONT_SIZE);
         g.setFont(boldFont);
 
-        g.drawString("HP " + creature.getHealthPoints(), x + CELL_SIZE - 40, y + 38);
-        g.drawString("Gen " + creature.getGeneration(), x + CELL_SIZE - 40, y + 10);
+        g.drawString("HP " + creature.getHealthPoints(), x + cellSize - MIN_LABELED_CELL_SIZE, y + 38);
+        g.drawString("Gen " + creature.getGeneration(), x + cellSize - MIN_LABELED_CELL_SIZE, y + 10);
 
         g.setFont(originalFont);
     }
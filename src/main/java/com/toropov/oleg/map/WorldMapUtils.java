@@ -1,13 +1,13 @@
 package com.toropov.oleg.map;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class for operations related to the WorldMap.
  */
 public class WorldMapUtils {
+    private static final Map<Integer, SpiralOffsets> SPIRAL_OFFSETS = new ConcurrentHashMap<>();
 
     /**
      * Default constructor.
@@ -18,36 +18,14 @@ public class WorldMapUtils {
     }
 
     /**
-     * Generates a list of coordinate shifts sorted by their Manhattan distance from the origin.
+     * Gets the spiral offset table covering every cell of a map of the specified size from any cell of it.
+     * Tables are built once per map size and cached for the lifetime of the process.
      *
      * @param mapSize the size of the map
-     * @return a list of coordinate shifts sorted by Manhattan distance
+     * @return the shared spiral offset table
+     * @throws IllegalArgumentException if the map is larger than {@link SpiralOffsets#MAX_SHIFT} + 1 cells per side
      */
-    public static List<int[]> getAllSortedShiftsForCoordinates(int mapSize) {
-        List<int[]> shifts = new ArrayList<>();
-
-        for (int radius = 1; radius < mapSize; radius++) {
-            for (int dx = -radius; dx <= radius; dx++) {
-                for (int dy = -radius; dy <= radius; dy++) {
-                    if (dx == 0 && dy == 0) continue;
-                    shifts.add(new int[]{dx, dy});
-                }
-            }
-        }
-
-        shifts.sort(Comparator.comparingInt(shift -> calculateManhattanDistance(shift[0], shift[1])));
-
-        return shifts;
-    }
-
-    /**
-     * Calculates the Manhattan distance between two points.
-     *
-     * @param i the x-coordinate of the first point
-     * @param j the y-coordinate of the first point
-     * @return the Manhattan distance between the two points
-     */
-    private static int calculateManhattanDistance(int i, int j) {
-        return Math.abs(i) + Math.abs(j);
+    public static SpiralOffsets getSpiralOffsets(int mapSize) {
+        return SPIRAL_OFFSETS.computeIfAbsent(mapSize, size -> new SpiralOffsets(size - 1));
     }
 }
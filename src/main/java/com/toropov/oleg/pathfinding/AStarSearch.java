@@ -0,0 +1,135 @@
+package com.toropov.oleg.pathfinding;
+
+import com.toropov.oleg.entity.Creature;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityGrid;
+import com.toropov.oleg.map.WorldMap;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The AStarSearch class is an allocation-free A* engine working on flat cell indices.
+ * It uses eight unit-cost moves, the Manhattan heuristic, the creature's own movement rules
+ * and an iteration budget equal to the number of cells of the map.
+ * All search state lives in the {@link SearchContext} of the calling thread,
+ * whose open set is an indexed heap with decrease-key.
+ */
+public class AStarSearch {
+    private static final int[] SHIFT_X = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] SHIFT_Y = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    /**
+     * Default constructor.
+     * This class is not intended to be instantiated.
+     */
+    public AStarSearch() {
+        // Utility class, no instances allowed.
+    }
+
+    /**
+     * Finds a path from start to goal.
+     *
+     * @param map the world map.
+     * @param start the starting coordinates.
+     * @param goal the goal coordinates.
+     * @param creature the creature for which the path is being found.
+     * @return a list of coordinates representing the path from start to goal, excluding the start.
+     */
+    public static List<Coordinates> findPath(WorldMap map, Coordinates start, Coordinates goal, Creature creature) {
+        SearchContext context = SearchContext.current();
+        int goalCell = search(context, map, start, goal, creature);
+
+        return goalCell < 0 ? Collections.emptyList() : context.reconstructPath(goalCell, map.getGrid());
+    }
+
+    /**
+     * Finds the first step of a path from start to goal without building the whole path.
+     *
+     * @param map the world map.
+     * @param start the starting coordinates.
+     * @param goal the goal coordinates.
+     * @param creature the creature for which the path is being found.
+     * @return the coordinates of the first step, or null if there is no path or start equals goal.
+     */
+    public static Coordinates findNextStep(WorldMap map, Coordinates start, Coordinates goal, Creature creature) {
+        SearchContext context = SearchContext.current();
+        int goalCell = search(context, map, start, goal, creature);
+        int step = goalCell < 0 ? -1 : context.firstStep(goalCell);
+
+        EntityGrid grid = map.getGrid();
+        return step < 0 ? null : new Coordinates(grid.xOf(step), grid.yOf(step));
+    }
+
+    /**
+     * Performs the A* search and leaves the resulting tree in the context.
+     * Goals that terrain cuts off from the start are rejected without searching.
+     *
+     * @param context the search context of the current thread.
+     * @param map the world map.
+     * @param start the starting coordinates.
+     * @param goal the goal coordinates.
+     * @param creature the creature for which the path is being found.
+     * @return the flat index of the goal cell if it was reached, -1 otherwise.
+     */
+    static int search(SearchContext context, WorldMap map, Coordinates start, Coordinates goal, Creature creature) {
+        EntityGrid grid = map.getGrid();
+        int goalX = goal.getX();
+        int goalY = goal.getY();
+        if (!grid.isWithinBounds(start.getX(), start.getY()) || !grid.isWithinBounds(goalX, goalY)) {
+            return -1;
+        }
+
+        int startCell = grid.indexOf(start.getX(), start.getY());
+        int goalCell = grid.indexOf(goalX, goalY);
+        if (!map.getTerrainComponents().isConnected(startCell, goalCell)) {
+            return -1;
+        }
+        context.begin();
+        context.open(startCell, 0, SearchContext.NO_PARENT, heuristic(start.getX(), start.getY(), goalX, goalY));
+
+        int maxIterations = grid.size();
+        int iterationCount = 0;
+        int current;
+        while ((current = context.pollOpen()) >= 0) {
+            iterationCount++;
+            if (iterationCount > maxIterations) {
+                break;
+            }
+            if (current == goalCell) {
+                return current;
+            }
+
+            int x = grid.xOf(current);
+            int y = grid.yOf(current);
+            int tentativeG = context.getG(current) + 1;
+            for (int i = 0; i < SHIFT_X.length; i++) {
+                int neighborX = x + SHIFT_X[i];
+                int neighborY = y + SHIFT_Y[i];
+                if (!creature.isSquareAvailableForMove(neighborX, neighborY, map)) {
+                    continue;
+                }
+
+                int neighbor = grid.indexOf(neighborX, neighborY);
+                if (tentativeG < context.getG(neighbor)) {
+                    context.open(neighbor, tentativeG, current, tentativeG + heuristic(neighborX, neighborY, goalX, goalY));
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Calculates the Manhattan distance between two cells.
+     *
+     * @param x1 the x coordinate of the first cell.
+     * @param y1 the y coordinate of the first cell.
+     * @param x2 the x coordinate of the second cell.
+     * @param y2 the y coordinate of the second cell.
+     * @return the heuristic value.
+     */
+    private static int heuristic(int x1, int y1, int x2, int y2) {
+        return Math.abs(x1 - x2) + Math.abs(y1 - y2);
+    }
+}
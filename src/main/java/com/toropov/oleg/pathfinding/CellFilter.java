@@ -0,0 +1,18 @@
+package com.toropov.oleg.pathfinding;
+
+import com.toropov.oleg.entity.Entity;
+
+/**
+ * Functional interface for selecting cells by their occupant.
+ */
+@FunctionalInterface
+public interface CellFilter {
+
+    /**
+     * Tests the occupant of a cell.
+     *
+     * @param entity the entity in the cell, or null if the cell is empty
+     * @return true if the cell is selected, false otherwise
+     */
+    boolean test(Entity entity);
+}
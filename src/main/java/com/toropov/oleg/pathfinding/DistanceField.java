@@ -0,0 +1,182 @@
+package com.toropov.oleg.pathfinding;
+
+import com.toropov.oleg.map.EntityGrid;
+import com.toropov.oleg.map.TerrainLayer;
+import com.toropov.oleg.map.WorldMap;
+
+import java.util.Arrays;
+
+/**
+ * The DistanceField class stores, for every cell of the map within a bounded distance of a target cell,
+ * the number of moves to the nearest target cell.
+ * It is computed with one multi-source breadth-first search over the 8-connected grid,
+ * so any number of creatures can read their next step towards the nearest target from it.
+ * Cells holding terrain are skipped with a bit test before the passable filter is consulted.
+ * The distances follow the chunks of {@link EntityGrid}: only the chunks holding entities are searched for targets,
+ * and only a chunk the search reaches gets an array of distances, so the memory grows with the area around
+ * the targets rather than with the area of the map.
+ */
+public class DistanceField {
+    /**
+     * Distance of cells from which no target can be reached.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int[] SHIFT_X = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] SHIFT_Y = {-1, 0, 1, -1, 1, -1, 0, 1};
+    private static final int CHUNK_SIZE = EntityGrid.CHUNK_SIZE;
+    private static final int INITIAL_QUEUE_CAPACITY = 256;
+
+    private final CellFilter targets;
+    private final CellFilter passable;
+    private final int maxDistance;
+    private int width = 0;
+    private int height = 0;
+    private int chunksPerRow = 0;
+    private int[][] chunkDistances = new int[0][];
+    private int[] queue = new int[INITIAL_QUEUE_CAPACITY];
+
+    /**
+     * Constructs a DistanceField for the specified target and passable cells.
+     *
+     * @param targets the filter selecting the cells the field leads to
+     * @param passable the filter selecting the cells the field may lead through
+     * @param maxDistance the largest distance recorded; cells farther from every target count as unreachable
+     */
+    public DistanceField(CellFilter targets, CellFilter passable, int maxDistance) {
+        this.targets = targets;
+        this.passable = passable;
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Recomputes the field for the current state of the map.
+     *
+     * @param map the world map
+     */
+    public void compute(WorldMap map) {
+        EntityGrid grid = map.getGrid();
+        TerrainLayer terrain = map.getTerrain();
+        if (width != grid.getWidth() || height != grid.getHeight()) {
+            width = grid.getWidth();
+            height = grid.getHeight();
+            chunksPerRow = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            chunkDistances = new int[chunksPerRow * ((height + CHUNK_SIZE - 1) / CHUNK_SIZE)][];
+        }
+        for (int[] distances : chunkDistances) {
+            if (distances != null) {
+                Arrays.fill(distances, UNREACHABLE);
+            }
+        }
+
+        int tail = 0;
+        for (int top = 0; top < height; top += CHUNK_SIZE) {
+            for (int left = 0; left < width; left += CHUNK_SIZE) {
+                if (!grid.isChunkAllocated(left, top)) {
+                    continue;
+                }
+                for (int y = top; y < Math.min(top + CHUNK_SIZE, height); y++) {
+                    for (int x = left; x < Math.min(left + CHUNK_SIZE, width); x++) {
+                        int cell = grid.indexOf(x, y);
+                        if (targets.test(grid.get(cell))) {
+                            setDistance(x, y, 0);
+                            tail = enqueue(tail, cell);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int head = 0; head < tail; head++) {
+            int cell = queue[head];
+            int x = grid.xOf(cell);
+            int y = grid.yOf(cell);
+            int distance = getDistance(x, y) + 1;
+            if (distance > maxDistance) {
+                break;
+            }
+            for (int i = 0; i < SHIFT_X.length; i++) {
+                int neighborX = x + SHIFT_X[i];
+                int neighborY = y + SHIFT_Y[i];
+                if (terrain.isBlocked(neighborX, neighborY)) {
+                    continue;
+                }
+
+                int neighbor = grid.indexOf(neighborX, neighborY);
+                if (getDistance(neighborX, neighborY) == UNREACHABLE && passable.test(grid.get(neighbor))) {
+                    setDistance(neighborX, neighborY, distance);
+                    tail = enqueue(tail, neighbor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of moves from the specified cell to the nearest target.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the distance, or {@link #UNREACHABLE} if no target can be reached within the largest distance
+     *         or the field has not been computed
+     */
+    public int getDistance(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return UNREACHABLE;
+        }
+        int[] distances = chunkDistances[chunkIndex(x, y)];
+        return distances == null ? UNREACHABLE : distances[offset(x, y)];
+    }
+
+    /**
+     * Records the distance of a cell, giving its chunk an array of distances if it has none.
+     *
+     * @param x the x coordinate, within the map
+     * @param y the y coordinate, within the map
+     * @param distance the number of moves to the nearest target
+     */
+    private void setDistance(int x, int y, int distance) {
+        int chunk = chunkIndex(x, y);
+        if (chunkDistances[chunk] == null) {
+            chunkDistances[chunk] = new int[CHUNK_SIZE * CHUNK_SIZE];
+            Arrays.fill(chunkDistances[chunk], UNREACHABLE);
+        }
+        chunkDistances[chunk][offset(x, y)] = distance;
+    }
+
+    /**
+     * Appends a cell to the queue of the search, growing the queue if it is full.
+     *
+     * @param tail the number of cells queued so far
+     * @param cell the flat index of the cell
+     * @return the new number of queued cells
+     */
+    private int enqueue(int tail, int cell) {
+        if (tail == queue.length) {
+            queue = Arrays.copyOf(queue, tail * 2);
+        }
+        queue[tail] = cell;
+        return tail + 1;
+    }
+
+    /**
+     * Gets the index of the chunk containing a cell.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the index of the chunk
+     */
+    private int chunkIndex(int x, int y) {
+        return y / CHUNK_SIZE * chunksPerRow + x / CHUNK_SIZE;
+    }
+
+    /**
+     * Gets the position of a cell within its chunk.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the offset of the cell in the distances of its chunk
+     */
+    private static int offset(int x, int y) {
+        return y % CHUNK_SIZE * CHUNK_SIZE + x % CHUNK_SIZE;
+    }
+}
@@ -0,0 +1,113 @@
+package com.toropov.oleg.pathfinding;
+
+import com.toropov.oleg.entity.Creature;
+import com.toropov.oleg.entity.InteractionTable;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityType;
+import com.toropov.oleg.map.WorldMap;
+
+/**
+ * The FlowFields class holds the shared distance fields of one map: one leading herbivores to grass
+ * and one leading predators to herbivores they can catch.
+ * When enabled, the fields are recomputed once per tick and creatures hunting for food take the neighbor
+ * with the lowest distance instead of running their own search. Within a tick the fields are not updated,
+ * so a creature may head for food another creature has already taken. Like the searches of the creatures,
+ * the fields reach {@link Creature#SIGHT_RADIUS} moves from the food at most.
+ */
+public class FlowFields {
+    private static final int[] SHIFT_X = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] SHIFT_Y = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    private final WorldMap map;
+    private final DistanceField grassField = new DistanceField(
+            entity -> InteractionTable.has(EntityType.HEN, entity, InteractionTable.EAT),
+            entity -> InteractionTable.has(EntityType.HEN, entity, InteractionTable.ENTER | InteractionTable.EAT),
+            Creature.SIGHT_RADIUS);
+    private final DistanceField herbivoreField = new DistanceField(
+            entity -> InteractionTable.has(EntityType.MALE_FOX, entity, InteractionTable.EAT),
+            entity -> InteractionTable.has(EntityType.MALE_FOX, entity, InteractionTable.ENTER | InteractionTable.EAT),
+            Creature.SIGHT_RADIUS);
+    private boolean enabled = false;
+
+    /**
+     * Constructs the FlowFields of the specified map. The fields are disabled until {@link #setEnabled} is called.
+     *
+     * @param map the world map
+     */
+    public FlowFields(WorldMap map) {
+        this.map = map;
+    }
+
+    /**
+     * Checks if creatures should use the flow fields to find food.
+     *
+     * @return true if the flow fields are enabled, false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the flow fields.
+     *
+     * @param enabled true to let creatures use the flow fields, false to use individual searches
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Recomputes the fields for the current state of the map if they are enabled.
+     * Should be called once at the beginning of every tick.
+     */
+    public void update() {
+        if (enabled) {
+            grassField.compute(map);
+            herbivoreField.compute(map);
+        }
+    }
+
+    /**
+     * Finds the next step of a herbivore towards the nearest grass.
+     *
+     * @param creature the herbivore
+     * @return the coordinates of the next step, or null if no grass can be reached
+     */
+    public Coordinates nextStepTowardsGrass(Creature creature) {
+        return nextStep(grassField, creature);
+    }
+
+    /**
+     * Finds the next step of a predator towards the nearest herbivore.
+     *
+     * @param creature the predator
+     * @return the coordinates of the next step, or null if no herbivore can be reached
+     */
+    public Coordinates nextStepTowardsHerbivore(Creature creature) {
+        return nextStep(herbivoreField, creature);
+    }
+
+    /**
+     * Picks the neighbor of the creature with the lowest distance that the creature may enter.
+     *
+     * @param field the distance field to follow
+     * @param creature the creature
+     * @return the coordinates of the next step, or null if no neighbor leads to a target
+     */
+    private Coordinates nextStep(DistanceField field, Creature creature) {
+        int x = creature.getCoordinates().getX();
+        int y = creature.getCoordinates().getY();
+        int bestDistance = DistanceField.UNREACHABLE;
+        int bestIndex = -1;
+
+        for (int i = 0; i < SHIFT_X.length; i++) {
+            int distance = field.getDistance(x + SHIFT_X[i], y + SHIFT_Y[i]);
+            if (distance < bestDistance && creature.isSquareAvailableForMove(x + SHIFT_X[i], y + SHIFT_Y[i], map)) {
+                bestDistance = distance;
+                bestIndex = i;
+            }
+        }
+
+        return bestIndex < 0 ? null : new Coordinates(x + SHIFT_X[bestIndex], y + SHIFT_Y[bestIndex]);
+    }
+}
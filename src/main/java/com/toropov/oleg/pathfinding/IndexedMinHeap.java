@@ -0,0 +1,193 @@
+package com.toropov.oleg.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * The IndexedMinHeap class is a binary min-heap of cell indices with an integer priority per cell.
+ * Every cell knows its position in the heap, so membership checks are constant time and
+ * insertion, removal and decrease-key are logarithmic.
+ */
+public class IndexedMinHeap {
+    private int[] cells = new int[0];
+    private int[] keys = new int[0];
+    private int[] positions = new int[0];
+    private int size = 0;
+
+    /**
+     * Constructs an empty IndexedMinHeap.
+     * Call {@link #ensureCapacity(int)} before adding cells.
+     */
+    public IndexedMinHeap() {
+        // Arrays are allocated by ensureCapacity().
+    }
+
+    /**
+     * Makes sure the heap can hold the cell indices from 0 inclusive to the specified count exclusive.
+     * Growing the heap keeps its content.
+     *
+     * @param cellCount the number of cell indices
+     */
+    public void ensureCapacity(int cellCount) {
+        int capacity = positions.length;
+        if (capacity < cellCount) {
+            cells = Arrays.copyOf(cells, cellCount);
+            keys = Arrays.copyOf(keys, cellCount);
+            positions = Arrays.copyOf(positions, cellCount);
+            Arrays.fill(positions, capacity, cellCount, -1);
+        }
+    }
+
+    /**
+     * Removes all cells from the heap in time proportional to the number of cells it holds.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[cells[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Checks if the heap is empty.
+     *
+     * @return true if the heap holds no cells, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the number of cells in the heap.
+     *
+     * @return the number of cells
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the specified cell is in the heap.
+     *
+     * @param cell the cell index
+     * @return true if the cell is in the heap, false otherwise
+     */
+    public boolean contains(int cell) {
+        return positions[cell] >= 0;
+    }
+
+    /**
+     * Gets the priority of a cell in the heap.
+     *
+     * @param cell the cell index, which must be in the heap
+     * @return the priority of the cell
+     */
+    public int getKey(int cell) {
+        return keys[positions[cell]];
+    }
+
+    /**
+     * Adds a cell to the heap, or changes its priority if it is already there.
+     *
+     * @param cell the cell index
+     * @param key the priority of the cell
+     */
+    public void insertOrUpdate(int cell, int key) {
+        int position = positions[cell];
+        if (position < 0) {
+            position = size++;
+            cells[position] = cell;
+            keys[position] = key;
+            positions[cell] = position;
+            siftUp(position);
+        } else if (key < keys[position]) {
+            keys[position] = key;
+            siftUp(position);
+        } else if (key > keys[position]) {
+            keys[position] = key;
+            siftDown(position);
+        }
+    }
+
+    /**
+     * Gets the cell with the lowest priority without removing it.
+     *
+     * @return the cell index, or -1 if the heap is empty
+     */
+    public int peek() {
+        return size == 0 ? -1 : cells[0];
+    }
+
+    /**
+     * Removes the cell with the lowest priority.
+     *
+     * @return the cell index, or -1 if the heap is empty
+     */
+    public int poll() {
+        if (size == 0) {
+            return -1;
+        }
+        int cell = cells[0];
+        positions[cell] = -1;
+        size--;
+        if (size > 0) {
+            move(cells[size], keys[size], 0);
+            siftDown(0);
+        }
+        return cell;
+    }
+
+    /**
+     * Moves the entry at the specified position towards the root while its priority is lower than its parent's.
+     *
+     * @param position the position in the heap
+     */
+    private void siftUp(int position) {
+        int cell = cells[position];
+        int key = keys[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            move(cells[parent], keys[parent], position);
+            position = parent;
+        }
+        move(cell, key, position);
+    }
+
+    /**
+     * Moves the entry at the specified position towards the leaves while its priority is higher than a child's.
+     *
+     * @param position the position in the heap
+     */
+    private void siftDown(int position) {
+        int cell = cells[position];
+        int key = keys[position];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            move(cells[child], keys[child], position);
+            position = child;
+        }
+        move(cell, key, position);
+    }
+
+    /**
+     * Stores an entry at the specified position and updates the position index of its cell.
+     *
+     * @param cell the cell index
+     * @param key the priority of the cell
+     * @param position the position in the heap
+     */
+    private void move(int cell, int key, int position) {
+        cells[position] = cell;
+        keys[position] = key;
+        positions[cell] = position;
+    }
+}
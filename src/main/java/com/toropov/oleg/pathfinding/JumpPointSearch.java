@@ -0,0 +1,297 @@
+package com.toropov.oleg.pathfinding;
+
+import com.toropov.oleg.entity.Creature;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityGrid;
+import com.toropov.oleg.map.WorldMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The JumpPointSearch class finds paths on the 8-connected grid using Jump Point Search.
+ * Instead of expanding every neighbor, the search jumps along straight and diagonal lines
+ * and only stops at the goal or at cells with forced neighbors, so open terrain costs a handful of expansions.
+ * Moves cost one in every direction and the creature's own movement rules decide which cells are passable.
+ * All search state lives in the {@link SearchContext} of the calling thread.
+ */
+public class JumpPointSearch {
+    private static final int[] ALL_DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] ALL_DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    /**
+     * Default constructor.
+     * This class is not intended to be instantiated.
+     */
+    public JumpPointSearch() {
+        // Utility class, no instances allowed.
+    }
+
+    /**
+     * Finds a path from start to goal.
+     *
+     * @param map the world map.
+     * @param start the starting coordinates.
+     * @param goal the goal coordinates.
+     * @param creature the creature for which the path is being found.
+     * @return a list of coordinates representing the path from start to goal, excluding the start.
+     */
+    public static List<Coordinates> findPath(WorldMap map, Coordinates start, Coordinates goal, Creature creature) {
+        SearchContext context = SearchContext.current();
+        int goalCell = search(context, map, start, goal, creature);
+        if (goalCell < 0) {
+            return Collections.emptyList();
+        }
+
+        List<Coordinates> jumpPoints = context.reconstructPath(goalCell, map.getGrid());
+        List<Coordinates> path = new ArrayList<>();
+        int x = start.getX();
+        int y = start.getY();
+        for (Coordinates jumpPoint : jumpPoints) {
+            while (x != jumpPoint.getX() || y != jumpPoint.getY()) {
+                x += Integer.signum(jumpPoint.getX() - x);
+                y += Integer.signum(jumpPoint.getY() - y);
+                path.add(new Coordinates(x, y));
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Finds the first step of a path from start to goal without building the whole path.
+     *
+     * @param map the world map.
+     * @param start the starting coordinates.
+     * @param goal the goal coordinates.
+     * @param creature the creature for which the path is being found.
+     * @return the coordinates of the first step, or null if there is no path or start equals goal.
+     */
+    public static Coordinates findNextStep(WorldMap map, Coordinates start, Coordinates goal, Creature creature) {
+        SearchContext context = SearchContext.current();
+        int goalCell = search(context, map, start, goal, creature);
+        int jumpPoint = goalCell < 0 ? -1 : context.firstStep(goalCell);
+        if (jumpPoint < 0) {
+            return null;
+        }
+
+        EntityGrid grid = map.getGrid();
+        return new Coordinates(start.getX() + Integer.signum(grid.xOf(jumpPoint) - start.getX()),
+                start.getY() + Integer.signum(grid.yOf(jumpPoint) - start.getY()));
+    }
+
+    /**
+     * Performs the search and leaves the tree of jump points in the context.
+     * Goals that terrain cuts off from the start are rejected without searching.
+     *
+     * @param context the search context of the current thread.
+     * @param map the world map.
+     * @param start the starting coordinates.
+     * @param goal the goal coordinates.
+     * @param creature the creature for which the path is being found.
+     * @return the flat index of the goal cell if it was reached, -1 otherwise.
+     */
+    static int search(SearchContext context, WorldMap map, Coordinates start, Coordinates goal, Creature creature) {
+        EntityGrid grid = map.getGrid();
+        if (!grid.isWithinBounds(start.getX(), start.getY()) || !grid.isWithinBounds(goal.getX(), goal.getY())) {
+            return -1;
+        }
+
+        Jumper jumper = new Jumper(map, creature, goal.getX(), goal.getY());
+        int startCell = grid.indexOf(start.getX(), start.getY());
+        int goalCell = grid.indexOf(goal.getX(), goal.getY());
+        if (!map.getTerrainComponents().isConnected(startCell, goalCell)) {
+            return -1;
+        }
+        context.begin();
+        context.open(startCell, 0, SearchContext.NO_PARENT, jumper.heuristic(start.getX(), start.getY()));
+
+        int maxIterations = grid.size();
+        int iterationCount = 0;
+        int current;
+        while ((current = context.pollOpen()) >= 0) {
+            iterationCount++;
+            if (iterationCount > maxIterations) {
+                break;
+            }
+            if (current == goalCell) {
+                return current;
+            }
+
+            int x = grid.xOf(current);
+            int y = grid.yOf(current);
+            int parent = context.getParent(current);
+            if (parent == SearchContext.NO_PARENT) {
+                for (int i = 0; i < ALL_DX.length; i++) {
+                    jumpAndOpen(context, grid, jumper, current, x, y, ALL_DX[i], ALL_DY[i]);
+                }
+            } else {
+                int dx = Integer.signum(x - grid.xOf(parent));
+                int dy = Integer.signum(y - grid.yOf(parent));
+                expandPrunedNeighbors(context, grid, jumper, current, x, y, dx, dy);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Expands the natural and forced neighbors of a jump point reached in the given direction.
+     *
+     * @param context the search context.
+     * @param grid the grid of the map.
+     * @param jumper the jump helper of the current search.
+     * @param current the flat index of the jump point.
+     * @param x the x coordinate of the jump point.
+     * @param y the y coordinate of the jump point.
+     * @param dx the horizontal direction of travel.
+     * @param dy the vertical direction of travel.
+     */
+    private static void expandPrunedNeighbors(SearchContext context, EntityGrid grid, Jumper jumper,
+                                              int current, int x, int y, int dx, int dy) {
+        if (dx != 0 && dy != 0) {
+            jumpAndOpen(context, grid, jumper, current, x, y, dx, dy);
+            jumpAndOpen(context, grid, jumper, current, x, y, dx, 0);
+            jumpAndOpen(context, grid, jumper, current, x, y, 0, dy);
+            if (!jumper.isPassable(x - dx, y)) {
+                jumpAndOpen(context, grid, jumper, current, x, y, -dx, dy);
+            }
+            if (!jumper.isPassable(x, y - dy)) {
+                jumpAndOpen(context, grid, jumper, current, x, y, dx, -dy);
+            }
+        } else if (dx != 0) {
+            jumpAndOpen(context, grid, jumper, current, x, y, dx, 0);
+            if (!jumper.isPassable(x, y + 1)) {
+                jumpAndOpen(context, grid, jumper, current, x, y, dx, 1);
+            }
+            if (!jumper.isPassable(x, y - 1)) {
+                jumpAndOpen(context, grid, jumper, current, x, y, dx, -1);
+            }
+        } else {
+            jumpAndOpen(context, grid, jumper, current, x, y, 0, dy);
+            if (!jumper.isPassable(x + 1, y)) {
+                jumpAndOpen(context, grid, jumper, current, x, y, 1, dy);
+            }
+            if (!jumper.isPassable(x - 1, y)) {
+                jumpAndOpen(context, grid, jumper, current, x, y, -1, dy);
+            }
+        }
+    }
+
+    /**
+     * Jumps from a cell in the given direction and opens the jump point found, if any.
+     *
+     * @param context the search context.
+     * @param grid the grid of the map.
+     * @param jumper the jump helper of the current search.
+     * @param current the flat index of the cell to jump from.
+     * @param x the x coordinate of the cell to jump from.
+     * @param y the y coordinate of the cell to jump from.
+     * @param dx the horizontal direction of the jump.
+     * @param dy the vertical direction of the jump.
+     */
+    private static void jumpAndOpen(SearchContext context, EntityGrid grid, Jumper jumper,
+                                    int current, int x, int y, int dx, int dy) {
+        int jumpPoint = jumper.jump(x + dx, y + dy, dx, dy);
+        if (jumpPoint < 0) {
+            return;
+        }
+
+        int jumpX = grid.xOf(jumpPoint);
+        int jumpY = grid.yOf(jumpPoint);
+        int cost = context.getG(current) + Math.max(Math.abs(jumpX - x), Math.abs(jumpY - y));
+        if (cost < context.getG(jumpPoint)) {
+            context.open(jumpPoint, cost, current, cost + jumper.heuristic(jumpX, jumpY));
+        }
+    }
+
+    /**
+     * Scans the grid along lines for the search of one creature towards one goal.
+     */
+    private static class Jumper {
+        private final WorldMap map;
+        private final EntityGrid grid;
+        private final Creature creature;
+        private final int goalX;
+        private final int goalY;
+
+        /**
+         * Constructs a Jumper for the specified search.
+         *
+         * @param map the world map.
+         * @param creature the creature for which the path is being found.
+         * @param goalX the x coordinate of the goal.
+         * @param goalY the y coordinate of the goal.
+         */
+        Jumper(WorldMap map, Creature creature, int goalX, int goalY) {
+            this.map = map;
+            this.grid = map.getGrid();
+            this.creature = creature;
+            this.goalX = goalX;
+            this.goalY = goalY;
+        }
+
+        /**
+         * Checks if the creature may enter the specified cell.
+         *
+         * @param x the x coordinate.
+         * @param y the y coordinate.
+         * @return true if the cell is passable, false otherwise.
+         */
+        boolean isPassable(int x, int y) {
+            return creature.isSquareAvailableForMove(x, y, map);
+        }
+
+        /**
+         * Calculates the Chebyshev distance to the goal, which is exact on open terrain with unit diagonal moves.
+         *
+         * @param x the x coordinate.
+         * @param y the y coordinate.
+         * @return the heuristic value.
+         */
+        int heuristic(int x, int y) {
+            return Math.max(Math.abs(x - goalX), Math.abs(y - goalY));
+        }
+
+        /**
+         * Walks from a cell in the given direction until it finds a jump point or hits an obstacle.
+         *
+         * @param x the x coordinate of the first cell to check.
+         * @param y the y coordinate of the first cell to check.
+         * @param dx the horizontal direction.
+         * @param dy the vertical direction.
+         * @return the flat index of the jump point, or -1 if there is none in this direction.
+         */
+        int jump(int x, int y, int dx, int dy) {
+            while (isPassable(x, y)) {
+                if (x == goalX && y == goalY) {
+                    return grid.indexOf(x, y);
+                }
+
+                if (dx != 0 && dy != 0) {
+                    if ((!isPassable(x - dx, y) && isPassable(x - dx, y + dy)) ||
+                            (!isPassable(x, y - dy) && isPassable(x + dx, y - dy))) {
+                        return grid.indexOf(x, y);
+                    }
+                    if (jump(x + dx, y, dx, 0) >= 0 || jump(x, y + dy, 0, dy) >= 0) {
+                        return grid.indexOf(x, y);
+                    }
+                } else if (dx != 0) {
+                    if ((!isPassable(x, y + 1) && isPassable(x + dx, y + 1)) ||
+                            (!isPassable(x, y - 1) && isPassable(x + dx, y - 1))) {
+                        return grid.indexOf(x, y);
+                    }
+                } else {
+                    if ((!isPassable(x + 1, y) && isPassable(x + 1, y + dy)) ||
+                            (!isPassable(x - 1, y) && isPassable(x - 1, y + dy))) {
+                        return grid.indexOf(x, y);
+                    }
+                }
+
+                x += dx;
+                y += dy;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.toropov.oleg.pathfinding;
+
+/**
+ * Enumeration of the path search engines available to {@link PathFinder}.
+ */
+public enum PathStrategy {
+    /**
+     * Plain A* expanding all eight neighbors of every node.
+     */
+    A_STAR,
+
+    /**
+     * Jump Point Search, which skips over symmetric paths on open terrain and only expands jump points.
+     */
+    JUMP_POINT
+}
@@ -0,0 +1,319 @@
+package com.toropov.oleg.pathfinding;
+
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityGrid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The SearchContext class holds the reusable primitive state of a grid search.
+ * Every thread owns one context. The state of a search lives in slots handed out to the cells it reaches,
+ * and an open-addressing hash table maps a cell to its slot, so the memory grows with the number of cells
+ * the largest search has reached rather than with the size of the map.
+ * Nothing is cleared between searches: a table entry is only valid if its stamp equals the generation
+ * of the current search, and the slots are handed out again from the first one.
+ */
+public class SearchContext {
+    private static final ThreadLocal<SearchContext> CONTEXT = ThreadLocal.withInitial(SearchContext::new);
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Marker for a cell without a parent.
+     */
+    public static final int NO_PARENT = -1;
+
+    private int generation = 0;
+    private int[] tableCells = new int[INITIAL_CAPACITY];
+    private int[] tableSlots = new int[INITIAL_CAPACITY];
+    private int[] tableStamps = new int[INITIAL_CAPACITY];
+    private int slotCount = 0;
+    private int[] slotCells = new int[INITIAL_CAPACITY / 2];
+    private int[] g = new int[INITIAL_CAPACITY / 2];
+    private int[] parents = new int[INITIAL_CAPACITY / 2];
+    private boolean[] closed = new boolean[INITIAL_CAPACITY / 2];
+    private final IndexedMinHeap openSet = new IndexedMinHeap();
+    private int[] queue = new int[INITIAL_CAPACITY / 2];
+    private int queueHead = 0;
+    private int queueTail = 0;
+
+    /**
+     * Constructs an empty SearchContext.
+     * Searches obtain the context of their thread through {@link #current()}.
+     */
+    SearchContext() {
+        openSet.ensureCapacity(slotCells.length);
+    }
+
+    /**
+     * Gets the search context of the current thread.
+     *
+     * @return the search context of the current thread
+     */
+    public static SearchContext current() {
+        return CONTEXT.get();
+    }
+
+    /**
+     * Starts a new search, invalidating the state of the previous search in constant time.
+     */
+    public void begin() {
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(tableStamps, 0);
+            generation = 1;
+        }
+        slotCount = 0;
+        queueHead = 0;
+        queueTail = 0;
+        openSet.clear();
+    }
+
+    /**
+     * Gets the cost of the best known path from the start to the specified cell.
+     *
+     * @param cell the flat index of the cell
+     * @return the cost, or {@link Integer#MAX_VALUE} if the cell has not been reached yet
+     */
+    public int getG(int cell) {
+        int slot = slotOf(cell);
+        return slot < 0 ? Integer.MAX_VALUE : g[slot];
+    }
+
+    /**
+     * Gets the parent of the specified cell on the best known path.
+     *
+     * @param cell the flat index of the cell
+     * @return the flat index of the parent, or {@link #NO_PARENT} if there is none
+     */
+    public int getParent(int cell) {
+        int slot = slotOf(cell);
+        return slot < 0 ? NO_PARENT : parents[slot];
+    }
+
+    /**
+     * Checks if the specified cell has been reached by the current search.
+     *
+     * @param cell the flat index of the cell
+     * @return true if the cell has been reached, false otherwise
+     */
+    public boolean isReached(int cell) {
+        return slotOf(cell) >= 0;
+    }
+
+    /**
+     * Checks if the specified cell has been expanded and not reopened since.
+     *
+     * @param cell the flat index of the cell
+     * @return true if the cell is closed, false otherwise
+     */
+    public boolean isClosed(int cell) {
+        int slot = slotOf(cell);
+        return slot >= 0 && closed[slot];
+    }
+
+    /**
+     * Gets the number of cells reached by the current search.
+     *
+     * @return the number of reached cells
+     */
+    public int getReachedCount() {
+        return slotCount;
+    }
+
+    /**
+     * Records a better path to the specified cell and puts the cell into the open set.
+     * If the cell is already open its priority is decreased, and a cell that has already been closed is reopened.
+     *
+     * @param cell the flat index of the cell
+     * @param cost the cost of the path from the start to the cell
+     * @param parent the flat index of the previous cell on the path, or {@link #NO_PARENT}
+     * @param priority the estimated total cost of a path through the cell
+     */
+    public void open(int cell, int cost, int parent, int priority) {
+        int slot = slotOrAdd(cell);
+        closed[slot] = false;
+        g[slot] = cost;
+        parents[slot] = parent;
+        openSet.insertOrUpdate(slot, priority);
+    }
+
+    /**
+     * Records that the specified cell has been reached by a breadth-first search and closes it.
+     *
+     * @param cell the flat index of the cell
+     * @param cost the number of moves from the start to the cell
+     * @param parent the flat index of the previous cell on the path, or {@link #NO_PARENT}
+     */
+    public void reach(int cell, int cost, int parent) {
+        int slot = slotOrAdd(cell);
+        closed[slot] = true;
+        g[slot] = cost;
+        parents[slot] = parent;
+    }
+
+    /**
+     * Appends a cell to the queue of a breadth-first search.
+     *
+     * @param cell the flat index of the cell
+     */
+    public void enqueue(int cell) {
+        if (queueTail == queue.length) {
+            queue = Arrays.copyOf(queue, queue.length * 2);
+        }
+        queue[queueTail++] = cell;
+    }
+
+    /**
+     * Removes the first cell from the queue of a breadth-first search.
+     *
+     * @return the flat index of the cell, or -1 if the queue is empty
+     */
+    public int dequeue() {
+        return queueHead < queueTail ? queue[queueHead++] : -1;
+    }
+
+    /**
+     * Removes the open cell with the lowest priority and closes it.
+     *
+     * @return the flat index of the cell, or -1 if the open set is empty
+     */
+    public int pollOpen() {
+        int slot = openSet.poll();
+        if (slot < 0) {
+            return -1;
+        }
+        closed[slot] = true;
+        return slotCells[slot];
+    }
+
+    /**
+     * Reconstructs the path to the specified cell, excluding the start cell.
+     *
+     * @param cell the flat index of the last cell of the path
+     * @param grid the grid the search was performed on
+     * @return a list of coordinates from the first step to the specified cell
+     */
+    public List<Coordinates> reconstructPath(int cell, EntityGrid grid) {
+        int length = 0;
+        for (int current = cell; getParent(current) != NO_PARENT; current = getParent(current)) {
+            length++;
+        }
+        if (length == 0) {
+            return Collections.emptyList();
+        }
+
+        Coordinates[] steps = new Coordinates[length];
+        int current = cell;
+        for (int i = length - 1; i >= 0; i--) {
+            steps[i] = new Coordinates(grid.xOf(current), grid.yOf(current));
+            current = getParent(current);
+        }
+        return new ArrayList<>(Arrays.asList(steps));
+    }
+
+    /**
+     * Finds the first step of the path to the specified cell.
+     *
+     * @param cell the flat index of the last cell of the path
+     * @return the flat index of the first step, or -1 if the cell is the start cell
+     */
+    public int firstStep(int cell) {
+        int current = cell;
+        int parent = getParent(current);
+        if (parent == NO_PARENT) {
+            return -1;
+        }
+        while (getParent(parent) != NO_PARENT) {
+            current = parent;
+            parent = getParent(current);
+        }
+        return current;
+    }
+
+    /**
+     * Finds the slot of a cell reached by the current search.
+     *
+     * @param cell the flat index of the cell
+     * @return the slot, or -1 if the cell has not been reached
+     */
+    private int slotOf(int cell) {
+        int mask = tableCells.length - 1;
+        for (int i = hash(cell) & mask; tableStamps[i] == generation; i = (i + 1) & mask) {
+            if (tableCells[i] == cell) {
+                return tableSlots[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the slot of a cell, handing out the next slot if the cell has not been reached yet.
+     *
+     * @param cell the flat index of the cell
+     * @return the slot
+     */
+    private int slotOrAdd(int cell) {
+        int slot = slotOf(cell);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (slotCount == slotCells.length) {
+            int capacity = slotCells.length * 2;
+            slotCells = Arrays.copyOf(slotCells, capacity);
+            g = Arrays.copyOf(g, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            closed = Arrays.copyOf(closed, capacity);
+            openSet.ensureCapacity(capacity);
+            growTable(capacity * 2);
+        }
+        slot = slotCount++;
+        slotCells[slot] = cell;
+        insert(cell, slot);
+        return slot;
+    }
+
+    /**
+     * Replaces the hash table with a larger one holding the cells reached so far.
+     *
+     * @param capacity the capacity of the new table, a power of two
+     */
+    private void growTable(int capacity) {
+        tableCells = new int[capacity];
+        tableSlots = new int[capacity];
+        tableStamps = new int[capacity];
+        for (int slot = 0; slot < slotCount; slot++) {
+            insert(slotCells[slot], slot);
+        }
+    }
+
+    /**
+     * Puts a cell that is not in the hash table into it.
+     *
+     * @param cell the flat index of the cell
+     * @param slot the slot of the cell
+     */
+    private void insert(int cell, int slot) {
+        int mask = tableCells.length - 1;
+        int i = hash(cell) & mask;
+        while (tableStamps[i] == generation) {
+            i = (i + 1) & mask;
+        }
+        tableCells[i] = cell;
+        tableSlots[i] = slot;
+        tableStamps[i] = generation;
+    }
+
+    /**
+     * Spreads the bits of a cell index so that neighbouring cells land far apart in the hash table.
+     *
+     * @param cell the flat index of the cell
+     * @return the hash of the cell
+     */
+    private static int hash(int cell) {
+        int h = cell * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
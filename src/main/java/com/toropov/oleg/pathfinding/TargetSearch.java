@@ -0,0 +1,116 @@
+package com.toropov.oleg.pathfinding;
+
+import com.toropov.oleg.entity.Creature;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityGrid;
+import com.toropov.oleg.map.WorldMap;
+
+/**
+ * The TargetSearch class finds the nearest target a creature can actually reach, together with the first step towards it.
+ * It runs a single breadth-first search from the creature that respects the creature's movement rules
+ * and stops at the first matching cell, so targets walled in by obstacles are skipped instead of
+ * being chosen and then proven unreachable by a separate path search.
+ */
+public class TargetSearch {
+    private static final int[] SHIFT_X = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] SHIFT_Y = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+    /**
+     * Default constructor.
+     * This class is not intended to be instantiated.
+     */
+    public TargetSearch() {
+        // Utility class, no instances allowed.
+    }
+
+    /**
+     * Finds the nearest reachable cell whose occupant matches the filter.
+     *
+     * @param map the world map
+     * @param creature the creature looking for a target
+     * @param targets the filter selecting target cells
+     * @param maxDistance the largest number of moves to search, which bounds the cells the search reaches
+     * @return the target and the first step towards it, or null if no target can be reached within the distance
+     */
+    public static Result findNearest(WorldMap map, Creature creature, CellFilter targets, int maxDistance) {
+        EntityGrid grid = map.getGrid();
+        Coordinates start = creature.getCoordinates();
+        if (!grid.isWithinBounds(start.getX(), start.getY())) {
+            return null;
+        }
+
+        SearchContext context = SearchContext.current();
+        context.begin();
+        int startCell = grid.indexOf(start.getX(), start.getY());
+        context.reach(startCell, 0, SearchContext.NO_PARENT);
+        context.enqueue(startCell);
+
+        for (int cell = context.dequeue(); cell >= 0; cell = context.dequeue()) {
+            int x = grid.xOf(cell);
+            int y = grid.yOf(cell);
+            int distance = context.getG(cell) + 1;
+            if (distance > maxDistance) {
+                break;
+            }
+            for (int i = 0; i < SHIFT_X.length; i++) {
+                int neighborX = x + SHIFT_X[i];
+                int neighborY = y + SHIFT_Y[i];
+                if (!grid.isWithinBounds(neighborX, neighborY)) {
+                    continue;
+                }
+
+                int neighbor = grid.indexOf(neighborX, neighborY);
+                if (context.isReached(neighbor) || !creature.isSquareAvailableForMove(neighborX, neighborY, map)) {
+                    continue;
+                }
+
+                context.reach(neighbor, distance, cell);
+                if (targets.test(grid.get(neighbor))) {
+                    int step = context.firstStep(neighbor);
+                    return new Result(new Coordinates(neighborX, neighborY),
+                            new Coordinates(grid.xOf(step), grid.yOf(step)));
+                }
+                context.enqueue(neighbor);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * The result of a target search: the target and the first step of the way to it.
+     */
+    public static class Result {
+        private final Coordinates target;
+        private final Coordinates firstStep;
+
+        /**
+         * Constructs a Result.
+         *
+         * @param target the coordinates of the target
+         * @param firstStep the coordinates of the first step towards the target
+         */
+        public Result(Coordinates target, Coordinates firstStep) {
+            this.target = target;
+            this.firstStep = firstStep;
+        }
+
+        /**
+         * Gets the coordinates of the target.
+         *
+         * @return the coordinates of the target
+         */
+        public Coordinates getTarget() {
+            return target;
+        }
+
+        /**
+         * Gets the coordinates of the first step towards the target.
+         *
+         * @return the coordinates of the first step
+         */
+        public Coordinates getFirstStep() {
+            return firstStep;
+        }
+    }
+}
@@ -1,10 +1,8 @@
 package com.toropov.oleg.world;
 
-import com.toropov.oleg.entity.Creature;
-import com.toropov.oleg.entity.ExtraGrassFactory;
-import com.toropov.oleg.map.EntityType;
 import com.toropov.oleg.map.WorldMap;
 
+import javax.swing.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -16,31 +14,44 @@ import java.util.logging.Logger;
  * The Actions class manages the simulation actions, including starting, pausing, resuming,
  * and stopping the simulation. It also handles the movement of creatures and updates the
  * UI and entity counts.
+ * Ticks run on a dedicated loop thread paced by a {@link TickRate}, while the UI is refreshed by a separate
+ * scheduler at most a configured number of times per second. A frame is only posted to the event dispatch thread
+ * when a new tick has happened and the previous frame has been drawn, so neither side can hold up the other.
  */
 public class Actions {
     private static final Logger LOGGER = Logger.getLogger(Actions.class.getName());
-    private static final int INITIAL_DELAY = 0;
-    private static final int PERIOD = 1;
     private static final TimeUnit TIME_UNIT = TimeUnit.SECONDS;
     private static final int SHUTDOWN_TIMEOUT = 1;
+    private static final long PAUSE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int MAX_CATCH_UP_TICKS = 10;
 
-    private final WorldMap map;
-    private ScheduledExecutorService scheduler;
+    private final TickRunner tickRunner;
+    private final long framePeriodNanos;
+    private volatile TickRate tickRate;
+    private volatile Thread loopThread;
+    private volatile boolean isRunning = false;
+    private ScheduledExecutorService renderScheduler;
     private final Runnable updateUIRunnable;
     private final Runnable updateEntityCountsRunnable;
     private final AtomicBoolean isPaused = new AtomicBoolean(false);
+    private final AtomicBoolean isFramePending = new AtomicBoolean(false);
+    private long lastRenderedTick = -1;
     private final Simulation simulation;
 
     /**
      * Constructs an Actions object.
      *
      * @param map                      the WorldMap object representing the simulation map
+     * @param config                   the configuration the map was created with
      * @param updateUIRunnable         a Runnable to update the UI
      * @param updateEntityCountsRunnable a Runnable to update the entity counts
      * @param simulation               the Simulation object managing the simulation
      */
-    public Actions(WorldMap map, Runnable updateUIRunnable, Runnable updateEntityCountsRunnable, Simulation simulation) {
-        this.map = map;
+    public Actions(WorldMap map, SimulationConfig config, Runnable updateUIRunnable,
+                   Runnable updateEntityCountsRunnable, Simulation simulation) {
+        this.tickRunner = new TickRunner(map, config);
+        this.tickRate = config.getTickRate();
+        this.framePeriodNanos = TimeUnit.SECONDS.toNanos(1) / config.getMaxFramesPerSecond();
         this.updateUIRunnable = updateUIRunnable;
         this.updateEntityCountsRunnable = updateEntityCountsRunnable;
         this.simulation = simulation;
@@ -51,25 +62,35 @@ public class Actions {
      * Starts the simulation.
      */
     public void start() {
-        if (scheduler != null && !scheduler.isShutdown()) {
+        if (isRunning) {
             return;
         }
-        scheduler = Executors.newScheduledThreadPool(1);
-        scheduler.scheduleAtFixedRate(() -> {
+        isRunning = true;
+        loopThread = new Thread(this::runLoop, "simulation-loop");
+        loopThread.setDaemon(true);
+        loopThread.start();
 
-            try {
-                if (!isPaused.get()) {
-                    LOGGER.log(Level.INFO, "Simulation step started.");
-                    allCreaturesMakeMove();
-                    ExtraGrassFactory.addingGrass(map);
-                    updateEntityCountsRunnable.run();
-                    updateUIRunnable.run();
-                    LOGGER.log(Level.INFO, "Simulation step completed.");
-                }
-            } catch (Exception e) {
-                LOGGER.log(Level.SEVERE, "Error during simulation step", e);
-            }
-        }, INITIAL_DELAY, PERIOD, TIME_UNIT);
+        renderScheduler = Executors.newSingleThreadScheduledExecutor();
+        renderScheduler.scheduleAtFixedRate(this::requestFrame, 0, framePeriodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Changes the pace of the simulation loop. Takes effect after the current tick.
+     *
+     * @param tickRate the new tick rate
+     */
+    public void setTickRate(TickRate tickRate) {
+        this.tickRate = tickRate;
+        LOGGER.log(Level.INFO, "Tick rate set to {0}.", tickRate);
+    }
+
+    /**
+     * Gets the current pace of the simulation loop.
+     *
+     * @return the tick rate
+     */
+    public TickRate getTickRate() {
+        return tickRate;
     }
 
     /**
@@ -101,39 +122,100 @@ public class Actions {
      * Stops the simulation.
      */
     public void stop() {
-        if (scheduler != null) {
+        if (isRunning) {
             isPaused.set(true);
-            scheduler.shutdown();
-            try {
-                if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT, TIME_UNIT)) {
-                    scheduler.shutdownNow();
+            isRunning = false;
+            renderScheduler.shutdownNow();
+            Thread thread = loopThread;
+            if (thread != Thread.currentThread()) {
+                thread.interrupt();
+                try {
+                    thread.join(TIME_UNIT.toMillis(SHUTDOWN_TIMEOUT));
+                } catch (InterruptedException e) {
+                    LOGGER.log(Level.SEVERE, "Error during simulation loop shutdown", e);
+                    Thread.currentThread().interrupt();
                 }
-            } catch (InterruptedException e) {
-                LOGGER.log(Level.SEVERE, "Error during scheduler shutdown", e);
-                scheduler.shutdownNow();
-            } finally {
-                scheduler = null;
-                LOGGER.log(Level.INFO, "Simulation stopped.");
             }
+            tickRunner.close();
+            renderScheduler = null;
+            loopThread = null;
+            LOGGER.log(Level.INFO, "Simulation stopped.");
         }
 
         simulation.closeWindow();
     }
 
     /**
-     * Makes all creatures on the map perform their move.
+     * Runs ticks until the simulation is stopped, pacing them according to the current tick rate.
+     */
+    private void runLoop() {
+        long nextTickTime = System.nanoTime();
+        try {
+            while (isRunning) {
+                if (isPaused.get()) {
+                    TimeUnit.NANOSECONDS.sleep(PAUSE_POLL_NANOS);
+                    nextTickTime = System.nanoTime();
+                    continue;
+                }
+
+                try {
+                    LOGGER.log(Level.FINE, "Simulation step started.");
+                    allCreaturesMakeMove();
+                    LOGGER.log(Level.FINE, "Simulation step completed.");
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, "Error during simulation step", e);
+                }
+
+                TickRate rate = tickRate;
+                long now = System.nanoTime();
+                switch (rate.getMode()) {
+                    case FIXED_PERIOD -> TimeUnit.NANOSECONDS.sleep(rate.getPeriodNanos());
+                    case TARGET_TPS -> {
+                        nextTickTime += rate.getPeriodNanos();
+                        if (now - nextTickTime > MAX_CATCH_UP_TICKS * rate.getPeriodNanos()) {
+                            nextTickTime = now;
+                        }
+                        TimeUnit.NANOSECONDS.sleep(nextTickTime - now);
+                    }
+                    case AS_FAST_AS_POSSIBLE -> nextTickTime = now;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Posts a UI update to the event dispatch thread if a tick has happened since the last frame
+     * and the last frame has already been drawn.
+     */
+    private void requestFrame() {
+        long tick = tickRunner.getTickCount();
+        if (tick == lastRenderedTick || !isFramePending.compareAndSet(false, true)) {
+            return;
+        }
+
+        lastRenderedTick = tick;
+        SwingUtilities.invokeLater(() -> {
+            try {
+                updateEntityCountsRunnable.run();
+                updateUIRunnable.run();
+            } finally {
+                isFramePending.set(false);
+            }
+        });
+    }
+
+    /**
+     * Makes all creatures on the map perform their move and lets the grass grow back.
      */
     private void allCreaturesMakeMove() {
-        if (map.countEntities().get(EntityType.ALL_CHICKEN) == 0 || map.countEntities().get(EntityType.ALL_FOXES) == 0) {
+        if (!tickRunner.tick()) {
             LOGGER.log(Level.INFO, "Simulation ending condition met.");
             stop();
             return;
         }
 
-        for (Creature creature : map.getAllCreatures()) {
-            creature.makeMove(map);
-        }
-
         simulation.incrementMoveCounter();
     }
 }
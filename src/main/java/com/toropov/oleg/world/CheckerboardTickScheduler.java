@@ -0,0 +1,180 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.Creature;
+import com.toropov.oleg.map.ConcurrentWorldMap;
+import com.toropov.oleg.map.WorldMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The CheckerboardTickScheduler splits the map into square tiles and moves the creatures of many tiles at once.
+ * A creature changes at most its own cell and one neighboring cell per tick, so tiles of at least two cells
+ * that are not next to each other, not even diagonally, can be processed concurrently with plain
+ * {@link Creature#makeMove} calls. Tiles are colored in a 2x2 pattern and the four colors are processed one after
+ * another; within a color every non-empty tile is a task on a {@link ForkJoinPool}, so idle threads steal tiles
+ * from busy ones when creatures are unevenly spread.
+ * Creatures are assigned to the tile they start the tick in and are moved in cell order within their tile.
+ * Searches still read the whole map while other tiles change it, so runs with more than one thread are not
+ * reproducible from the seed.
+ */
+public class CheckerboardTickScheduler implements TickScheduler {
+    private static final int COLOR_COUNT = 4;
+
+    /**
+     * The smallest tile size for which tiles of the same color cannot be changed by the same creature move.
+     */
+    public static final int MIN_TILE_SIZE = 2;
+
+    private final ForkJoinPool pool;
+    private final int tileSize;
+    private List<List<Creature>> tiles = new ArrayList<>();
+    private int tilesPerRow = 0;
+
+    /**
+     * Constructs a CheckerboardTickScheduler.
+     *
+     * @param parallelism the number of threads
+     * @param tileSize the side of a tile in cells
+     * @throws IllegalArgumentException if the tile size is smaller than {@link #MIN_TILE_SIZE}
+     */
+    public CheckerboardTickScheduler(int parallelism, int tileSize) {
+        if (tileSize < MIN_TILE_SIZE) {
+            throw new IllegalArgumentException("Tile size must be at least " + MIN_TILE_SIZE + ": " + tileSize);
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Sorts the creatures into tiles and moves the tiles of each color in parallel.
+     * Tiles share the population counters and the indexes of the map, so the map must be a {@link ConcurrentWorldMap}.
+     *
+     * @param map the world map, which must be a {@link ConcurrentWorldMap}
+     * @param creatures the creatures on the map at the start of the tick, in cell order
+     * @throws IllegalArgumentException if the map is not safe for concurrent updates
+     */
+    @Override
+    public void moveCreatures(WorldMap map, List<Creature> creatures) {
+        if (!(map instanceof ConcurrentWorldMap)) {
+            throw new IllegalArgumentException("The checkerboard scheduler needs a ConcurrentWorldMap");
+        }
+        assignToTiles(map, creatures);
+
+        for (int color = 0; color < COLOR_COUNT; color++) {
+            List<TileTask> tasks = new ArrayList<>();
+            for (int tile = 0; tile < tiles.size(); tile++) {
+                if (colorOf(tile) == color && !tiles.get(tile).isEmpty()) {
+                    tasks.add(new TileTask(map, tiles.get(tile)));
+                }
+            }
+            if (!tasks.isEmpty()) {
+                pool.invoke(new ColorTask(tasks));
+            }
+        }
+    }
+
+    /**
+     * Shuts the worker threads down.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Puts every creature into the list of the tile it stands in, keeping the cell order.
+     *
+     * @param map the world map
+     * @param creatures the creatures in cell order
+     */
+    private void assignToTiles(WorldMap map, List<Creature> creatures) {
+        int perRow = (map.getMapSize() + tileSize - 1) / tileSize;
+        if (perRow != tilesPerRow) {
+            tilesPerRow = perRow;
+            tiles = new ArrayList<>(perRow * perRow);
+            for (int i = 0; i < perRow * perRow; i++) {
+                tiles.add(new ArrayList<>());
+            }
+        } else {
+            for (List<Creature> tile : tiles) {
+                tile.clear();
+            }
+        }
+
+        for (Creature creature : creatures) {
+            int tileX = creature.getCoordinates().getX() / tileSize;
+            int tileY = creature.getCoordinates().getY() / tileSize;
+            tiles.get(tileY * tilesPerRow + tileX).add(creature);
+        }
+    }
+
+    /**
+     * Gets the color of a tile. Tiles of the same color never touch, not even at a corner.
+     *
+     * @param tile the index of the tile
+     * @return the color, from 0 to 3
+     */
+    private int colorOf(int tile) {
+        int tileX = tile % tilesPerRow;
+        int tileY = tile / tilesPerRow;
+        return (tileX & 1) | (tileY & 1) << 1;
+    }
+
+    /**
+     * Runs the tile tasks of one color and waits for all of them.
+     */
+    private static class ColorTask extends RecursiveAction {
+        private final List<TileTask> tasks;
+
+        /**
+         * Constructs a ColorTask.
+         *
+         * @param tasks the tile tasks of one color
+         */
+        ColorTask(List<TileTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        /**
+         * Forks all tile tasks and joins them.
+         */
+        @Override
+        protected void compute() {
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Moves the creatures of one tile in cell order.
+     */
+    private static class TileTask extends RecursiveAction {
+        private final WorldMap map;
+        private final List<Creature> creatures;
+
+        /**
+         * Constructs a TileTask.
+         *
+         * @param map the world map
+         * @param creatures the creatures of the tile in cell order
+         */
+        TileTask(WorldMap map, List<Creature> creatures) {
+            this.map = map;
+            this.creatures = creatures;
+        }
+
+        /**
+         * Lets every creature of the tile that is still on the map make its move.
+         */
+        @Override
+        protected void compute() {
+            for (Creature creature : creatures) {
+                if (map.getEntity(creature.getCoordinates()) == creature) {
+                    creature.makeMove(map);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.Creature;
+import com.toropov.oleg.map.ConcurrentWorldMap;
+import com.toropov.oleg.map.WorldMap;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The ConcurrentTickScheduler moves all creatures at once on a {@link ForkJoinPool}, without phases or tiles.
+ * It relies on the {@link ConcurrentWorldMap}: every creature claims the cell it moves into with a compare-and-set,
+ * so when two creatures go for the same cell only one of them gets it and the other stays where it is for this tick.
+ * No locks are taken, so no thread ever waits for another, but the outcome of a tick depends on thread timing
+ * and runs are not reproducible from the seed.
+ */
+public class ConcurrentTickScheduler implements TickScheduler {
+    private static final int MOVE_BATCH_SIZE = 16;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a ConcurrentTickScheduler moving creatures on the specified number of threads.
+     *
+     * @param parallelism the number of threads
+     */
+    public ConcurrentTickScheduler(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Moves all creatures concurrently.
+     *
+     * @param map the world map, which must be a {@link ConcurrentWorldMap}
+     * @param creatures the creatures on the map at the start of the tick, in cell order
+     * @throws IllegalArgumentException if the map is not safe for concurrent updates
+     */
+    @Override
+    public void moveCreatures(WorldMap map, List<Creature> creatures) {
+        if (!(map instanceof ConcurrentWorldMap)) {
+            throw new IllegalArgumentException("The concurrent scheduler needs a ConcurrentWorldMap");
+        }
+        pool.invoke(new MoveTask(map, creatures, 0, creatures.size()));
+    }
+
+    /**
+     * Shuts the worker threads down.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Moves a range of creatures, splitting the range between threads.
+     */
+    private static class MoveTask extends RecursiveAction {
+        private final WorldMap map;
+        private final List<Creature> creatures;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a MoveTask.
+         *
+         * @param map the world map
+         * @param creatures the creatures of the tick
+         * @param from the first index of the range, inclusive
+         * @param to the last index of the range, exclusive
+         */
+        MoveTask(WorldMap map, List<Creature> creatures, int from, int to) {
+            this.map = map;
+            this.creatures = creatures;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Moves the range directly if it is small, otherwise splits it in two.
+         * Creatures that have been eaten or have mated in the meantime are skipped.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= MOVE_BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    Creature creature = creatures.get(i);
+                    if (map.getEntity(creature.getCoordinates()) == creature) {
+                        creature.makeMove(map);
+                    }
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new MoveTask(map, creatures, from, middle), new MoveTask(map, creatures, middle, to));
+        }
+    }
+}
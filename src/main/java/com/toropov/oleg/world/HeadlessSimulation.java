@@ -0,0 +1,79 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.CreatureStore;
+import com.toropov.oleg.map.EntityType;
+import com.toropov.oleg.map.WorldMap;
+import com.toropov.oleg.map.WorldMapFactory;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * The HeadlessSimulation class runs the simulation without a user interface and without any scheduling delay.
+ * Ticks are performed in a tight loop until the tick limit or the end condition is reached,
+ * after which the throughput and the final population counts are printed.
+ * Runs are reproducible from their seed unless the scheduler moves creatures concurrently on several threads,
+ * in which case the report says so.
+ */
+public class HeadlessSimulation {
+    private final SimulationConfig config;
+
+    /**
+     * Constructs a HeadlessSimulation for the specified configuration.
+     *
+     * @param config the simulation configuration
+     */
+    public HeadlessSimulation(SimulationConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Creates the map, runs the simulation and prints a report.
+     *
+     * @param out the stream to print the report to
+     * @return the closed tick runner after the run, holding the final map and tick count
+     */
+    public TickRunner run(PrintStream out) {
+        WorldMap map = new WorldMapFactory(config).creatMap();
+        long tickLimit = config.getTickLimit();
+
+        try (TickRunner runner = new TickRunner(map, config)) {
+            long startTime = System.nanoTime();
+            while ((tickLimit == SimulationConfig.NO_TICK_LIMIT || runner.getTickCount() < tickLimit) && runner.tick()) {
+                // Every iteration performs one tick.
+            }
+            long elapsedNanos = Math.max(System.nanoTime() - startTime, 1);
+
+            printReport(out, runner, elapsedNanos);
+            return runner;
+        }
+    }
+
+    /**
+     * Prints the throughput and the final population counts, and the totals of the creature store if it is enabled.
+     *
+     * @param out the stream to print the report to
+     * @param runner the tick runner after the run
+     * @param elapsedNanos the wall-clock duration of the run in nanoseconds
+     */
+    private void printReport(PrintStream out, TickRunner runner, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        Map<EntityType, Integer> counts = runner.getMap().countEntities();
+
+        out.printf("Map size: %d, seed: %d, scheduler: %s%n", config.getMapSize(), config.getSeed(), config.getSchedulerType());
+        if (!config.getSchedulerType().isReproducible(config.getParallelism())) {
+            out.printf("Warning: the %s scheduler with %d threads does not reproduce runs of the same seed%n",
+                    config.getSchedulerType(), config.getParallelism());
+        }
+        out.printf("Ticks: %d in %.3f s (%.1f ticks/s)%s%n", runner.getTickCount(), seconds,
+                runner.getTickCount() / seconds, runner.isEndConditionMet() ? ", end condition met" : "");
+        for (EntityType type : EntityType.values()) {
+            out.printf("%s: %d%n", type, counts.getOrDefault(type, 0));
+        }
+        CreatureStore store = runner.getMap().getCreatureStore();
+        if (store != null) {
+            out.printf("Creature store: %d creatures, total health %d, %d resting, highest generation %d%n",
+                    store.size(), store.getTotalHealth(), store.countSkippingNextMove(), store.getMaxGeneration());
+        }
+    }
+}
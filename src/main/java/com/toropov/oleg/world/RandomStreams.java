@@ -0,0 +1,54 @@
+package com.toropov.oleg.world;
+
+import java.util.SplittableRandom;
+
+/**
+ * The RandomStreams class derives the random number generators of a simulation from its single seed.
+ * Every part of the simulation that needs randomness gets its own {@link SplittableRandom} stream, split off
+ * a root generator in a fixed order, so the streams are statistically independent, never shared between threads,
+ * and the same seed always gives the same streams no matter which part asks first or how many threads run.
+ * Identical streams give identical worlds only if the scheduler applies moves in a fixed order; see
+ * {@link TickSchedulerType#isReproducible(int)} for the schedulers whose threads race instead.
+ */
+public class RandomStreams {
+
+    /**
+     * The parts of the simulation that draw random numbers, each with its own stream.
+     */
+    public enum Purpose {
+        /**
+         * Placement of the initial entities.
+         */
+        PLACEMENT,
+
+        /**
+         * Placement of the grass that grows back during the simulation.
+         */
+        GRASS_REGROWTH
+    }
+
+    /**
+     * Default constructor.
+     * This class is not intended to be instantiated.
+     */
+    public RandomStreams() {
+        // Utility class, no instances allowed.
+    }
+
+    /**
+     * Creates the random number generator of the specified purpose.
+     * Every call returns a new generator in the same initial state for the same seed and purpose.
+     *
+     * @param seed the seed of the simulation
+     * @param purpose the part of the simulation the generator is for
+     * @return a new generator for the purpose
+     */
+    public static SplittableRandom forPurpose(long seed, Purpose purpose) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom stream = root.split();
+        for (int i = 0; i < purpose.ordinal(); i++) {
+            stream = root.split();
+        }
+        return stream;
+    }
+}
@@ -0,0 +1,32 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.Creature;
+import com.toropov.oleg.map.WorldMap;
+
+import java.util.List;
+
+/**
+ * The SequentialTickScheduler lets the creatures move one after another on the calling thread,
+ * each seeing the moves of the creatures before it.
+ */
+public class SequentialTickScheduler implements TickScheduler {
+
+    /**
+     * Constructs a SequentialTickScheduler.
+     */
+    public SequentialTickScheduler() {
+    }
+
+    /**
+     * Lets the creatures make their move one after another.
+     *
+     * @param map the world map
+     * @param creatures the creatures on the map at the start of the tick, in cell order
+     */
+    @Override
+    public void moveCreatures(WorldMap map, List<Creature> creatures) {
+        for (Creature creature : creatures) {
+            creature.makeMove(map);
+        }
+    }
+}
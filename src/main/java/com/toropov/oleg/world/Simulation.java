@@ -1,7 +1,5 @@
 package com.toropov.oleg.world;
 
-import com.toropov.oleg.entity.EntityFactory;
-import com.toropov.oleg.entity.ExtraGrassFactory;
 import com.toropov.oleg.map.EntityType;
 import com.toropov.oleg.map.WorldMap;
 import com.toropov.oleg.map.WorldMapFactory;
@@ -9,6 +7,7 @@ import com.toropov.oleg.map.WorldMapPanel;
 
 import javax.swing.*;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * The Simulation class manages the entire lifecycle of the simulation,
@@ -16,19 +15,34 @@ import java.util.Map;
  * and updating the UI.
  */
 public class Simulation {
+    private final SimulationConfig config;
     private WorldMap map;
     private WorldMapPanel panel;
     private Actions actions;
     private SimulationUI ui;
 
-    private int moveCounter = 0;
+    private volatile int moveCounter = 0;
 
     /**
-     * Default constructor.
-     * This class is not intended to be instantiated.
+     * Constructs a Simulation with the default configuration.
      */
     public Simulation() {
-        // Utility class, no instances allowed.
+        this(new SimulationConfig());
+    }
+
+    /**
+     * Constructs a Simulation with the specified configuration.
+     * The creature store is rejected: the window reads the attributes of creatures while the simulation loop
+     * attaches and detaches them, and the store is not thread-safe.
+     *
+     * @param config the simulation configuration
+     * @throws IllegalArgumentException if the configuration enables the creature store
+     */
+    public Simulation(SimulationConfig config) {
+        if (config.isCreatureStoreEnabled()) {
+            throw new IllegalArgumentException("The creature store can only be used with --headless");
+        }
+        this.config = config;
     }
 
     /**
@@ -45,7 +59,7 @@ public class Simulation {
      * Initializes the map for the simulation.
      */
     private void initializeMap() {
-        map = new WorldMapFactory().creatMap();
+        map = new WorldMapFactory(config).creatMap();
     }
 
     /**
@@ -53,7 +67,8 @@ public class Simulation {
      */
     private void initializeUI() {
         panel = new WorldMapPanel(map);
-        ui = new SimulationUI(panel, this::startSimulation, this::pauseSimulation, this::stopSimulation);
+        ui = new SimulationUI(panel, this::startSimulation, this::pauseSimulation, this::stopSimulation,
+                config.getTickRate(), this::changeTickRate);
     }
 
     /**
@@ -61,7 +76,7 @@ public class Simulation {
      */
     private void startSimulation() {
         if (actions == null) {
-            actions = new Actions(map, panel::repaint, this::updateEntityCounts, this);
+            actions = new Actions(map, config, panel::repaint, this::updateEntityCounts, this);
             actions.start();
         } else if (actions.isPaused()) {
             actions.resume();
@@ -78,12 +93,25 @@ public class Simulation {
     }
 
     /**
-     * Stops the simulation and reinitializes the map.
+     * Changes the pace of the running simulation and of simulations started later.
+     *
+     * @param tickRate the new tick rate
+     */
+    private void changeTickRate(TickRate tickRate) {
+        config.setTickRate(tickRate);
+        if (actions != null) {
+            actions.setTickRate(tickRate);
+        }
+    }
+
+    /**
+     * Stops the simulation and reinitializes the map with a new seed.
      */
     private void stopSimulation() {
         if (actions != null) {
             actions.stop();
             actions = null;
+            config.setSeed(new Random().nextLong());
             initializeMap();
             panel.setMap(map);
             panel.repaint();
@@ -91,20 +119,18 @@ public class Simulation {
     }
 
     /**
-     * Updates the entity counts in the simulation.
+     * Updates the entity counts in the simulation. Must be called on the event dispatch thread.
      */
     private void updateEntityCounts() {
         Map<EntityType, Integer> countEntities = map.countEntities();
-        ExtraGrassFactory.setIsGrassOver(countEntities.get(EntityType.GRASS) <= EntityFactory.GRASS_COUNT / 3);
         ui.updateCounts(countEntities, moveCounter);
     }
 
     /**
-     * Increments the move counter and updates the entity counts.
+     * Increments the move counter. The counts on screen are refreshed with the next frame.
      */
     public void incrementMoveCounter() {
         moveCounter++;
-        updateEntityCounts();
     }
 
     /**
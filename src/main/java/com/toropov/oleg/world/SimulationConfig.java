@@ -0,0 +1,608 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.EntityFactory;
+import com.toropov.oleg.map.GrassRegrowth;
+import com.toropov.oleg.map.SpatialIndexType;
+import com.toropov.oleg.pathfinding.PathStrategy;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * The SimulationConfig class holds the parameters of one simulation run:
+ * the size of the map, the initial populations, the random seed and the tick limit.
+ * A new configuration holds the default values used by the graphical simulation.
+ */
+public class SimulationConfig {
+    /**
+     * Tick limit meaning the simulation runs until its end condition is met.
+     */
+    public static final long NO_TICK_LIMIT = 0;
+
+    /**
+     * The default pause between ticks of the graphical simulation in milliseconds.
+     */
+    public static final long DEFAULT_TICK_PERIOD_MILLIS = 1000;
+
+    /**
+     * The default maximum number of frames the graphical simulation renders per second.
+     */
+    public static final int DEFAULT_MAX_FRAMES_PER_SECOND = 30;
+
+    /**
+     * The default side of a tile of the checkerboard scheduler in cells.
+     */
+    public static final int DEFAULT_TILE_SIZE = 16;
+
+    /**
+     * The largest side of a map. Cells are addressed by int flat indices, so a map holds at most
+     * {@link Integer#MAX_VALUE} cells, and this is the largest side whose square stays below that.
+     */
+    public static final int MAX_MAP_SIZE = 46340;
+
+    /**
+     * The flag running the simulation without a window, the only argument taking no value.
+     */
+    public static final String HEADLESS_FLAG = "--headless";
+
+    private int mapSize = EntityFactory.MAP_SIZE;
+    private int maleFoxCount = EntityFactory.MALE_FOX_COUNT;
+    private int femaleFoxCount = EntityFactory.FEMALE_FOX_COUNT;
+    private int roosterCount = EntityFactory.ROOSTER_COUNT;
+    private int henCount = EntityFactory.HEN_COUNT;
+    private int grassCount = EntityFactory.GRASS_COUNT;
+    private int rockCount = EntityFactory.ROCK_COUNT;
+    private int treeCount = EntityFactory.TREE_COUNT;
+    private long seed = new Random().nextLong();
+    private long tickLimit = NO_TICK_LIMIT;
+    private TickRate tickRate = TickRate.fixedPeriod(DEFAULT_TICK_PERIOD_MILLIS);
+    private int maxFramesPerSecond = DEFAULT_MAX_FRAMES_PER_SECOND;
+    private TickSchedulerType schedulerType = TickSchedulerType.SEQUENTIAL;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int tileSize = DEFAULT_TILE_SIZE;
+    private int grassRegrowthDelay = GrassRegrowth.DEFAULT_DELAY;
+    private SpatialIndexType spatialIndexType = SpatialIndexType.BUCKETS;
+    private boolean creatureStoreEnabled = false;
+    private PathStrategy pathStrategy = PathStrategy.A_STAR;
+    private boolean flowFieldsEnabled = false;
+
+    /**
+     * Constructs a SimulationConfig with the default values and a random seed.
+     */
+    public SimulationConfig() {
+    }
+
+    /**
+     * Creates a configuration from command line arguments of the form {@code --name=value}.
+     * Supported names are size, male-foxes, female-foxes, roosters, hens, grass, rocks, trees, seed, ticks,
+     * tick-rate (see {@link TickRate#parse}), fps, scheduler (the name of a {@link TickSchedulerType}
+     * in any case, with dashes for underscores), threads, tile-size, grass-regrowth
+     * spatial-index (the name of a {@link SpatialIndexType} in any case), creature-store (true or false),
+     * flow-fields (true or false) and path (the name of a {@link PathStrategy} in any case, with dashes for underscores).
+     * The {@link #HEADLESS_FLAG} is skipped, since it selects the runner rather than a parameter.
+     * Any other argument not of the form {@code --name=value} is rejected, so that {@code --seed 5} is not
+     * mistaken for a run with the default seed.
+     *
+     * @param args the command line arguments
+     * @return the configuration
+     * @throws IllegalArgumentException if an argument is unknown or has an invalid value
+     */
+    public static SimulationConfig fromArgs(String[] args) {
+        SimulationConfig config = new SimulationConfig();
+        for (String arg : args) {
+            if (arg.equals(HEADLESS_FLAG)) {
+                continue;
+            }
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Missing value for " + arg + ", expected " + arg + "=<value>");
+            }
+
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            try {
+                switch (name) {
+                    case "size" -> config.setMapSize(Integer.parseInt(value));
+                    case "male-foxes" -> config.setMaleFoxCount(Integer.parseInt(value));
+                    case "female-foxes" -> config.setFemaleFoxCount(Integer.parseInt(value));
+                    case "roosters" -> config.setRoosterCount(Integer.parseInt(value));
+                    case "hens" -> config.setHenCount(Integer.parseInt(value));
+                    case "grass" -> config.setGrassCount(Integer.parseInt(value));
+                    case "rocks" -> config.setRockCount(Integer.parseInt(value));
+                    case "trees" -> config.setTreeCount(Integer.parseInt(value));
+                    case "seed" -> config.setSeed(Long.parseLong(value));
+                    case "ticks" -> config.setTickLimit(Long.parseLong(value));
+                    case "tick-rate" -> config.setTickRate(TickRate.parse(value));
+                    case "fps" -> config.setMaxFramesPerSecond(Integer.parseInt(value));
+                    case "scheduler" -> config.setSchedulerType(parseSchedulerType(value));
+                    case "threads" -> config.setParallelism(Integer.parseInt(value));
+                    case "tile-size" -> config.setTileSize(Integer.parseInt(value));
+                    case "grass-regrowth" -> config.setGrassRegrowthDelay(Integer.parseInt(value));
+                    case "spatial-index" -> config.setSpatialIndexType(parseSpatialIndexType(value));
+                    case "creature-store" -> config.setCreatureStoreEnabled(parseBoolean(name, value));
+                    case "flow-fields" -> config.setFlowFieldsEnabled(parseBoolean(name, value));
+                    case "path" -> config.setPathStrategy(parsePathStrategy(value));
+                    default -> throw new IllegalArgumentException("Unknown option: --" + name);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for --" + name + ": " + value, e);
+            }
+        }
+
+        config.validate();
+        return config;
+    }
+
+    /**
+     * Parses the name of a tick scheduler type such as {@code two-phase}.
+     *
+     * @param value the name to parse
+     * @return the tick scheduler type
+     * @throws IllegalArgumentException if there is no such type
+     */
+    private static TickSchedulerType parseSchedulerType(String value) {
+        try {
+            return TickSchedulerType.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown scheduler: " + value, e);
+        }
+    }
+
+    /**
+     * Parses the name of a spatial index type such as {@code pyramid}.
+     *
+     * @param value the name to parse
+     * @return the spatial index type
+     * @throws IllegalArgumentException if there is no such type
+     */
+    private static SpatialIndexType parseSpatialIndexType(String value) {
+        try {
+            return SpatialIndexType.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown spatial index: " + value, e);
+        }
+    }
+
+    /**
+     * Parses the name of a path strategy such as {@code jump-point}.
+     *
+     * @param value the name to parse
+     * @return the path strategy
+     * @throws IllegalArgumentException if there is no such strategy
+     */
+    private static PathStrategy parsePathStrategy(String value) {
+        try {
+            return PathStrategy.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown path strategy: " + value, e);
+        }
+    }
+
+    /**
+     * Parses a boolean option value, accepting only {@code true} and {@code false} in any case.
+     *
+     * @param name the name of the option
+     * @param value the value to parse
+     * @return the boolean value
+     * @throws IllegalArgumentException if the value is neither true nor false
+     */
+    private static boolean parseBoolean(String name, String value) {
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        } else if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Invalid value for --" + name + ": " + value);
+    }
+
+    /**
+     * Checks that the configuration describes a map the factories can populate.
+     *
+     * @throws IllegalArgumentException if the map size or a population is out of range
+     */
+    public void validate() {
+        if (mapSize <= 0 || mapSize > MAX_MAP_SIZE) {
+            throw new IllegalArgumentException("Map size must be between 1 and " + MAX_MAP_SIZE + ": " + mapSize);
+        }
+        if (maleFoxCount < 0 || femaleFoxCount < 0 || roosterCount < 0 || henCount < 0 ||
+                grassCount < 0 || rockCount < 0 || treeCount < 0) {
+            throw new IllegalArgumentException("Populations must not be negative");
+        }
+        if (tickLimit < 0) {
+            throw new IllegalArgumentException("Tick limit must not be negative: " + tickLimit);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + parallelism);
+        }
+        if (tileSize < CheckerboardTickScheduler.MIN_TILE_SIZE) {
+            throw new IllegalArgumentException("Tile size must be at least " + CheckerboardTickScheduler.MIN_TILE_SIZE +
+                    ": " + tileSize);
+        }
+        if (grassRegrowthDelay <= 0) {
+            throw new IllegalArgumentException("Grass regrowth delay must be positive: " + grassRegrowthDelay);
+        }
+        if (creatureStoreEnabled && schedulerType.movesConcurrently()) {
+            throw new IllegalArgumentException("The creature store cannot be used with the " + schedulerType +
+                    " scheduler");
+        }
+        if (maxFramesPerSecond <= 0) {
+            throw new IllegalArgumentException("Frames per second must be positive: " + maxFramesPerSecond);
+        }
+        if ((long) mapSize * mapSize < getTotalEntityCount()) {
+            throw new IllegalArgumentException("A map of size " + mapSize + " cannot hold " + getTotalEntityCount() + " entities");
+        }
+    }
+
+    /**
+     * Gets the total number of entities placed on the map initially.
+     *
+     * @return the total number of entities
+     */
+    public long getTotalEntityCount() {
+        return (long) maleFoxCount + femaleFoxCount + roosterCount + henCount + grassCount + rockCount + treeCount;
+    }
+
+    /**
+     * Gets the size of the map.
+     *
+     * @return the size of the map
+     */
+    public int getMapSize() {
+        return mapSize;
+    }
+
+    /**
+     * Sets the size of the map, which must not exceed {@link #MAX_MAP_SIZE}.
+     *
+     * @param mapSize the size of the map
+     */
+    public void setMapSize(int mapSize) {
+        this.mapSize = mapSize;
+    }
+
+    /**
+     * Gets the initial number of male foxes.
+     *
+     * @return the number of male foxes
+     */
+    public int getMaleFoxCount() {
+        return maleFoxCount;
+    }
+
+    /**
+     * Sets the initial number of male foxes.
+     *
+     * @param maleFoxCount the number of male foxes
+     */
+    public void setMaleFoxCount(int maleFoxCount) {
+        this.maleFoxCount = maleFoxCount;
+    }
+
+    /**
+     * Gets the initial number of female foxes.
+     *
+     * @return the number of female foxes
+     */
+    public int getFemaleFoxCount() {
+        return femaleFoxCount;
+    }
+
+    /**
+     * Sets the initial number of female foxes.
+     *
+     * @param femaleFoxCount the number of female foxes
+     */
+    public void setFemaleFoxCount(int femaleFoxCount) {
+        this.femaleFoxCount = femaleFoxCount;
+    }
+
+    /**
+     * Gets the initial number of roosters.
+     *
+     * @return the number of roosters
+     */
+    public int getRoosterCount() {
+        return roosterCount;
+    }
+
+    /**
+     * Sets the initial number of roosters.
+     *
+     * @param roosterCount the number of roosters
+     */
+    public void setRoosterCount(int roosterCount) {
+        this.roosterCount = roosterCount;
+    }
+
+    /**
+     * Gets the initial number of hens.
+     *
+     * @return the number of hens
+     */
+    public int getHenCount() {
+        return henCount;
+    }
+
+    /**
+     * Sets the initial number of hens.
+     *
+     * @param henCount the number of hens
+     */
+    public void setHenCount(int henCount) {
+        this.henCount = henCount;
+    }
+
+    /**
+     * Gets the initial amount of grass.
+     *
+     * @return the amount of grass
+     */
+    public int getGrassCount() {
+        return grassCount;
+    }
+
+    /**
+     * Sets the initial amount of grass.
+     *
+     * @param grassCount the amount of grass
+     */
+    public void setGrassCount(int grassCount) {
+        this.grassCount = grassCount;
+    }
+
+    /**
+     * Gets the number of rocks.
+     *
+     * @return the number of rocks
+     */
+    public int getRockCount() {
+        return rockCount;
+    }
+
+    /**
+     * Sets the number of rocks.
+     *
+     * @param rockCount the number of rocks
+     */
+    public void setRockCount(int rockCount) {
+        this.rockCount = rockCount;
+    }
+
+    /**
+     * Gets the number of trees.
+     *
+     * @return the number of trees
+     */
+    public int getTreeCount() {
+        return treeCount;
+    }
+
+    /**
+     * Sets the number of trees.
+     *
+     * @param treeCount the number of trees
+     */
+    public void setTreeCount(int treeCount) {
+        this.treeCount = treeCount;
+    }
+
+    /**
+     * Gets the seed of the random number generators.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed of the random number generators.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the maximum number of ticks to run.
+     *
+     * @return the tick limit, or {@link #NO_TICK_LIMIT} to run until the end condition is met
+     */
+    public long getTickLimit() {
+        return tickLimit;
+    }
+
+    /**
+     * Sets the maximum number of ticks to run.
+     *
+     * @param tickLimit the tick limit, or {@link #NO_TICK_LIMIT} to run until the end condition is met
+     */
+    public void setTickLimit(long tickLimit) {
+        this.tickLimit = tickLimit;
+    }
+
+    /**
+     * Gets the pace of the graphical simulation loop. The headless runner always runs as fast as possible.
+     *
+     * @return the tick rate
+     */
+    public TickRate getTickRate() {
+        return tickRate;
+    }
+
+    /**
+     * Sets the pace of the graphical simulation loop.
+     *
+     * @param tickRate the tick rate
+     */
+    public void setTickRate(TickRate tickRate) {
+        this.tickRate = tickRate;
+    }
+
+    /**
+     * Gets the maximum number of frames the graphical simulation renders per second.
+     *
+     * @return the frame cap
+     */
+    public int getMaxFramesPerSecond() {
+        return maxFramesPerSecond;
+    }
+
+    /**
+     * Sets the maximum number of frames the graphical simulation renders per second.
+     *
+     * @param maxFramesPerSecond the frame cap
+     */
+    public void setMaxFramesPerSecond(int maxFramesPerSecond) {
+        this.maxFramesPerSecond = maxFramesPerSecond;
+    }
+
+    /**
+     * Gets the scheduler moving the creatures within a tick.
+     *
+     * @return the tick scheduler type
+     */
+    public TickSchedulerType getSchedulerType() {
+        return schedulerType;
+    }
+
+    /**
+     * Sets the scheduler moving the creatures within a tick.
+     *
+     * @param schedulerType the tick scheduler type
+     */
+    public void setSchedulerType(TickSchedulerType schedulerType) {
+        this.schedulerType = schedulerType;
+    }
+
+    /**
+     * Gets the number of threads used by the parallel schedulers.
+     *
+     * @return the number of threads
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of threads used by the parallel schedulers.
+     *
+     * @param parallelism the number of threads
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Gets the side of a tile of the checkerboard scheduler.
+     *
+     * @return the tile size in cells
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Sets the side of a tile of the checkerboard scheduler.
+     *
+     * @param tileSize the tile size in cells
+     */
+    public void setTileSize(int tileSize) {
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Gets the number of ticks after which eaten grass grows back.
+     *
+     * @return the regrowth delay in ticks
+     */
+    public int getGrassRegrowthDelay() {
+        return grassRegrowthDelay;
+    }
+
+    /**
+     * Sets the number of ticks after which eaten grass grows back.
+     *
+     * @param grassRegrowthDelay the regrowth delay in ticks
+     */
+    public void setGrassRegrowthDelay(int grassRegrowthDelay) {
+        this.grassRegrowthDelay = grassRegrowthDelay;
+    }
+
+    /**
+     * Gets the type of the spatial index used to find the nearest entities.
+     *
+     * @return the spatial index type
+     */
+    public SpatialIndexType getSpatialIndexType() {
+        return spatialIndexType;
+    }
+
+    /**
+     * Sets the type of the spatial index used to find the nearest entities.
+     *
+     * @param spatialIndexType the spatial index type
+     */
+    public void setSpatialIndexType(SpatialIndexType spatialIndexType) {
+        this.spatialIndexType = spatialIndexType;
+    }
+
+    /**
+     * Gets the path search engine creatures of the map use.
+     *
+     * @return the path strategy
+     */
+    public PathStrategy getPathStrategy() {
+        return pathStrategy;
+    }
+
+    /**
+     * Sets the path search engine creatures of the map use.
+     *
+     * @param pathStrategy the path strategy
+     */
+    public void setPathStrategy(PathStrategy pathStrategy) {
+        this.pathStrategy = pathStrategy;
+    }
+
+    /**
+     * Checks if creature attributes are kept in a {@link com.toropov.oleg.entity.CreatureStore}.
+     *
+     * @return true if the creature store is enabled, false otherwise
+     */
+    public boolean isCreatureStoreEnabled() {
+        return creatureStoreEnabled;
+    }
+
+    /**
+     * Sets whether creature attributes are kept in a {@link com.toropov.oleg.entity.CreatureStore}.
+     *
+     * @param creatureStoreEnabled true to enable the creature store, false otherwise
+     */
+    public void setCreatureStoreEnabled(boolean creatureStoreEnabled) {
+        this.creatureStoreEnabled = creatureStoreEnabled;
+    }
+
+    /**
+     * Checks if creatures hunting for food follow the shared {@link com.toropov.oleg.pathfinding.FlowFields}
+     * of the map, computed once per tick, instead of running their own searches.
+     *
+     * @return true if the flow fields are enabled, false otherwise
+     */
+    public boolean isFlowFieldsEnabled() {
+        return flowFieldsEnabled;
+    }
+
+    /**
+     * Sets whether creatures hunting for food follow the shared flow fields of the map.
+     *
+     * @param flowFieldsEnabled true to enable the flow fields, false otherwise
+     */
+    public void setFlowFieldsEnabled(boolean flowFieldsEnabled) {
+        this.flowFieldsEnabled = flowFieldsEnabled;
+    }
+}
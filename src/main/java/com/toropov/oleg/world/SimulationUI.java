@@ -5,14 +5,24 @@ import com.toropov.oleg.map.WorldMapPanel;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * The SimulationUI class manages the user interface for the simulation.
  * It includes controls for starting, pausing, and stopping the simulation,
- * as well as displaying counts of different entities and the move counter.
+ * as well as displaying counts of different entities and the move counter, and for choosing the simulation speed.
  */
 public class SimulationUI {
+    private static final TickRate[] TICK_RATE_PRESETS = {
+            TickRate.fixedPeriod(SimulationConfig.DEFAULT_TICK_PERIOD_MILLIS),
+            TickRate.ticksPerSecond(10),
+            TickRate.ticksPerSecond(100),
+            TickRate.ticksPerSecond(1000),
+            TickRate.asFastAsPossible()
+    };
+
     private final JFrame frame;
     private final JLabel roosterCountLabel;
     private final JLabel henCountLabel;
@@ -28,11 +38,14 @@ public class SimulationUI {
      * @param startAction the action to perform when the start button is pressed
      * @param pauseAction the action to perform when the pause button is pressed
      * @param stopAction the action to perform when the stop button is pressed
+     * @param initialTickRate the tick rate selected initially
+     * @param tickRateAction the action to perform when another tick rate is selected
      */
-    public SimulationUI(WorldMapPanel panel, Runnable startAction, Runnable pauseAction, Runnable stopAction) {
+    public SimulationUI(WorldMapPanel panel, Runnable startAction, Runnable pauseAction, Runnable stopAction,
+                        TickRate initialTickRate, Consumer<TickRate> tickRateAction) {
         frame = new JFrame("2D World Simulation");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setSize(815, 880);
+        frame.setSize(815, 915);
         frame.setLayout(new BorderLayout());
         frame.add(panel, BorderLayout.CENTER);
 
@@ -40,6 +53,11 @@ public class SimulationUI {
         JButton startButton = new JButton("Start");
         JButton pauseButton = new JButton("Pause");
         JButton stopButton = new JButton("Stop");
+        JComboBox<TickRate> tickRateBox = new JComboBox<>(TICK_RATE_PRESETS);
+        if (!Arrays.asList(TICK_RATE_PRESETS).contains(initialTickRate)) {
+            tickRateBox.insertItemAt(initialTickRate, 0);
+        }
+        tickRateBox.setSelectedItem(initialTickRate);
 
         roosterCountLabel = new JLabel("Herbivores: 0");
         henCountLabel = new JLabel("Herbivores: 0");
@@ -61,9 +79,15 @@ public class SimulationUI {
 
         frame.add(controlPanel, BorderLayout.SOUTH);
 
+        JPanel speedPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        speedPanel.add(new JLabel("Speed:"));
+        speedPanel.add(tickRateBox);
+        frame.add(speedPanel, BorderLayout.NORTH);
+
         startButton.addActionListener(e -> startAction.run());
         pauseButton.addActionListener(e -> pauseAction.run());
         stopButton.addActionListener(e -> stopAction.run());
+        tickRateBox.addActionListener(e -> tickRateAction.accept((TickRate) tickRateBox.getSelectedItem()));
 
         frame.setVisible(true);
     }
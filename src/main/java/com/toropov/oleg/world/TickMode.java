@@ -0,0 +1,21 @@
+package com.toropov.oleg.world;
+
+/**
+ * Enumeration of the ways the simulation loop can pace its ticks.
+ */
+public enum TickMode {
+    /**
+     * Waits a fixed period after every tick, however long the tick took.
+     */
+    FIXED_PERIOD,
+
+    /**
+     * Starts the next tick as soon as the previous one is done.
+     */
+    AS_FAST_AS_POSSIBLE,
+
+    /**
+     * Schedules tick starts at a target rate and catches up after slow ticks.
+     */
+    TARGET_TPS
+}
@@ -0,0 +1,141 @@
+package com.toropov.oleg.world;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The TickRate class describes how fast the simulation loop runs: a {@link TickMode} and, for the paced modes,
+ * the period between ticks. Instances are immutable.
+ */
+public final class TickRate {
+    private final TickMode mode;
+    private final long periodNanos;
+
+    /**
+     * Constructs a TickRate.
+     *
+     * @param mode the tick mode
+     * @param periodNanos the period between ticks in nanoseconds, or 0 for {@link TickMode#AS_FAST_AS_POSSIBLE}
+     */
+    private TickRate(TickMode mode, long periodNanos) {
+        this.mode = mode;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Creates a rate that waits the specified period after every tick.
+     *
+     * @param periodMillis the pause after every tick in milliseconds
+     * @return the tick rate
+     * @throws IllegalArgumentException if the period is negative
+     */
+    public static TickRate fixedPeriod(long periodMillis) {
+        if (periodMillis < 0) {
+            throw new IllegalArgumentException("Tick period must not be negative: " + periodMillis);
+        }
+        return new TickRate(TickMode.FIXED_PERIOD, TimeUnit.MILLISECONDS.toNanos(periodMillis));
+    }
+
+    /**
+     * Creates a rate that runs ticks back to back.
+     *
+     * @return the tick rate
+     */
+    public static TickRate asFastAsPossible() {
+        return new TickRate(TickMode.AS_FAST_AS_POSSIBLE, 0);
+    }
+
+    /**
+     * Creates a rate that aims for the specified number of ticks per second.
+     *
+     * @param ticksPerSecond the target number of ticks per second
+     * @return the tick rate
+     * @throws IllegalArgumentException if the target is not positive
+     */
+    public static TickRate ticksPerSecond(double ticksPerSecond) {
+        if (!(ticksPerSecond > 0)) {
+            throw new IllegalArgumentException("Ticks per second must be positive: " + ticksPerSecond);
+        }
+        return new TickRate(TickMode.TARGET_TPS, Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / ticksPerSecond)));
+    }
+
+    /**
+     * Parses a tick rate: {@code fast}, a fixed period such as {@code 250ms}, or a target rate such as {@code 60tps}.
+     *
+     * @param value the text to parse
+     * @return the tick rate
+     * @throws IllegalArgumentException if the text is not a valid tick rate
+     */
+    public static TickRate parse(String value) {
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        try {
+            if (text.equals("fast")) {
+                return asFastAsPossible();
+            } else if (text.endsWith("tps")) {
+                return ticksPerSecond(Double.parseDouble(text.substring(0, text.length() - 3)));
+            } else if (text.endsWith("ms")) {
+                return fixedPeriod(Long.parseLong(text.substring(0, text.length() - 2)));
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid tick rate: " + value, e);
+        }
+        throw new IllegalArgumentException("Invalid tick rate: " + value);
+    }
+
+    /**
+     * Gets the tick mode.
+     *
+     * @return the tick mode
+     */
+    public TickMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets the period between ticks.
+     *
+     * @return the period in nanoseconds, 0 for {@link TickMode#AS_FAST_AS_POSSIBLE}
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * Indicates whether some other object is "equal to" this one.
+     *
+     * @param o the reference object with which to compare.
+     * @return true if this object is the same as the obj argument; false otherwise.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TickRate tickRate = (TickRate) o;
+        return periodNanos == tickRate.periodNanos && mode == tickRate.mode;
+    }
+
+    /**
+     * Returns a hash code value for the object.
+     *
+     * @return a hash code value for this object.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, periodNanos);
+    }
+
+    /**
+     * Returns a human readable description of the rate, used as its label in the user interface.
+     *
+     * @return a string representation of the object.
+     */
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case FIXED_PERIOD -> TimeUnit.NANOSECONDS.toMillis(periodNanos) + " ms per tick";
+            case AS_FAST_AS_POSSIBLE -> "As fast as possible";
+            case TARGET_TPS -> String.format(Locale.ROOT, "%.0f ticks/s", TimeUnit.SECONDS.toNanos(1) / (double) periodNanos);
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.CreatureStore;
+import com.toropov.oleg.map.EntityType;
+import com.toropov.oleg.map.WorldMap;
+
+import java.util.SplittableRandom;
+
+/**
+ * The TickRunner class advances a world map by one tick at a time: every creature makes its move
+ * and eaten grass grows back once its regrowth delay has passed. With a creature store, the creatures that have rested
+ * regain their health in one pass over the store after the moves. At the end of the tick the handles of entities
+ * that have left the map are released. It holds no timing or UI logic, so the same tick is
+ * shared by the scheduled graphical simulation and the headless runner.
+ * How the creatures are moved is delegated to the {@link TickScheduler} chosen in the configuration,
+ * which must be released with {@link #close()} once the runner is no longer needed.
+ */
+public class TickRunner implements AutoCloseable {
+    private final WorldMap map;
+    private final SplittableRandom random;
+    private final TickScheduler scheduler;
+    private volatile long tickCount = 0;
+
+    /**
+     * Constructs a TickRunner for the specified map.
+     *
+     * @param map the world map
+     * @param config the configuration the map was created with
+     */
+    public TickRunner(WorldMap map, SimulationConfig config) {
+        this.map = map;
+        this.random = RandomStreams.forPurpose(config.getSeed(), RandomStreams.Purpose.GRASS_REGROWTH);
+        this.scheduler = createScheduler(config);
+    }
+
+    /**
+     * Creates the tick scheduler selected in the configuration.
+     *
+     * @param config the simulation configuration
+     * @return the tick scheduler
+     */
+    private static TickScheduler createScheduler(SimulationConfig config) {
+        return switch (config.getSchedulerType()) {
+            case SEQUENTIAL -> new SequentialTickScheduler();
+            case TWO_PHASE -> new TwoPhaseTickScheduler(config.getParallelism());
+            case CHECKERBOARD -> new CheckerboardTickScheduler(config.getParallelism(), config.getTileSize());
+            case CONCURRENT -> new ConcurrentTickScheduler(config.getParallelism());
+        };
+    }
+
+    /**
+     * Checks if the simulation has ended because all chickens or all foxes are gone.
+     *
+     * @return true if the end condition is met, false otherwise
+     */
+    public boolean isEndConditionMet() {
+        return map.countEntities(EntityType.ALL_CHICKEN) == 0 || map.countEntities(EntityType.ALL_FOXES) == 0;
+    }
+
+    /**
+     * Performs one tick unless the end condition is met.
+     *
+     * @return true if the tick was performed, false if the simulation has ended
+     */
+    public boolean tick() {
+        if (isEndConditionMet()) {
+            return false;
+        }
+
+        map.getFlowFields().update();
+        scheduler.moveCreatures(map, map.getAllCreatures());
+        CreatureStore store = map.getCreatureStore();
+        if (store != null) {
+            store.regenerateRested();
+        }
+
+        map.getGrassRegrowth().advance(random);
+        map.getEntityRegistry().releaseAbsent();
+        tickCount++;
+        return true;
+    }
+
+    /**
+     * Gets the number of ticks performed so far. Safe to call from other threads.
+     *
+     * @return the number of ticks
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Gets the world map advanced by this runner.
+     *
+     * @return the world map
+     */
+    public WorldMap getMap() {
+        return map;
+    }
+
+    /**
+     * Releases the threads of the tick scheduler.
+     */
+    @Override
+    public void close() {
+        scheduler.close();
+    }
+}
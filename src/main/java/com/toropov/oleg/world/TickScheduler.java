@@ -0,0 +1,29 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.Creature;
+import com.toropov.oleg.map.WorldMap;
+
+import java.util.List;
+
+/**
+ * Strategy for letting all creatures make their move within one tick.
+ * Implementations differ in how they spread the work over threads and in the order moves take effect.
+ */
+public interface TickScheduler extends AutoCloseable {
+
+    /**
+     * Lets the creatures make their move.
+     *
+     * @param map the world map
+     * @param creatures the creatures on the map at the start of the tick, in cell order
+     */
+    void moveCreatures(WorldMap map, List<Creature> creatures);
+
+    /**
+     * Releases the threads held by the scheduler. The default implementation holds none.
+     */
+    @Override
+    default void close() {
+        // Nothing to release.
+    }
+}
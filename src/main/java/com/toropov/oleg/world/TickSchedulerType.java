@@ -0,0 +1,48 @@
+package com.toropov.oleg.world;
+
+/**
+ * Enumeration of the available {@link TickScheduler} implementations.
+ */
+public enum TickSchedulerType {
+    /**
+     * Creatures move one after another on the simulation thread.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Creatures plan their moves in parallel and the moves are applied in cell order.
+     */
+    TWO_PHASE,
+
+    /**
+     * Creatures of tiles that do not touch move concurrently, one tile color after another.
+     */
+    CHECKERBOARD,
+
+    /**
+     * All creatures move at once and claim the cells they move into with compare-and-set on a concurrent map.
+     */
+    CONCURRENT;
+
+    /**
+     * Checks if the scheduler changes the map from several threads at once,
+     * which requires a {@link com.toropov.oleg.map.ConcurrentWorldMap}.
+     *
+     * @return true if creatures move concurrently, false otherwise
+     */
+    public boolean movesConcurrently() {
+        return this == CHECKERBOARD || this == CONCURRENT;
+    }
+
+    /**
+     * Checks if runs with the same seed produce the same world whatever the number of threads.
+     * Schedulers that move creatures concurrently let the threads race for cells and population counts,
+     * so with more than one thread their results depend on timing.
+     *
+     * @param parallelism the number of threads the scheduler uses
+     * @return true if runs with the same seed are reproducible, false otherwise
+     */
+    public boolean isReproducible(int parallelism) {
+        return !movesConcurrently() || parallelism == 1;
+    }
+}
@@ -0,0 +1,110 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.Creature;
+import com.toropov.oleg.entity.MoveIntent;
+import com.toropov.oleg.map.WorldMap;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The TwoPhaseTickScheduler splits a tick into a parallel planning phase and a sequential apply phase.
+ * First every creature plans its move against the unchanged map on a {@link ForkJoinPool}.
+ * Then the intents are applied in cell order on the calling thread: creatures that have been eaten or have mated
+ * earlier in the phase are skipped, and a creature whose intent no longer fits the map, because an earlier creature
+ * took its cell, plans again against the current map. Planning depends only on the map at the start of the tick
+ * and the apply order is fixed, so the outcome does not depend on the number of threads.
+ */
+public class TwoPhaseTickScheduler implements TickScheduler {
+    private static final int PLAN_BATCH_SIZE = 16;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a TwoPhaseTickScheduler planning on the specified number of threads.
+     *
+     * @param parallelism the number of planning threads
+     */
+    public TwoPhaseTickScheduler(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Plans the moves of all creatures in parallel and applies them in cell order.
+     *
+     * @param map the world map
+     * @param creatures the creatures on the map at the start of the tick, in cell order
+     */
+    @Override
+    public void moveCreatures(WorldMap map, List<Creature> creatures) {
+        MoveIntent[] intents = new MoveIntent[creatures.size()];
+        pool.invoke(new PlanTask(map, creatures, intents, 0, intents.length));
+
+        for (int i = 0; i < intents.length; i++) {
+            Creature creature = creatures.get(i);
+            if (map.getEntity(creature.getCoordinates()) != creature) {
+                continue;
+            }
+
+            if (creature.isIntentStillValid(map, intents[i])) {
+                creature.applyMove(map, intents[i]);
+            } else {
+                creature.makeMove(map);
+            }
+        }
+    }
+
+    /**
+     * Shuts the planning threads down.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Plans the moves of a range of creatures, splitting the range between threads.
+     */
+    private static class PlanTask extends RecursiveAction {
+        private final WorldMap map;
+        private final List<Creature> creatures;
+        private final MoveIntent[] intents;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a PlanTask.
+         *
+         * @param map the world map
+         * @param creatures the creatures of the tick
+         * @param intents the array receiving the intents
+         * @param from the first index of the range, inclusive
+         * @param to the last index of the range, exclusive
+         */
+        PlanTask(WorldMap map, List<Creature> creatures, MoveIntent[] intents, int from, int to) {
+            this.map = map;
+            this.creatures = creatures;
+            this.intents = intents;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Plans the range directly if it is small, otherwise splits it in two.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= PLAN_BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    intents[i] = creatures.get(i).planMove(map);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new PlanTask(map, creatures, intents, from, middle),
+                    new PlanTask(map, creatures, intents, middle, to));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.toropov.oleg.entity;
+
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.entity.herbivore.Rooster;
+import com.toropov.oleg.entity.predator.MaleFox;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.WorldMap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CreatureStoreTest {
+
+    @Test
+    void testAttachedCreaturesAreViewsOverTheStore() {
+        CreatureStore store = new CreatureStore();
+        Hen hen = new Hen(new Coordinates(0, 0), 1, 20, 3);
+        Rooster rooster = new Rooster(new Coordinates(1, 0), 2, 15, 5);
+        store.attach(hen);
+        store.attach(rooster);
+
+        hen.decreaseHealth();
+        rooster.setSkipNextMove(true);
+        assertEquals(2, store.size());
+        assertEquals(34, store.getTotalHealth());
+        assertEquals(1, store.countSkippingNextMove());
+        assertEquals(5, store.getMaxGeneration());
+        assertEquals(19, hen.getHealthPoints());
+    }
+
+    @Test
+    void testDetachCopiesValuesBackAndKeepsSlotsDense() {
+        CreatureStore store = new CreatureStore();
+        Hen first = new Hen(new Coordinates(0, 0), 1, 20, 1);
+        Hen second = new Hen(new Coordinates(1, 0), 1, 20, 1);
+        Hen third = new Hen(new Coordinates(2, 0), 1, 20, 1);
+        store.attach(first);
+        store.attach(second);
+        store.attach(third);
+        first.setHealthPoints(7);
+        third.setGeneration(9);
+
+        store.detach(first);
+        assertNull(first.getStore());
+        assertEquals(7, first.getHealthPoints());
+        assertEquals(2, store.size());
+        assertEquals(0, third.getSlot());
+        assertEquals(9, third.getGeneration());
+
+        first.setHealthPoints(11);
+        assertEquals(40, store.getTotalHealth());
+    }
+
+    @Test
+    void testMapAttachesCreaturesWhileTheyAreOnIt() {
+        WorldMap map = new WorldMap(10);
+        map.setCreatureStoreEnabled(true);
+        CreatureStore store = map.getCreatureStore();
+        Hen hen = new Hen(new Coordinates(2, 2), 1, 20, 1);
+        MaleFox fox = new MaleFox(new Coordinates(4, 2), 1, 20, 1);
+        map.setEntity(hen.getCoordinates(), hen);
+        map.setEntity(fox.getCoordinates(), fox);
+        assertEquals(2, store.size());
+
+        assertTrue(hen.move(new Coordinates(3, 2), map, null));
+        assertTrue(store.contains(hen));
+        assertEquals(19, hen.getHealthPoints());
+
+        assertTrue(fox.move(new Coordinates(3, 2), map, hen));
+        assertFalse(store.contains(hen));
+        assertEquals(19, hen.getHealthPoints());
+        assertEquals(1, store.size());
+
+        map.setCreatureStoreEnabled(false);
+        assertNull(fox.getStore());
+        assertEquals(19, fox.getHealthPoints());
+    }
+
+    @Test
+    void testRestHealthIsAddedByTheStorePass() {
+        CreatureStore store = new CreatureStore();
+        Hen hen = new Hen(new Coordinates(0, 0), 1, 5, 1);
+        MaleFox fox = new MaleFox(new Coordinates(1, 0), 1, 18, 1);
+        store.attach(hen);
+        store.attach(fox);
+        hen.setSkipNextMove(true);
+        fox.setSkipNextMove(true);
+
+        hen.finishRest();
+        fox.finishRest();
+        assertFalse(hen.isSkipNextMove());
+        assertEquals(5, hen.getHealthPoints());
+
+        store.regenerateRested();
+        assertEquals(15, hen.getHealthPoints());
+        assertEquals(20, fox.getHealthPoints());
+
+        store.regenerateRested();
+        assertEquals(15, hen.getHealthPoints());
+    }
+
+    @Test
+    void testDetachKeepsTheHealthOfARestTakenInTheTick() {
+        CreatureStore store = new CreatureStore();
+        Hen hen = new Hen(new Coordinates(0, 0), 1, 5, 1);
+        store.attach(hen);
+        hen.setSkipNextMove(true);
+        hen.finishRest();
+
+        store.detach(hen);
+        assertEquals(15, hen.getHealthPoints());
+        assertFalse(hen.isSkipNextMove());
+
+        hen.setSkipNextMove(true);
+        hen.finishRest();
+        assertEquals(20, hen.getHealthPoints());
+    }
+}
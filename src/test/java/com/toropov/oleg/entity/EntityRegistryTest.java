@@ -0,0 +1,142 @@
+package com.toropov.oleg.entity;
+
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.entity.predator.MaleFox;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityGrid;
+import com.toropov.oleg.map.WorldMap;
+import com.toropov.oleg.map.WorldMapFactory;
+import com.toropov.oleg.world.SimulationConfig;
+import com.toropov.oleg.world.TickRunner;
+import com.toropov.oleg.world.TickSchedulerType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityRegistryTest {
+
+    @Test
+    void testReleasedHandlesBecomeStaleWhenSlotsAreReused() {
+        EntityRegistry registry = new EntityRegistry();
+        Grass first = new Grass(new Coordinates(0, 0));
+        Grass second = new Grass(new Coordinates(1, 0));
+
+        long handle = registry.register(first);
+        assertSame(first, registry.get(handle));
+        assertEquals(handle, registry.register(first));
+
+        registry.release(first);
+        assertFalse(registry.isAlive(handle));
+        assertEquals(EntityRegistry.NO_HANDLE, first.getHandle());
+
+        long reused = registry.register(second);
+        assertNotEquals(handle, reused);
+        assertEquals(handle & ((1L << EntityRegistry.INDEX_BITS) - 1), reused & ((1L << EntityRegistry.INDEX_BITS) - 1));
+        assertNull(registry.get(handle));
+        assertSame(second, registry.get(reused));
+        assertNull(registry.get(EntityRegistry.NO_HANDLE));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testStaleHandlesStayStaleAfterManyReuses() {
+        EntityRegistry registry = new EntityRegistry();
+        long[] handles = new long[1000];
+        for (int i = 0; i < handles.length; i++) {
+            Grass grass = new Grass(new Coordinates(0, 0));
+            handles[i] = registry.register(grass);
+            registry.release(grass);
+        }
+
+        Grass current = new Grass(new Coordinates(0, 0));
+        long handle = registry.register(current);
+        for (long stale : handles) {
+            assertEquals(handle & ((1L << EntityRegistry.INDEX_BITS) - 1), stale & ((1L << EntityRegistry.INDEX_BITS) - 1));
+            assertNotEquals(handle, stale);
+            assertNull(registry.get(stale));
+        }
+        assertSame(current, registry.get(handle));
+    }
+
+    @Test
+    void testReleasedSlotsAreReusedInReleaseOrder() {
+        EntityRegistry registry = new EntityRegistry();
+        Grass[] entities = new Grass[3];
+        long[] handles = new long[3];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = new Grass(new Coordinates(i, 0));
+            handles[i] = registry.register(entities[i]);
+        }
+        registry.release(entities[1]);
+        registry.release(entities[0]);
+        registry.release(entities[2]);
+
+        long mask = (1L << EntityRegistry.INDEX_BITS) - 1;
+        assertEquals(handles[1] & mask, registry.register(new Grass(new Coordinates(0, 1))) & mask);
+        assertEquals(handles[0] & mask, registry.register(new Grass(new Coordinates(1, 1))) & mask);
+        assertEquals(handles[2] & mask, registry.register(new Grass(new Coordinates(2, 1))) & mask);
+    }
+
+    @Test
+    void testHandlesSurviveMovesAndAreReleasedAfterLeavingTheMap() {
+        WorldMap map = new WorldMap(10);
+        EntityRegistry registry = map.getEntityRegistry();
+        Hen hen = new Hen(new Coordinates(2, 2), 1, 20, 1);
+        MaleFox fox = new MaleFox(new Coordinates(4, 2), 1, 20, 1);
+        map.setEntity(hen.getCoordinates(), hen);
+        map.setEntity(fox.getCoordinates(), fox);
+        long henHandle = hen.getHandle();
+        long foxHandle = fox.getHandle();
+
+        assertTrue(hen.move(new Coordinates(3, 2), map, null));
+        registry.releaseAbsent();
+        assertEquals(henHandle, hen.getHandle());
+
+        assertTrue(fox.move(new Coordinates(3, 2), map, hen));
+        assertTrue(registry.isAlive(henHandle));
+        registry.releaseAbsent();
+        assertFalse(registry.isAlive(henHandle));
+        assertSame(fox, registry.get(foxHandle));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void testRegistryFollowsTheWorldDuringTicks() {
+        SimulationConfig config = new SimulationConfig();
+        config.setMapSize(40);
+        config.setHenCount(80);
+        config.setRoosterCount(80);
+        config.setMaleFoxCount(6);
+        config.setFemaleFoxCount(6);
+        config.setGrassCount(200);
+        config.setSeed(8);
+        config.setSchedulerType(TickSchedulerType.SEQUENTIAL);
+        WorldMap map = new WorldMapFactory(config).creatMap();
+
+        try (TickRunner runner = new TickRunner(map, config)) {
+            for (int i = 0; i < 40 && runner.tick(); i++) {
+                assertEquals(countWorld(map), map.getEntityRegistry().size());
+            }
+        }
+    }
+
+    private int countWorld(WorldMap map) {
+        EntityGrid grid = map.getGrid();
+        EntityRegistry registry = map.getEntityRegistry();
+        int count = 0;
+        for (int cell = 0; cell < grid.size(); cell++) {
+            Entity entity = grid.get(cell);
+            if (entity != null) {
+                assertSame(entity, registry.get(entity.getHandle()));
+                count++;
+            }
+            if (entity instanceof Kids kids) {
+                for (Entity parent : kids.getAllParents()) {
+                    assertSame(parent, registry.get(parent.getHandle()));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -1,57 +1,49 @@
 package com.toropov.oleg.entity;
 
+import com.toropov.oleg.map.Coordinates;
 import com.toropov.oleg.map.EntityType;
 import com.toropov.oleg.map.WorldMap;
 import org.junit.jupiter.api.Test;
 
+import java.util.SplittableRandom;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ExtraGrassFactoryTest {
 
     @Test
-    void testSetIsGrassOver() {
-        // Initially, isGrassOver should be false
-        ExtraGrassFactory.setIsGrassOver(false);
-        assertFalse(ExtraGrassFactory.isGrassOver());
-
-        // Set isGrassOver to true and verify
-        ExtraGrassFactory.setIsGrassOver(true);
-        assertTrue(ExtraGrassFactory.isGrassOver());
-    }
-
-    @Test
-    void testAddingGrassWhenGrassIsOver() {
+    void testAddingGrass() {
         WorldMap map = new WorldMap(20);
-        ExtraGrassFactory.setIsGrassOver(true);
 
         // Count the initial number of grass entities
         int initialGrassCount = map.countEntities().getOrDefault(EntityType.GRASS, 0);
 
         // Add grass to the map
-        ExtraGrassFactory.addingGrass(map);
+        int added = ExtraGrassFactory.addingGrass(map, 40, new SplittableRandom(1));
 
         // Count the grass entities after adding
         int finalGrassCount = map.countEntities().getOrDefault(EntityType.GRASS, 0);
 
-        // Verify that grass was added to the map
-        assertTrue(finalGrassCount > initialGrassCount);
+        // Verify that all the grass was added to the map
+        assertEquals(40, added);
+        assertEquals(initialGrassCount + 40, finalGrassCount);
     }
 
     @Test
-    void testAddingGrassWhenGrassIsNotOver() {
+    void testAddingGrassFillsNearlyFullMap() {
         WorldMap map = new WorldMap(20);
-        ExtraGrassFactory.setIsGrassOver(false);
-
-        // Count the initial number of grass entities
-        int initialGrassCount = map.countEntities().getOrDefault(EntityType.GRASS, 0);
-
-        // Attempt to add grass to the map
-        ExtraGrassFactory.addingGrass(map);
-
-        // Count the grass entities after attempting to add
-        int finalGrassCount = map.countEntities().getOrDefault(EntityType.GRASS, 0);
-
-        // Verify that no grass was added to the map
-        assertEquals(initialGrassCount, finalGrassCount);
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 20; y++) {
+                if (x + y > 2) {
+                    map.setEntity(new Coordinates(x, y), new Rock(new Coordinates(x, y)));
+                }
+            }
+        }
+
+        int added = ExtraGrassFactory.addingGrass(map, 40, new SplittableRandom(3));
+
+        assertEquals(6, added);
+        assertEquals(6, map.countEntities(EntityType.GRASS));
+        assertEquals(0, map.getFreeCells().size());
     }
 }
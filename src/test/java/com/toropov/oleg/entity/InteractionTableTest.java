@@ -0,0 +1,47 @@
+package com.toropov.oleg.entity;
+
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.entity.herbivore.Rooster;
+import com.toropov.oleg.entity.predator.FemaleFox;
+import com.toropov.oleg.entity.predator.MaleFox;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InteractionTableTest {
+    private final Coordinates coordinates = new Coordinates(0, 0);
+
+    @Test
+    void testEntitiesCarryTheirType() {
+        assertEquals(EntityType.GRASS, new Grass(coordinates).getType());
+        assertEquals(EntityType.ROCK, new Rock(coordinates).getType());
+        assertEquals(EntityType.TREE, new Tree(coordinates).getType());
+        assertEquals(EntityType.HEN, new Hen(coordinates, 1, 10, 0).getType());
+        assertEquals(EntityType.MALE_FOX, new MaleFox(coordinates, 1, 10, 0).getType());
+    }
+
+    @Test
+    void testHerbivoresEnterEmptyCellsAndEatGrass() {
+        assertEquals(InteractionTable.ENTER, InteractionTable.get(EntityType.HEN, null));
+        assertEquals(InteractionTable.EAT, InteractionTable.get(EntityType.CHICK, new Grass(coordinates)));
+        assertEquals(0, InteractionTable.get(EntityType.ROOSTER, new Rock(coordinates)));
+        assertEquals(0, InteractionTable.get(EntityType.HEN, new MaleFox(coordinates, 1, 10, 0)));
+        assertTrue(InteractionTable.has(EntityType.HEN, new Rooster(coordinates, 1, 10, 0), InteractionTable.MATE));
+        assertTrue(InteractionTable.has(EntityType.HEN, new Hen(coordinates, 1, 10, 0), InteractionTable.MEET));
+        assertFalse(InteractionTable.has(EntityType.HEN, new Hen(coordinates, 1, 10, 0), InteractionTable.MATE));
+    }
+
+    @Test
+    void testPredatorsEatAdultHerbivoresAndMateWithTheOppositeSex() {
+        assertTrue(InteractionTable.has(EntityType.FOX_CUB, new Hen(coordinates, 1, 10, 0), InteractionTable.EAT));
+        assertFalse(InteractionTable.has(EntityType.MALE_FOX, new Grass(coordinates), InteractionTable.EAT));
+        assertFalse(InteractionTable.has(EntityType.MALE_FOX, new Tree(coordinates),
+                InteractionTable.ENTER | InteractionTable.EAT));
+        assertTrue(InteractionTable.has(EntityType.MALE_FOX, new FemaleFox(coordinates, 1, 10, 0), InteractionTable.MATE));
+        assertEquals(EntityType.FEMALE_FOX, InteractionTable.mateOf(EntityType.MALE_FOX));
+        assertEquals(EntityType.ROOSTER, InteractionTable.mateOf(EntityType.HEN));
+        assertNull(InteractionTable.mateOf(EntityType.CHICK));
+    }
+}
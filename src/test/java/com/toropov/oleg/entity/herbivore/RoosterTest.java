@@ -3,6 +3,7 @@ package com.toropov.oleg.entity.herbivore;
 import com.toropov.oleg.entity.Grass;
 import com.toropov.oleg.map.Coordinates;
 import com.toropov.oleg.map.WorldMap;
+import com.toropov.oleg.pathfinding.TargetSearch;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,4 +48,38 @@ class RoosterTest {
         assertTrue(rooster.isSquareAvailableForMove(grass, map));
         assertFalse(rooster.isSquareAvailableForMove(start, map));
     }
+
+    @Test
+    void testFindsADistantMateThroughTheIndex() {
+        WorldMap map = new WorldMap(200);
+        Coordinates start = new Coordinates(5, 5);
+        Coordinates near = new Coordinates(35, 30);
+        Coordinates far = new Coordinates(40, 35);
+        Coordinates grass = new Coordinates(6, 6);
+        Rooster rooster = new Rooster(start, 1, 20, 1);
+
+        map.setEntity(start, rooster);
+        map.setEntity(near, new Hen(near, 1, 20, 1));
+        map.setEntity(far, new Hen(far, 1, 20, 1));
+        map.setEntity(grass, new Grass(grass));
+
+        TargetSearch.Result result = rooster.findReachableGrassOrCouple(map);
+
+        assertNotNull(result);
+        assertEquals(near, result.getTarget());
+        assertEquals(1, Math.max(Math.abs(result.getFirstStep().getX() - 5), Math.abs(result.getFirstStep().getY() - 5)));
+    }
+
+    @Test
+    void testDoesNotLookForAMateBeyondSight() {
+        WorldMap map = new WorldMap(200);
+        Coordinates start = new Coordinates(5, 5);
+        Coordinates hen = new Coordinates(150, 150);
+        Rooster rooster = new Rooster(start, 1, 20, 1);
+
+        map.setEntity(start, rooster);
+        map.setEntity(hen, new Hen(hen, 1, 20, 1));
+
+        assertNull(rooster.findReachableGrassOrCouple(map));
+    }
 }
@@ -0,0 +1,178 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Entity;
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.Kids;
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.world.SimulationConfig;
+import com.toropov.oleg.world.TickRunner;
+import com.toropov.oleg.world.TickSchedulerType;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentWorldMapTest {
+
+    @Test
+    void testClaimReplacesOnlyTheExpectedOccupant() {
+        WorldMap map = new ConcurrentWorldMap(10);
+        Coordinates coordinates = new Coordinates(3, 3);
+        Grass grass = new Grass(coordinates);
+        map.setEntity(coordinates, grass);
+        Hen hen = new Hen(new Coordinates(0, 0), 1, 20, 1);
+
+        assertFalse(map.claimEntity(coordinates, null, hen));
+        assertTrue(map.claimEntity(coordinates, grass, hen));
+        assertSame(hen, map.getEntity(coordinates));
+        assertEquals(coordinates, hen.getCoordinates());
+        assertEquals(0, map.countEntities(EntityType.GRASS));
+        assertEquals(1, map.countEntities(EntityType.HEN));
+    }
+
+    @Test
+    void testReleaseRemovesOnlyTheExpectedEntity() {
+        WorldMap map = new ConcurrentWorldMap(10);
+        Coordinates coordinates = new Coordinates(3, 3);
+        Hen hen = new Hen(coordinates, 1, 20, 1);
+        map.setEntity(coordinates, hen);
+
+        assertFalse(map.releaseEntity(coordinates, new Grass(coordinates)));
+        assertTrue(map.releaseEntity(coordinates, hen));
+        assertNull(map.getEntity(coordinates));
+        assertEquals(0, map.countEntities(EntityType.HEN));
+        assertFalse(map.releaseEntity(coordinates, hen));
+    }
+
+    @Test
+    void testOnlyOneOfCompetingClaimsSucceeds() throws InterruptedException {
+        WorldMap map = new ConcurrentWorldMap(10);
+        Coordinates coordinates = new Coordinates(5, 5);
+        int threadCount = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            Hen hen = new Hen(new Coordinates(0, i), 1, 20, 1);
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (map.claimEntity(coordinates, null, hen)) {
+                    successes.incrementAndGet();
+                }
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, successes.get());
+        assertEquals(1, map.countEntities(EntityType.HEN));
+    }
+
+    @Test
+    void testCountersStayExactWithConcurrentScheduler() {
+        SimulationConfig config = new SimulationConfig();
+        config.setMapSize(60);
+        config.setHenCount(150);
+        config.setRoosterCount(150);
+        config.setMaleFoxCount(10);
+        config.setFemaleFoxCount(10);
+        config.setGrassCount(400);
+        config.setSeed(5);
+        config.setSchedulerType(TickSchedulerType.CONCURRENT);
+        config.setParallelism(4);
+        WorldMap map = new WorldMapFactory(config).creatMap();
+        assertTrue(map instanceof ConcurrentWorldMap);
+
+        try (TickRunner runner = new TickRunner(map, config)) {
+            for (int i = 0; i < 30 && runner.tick(); i++) {
+                assertEquals(count(map, Hen.class), map.countEntities(EntityType.HEN));
+                assertEquals(count(map, Grass.class), map.countEntities(EntityType.GRASS));
+            }
+        }
+    }
+
+    @Test
+    void testNearestMatchesThePlainMap() {
+        compareNearestWithThePlainMap(37, 60, 3);
+        assertNull(new ConcurrentWorldMap(37).nearest(EntityType.HEN, new Coordinates(0, 0), Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testNearestBeyondTheSpiralTableMatchesThePlainMap() {
+        compareNearestWithThePlainMap(ConcurrentWorldMap.MAX_SPIRAL_MAP_SIZE * 2 + 7, 12, 11);
+    }
+
+    @Test
+    void testNearestOnALargeMapOnlyScansAroundTheQuery() {
+        ConcurrentWorldMap map = new ConcurrentWorldMap(3000);
+        map.setEntity(new Coordinates(8, 9), new Grass(new Coordinates(8, 9)));
+
+        assertEquals(new Coordinates(8, 9), map.nearest(EntityType.GRASS, new Coordinates(5, 5), Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testKeepsNoSpatialIndex() {
+        SimulationConfig config = new SimulationConfig();
+        config.setMapSize(40);
+        config.setSeed(5);
+        config.setSchedulerType(TickSchedulerType.CONCURRENT);
+        config.setParallelism(4);
+        WorldMap map = new WorldMapFactory(config).creatMap();
+
+        try (TickRunner runner = new TickRunner(map, config)) {
+            for (int i = 0; i < 50 && runner.tick(); i++) {
+                // Regrown grass goes through setEntity, which must not feed an index nobody cleans up.
+            }
+        }
+        assertThrows(UnsupportedOperationException.class, map::getSpatialIndex);
+        Entity[] buffer = new Entity[4000];
+        assertEquals(map.countEntities(EntityType.GRASS), map.collectInRectangle(EntityType.GRASS, 0, 0, 39, 39, buffer));
+    }
+
+    private void compareNearestWithThePlainMap(int mapSize, int grassCount, int step) {
+        WorldMap plain = new WorldMap(mapSize);
+        ConcurrentWorldMap concurrent = new ConcurrentWorldMap(mapSize);
+        SplittableRandom random = new SplittableRandom(8);
+        for (int i = 0; i < grassCount; i++) {
+            Coordinates coordinates = new Coordinates(random.nextInt(mapSize), random.nextInt(mapSize));
+            plain.setEntity(coordinates, new Grass(coordinates));
+            concurrent.setEntity(coordinates, new Grass(coordinates));
+        }
+
+        for (int x = 0; x < mapSize; x += step) {
+            for (int y = 0; y < mapSize; y += step - 1) {
+                Coordinates from = new Coordinates(x, y);
+                for (int radius : new int[]{1, 4, 70, Integer.MAX_VALUE}) {
+                    assertEquals(plain.nearest(EntityType.GRASS, from, radius),
+                            concurrent.nearest(EntityType.GRASS, from, radius));
+                }
+            }
+        }
+    }
+
+    private int count(WorldMap map, Class<? extends Entity> type) {
+        EntityGrid grid = map.getGrid();
+        int count = 0;
+        for (int cell = 0; cell < grid.size(); cell++) {
+            Entity entity = grid.get(cell);
+            if (type.isInstance(entity)) {
+                count++;
+            }
+            if (entity instanceof Kids kids) {
+                count += (int) kids.getAllParents().stream().filter(type::isInstance).count();
+            }
+        }
+        return count;
+    }
+}
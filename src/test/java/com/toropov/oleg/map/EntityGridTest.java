@@ -0,0 +1,54 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Grass;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityGridTest {
+
+    @Test
+    void testChunksAreAllocatedAndReleasedWithTheirEntities() {
+        EntityGrid grid = new EntityGrid(1000, 1000);
+        assertEquals(0, grid.getAllocatedChunkCount());
+
+        int first = grid.indexOf(3, 5);
+        int second = grid.indexOf(10, 60);
+        int far = grid.indexOf(999, 999);
+        grid.set(first, new Grass(new Coordinates(3, 5)));
+        grid.set(second, new Grass(new Coordinates(10, 60)));
+        grid.set(far, new Grass(new Coordinates(999, 999)));
+        assertEquals(2, grid.getAllocatedChunkCount());
+        assertTrue(grid.isChunkAllocated(0, 0));
+        assertFalse(grid.isChunkAllocated(500, 500));
+        assertNull(grid.get(grid.indexOf(500, 500)));
+
+        grid.set(first, null);
+        assertEquals(2, grid.getAllocatedChunkCount());
+        grid.set(second, null);
+        assertEquals(1, grid.getAllocatedChunkCount());
+        assertFalse(grid.isChunkAllocated(0, 0));
+        assertNotNull(grid.get(far));
+    }
+
+    @Test
+    void testCompareAndSetAllocatesOnlyOnSuccess() {
+        for (EntityGrid grid : new EntityGrid[]{new EntityGrid(100, 70), new ConcurrentEntityGrid(100, 70)}) {
+            Grass grass = new Grass(new Coordinates(99, 69));
+            int cell = grid.indexOf(99, 69);
+
+            assertFalse(grid.compareAndSet(cell, grass, null));
+            assertEquals(0, grid.getAllocatedChunkCount());
+            assertTrue(grid.compareAndSet(cell, null, grass));
+            assertEquals(1, grid.getAllocatedChunkCount());
+            assertSame(grass, grid.get(cell));
+            assertSame(grass, grid.set(cell, null));
+            assertNull(grid.get(cell));
+        }
+    }
+
+    @Test
+    void testRejectsGridsBeyondIntIndices() {
+        assertThrows(IllegalArgumentException.class, () -> new EntityGrid(100_000, 100_000));
+    }
+}
@@ -0,0 +1,108 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.herbivore.Hen;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeCellIndexTest {
+
+    @Test
+    void testRemoveAndAddKeepTheSetExact() {
+        FreeCellIndex index = new FreeCellIndex(10, 1);
+
+        index.remove(3);
+        index.remove(9);
+        index.remove(3);
+        assertEquals(8, index.size());
+        assertFalse(index.contains(3));
+        assertFalse(index.contains(9));
+
+        index.add(3);
+        index.add(3);
+        assertEquals(9, index.size());
+        assertTrue(index.contains(3));
+
+        Set<Integer> cells = new HashSet<>();
+        for (int i = 0; i < index.size(); i++) {
+            cells.add(index.get(i));
+        }
+        assertEquals(9, cells.size());
+        assertFalse(cells.contains(9));
+    }
+
+    @Test
+    void testSampleOnlyReturnsEmptyCells() {
+        FreeCellIndex index = new FreeCellIndex(10, 10);
+        for (int cell = 0; cell < 99; cell++) {
+            index.remove(cell);
+        }
+
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(99, index.sample(random));
+        }
+
+        index.remove(99);
+        assertThrows(IllegalStateException.class, () -> index.sample(random));
+    }
+
+    @Test
+    void testMatchesASetAcrossChunks() {
+        FreeCellIndex index = new FreeCellIndex(150, 130);
+        Set<Integer> occupied = new HashSet<>();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 20000; i++) {
+            int cell = random.nextInt(150 * 130);
+            if (random.nextInt(3) == 0) {
+                index.add(cell);
+                occupied.remove(cell);
+            } else {
+                index.remove(cell);
+                occupied.add(cell);
+            }
+        }
+
+        assertEquals(150 * 130 - occupied.size(), index.size());
+        Set<Integer> cells = new HashSet<>();
+        for (int i = 0; i < index.size(); i++) {
+            int cell = index.get(i);
+            assertFalse(occupied.contains(cell));
+            assertTrue(index.contains(cell));
+            cells.add(cell);
+        }
+        assertEquals(index.size(), cells.size());
+    }
+
+    @Test
+    void testWorldMapKeepsIndexInStep() {
+        WorldMap map = new WorldMap(5);
+        Coordinates first = new Coordinates(1, 1);
+        Coordinates second = new Coordinates(2, 1);
+        Hen hen = new Hen(first, 1, 20, 1);
+        map.setEntity(first, hen);
+        map.setEntity(second, new Grass(second));
+        assertEquals(23, map.getFreeCells().size());
+
+        assertTrue(map.releaseEntity(first, hen));
+        assertTrue(map.claimEntity(second, map.getEntity(second), hen));
+        map.removeEntity(second);
+        assertEquals(25, map.getFreeCells().size());
+    }
+
+    @Test
+    void testConcurrentWorldMapRebuildsIndexAfterClaims() {
+        WorldMap map = new ConcurrentWorldMap(5);
+        Coordinates coordinates = new Coordinates(3, 3);
+        assertTrue(map.claimEntity(coordinates, null, new Grass(coordinates)));
+
+        FreeCellIndex index = map.getFreeCells();
+        assertEquals(24, index.size());
+        assertFalse(index.contains(map.getGrid().indexOf(3, 3)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.Rock;
+import com.toropov.oleg.entity.herbivore.Hen;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrassRegrowthTest {
+
+    @Test
+    void testEatenGrassGrowsBackAfterDelay() {
+        WorldMap map = new WorldMap(10);
+        map.getGrassRegrowth().setDelay(3);
+        Coordinates coordinates = new Coordinates(4, 4);
+        Grass grass = new Grass(coordinates);
+        map.setEntity(coordinates, grass);
+        Hen hen = new Hen(new Coordinates(3, 4), 1, 20, 1);
+        map.setEntity(hen.getCoordinates(), hen);
+
+        assertTrue(map.claimEntity(coordinates, grass, hen));
+        assertEquals(1, map.getGrassRegrowth().getPendingCount());
+        assertTrue(map.releaseEntity(coordinates, hen));
+
+        SplittableRandom random = new SplittableRandom(1);
+        assertEquals(0, map.getGrassRegrowth().advance(random));
+        assertEquals(0, map.getGrassRegrowth().advance(random));
+        assertEquals(1, map.getGrassRegrowth().advance(random));
+        assertTrue(map.getEntity(coordinates) instanceof Grass);
+        assertEquals(1, map.countEntities(EntityType.GRASS));
+    }
+
+    @Test
+    void testOccupiedCellGrowsGrassElsewhere() {
+        WorldMap map = new WorldMap(10);
+        map.getGrassRegrowth().setDelay(1);
+        Coordinates coordinates = new Coordinates(4, 4);
+        map.setEntity(coordinates, new Grass(coordinates));
+        map.setEntity(coordinates, new Rock(coordinates));
+
+        map.getGrassRegrowth().advance(new SplittableRandom(1));
+
+        assertTrue(map.getEntity(coordinates) instanceof Rock);
+        assertEquals(1, map.countEntities(EntityType.GRASS));
+        assertEquals(0, map.getGrassRegrowth().getPendingCount());
+    }
+
+    @Test
+    void testRejectsNonPositiveDelay() {
+        assertThrows(IllegalArgumentException.class, () -> new WorldMap(5).getGrassRegrowth().setDelay(0));
+    }
+}
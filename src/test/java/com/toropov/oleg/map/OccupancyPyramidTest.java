@@ -0,0 +1,116 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Entity;
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.Rock;
+import com.toropov.oleg.entity.herbivore.Hen;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancyPyramidTest {
+
+    @Test
+    void testBlockCountsFollowChanges() {
+        WorldMap map = new WorldMap(20);
+        map.setSpatialIndexType(SpatialIndexType.PYRAMID);
+        OccupancyPyramid pyramid = (OccupancyPyramid) map.getSpatialIndex();
+        map.setEntity(new Coordinates(0, 0), new Grass(new Coordinates(0, 0)));
+        map.setEntity(new Coordinates(19, 19), new Grass(new Coordinates(19, 19)));
+        map.setEntity(new Coordinates(1, 1), new Hen(new Coordinates(1, 1), 1, 20, 1));
+        map.setEntity(new Coordinates(2, 2), new Rock(new Coordinates(2, 2)));
+
+        int base = OccupancyPyramid.BASE_LEVEL;
+        assertEquals(6, pyramid.getLevelCount());
+        assertEquals(3, pyramid.getBlocksPerRow(base));
+        assertEquals(1, pyramid.getBlockCount(EntityType.GRASS, base, 0, 0));
+        assertEquals(1, pyramid.getBlockCount(EntityType.GRASS, base, 2, 2));
+        assertEquals(2, pyramid.getBlockCount(EntityType.GRASS, 5, 0, 0));
+        assertEquals(1, pyramid.getBlockCount(EntityType.HEN, 5, 0, 0));
+        assertEquals(0, pyramid.getBlockCount(EntityType.ROCK, 5, 0, 0));
+
+        map.removeEntity(new Coordinates(0, 0));
+        assertEquals(0, pyramid.getBlockCount(EntityType.GRASS, base, 0, 0));
+        assertEquals(1, pyramid.getBlockCount(EntityType.GRASS, 5, 0, 0));
+    }
+
+    @Test
+    void testNearestMatchesSpiralScanOnDenseMaps() {
+        compareWithSpiralScan(0.3, 55);
+    }
+
+    @Test
+    void testNearestMatchesSpiralScanOnSparseMaps() {
+        compareWithSpiralScan(0.002, 55);
+    }
+
+    @Test
+    void testNearestAcrossChunksMatchesSpiralScan() {
+        compareWithSpiralScan(0.01, 150);
+    }
+
+    @Test
+    void testRangeCountsMatchBruteForce() {
+        compareRangeCounts(0.2, 55);
+    }
+
+    @Test
+    void testRangeCountsAcrossChunksMatchBruteForce() {
+        compareRangeCounts(0.05, 150);
+    }
+
+    private void compareRangeCounts(double density, int size) {
+        SplittableRandom random = new SplittableRandom(5);
+        WorldMap map = populate(random, density, size);
+        OccupancyPyramid pyramid = (OccupancyPyramid) map.getSpatialIndex();
+
+        for (int i = 0; i < 200; i++) {
+            int left = random.nextInt(-5, size + 5);
+            int top = random.nextInt(-5, size + 5);
+            int right = left + random.nextInt(30);
+            int bottom = top + random.nextInt(30);
+            int expected = 0;
+            for (int x = Math.max(left, 0); x <= Math.min(right, size - 1); x++) {
+                for (int y = Math.max(top, 0); y <= Math.min(bottom, size - 1); y++) {
+                    if (map.getEntity(x, y) instanceof Grass) {
+                        expected++;
+                    }
+                }
+            }
+            assertEquals(expected, pyramid.count(EntityType.GRASS, left, top, right, bottom));
+        }
+    }
+
+    private void compareWithSpiralScan(double density, int size) {
+        SplittableRandom random = new SplittableRandom(17);
+        WorldMap map = populate(random, density, size);
+
+        SpiralOffsets spiral = WorldMapUtils.getSpiralOffsets(size);
+        for (int i = 0; i < 300; i++) {
+            Coordinates from = new Coordinates(random.nextInt(size), random.nextInt(size));
+            int radius = random.nextBoolean() ? Integer.MAX_VALUE : random.nextInt(30);
+            Coordinates expected = spiral.find(map, from, radius, (x, y) -> map.getEntity(x, y) instanceof Grass);
+            assertEquals(expected, map.nearest(EntityType.GRASS, from, radius));
+        }
+    }
+
+    private WorldMap populate(SplittableRandom random, double density, int size) {
+        WorldMap map = new WorldMap(size);
+        map.setSpatialIndexType(SpatialIndexType.PYRAMID);
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (random.nextDouble() < density) {
+                    Coordinates coordinates = new Coordinates(x, y);
+                    Entity entity = random.nextBoolean() ? new Grass(coordinates) : new Hen(coordinates, 1, 20, 1);
+                    map.setEntity(coordinates, entity);
+                }
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            map.removeEntity(new Coordinates(random.nextInt(size), random.nextInt(size)));
+        }
+        return map;
+    }
+}
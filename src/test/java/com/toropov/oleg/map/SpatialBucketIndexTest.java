@@ -0,0 +1,109 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Entity;
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.entity.predator.FemaleFox;
+import com.toropov.oleg.entity.predator.MaleFox;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpatialBucketIndexTest {
+
+    @Test
+    void testAddAndRemoveKeepCounts() {
+        SpatialBucketIndex index = new SpatialBucketIndex(20, 20, 4);
+        index.add(EntityType.GRASS, 5);
+        index.add(EntityType.GRASS, 6);
+        index.add(EntityType.GRASS, 399);
+        index.add(EntityType.HEN, 7);
+        index.remove(EntityType.GRASS, 5);
+
+        assertEquals(2, index.count(EntityType.GRASS));
+        assertEquals(1, index.count(EntityType.HEN));
+        assertEquals(6, index.nearest(new EntityType[]{EntityType.GRASS}, 0, 0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testNearestMatchesSpiralScanOnDenseMaps() {
+        compareWithSpiralScan(0.3);
+    }
+
+    @Test
+    void testNearestMatchesSpiralScanOnSparseMaps() {
+        compareWithSpiralScan(0.002);
+    }
+
+    @Test
+    void testSparseMatesAreFoundAcrossLargeMap() {
+        WorldMap map = new WorldMap(500);
+        map.setEntity(new Coordinates(3, 4), new MaleFox(new Coordinates(3, 4), 1, 20, 1));
+        map.setEntity(new Coordinates(490, 480), new FemaleFox(new Coordinates(490, 480), 1, 20, 1));
+
+        assertEquals(new Coordinates(490, 480), map.nearest(EntityType.FEMALE_FOX, new Coordinates(3, 4),
+                Integer.MAX_VALUE));
+        assertEquals(new Coordinates(3, 4), map.nearest(EntityType.ALL_FOXES, new Coordinates(490, 480),
+                Integer.MAX_VALUE));
+        assertNull(map.nearest(EntityType.FEMALE_FOX, new Coordinates(3, 4), 100));
+    }
+
+    @Test
+    void testBucketTablesFollowManyAddsAndRemoves() {
+        SplittableRandom random = new SplittableRandom(3);
+        SpatialBucketIndex index = new SpatialBucketIndex(300, 200, 4);
+        boolean[] grass = new boolean[300 * 200];
+        for (int i = 0; i < 20000; i++) {
+            int cell = random.nextInt(grass.length);
+            if (grass[cell]) {
+                index.remove(EntityType.GRASS, cell);
+            } else {
+                index.add(EntityType.GRASS, cell);
+            }
+            grass[cell] = !grass[cell];
+        }
+
+        int expected = 0;
+        int[] visited = new int[grass.length];
+        for (int cell = 0; cell < grass.length; cell++) {
+            expected += grass[cell] ? 1 : 0;
+        }
+        assertEquals(expected, index.count(EntityType.GRASS));
+        index.forEachInRectangle(new EntityType[]{EntityType.GRASS}, 10, 20, 250, 150, cell -> visited[cell]++);
+        for (int cell = 0; cell < grass.length; cell++) {
+            int x = cell % 300;
+            int y = cell / 300;
+            boolean inside = x >= 10 && x <= 250 && y >= 20 && y <= 150;
+            assertEquals(grass[cell] && inside ? 1 : 0, visited[cell]);
+        }
+    }
+
+    private void compareWithSpiralScan(double density) {
+        SplittableRandom random = new SplittableRandom(11);
+        WorldMap map = new WorldMap(60);
+        for (int x = 0; x < 60; x++) {
+            for (int y = 0; y < 60; y++) {
+                if (random.nextDouble() < density) {
+                    Coordinates coordinates = new Coordinates(x, y);
+                    Entity entity = random.nextBoolean() ? new Grass(coordinates) : new Hen(coordinates, 1, 20, 1);
+                    map.setEntity(coordinates, entity);
+                }
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(60);
+            int y = random.nextInt(60);
+            map.removeEntity(new Coordinates(x, y));
+        }
+
+        SpiralOffsets spiral = WorldMapUtils.getSpiralOffsets(60);
+        for (int i = 0; i < 300; i++) {
+            Coordinates from = new Coordinates(random.nextInt(60), random.nextInt(60));
+            int radius = random.nextBoolean() ? Integer.MAX_VALUE : random.nextInt(30);
+            Coordinates expected = spiral.find(map, from, radius, (x, y) -> map.getEntity(x, y) instanceof Grass);
+            assertEquals(expected, map.nearest(EntityType.GRASS, from, radius));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.toropov.oleg.map;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpiralOffsetsTest {
+
+    @Test
+    void testMatchesFirstOccurrencesOfSortedShifts() {
+        int mapSize = 7;
+        List<int[]> expected = new ArrayList<>();
+        for (int radius = 1; radius < mapSize; radius++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                for (int dy = -radius; dy <= radius; dy++) {
+                    if (dx == 0 && dy == 0) continue;
+                    expected.add(new int[]{dx, dy});
+                }
+            }
+        }
+        expected.sort(Comparator.comparingInt(shift -> Math.abs(shift[0]) + Math.abs(shift[1])));
+        Set<Integer> seen = new HashSet<>();
+        expected.removeIf(shift -> !seen.add(shift[0] * 1000 + shift[1]));
+
+        SpiralOffsets spiral = WorldMapUtils.getSpiralOffsets(mapSize);
+
+        assertEquals(expected.size(), spiral.count(Integer.MAX_VALUE));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i)[0], spiral.getDx(i), "dx at " + i);
+            assertEquals(expected.get(i)[1], spiral.getDy(i), "dy at " + i);
+        }
+    }
+
+    @Test
+    void testCountWithinRadius() {
+        SpiralOffsets spiral = WorldMapUtils.getSpiralOffsets(20);
+
+        assertEquals(0, spiral.count(0));
+        assertEquals(4, spiral.count(1));
+        assertEquals(12, spiral.count(2));
+        for (int i = 0; i < spiral.count(3); i++) {
+            assertTrue(Math.abs(spiral.getDx(i)) + Math.abs(spiral.getDy(i)) <= 3);
+        }
+    }
+
+    @Test
+    void testTableIsCachedPerMapSize() {
+        assertSame(WorldMapUtils.getSpiralOffsets(15), WorldMapUtils.getSpiralOffsets(15));
+    }
+
+    @Test
+    void testRejectsTablesTooLargeForThePackedLayout() {
+        assertThrows(IllegalArgumentException.class, () -> new SpiralOffsets(SpiralOffsets.MAX_SHIFT + 1));
+        assertThrows(IllegalArgumentException.class, () -> WorldMapUtils.getSpiralOffsets(40_000));
+    }
+
+    @Test
+    void testFindStopsAtNearestAcceptedCell() {
+        WorldMap map = new WorldMap(10);
+        SpiralOffsets spiral = WorldMapUtils.getSpiralOffsets(10);
+        int[] visited = new int[1];
+
+        Coordinates found = spiral.find(map, new Coordinates(0, 0), Integer.MAX_VALUE, (x, y) -> {
+            visited[0]++;
+            return x + y == 2;
+        });
+
+        assertNotNull(found);
+        assertEquals(2, found.getX() + found.getY());
+        assertTrue(visited[0] <= 5, "Scan should stop at the first accepted cell");
+        assertNull(spiral.find(map, new Coordinates(0, 0), 3, (x, y) -> x == 9));
+    }
+}
@@ -0,0 +1,159 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.Rock;
+import com.toropov.oleg.entity.Tree;
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.pathfinding.JumpPointSearch;
+import com.toropov.oleg.pathfinding.PathFinder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TerrainComponentsTest {
+
+    @Test
+    void testWallSplitsTheMapAndDiagonalGapsJoinIt() {
+        WorldMap map = new WorldMap(10);
+        for (int y = 0; y < 10; y++) {
+            map.setEntity(new Coordinates(5, y), new Rock(new Coordinates(5, y)));
+        }
+        TerrainComponents components = map.getTerrainComponents();
+
+        assertEquals(2, components.getComponentCount());
+        assertFalse(components.isConnected(new Coordinates(0, 0), new Coordinates(9, 9)));
+        assertTrue(components.isConnected(new Coordinates(0, 0), new Coordinates(4, 9)));
+        assertFalse(components.isConnected(new Coordinates(0, 0), new Coordinates(5, 0)));
+        assertFalse(components.isConnected(new Coordinates(0, 0), new Coordinates(-1, 0)));
+        assertEquals(TerrainComponents.NO_COMPONENT, components.componentOf(5));
+
+        map.removeEntity(new Coordinates(5, 4));
+        map.setEntity(new Coordinates(5, 4), new Tree(new Coordinates(5, 4)));
+        map.removeEntity(new Coordinates(5, 3));
+        map.setEntity(new Coordinates(6, 3), new Rock(new Coordinates(6, 3)));
+        map.setEntity(new Coordinates(4, 3), new Rock(new Coordinates(4, 3)));
+        assertEquals(1, components.getComponentCount(), "A cell connects diagonally through its corners");
+        assertTrue(components.isConnected(new Coordinates(0, 0), new Coordinates(9, 9)));
+    }
+
+    @Test
+    void testComponentsMatchFloodFill() {
+        WorldMap map = new WorldMap(40);
+        SplittableRandom random = new SplittableRandom(9);
+        for (int x = 0; x < 40; x++) {
+            for (int y = 0; y < 40; y++) {
+                if (random.nextDouble() < 0.45) {
+                    map.setEntity(new Coordinates(x, y), new Rock(new Coordinates(x, y)));
+                }
+            }
+        }
+        TerrainLayer terrain = map.getTerrain();
+        TerrainComponents components = map.getTerrainComponents();
+
+        int[] labels = floodFill(terrain);
+        int count = 0;
+        for (int cell = 0; cell < labels.length; cell++) {
+            count = Math.max(count, labels[cell] + 1);
+            for (int other = 0; other < labels.length; other += 37) {
+                assertEquals(labels[cell] >= 0 && labels[cell] == labels[other], components.isConnected(cell, other));
+            }
+        }
+        assertEquals(count, components.getComponentCount());
+    }
+
+    @Test
+    void testComponentsAcrossChunksMatchFloodFill() {
+        WorldMap map = new WorldMap(150);
+        SplittableRandom random = new SplittableRandom(4);
+        for (int y = 0; y < 150; y++) {
+            map.setEntity(new Coordinates(63, y), new Rock(new Coordinates(63, y)));
+            map.setEntity(new Coordinates(y, 128), new Rock(new Coordinates(y, 128)));
+        }
+        map.removeEntity(new Coordinates(63, 64));
+        for (int x = 64; x < 150; x++) {
+            for (int y = 0; y < 64; y++) {
+                if (random.nextDouble() < 0.4) {
+                    map.setEntity(new Coordinates(x, y), new Rock(new Coordinates(x, y)));
+                }
+            }
+        }
+        TerrainLayer terrain = map.getTerrain();
+        TerrainComponents components = map.getTerrainComponents();
+
+        int[] labels = floodFill(terrain);
+        int count = 0;
+        for (int cell = 0; cell < labels.length; cell++) {
+            count = Math.max(count, labels[cell] + 1);
+        }
+        assertEquals(count, components.getComponentCount());
+        for (int cell = 0; cell < labels.length; cell += 7) {
+            for (int other = 0; other < labels.length; other += 997) {
+                assertEquals(labels[cell] >= 0 && labels[cell] == labels[other], components.isConnected(cell, other));
+            }
+        }
+        assertTrue(components.isConnected(new Coordinates(0, 0), new Coordinates(149, 127)),
+                "The gap in the wall joins the chunks on both sides");
+        assertFalse(components.isConnected(new Coordinates(0, 0), new Coordinates(0, 149)));
+    }
+
+    @Test
+    void testSearchesRejectGoalsCutOffByTerrain() {
+        WorldMap map = new WorldMap(20);
+        for (int x = 9; x <= 11; x++) {
+            for (int y = 9; y <= 11; y++) {
+                if (x != 10 || y != 10) {
+                    map.setEntity(new Coordinates(x, y), new Rock(new Coordinates(x, y)));
+                }
+            }
+        }
+        Coordinates goal = new Coordinates(10, 10);
+        map.setEntity(goal, new Grass(goal));
+        Hen hen = new Hen(new Coordinates(0, 0), 1, 10, 1);
+        map.setEntity(hen.getCoordinates(), hen);
+
+        assertTrue(PathFinder.findPathAStar(map, hen.getCoordinates(), goal, hen).isEmpty());
+        assertTrue(JumpPointSearch.findPath(map, hen.getCoordinates(), goal, hen).isEmpty());
+        assertNull(PathFinder.findNextStep(map, hen.getCoordinates(), goal, hen));
+        assertFalse(map.getTerrainComponents().isConnected(hen.getCoordinates(), goal));
+
+        Coordinates open = new Coordinates(19, 19);
+        assertFalse(PathFinder.findPathAStar(map, hen.getCoordinates(), open, hen).isEmpty());
+    }
+
+    private static int[] floodFill(TerrainLayer terrain) {
+        int width = terrain.getWidth();
+        int[] labels = new int[width * terrain.getHeight()];
+        Arrays.fill(labels, -2);
+        int next = 0;
+        for (int cell = 0; cell < labels.length; cell++) {
+            if (terrain.isBlocked(cell)) {
+                labels[cell] = TerrainComponents.NO_COMPONENT;
+            } else if (labels[cell] == -2) {
+                Deque<Integer> queue = new ArrayDeque<>();
+                labels[cell] = next;
+                queue.add(cell);
+                while (!queue.isEmpty()) {
+                    int current = queue.poll();
+                    int x = current % width;
+                    int y = current / width;
+                    for (int dx = -1; dx <= 1; dx++) {
+                        for (int dy = -1; dy <= 1; dy++) {
+                            int neighbor = (y + dy) * width + x + dx;
+                            if (!terrain.isBlocked(x + dx, y + dy) && labels[neighbor] == -2) {
+                                labels[neighbor] = next;
+                                queue.add(neighbor);
+                            }
+                        }
+                    }
+                }
+                next++;
+            }
+        }
+        return labels;
+    }
+}
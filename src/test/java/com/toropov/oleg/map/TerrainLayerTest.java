@@ -0,0 +1,78 @@
+package com.toropov.oleg.map;
+
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.Rock;
+import com.toropov.oleg.entity.Tree;
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.world.SimulationConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TerrainLayerTest {
+
+    @Test
+    void testBitsFollowSetAndFreeze() {
+        TerrainLayer terrain = new TerrainLayer(70, 3);
+
+        terrain.set(0, true);
+        terrain.set(64, true);
+        terrain.set(209, true);
+        terrain.set(64, true);
+        assertEquals(3, terrain.getBlockedCount());
+        assertTrue(terrain.isBlocked(64));
+        assertFalse(terrain.isBlocked(63));
+        assertTrue(terrain.isBlocked(69, 2));
+        assertTrue(terrain.isBlocked(-1, 0));
+        assertTrue(terrain.isBlocked(0, 3));
+
+        terrain.set(0, false);
+        assertFalse(terrain.isBlocked(0, 0));
+        assertEquals(2, terrain.getBlockedCount());
+        assertTrue(terrain.isChunkClear(0, 0), "A chunk without terrain keeps no bits");
+        assertFalse(terrain.isChunkClear(69, 2));
+
+        terrain.freeze();
+        terrain.set(64, true);
+        terrain.set(1, false);
+        assertThrows(IllegalStateException.class, () -> terrain.set(64, false));
+        assertThrows(IllegalStateException.class, () -> terrain.set(1, true));
+    }
+
+    @Test
+    void testMapKeepsTerrainInStepWithItsCells() {
+        WorldMap map = new WorldMap(10);
+        Coordinates rock = new Coordinates(2, 3);
+        Coordinates tree = new Coordinates(4, 4);
+        map.setEntity(rock, new Rock(rock));
+        map.setEntity(tree, new Tree(tree));
+        map.setEntity(new Coordinates(5, 5), new Grass(new Coordinates(5, 5)));
+        assertTrue(map.getTerrain().isBlocked(2, 3));
+        assertTrue(map.getTerrain().isBlocked(4, 4));
+        assertFalse(map.getTerrain().isBlocked(5, 5));
+
+        map.removeEntity(tree);
+        assertFalse(map.getTerrain().isBlocked(4, 4));
+
+        map.getTerrain().freeze();
+        Hen hen = new Hen(new Coordinates(2, 2), 1, 20, 1);
+        map.setEntity(hen.getCoordinates(), hen);
+        assertFalse(hen.isSquareAvailableForMove(rock, map));
+        assertFalse(map.claimEntity(rock, map.getEntity(rock), hen));
+        assertThrows(IllegalStateException.class, () -> map.removeEntity(rock));
+        assertThrows(IllegalStateException.class, () -> map.setEntity(tree, new Rock(tree)));
+        assertTrue(map.getEntity(rock) instanceof Rock);
+        assertNull(map.getEntity(tree));
+    }
+
+    @Test
+    void testFactoryFreezesTheTerrainOfNewMaps() {
+        SimulationConfig config = new SimulationConfig();
+        config.setSeed(5L);
+        WorldMap map = new WorldMapFactory(config).creatMap();
+
+        assertTrue(map.getTerrain().isFrozen());
+        assertEquals(map.countEntities(EntityType.ROCK) + map.countEntities(EntityType.TREE),
+                map.getTerrain().getBlockedCount());
+    }
+}
@@ -0,0 +1,67 @@
+package com.toropov.oleg.map;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void testCellsBecomeDueAfterTheirDelay() {
+        TimingWheel wheel = new TimingWheel(8);
+        wheel.schedule(1, 1);
+        wheel.schedule(2, 3);
+        wheel.schedule(3, 3);
+        assertEquals(3, wheel.size());
+
+        List<Integer> due = new ArrayList<>();
+        assertEquals(1, wheel.advance(due::add));
+        assertEquals(List.of(1), due);
+
+        due.clear();
+        assertEquals(0, wheel.advance(due::add));
+        assertEquals(2, wheel.advance(due::add));
+        assertEquals(List.of(2, 3), due);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testDelaysLongerThanTheWheelWaitForTheirTurn() {
+        TimingWheel wheel = new TimingWheel(4);
+        wheel.schedule(7, 10);
+        wheel.schedule(8, 2);
+
+        List<Integer> due = new ArrayList<>();
+        for (int tick = 1; tick <= 9; tick++) {
+            wheel.advance(due::add);
+        }
+        assertEquals(List.of(8), due);
+
+        wheel.advance(due::add);
+        assertEquals(List.of(8, 7), due);
+        assertEquals(10, wheel.getCurrentTick());
+    }
+
+    @Test
+    void testConsumerMayReschedule() {
+        TimingWheel wheel = new TimingWheel(4);
+        wheel.schedule(5, 4);
+
+        for (int tick = 0; tick < 4; tick++) {
+            wheel.advance(cell -> wheel.schedule(cell, 4));
+        }
+        assertEquals(1, wheel.size());
+        assertEquals(1, wheel.advance(cell -> { }) + wheel.advance(cell -> { }) + wheel.advance(cell -> { }) +
+                wheel.advance(cell -> { }));
+    }
+
+    @Test
+    void testSlotCountIsRoundedUpToPowerOfTwo() {
+        assertEquals(64, new TimingWheel(33).getSlotCount());
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel(0));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel(4).schedule(1, 0));
+    }
+}
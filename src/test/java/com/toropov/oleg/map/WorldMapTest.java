@@ -4,10 +4,15 @@ import com.toropov.oleg.entity.*;
 import com.toropov.oleg.entity.herbivore.Hen;
 import com.toropov.oleg.entity.herbivore.Rooster;
 import com.toropov.oleg.entity.predator.FemaleFox;
+import com.toropov.oleg.entity.predator.FoxCub;
 import com.toropov.oleg.entity.predator.MaleFox;
+import com.toropov.oleg.world.SimulationConfig;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -56,6 +61,27 @@ class WorldMapTest {
         assertFalse(map.isWithinBounds(outOfBounds));
     }
 
+    @Test
+    void testOutOfBoundsAccess() {
+        WorldMap map = new WorldMap(20);
+        Coordinates outOfBounds = new Coordinates(-1, 20);
+
+        assertNull(map.getEntity(outOfBounds));
+        assertTrue(map.isSquareEmpty(outOfBounds));
+        assertThrows(IndexOutOfBoundsException.class, () -> map.setEntity(outOfBounds, new Grass(outOfBounds)));
+    }
+
+    @Test
+    void testGetAllCreatures() {
+        WorldMap map = new WorldMap(20);
+        Hen hen = new Hen(new Coordinates(0, 0), 1, 20, 1);
+        map.setEntity(new Coordinates(0, 0), hen);
+        map.setEntity(new Coordinates(19, 19), new Grass(new Coordinates(19, 19)));
+
+        assertEquals(1, map.getAllCreatures().size());
+        assertSame(hen, map.getAllCreatures().get(0));
+    }
+
     @Test
     void testCountEntities() {
         WorldMap map = new WorldMap(20);
@@ -73,4 +99,170 @@ class WorldMapTest {
         assertEquals(1, (int) count.get(EntityType.MALE_FOX));
         assertEquals(1, (int) count.get(EntityType.FEMALE_FOX));
     }
+
+    @Test
+    void testCountEntitiesAfterMoveAndRemoval() {
+        WorldMap map = new WorldMap(20);
+        Hen hen = new Hen(new Coordinates(1, 1), 1, 20, 1);
+        map.setEntity(new Coordinates(1, 1), hen);
+        map.setEntity(new Coordinates(2, 2), new Grass(new Coordinates(2, 2)));
+
+        hen.move(new Coordinates(2, 2), map);
+
+        assertEquals(1, map.countEntities(EntityType.HEN));
+        assertEquals(0, map.countEntities(EntityType.GRASS));
+        assertEquals(1, map.countEntities(EntityType.ALL_CHICKEN));
+
+        map.removeEntity(new Coordinates(2, 2));
+        assertEquals(0, map.countEntities(EntityType.HEN));
+    }
+
+    @Test
+    void testCountEntitiesIncludesAttachedParents() {
+        WorldMap map = new WorldMap(20);
+        Coordinates coordinates = new Coordinates(3, 3);
+        FoxCub foxCub = new FoxCub(coordinates, 0, 2, 2);
+        foxCub.setParents(EntityType.MALE_FOX, new MaleFox(coordinates, 1, 20, 1));
+        foxCub.setParents(EntityType.FEMALE_FOX, new FemaleFox(coordinates, 1, 20, 1));
+        map.setEntity(coordinates, foxCub);
+
+        assertEquals(1, map.countEntities(EntityType.MALE_FOX));
+        assertEquals(3, map.countEntities(EntityType.ALL_FOXES));
+
+        foxCub.getParents(map, 2);
+        assertEquals(0, map.countEntities(EntityType.MALE_FOX));
+        assertEquals(1, map.countEntities(EntityType.FEMALE_FOX));
+
+        map.removeEntity(coordinates);
+        assertEquals(0, map.countEntities(EntityType.ALL_FOXES));
+    }
+
+    @Test
+    void testInitialPopulationsFollowTheConfiguration() {
+        assertEquals(EntityFactory.HEN_COUNT, new WorldMap(20).getInitialPopulation(EntityType.HEN));
+
+        SimulationConfig config = new SimulationConfig();
+        config.setMapSize(60);
+        config.setHenCount(500);
+        config.setMaleFoxCount(7);
+        WorldMap map = new WorldMapFactory(config).creatMap();
+
+        assertEquals(500, map.getInitialPopulation(EntityType.HEN));
+        assertEquals(7, map.getInitialPopulation(EntityType.MALE_FOX));
+        assertEquals(config.getRoosterCount(), map.getInitialPopulation(EntityType.ROOSTER));
+    }
+
+    @Test
+    void testRangeQueriesMatchBruteForce() {
+        for (SpatialIndexType indexType : SpatialIndexType.values()) {
+            compareRangeQueries(populate(new WorldMap(45), indexType));
+        }
+        compareRangeQueries(populate(new ConcurrentWorldMap(45), SpatialIndexType.BUCKETS));
+    }
+
+    @Test
+    void testCollectInRectangleCountsOverflow() {
+        WorldMap map = new WorldMap(20);
+        for (int x = 0; x < 5; x++) {
+            map.setEntity(new Coordinates(x, 3), new Grass(new Coordinates(x, 3)));
+        }
+        Entity[] buffer = new Entity[3];
+
+        assertEquals(5, map.collectInRectangle(EntityType.GRASS, -10, 0, 19, 3, buffer));
+        for (Entity entity : buffer) {
+            assertTrue(entity instanceof Grass);
+        }
+        assertEquals(1, map.collectInRadius(EntityType.GRASS, new Coordinates(0, 0), 3, buffer));
+        assertEquals(new Coordinates(0, 3), buffer[0].getCoordinates());
+    }
+
+    @Test
+    void testHugeRadiiCoverTheWholeMap() {
+        WorldMap map = new WorldMap(20);
+        map.setEntity(new Coordinates(3, 3), new Grass(new Coordinates(3, 3)));
+        map.setEntity(new Coordinates(19, 0), new Grass(new Coordinates(19, 0)));
+        Entity[] buffer = new Entity[2];
+
+        assertEquals(2, map.collectInRadius(EntityType.GRASS, new Coordinates(5, 5), Integer.MAX_VALUE, buffer));
+        assertEquals(2, map.collectInRadius(EntityType.GRASS, new Coordinates(19, 19), Integer.MAX_VALUE - 1, buffer));
+        assertEquals(0, map.collectInRadius(EntityType.GRASS, new Coordinates(5, 5), Integer.MIN_VALUE, buffer));
+    }
+
+    private static WorldMap populate(WorldMap map, SpatialIndexType indexType) {
+        map.setSpatialIndexType(indexType);
+        SplittableRandom random = new SplittableRandom(3);
+        for (int x = 0; x < 45; x++) {
+            for (int y = 0; y < 45; y++) {
+                double roll = random.nextDouble();
+                Coordinates coordinates = new Coordinates(x, y);
+                if (roll < 0.1) {
+                    map.setEntity(coordinates, new Grass(coordinates));
+                } else if (roll < 0.15) {
+                    map.setEntity(coordinates, new Hen(coordinates, 1, 20, 1));
+                } else if (roll < 0.17) {
+                    map.setEntity(coordinates, new MaleFox(coordinates, 1, 20, 1));
+                }
+            }
+        }
+        return map;
+    }
+
+    private static void compareRangeQueries(WorldMap map) {
+        SplittableRandom random = new SplittableRandom(9);
+        EntityType[] types = {EntityType.GRASS, EntityType.ALL_CHICKEN, EntityType.MALE_FOX};
+        for (int i = 0; i < 100; i++) {
+            EntityType type = types[random.nextInt(types.length)];
+            int left = random.nextInt(-5, 50);
+            int top = random.nextInt(-5, 50);
+            int right = left + random.nextInt(25);
+            int bottom = top + random.nextInt(25);
+            List<Entity> expected = new ArrayList<>();
+            List<Entity> actual = new ArrayList<>();
+            for (Entity entity : allEntities(map)) {
+                Coordinates c = entity.getCoordinates();
+                if (c.getX() >= left && c.getX() <= right && c.getY() >= top && c.getY() <= bottom &&
+                        matches(type, entity)) {
+                    expected.add(entity);
+                }
+            }
+            map.forEachInRectangle(type, left, top, right, bottom, (entity, x, y) -> actual.add(entity));
+            assertEquals(expected.size(), actual.size());
+            assertTrue(actual.containsAll(expected));
+
+            Coordinates center = new Coordinates(random.nextInt(45), random.nextInt(45));
+            int radius = random.nextInt(15);
+            expected.clear();
+            actual.clear();
+            for (Entity entity : allEntities(map)) {
+                int dx = entity.getCoordinates().getX() - center.getX();
+                int dy = entity.getCoordinates().getY() - center.getY();
+                if (dx * dx + dy * dy <= radius * radius && matches(type, entity)) {
+                    expected.add(entity);
+                }
+            }
+            map.forEachInRadius(type, center, radius, (entity, x, y) -> actual.add(entity));
+            assertEquals(expected.size(), actual.size());
+            assertTrue(actual.containsAll(expected));
+        }
+    }
+
+    private static List<Entity> allEntities(WorldMap map) {
+        List<Entity> entities = new ArrayList<>();
+        for (int x = 0; x < map.getMapSize(); x++) {
+            for (int y = 0; y < map.getMapSize(); y++) {
+                if (map.getEntity(x, y) != null) {
+                    entities.add(map.getEntity(x, y));
+                }
+            }
+        }
+        return entities;
+    }
+
+    private static boolean matches(EntityType type, Entity entity) {
+        return switch (type) {
+            case GRASS -> entity instanceof Grass;
+            case ALL_CHICKEN -> entity instanceof Hen;
+            default -> entity instanceof MaleFox;
+        };
+    }
 }
@@ -0,0 +1,75 @@
+package com.toropov.oleg.pathfinding;
+
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.Rock;
+import com.toropov.oleg.entity.Tree;
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.WorldMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AStarSearchTest {
+    private WorldMap map;
+    private Hen hen;
+
+    @BeforeEach
+    void setUp() {
+        map = new WorldMap(20);
+        hen = new Hen(new Coordinates(0, 0), 1, 10, 1);
+        map.setEntity(new Coordinates(0, 0), hen);
+    }
+
+    @Test
+    void testFindPathAroundObstacles() {
+        Coordinates goal = new Coordinates(7, 3);
+        map.setEntity(goal, new Grass(goal));
+        for (int y = 0; y < 6; y++) {
+            map.setEntity(new Coordinates(4, y), new Rock(new Coordinates(4, y)));
+        }
+
+        List<Coordinates> expected = PathFinder.findPathAStar(map, hen.getCoordinates(), goal, hen);
+        List<Coordinates> actual = AStarSearch.findPath(map, hen.getCoordinates(), goal, hen);
+
+        assertEquals(expected, actual, "PathFinder should return the path of the A* engine");
+        assertEquals(goal, actual.get(actual.size() - 1), "Path should end at the goal");
+        assertPathIsWalkable(hen.getCoordinates(), actual);
+        assertEquals(actual.get(0), AStarSearch.findNextStep(map, hen.getCoordinates(), goal, hen));
+    }
+
+    @Test
+    void testFindPathNoPath() {
+        map.setEntity(new Coordinates(0, 1), new Rock(new Coordinates(0, 1)));
+        map.setEntity(new Coordinates(1, 0), new Tree(new Coordinates(1, 0)));
+        map.setEntity(new Coordinates(1, 1), new Rock(new Coordinates(1, 1)));
+        Coordinates goal = new Coordinates(2, 2);
+
+        assertTrue(PathFinder.findPathAStar(map, hen.getCoordinates(), goal, hen).isEmpty());
+        assertTrue(AStarSearch.findPath(map, hen.getCoordinates(), goal, hen).isEmpty());
+        assertNull(AStarSearch.findNextStep(map, hen.getCoordinates(), goal, hen));
+    }
+
+    @Test
+    void testSearchStateIsResetBetweenCalls() {
+        Coordinates farGoal = new Coordinates(19, 19);
+        Coordinates nearGoal = new Coordinates(0, 2);
+
+        assertEquals(19, AStarSearch.findPath(map, hen.getCoordinates(), farGoal, hen).size());
+        assertEquals(2, AStarSearch.findPath(map, hen.getCoordinates(), nearGoal, hen).size());
+        assertTrue(AStarSearch.findPath(map, hen.getCoordinates(), hen.getCoordinates(), hen).isEmpty());
+    }
+
+    private void assertPathIsWalkable(Coordinates start, List<Coordinates> path) {
+        Coordinates previous = start;
+        for (Coordinates step : path) {
+            assertTrue(Math.abs(step.getX() - previous.getX()) <= 1 && Math.abs(step.getY() - previous.getY()) <= 1,
+                    "Steps should be adjacent");
+            assertTrue(hen.isSquareAvailableForMove(step, map), "Steps should be available for move");
+            previous = step;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.toropov.oleg.pathfinding;
+
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.Rock;
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.entity.predator.MaleFox;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.WorldMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowFieldsTest {
+    private WorldMap map;
+    private FlowFields flowFields;
+
+    @BeforeEach
+    void setUp() {
+        map = new WorldMap(20);
+        flowFields = map.getFlowFields();
+        flowFields.setEnabled(true);
+    }
+
+    @Test
+    void testHerbivoreFollowsGrassField() {
+        Hen hen = new Hen(new Coordinates(0, 0), 1, 20, 1);
+        map.setEntity(hen.getCoordinates(), hen);
+        map.setEntity(new Coordinates(5, 0), new Grass(new Coordinates(5, 0)));
+        for (int y = 0; y < 4; y++) {
+            map.setEntity(new Coordinates(2, y), new Rock(new Coordinates(2, y)));
+        }
+
+        flowFields.update();
+        Coordinates step = flowFields.nextStepTowardsGrass(hen);
+
+        assertNotNull(step);
+        assertEquals(1, step.getY(), "Hen should head around the rocks instead of towards them");
+    }
+
+    @Test
+    void testPredatorFollowsHerbivoreField() {
+        MaleFox fox = new MaleFox(new Coordinates(10, 10), 1, 20, 1);
+        map.setEntity(fox.getCoordinates(), fox);
+        map.setEntity(new Coordinates(12, 10), new Hen(new Coordinates(12, 10), 1, 20, 1));
+
+        flowFields.update();
+
+        Coordinates step = flowFields.nextStepTowardsHerbivore(fox);
+
+        assertNotNull(step);
+        assertEquals(11, step.getX(), "Fox should step towards the hen");
+    }
+
+    @Test
+    void testNoStepWithoutReachableTarget() {
+        Hen hen = new Hen(new Coordinates(0, 0), 1, 20, 1);
+        map.setEntity(hen.getCoordinates(), hen);
+
+        flowFields.update();
+
+        assertNull(flowFields.nextStepTowardsGrass(hen));
+    }
+
+    @Test
+    void testDisabledFieldsAreNotComputed() {
+        Hen hen = new Hen(new Coordinates(0, 0), 1, 20, 1);
+        map.setEntity(hen.getCoordinates(), hen);
+        map.setEntity(new Coordinates(1, 1), new Grass(new Coordinates(1, 1)));
+        flowFields.setEnabled(false);
+
+        flowFields.update();
+
+        assertNull(flowFields.nextStepTowardsGrass(hen));
+    }
+}
@@ -0,0 +1,58 @@
+package com.toropov.oleg.pathfinding;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedMinHeapTest {
+    private IndexedMinHeap heap;
+
+    @BeforeEach
+    void setUp() {
+        heap = new IndexedMinHeap();
+        heap.ensureCapacity(16);
+    }
+
+    @Test
+    void testPollReturnsCellsInPriorityOrder() {
+        heap.insertOrUpdate(3, 30);
+        heap.insertOrUpdate(7, 10);
+        heap.insertOrUpdate(1, 20);
+
+        assertEquals(7, heap.poll());
+        assertEquals(1, heap.poll());
+        assertEquals(3, heap.poll());
+        assertEquals(-1, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    void testDecreaseKeyReordersHeap() {
+        heap.insertOrUpdate(3, 30);
+        heap.insertOrUpdate(7, 10);
+        heap.insertOrUpdate(1, 20);
+
+        heap.insertOrUpdate(3, 5);
+
+        assertEquals(3, heap.size());
+        assertEquals(5, heap.getKey(3));
+        assertEquals(3, heap.poll());
+        assertEquals(7, heap.poll());
+    }
+
+    @Test
+    void testContainsAndClear() {
+        heap.insertOrUpdate(4, 1);
+        heap.insertOrUpdate(5, 2);
+        assertTrue(heap.contains(4));
+
+        heap.poll();
+        assertFalse(heap.contains(4));
+        assertTrue(heap.contains(5));
+
+        heap.clear();
+        assertFalse(heap.contains(5));
+        assertTrue(heap.isEmpty());
+    }
+}
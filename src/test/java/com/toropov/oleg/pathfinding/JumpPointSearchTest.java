@@ -0,0 +1,108 @@
+package com.toropov.oleg.pathfinding;
+
+import com.toropov.oleg.entity.Rock;
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.WorldMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JumpPointSearchTest {
+    private static final int MAP_SIZE = 20;
+
+    @Test
+    void testFindPathAroundWall() {
+        WorldMap map = new WorldMap(MAP_SIZE);
+        Hen hen = new Hen(new Coordinates(0, 0), 1, 20, 1);
+        map.setEntity(hen.getCoordinates(), hen);
+        for (int y = 0; y < 6; y++) {
+            map.setEntity(new Coordinates(4, y), new Rock(new Coordinates(4, y)));
+        }
+        Coordinates goal = new Coordinates(7, 3);
+
+        List<Coordinates> path = JumpPointSearch.findPath(map, hen.getCoordinates(), goal, hen);
+
+        assertEquals(9, path.size(), "Path should go around the wall in the fewest moves");
+        assertEquals(goal, path.get(path.size() - 1));
+        assertEquals(path.get(0), JumpPointSearch.findNextStep(map, hen.getCoordinates(), goal, hen));
+    }
+
+    @Test
+    void testPathLengthsAreOptimalOnRandomMaps() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            WorldMap map = new WorldMap(MAP_SIZE);
+            for (int i = 0; i < MAP_SIZE * MAP_SIZE / 3; i++) {
+                Coordinates rock = new Coordinates(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE));
+                map.setEntity(rock, new Rock(rock));
+            }
+            Coordinates start = new Coordinates(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE));
+            Coordinates goal = new Coordinates(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE));
+            map.removeEntity(goal);
+            Hen hen = new Hen(start, 1, 20, 1);
+            map.setEntity(start, hen);
+
+            List<Coordinates> path = JumpPointSearch.findPath(map, start, goal, hen);
+            int expected = shortestDistance(map, hen, start, goal);
+
+            if (expected <= 0) {
+                assertTrue(path.isEmpty(), "Unreachable goals should give an empty path");
+            } else {
+                assertEquals(expected, path.size(), "Path should be as short as a breadth-first search");
+                assertPathIsWalkable(map, hen, start, path);
+            }
+        }
+    }
+
+    @Test
+    void testStrategySwitch() {
+        WorldMap map = new WorldMap(MAP_SIZE);
+        Hen hen = new Hen(new Coordinates(0, 0), 1, 20, 1);
+        map.setEntity(hen.getCoordinates(), hen);
+        Coordinates goal = new Coordinates(5, 3);
+
+        map.setPathStrategy(PathStrategy.JUMP_POINT);
+        assertEquals(PathStrategy.JUMP_POINT, map.getPathStrategy());
+        assertEquals(PathStrategy.A_STAR, new WorldMap(MAP_SIZE).getPathStrategy(), "Other maps keep their strategy");
+        assertEquals(5, PathFinder.findPath(map, hen.getCoordinates(), goal, hen).size());
+        assertNotNull(PathFinder.findNextStep(map, hen.getCoordinates(), goal, hen));
+    }
+
+    private int shortestDistance(WorldMap map, Hen hen, Coordinates start, Coordinates goal) {
+        int[] distances = new int[MAP_SIZE * MAP_SIZE];
+        Arrays.fill(distances, -1);
+        Deque<Coordinates> queue = new ArrayDeque<>();
+        distances[start.getY() * MAP_SIZE + start.getX()] = 0;
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            Coordinates current = queue.poll();
+            int distance = distances[current.getY() * MAP_SIZE + current.getX()];
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    Coordinates next = new Coordinates(current.getX() + dx, current.getY() + dy);
+                    if (hen.isSquareAvailableForMove(next, map) && distances[next.getY() * MAP_SIZE + next.getX()] < 0) {
+                        distances[next.getY() * MAP_SIZE + next.getX()] = distance + 1;
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+        return distances[goal.getY() * MAP_SIZE + goal.getX()];
+    }
+
+    private void assertPathIsWalkable(WorldMap map, Hen hen, Coordinates start, List<Coordinates> path) {
+        Coordinates previous = start;
+        for (Coordinates step : path) {
+            assertTrue(Math.abs(step.getX() - previous.getX()) <= 1 && Math.abs(step.getY() - previous.getY()) <= 1);
+            assertTrue(hen.isSquareAvailableForMove(step, map));
+            previous = step;
+        }
+    }
+}
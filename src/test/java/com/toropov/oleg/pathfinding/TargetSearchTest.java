@@ -0,0 +1,81 @@
+package com.toropov.oleg.pathfinding;
+
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.Rock;
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.WorldMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TargetSearchTest {
+    private WorldMap map;
+    private Hen hen;
+
+    @BeforeEach
+    void setUp() {
+        map = new WorldMap(20);
+        hen = new Hen(new Coordinates(5, 5), 1, 20, 1);
+        map.setEntity(hen.getCoordinates(), hen);
+    }
+
+    @Test
+    void testSkipsWalledInTarget() {
+        placeGrass(7, 5);
+        for (int x = 6; x <= 8; x++) {
+            for (int y = 4; y <= 6; y++) {
+                if (x != 7 || y != 5) {
+                    map.setEntity(new Coordinates(x, y), new Rock(new Coordinates(x, y)));
+                }
+            }
+        }
+        placeGrass(1, 5);
+
+        TargetSearch.Result result = TargetSearch.findNearest(map, hen, entity -> entity instanceof Grass, 64);
+
+        assertNotNull(result);
+        assertEquals(new Coordinates(1, 5), result.getTarget(), "Walled in grass should be skipped");
+        assertEquals(4, result.getFirstStep().getX(), "First step should lead towards the reachable grass");
+    }
+
+    @Test
+    void testFirstStepIsAdjacent() {
+        placeGrass(12, 9);
+
+        TargetSearch.Result result = TargetSearch.findNearest(map, hen, entity -> entity instanceof Grass, 64);
+
+        assertNotNull(result);
+        assertEquals(new Coordinates(12, 9), result.getTarget());
+        Coordinates step = result.getFirstStep();
+        assertEquals(1, Math.max(Math.abs(step.getX() - 5), Math.abs(step.getY() - 5)));
+    }
+
+    @Test
+    void testNoTargetReachable() {
+        placeGrass(15, 15);
+        for (int x = 4; x <= 6; x++) {
+            for (int y = 4; y <= 6; y++) {
+                if (x != 5 || y != 5) {
+                    map.setEntity(new Coordinates(x, y), new Rock(new Coordinates(x, y)));
+                }
+            }
+        }
+
+        assertNull(TargetSearch.findNearest(map, hen, entity -> entity instanceof Grass, 64));
+    }
+
+    @Test
+    void testSearchStopsAtTheDistanceLimit() {
+        placeGrass(15, 5);
+
+        assertNull(TargetSearch.findNearest(map, hen, entity -> entity instanceof Grass, 4));
+        assertTrue(SearchContext.current().getReachedCount() <= 9 * 9, "Only cells within the limit are reached");
+        assertNotNull(TargetSearch.findNearest(map, hen, entity -> entity instanceof Grass, 10));
+    }
+
+    private void placeGrass(int x, int y) {
+        map.setEntity(new Coordinates(x, y), new Grass(new Coordinates(x, y)));
+    }
+}
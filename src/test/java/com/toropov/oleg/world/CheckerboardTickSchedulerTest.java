@@ -0,0 +1,89 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.Entity;
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.Kids;
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.map.EntityGrid;
+import com.toropov.oleg.map.EntityType;
+import com.toropov.oleg.map.WorldMap;
+import com.toropov.oleg.map.WorldMapFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckerboardTickSchedulerTest {
+
+    @Test
+    void testCountersStayExactWithManyThreads() {
+        SimulationConfig config = new SimulationConfig();
+        config.setMapSize(60);
+        config.setHenCount(150);
+        config.setRoosterCount(150);
+        config.setMaleFoxCount(10);
+        config.setFemaleFoxCount(10);
+        config.setGrassCount(400);
+        config.setSeed(5);
+        config.setSchedulerType(TickSchedulerType.CHECKERBOARD);
+        config.setParallelism(4);
+        config.setTileSize(4);
+        WorldMap map = new WorldMapFactory(config).creatMap();
+
+        try (TickRunner runner = new TickRunner(map, config)) {
+            for (int i = 0; i < 30 && runner.tick(); i++) {
+                assertEquals(count(map, Hen.class), map.countEntities(EntityType.HEN));
+                assertEquals(count(map, Grass.class), map.countEntities(EntityType.GRASS));
+            }
+        }
+    }
+
+    @Test
+    void testSingleThreadIsReproducible() {
+        assertEquals(runTicks(), runTicks());
+    }
+
+    @Test
+    void testRejectsTooSmallTiles() {
+        assertThrows(IllegalArgumentException.class, () -> new CheckerboardTickScheduler(1, 1));
+    }
+
+    @Test
+    void testRejectsMapsThatAreNotThreadSafe() {
+        try (CheckerboardTickScheduler scheduler = new CheckerboardTickScheduler(2, 4)) {
+            assertThrows(IllegalArgumentException.class, () -> scheduler.moveCreatures(new WorldMap(10), List.of()));
+        }
+    }
+
+    private int count(WorldMap map, Class<? extends Entity> type) {
+        EntityGrid grid = map.getGrid();
+        int count = 0;
+        for (int cell = 0; cell < grid.size(); cell++) {
+            Entity entity = grid.get(cell);
+            if (type.isInstance(entity)) {
+                count++;
+            }
+            if (entity instanceof Kids kids) {
+                count += (int) kids.getAllParents().stream().filter(type::isInstance).count();
+            }
+        }
+        return count;
+    }
+
+    private Object runTicks() {
+        SimulationConfig config = new SimulationConfig();
+        config.setSeed(17);
+        config.setSchedulerType(TickSchedulerType.CHECKERBOARD);
+        config.setParallelism(1);
+        config.setTileSize(4);
+        WorldMap map = new WorldMapFactory(config).creatMap();
+
+        try (TickRunner runner = new TickRunner(map, config)) {
+            for (int i = 0; i < 100 && runner.tick(); i++) {
+                // Every iteration performs one tick.
+            }
+        }
+        return map.countEntities();
+    }
+}
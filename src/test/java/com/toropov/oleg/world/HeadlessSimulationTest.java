@@ -0,0 +1,109 @@
+package com.toropov.oleg.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadlessSimulationTest {
+
+    @Test
+    void testStopsAtTickLimit() {
+        SimulationConfig config = new SimulationConfig();
+        config.setSeed(3);
+        config.setTickLimit(5);
+
+        TickRunner runner = new HeadlessSimulation(config).run(new PrintStream(new ByteArrayOutputStream()));
+
+        assertTrue(runner.getTickCount() <= 5);
+        assertTrue(runner.getTickCount() == 5 || runner.isEndConditionMet());
+    }
+
+    @Test
+    void testSameSeedGivesSameResult() {
+        assertEquals(runWithSeed(42), runWithSeed(42));
+    }
+
+    @Test
+    void testReportContainsThroughputAndCounts() {
+        SimulationConfig config = new SimulationConfig();
+        config.setTickLimit(10);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new HeadlessSimulation(config).run(new PrintStream(output));
+        String report = output.toString();
+
+        assertTrue(report.contains("ticks/s"));
+        assertTrue(report.contains("HEN: "));
+        assertTrue(report.contains("MALE_FOX: "));
+    }
+
+    @Test
+    void testReportWarnsAboutSchedulersThatAreNotReproducible() {
+        SimulationConfig config = new SimulationConfig();
+        config.setTickLimit(2);
+        config.setSchedulerType(TickSchedulerType.CONCURRENT);
+        config.setParallelism(2);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new HeadlessSimulation(config).run(new PrintStream(output));
+
+        assertTrue(output.toString().contains("does not reproduce"));
+        assertFalse(runWithSeed(42).contains("does not reproduce"));
+        assertTrue(TickSchedulerType.TWO_PHASE.isReproducible(8));
+        assertTrue(TickSchedulerType.CHECKERBOARD.isReproducible(1));
+        assertFalse(TickSchedulerType.CHECKERBOARD.isReproducible(8));
+    }
+
+    @Test
+    void testFlowFieldsAreUsedWhenEnabled() {
+        String withFields = runWithArgs("--seed=4", "--ticks=20", "--flow-fields=true");
+
+        assertEquals(withFields, runWithArgs("--seed=4", "--ticks=20", "--flow-fields=true"));
+        assertNotEquals(withFields, runWithArgs("--seed=4", "--ticks=20", "--flow-fields=false"));
+    }
+
+    @Test
+    void testReportContainsCreatureStoreTotals() {
+        SimulationConfig config = new SimulationConfig();
+        config.setTickLimit(2);
+        config.setCreatureStoreEnabled(true);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new HeadlessSimulation(config).run(new PrintStream(output));
+
+        assertTrue(output.toString().contains("Creature store: "));
+        assertFalse(runWithSeed(42).contains("Creature store: "));
+    }
+
+    @Test
+    void testGraphicalSimulationRejectsCreatureStore() {
+        SimulationConfig config = new SimulationConfig();
+        config.setCreatureStoreEnabled(true);
+
+        assertThrows(IllegalArgumentException.class, () -> new Simulation(config));
+    }
+
+    private String runWithArgs(String... args) {
+        SimulationConfig config = SimulationConfig.fromArgs(args);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        TickRunner runner = new HeadlessSimulation(config).run(new PrintStream(output));
+        assertEquals(config.isFlowFieldsEnabled(), runner.getMap().getFlowFields().isEnabled());
+
+        return output.toString().replaceAll("Ticks: .*", "");
+    }
+
+    private String runWithSeed(long seed) {
+        SimulationConfig config = new SimulationConfig();
+        config.setSeed(seed);
+        config.setTickLimit(100);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new HeadlessSimulation(config).run(new PrintStream(output));
+
+        return output.toString().replaceAll("Ticks: .*", "");
+    }
+}
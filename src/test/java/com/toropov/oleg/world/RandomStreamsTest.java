@@ -0,0 +1,46 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.Entity;
+import com.toropov.oleg.entity.EntityFactory;
+import com.toropov.oleg.map.Coordinates;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomStreamsTest {
+
+    @Test
+    void testSameSeedAndPurposeGiveSameStream() {
+        SplittableRandom first = RandomStreams.forPurpose(42, RandomStreams.Purpose.GRASS_REGROWTH);
+        SplittableRandom second = RandomStreams.forPurpose(42, RandomStreams.Purpose.GRASS_REGROWTH);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.nextLong(), second.nextLong());
+        }
+    }
+
+    @Test
+    void testPurposesGetDifferentStreams() {
+        SplittableRandom placement = RandomStreams.forPurpose(42, RandomStreams.Purpose.PLACEMENT);
+        SplittableRandom regrowth = RandomStreams.forPurpose(42, RandomStreams.Purpose.GRASS_REGROWTH);
+
+        assertNotEquals(placement.nextLong(), regrowth.nextLong());
+    }
+
+    @Test
+    void testSameSeedGivesSameWorld() {
+        SimulationConfig config = new SimulationConfig();
+        config.setSeed(7);
+
+        Map<Coordinates, Entity> first = new EntityFactory(config).createAllEntitiesForMap();
+        Map<Coordinates, Entity> second = new EntityFactory(config).createAllEntitiesForMap();
+
+        assertEquals(first.keySet(), second.keySet());
+        for (Coordinates coordinates : first.keySet()) {
+            assertEquals(first.get(coordinates).getClass(), second.get(coordinates).getClass());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.EntityFactory;
+import com.toropov.oleg.pathfinding.PathStrategy;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationConfigTest {
+
+    @Test
+    void testDefaults() {
+        SimulationConfig config = SimulationConfig.fromArgs(new String[]{"--headless"});
+
+        assertEquals(EntityFactory.MAP_SIZE, config.getMapSize());
+        assertEquals(EntityFactory.HEN_COUNT, config.getHenCount());
+        assertEquals(SimulationConfig.NO_TICK_LIMIT, config.getTickLimit());
+    }
+
+    @Test
+    void testParsesOptions() {
+        SimulationConfig config = SimulationConfig.fromArgs(new String[]{
+                "--headless", "--size=50", "--hens=30", "--roosters=31", "--male-foxes=2", "--female-foxes=3",
+                "--grass=100", "--rocks=10", "--trees=20", "--seed=-5", "--ticks=1000", "--path=jump-point"});
+
+        assertEquals(50, config.getMapSize());
+        assertEquals(30, config.getHenCount());
+        assertEquals(31, config.getRoosterCount());
+        assertEquals(2, config.getMaleFoxCount());
+        assertEquals(3, config.getFemaleFoxCount());
+        assertEquals(100, config.getGrassCount());
+        assertEquals(10, config.getRockCount());
+        assertEquals(20, config.getTreeCount());
+        assertEquals(-5, config.getSeed());
+        assertEquals(1000, config.getTickLimit());
+        assertEquals(PathStrategy.JUMP_POINT, config.getPathStrategy());
+    }
+
+    @Test
+    void testRejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromArgs(new String[]{"--unknown=1"}));
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromArgs(new String[]{"--size=abc"}));
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromArgs(new String[]{"size=10"}));
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromArgs(new String[]{"--seed", "5"}));
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromArgs(new String[]{"--ticks"}));
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromArgs(new String[]{"--size=5"}),
+                "Default populations do not fit on a 5x5 map");
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromArgs(new String[]{
+                "--size=" + (SimulationConfig.MAX_MAP_SIZE + 1)}), "Cell indices of larger maps overflow an int");
+        assertEquals(SimulationConfig.MAX_MAP_SIZE, SimulationConfig.fromArgs(new String[]{
+                "--size=" + SimulationConfig.MAX_MAP_SIZE}).getMapSize());
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromArgs(new String[]{
+                "--creature-store=true", "--scheduler=concurrent"}));
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromArgs(new String[]{
+                "--creature-store=yes"}));
+    }
+}
@@ -0,0 +1,53 @@
+package com.toropov.oleg.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickRateTest {
+
+    @Test
+    void testParseFixedPeriod() {
+        TickRate rate = TickRate.parse("250ms");
+
+        assertEquals(TickMode.FIXED_PERIOD, rate.getMode());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250), rate.getPeriodNanos());
+        assertEquals(TickRate.fixedPeriod(250), rate);
+    }
+
+    @Test
+    void testParseTargetTicksPerSecond() {
+        TickRate rate = TickRate.parse("60tps");
+
+        assertEquals(TickMode.TARGET_TPS, rate.getMode());
+        assertEquals(TimeUnit.SECONDS.toNanos(1) / 60, rate.getPeriodNanos(), 1);
+        assertEquals("60 ticks/s", rate.toString());
+    }
+
+    @Test
+    void testParseAsFastAsPossible() {
+        TickRate rate = TickRate.parse("FAST");
+
+        assertEquals(TickMode.AS_FAST_AS_POSSIBLE, rate.getMode());
+        assertEquals(0, rate.getPeriodNanos());
+    }
+
+    @Test
+    void testRejectsInvalidRates() {
+        assertThrows(IllegalArgumentException.class, () -> TickRate.parse("slow"));
+        assertThrows(IllegalArgumentException.class, () -> TickRate.parse("xms"));
+        assertThrows(IllegalArgumentException.class, () -> TickRate.parse("0tps"));
+        assertThrows(IllegalArgumentException.class, () -> TickRate.parse("-5ms"));
+    }
+
+    @Test
+    void testConfigReadsTickRateAndFrameCap() {
+        SimulationConfig config = SimulationConfig.fromArgs(new String[]{"--tick-rate=fast", "--fps=60"});
+
+        assertEquals(TickRate.asFastAsPossible(), config.getTickRate());
+        assertEquals(60, config.getMaxFramesPerSecond());
+        assertThrows(IllegalArgumentException.class, () -> SimulationConfig.fromArgs(new String[]{"--fps=0"}));
+    }
+}
@@ -0,0 +1,77 @@
+package com.toropov.oleg.world;
+
+import com.toropov.oleg.entity.Creature;
+import com.toropov.oleg.entity.Grass;
+import com.toropov.oleg.entity.herbivore.Hen;
+import com.toropov.oleg.entity.predator.MaleFox;
+import com.toropov.oleg.map.Coordinates;
+import com.toropov.oleg.map.EntityType;
+import com.toropov.oleg.map.WorldMap;
+import com.toropov.oleg.map.WorldMapFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoPhaseTickSchedulerTest {
+
+    @Test
+    void testResultDoesNotDependOnThreadCount() {
+        assertEquals(runTicks(1), runTicks(4));
+    }
+
+    @Test
+    void testOnlyOneCreatureEatsContestedGrass() {
+        WorldMap map = new WorldMap(20);
+        Hen first = new Hen(new Coordinates(4, 5), 1, 20, 1);
+        Hen second = new Hen(new Coordinates(6, 5), 1, 20, 1);
+        map.setEntity(first.getCoordinates(), first);
+        map.setEntity(second.getCoordinates(), second);
+        map.setEntity(new Coordinates(5, 5), new Grass(new Coordinates(5, 5)));
+
+        try (TwoPhaseTickScheduler scheduler = new TwoPhaseTickScheduler(2)) {
+            scheduler.moveCreatures(map, map.getAllCreatures());
+        }
+
+        assertSame(first, map.getEntity(5, 5), "The hen first in cell order should win the grass");
+        assertEquals(second, map.getEntity(second.getCoordinates()));
+        assertEquals(2, map.countEntities(EntityType.HEN));
+        assertEquals(0, map.countEntities(EntityType.GRASS));
+    }
+
+    @Test
+    void testEatenCreatureDoesNotMove() {
+        WorldMap map = new WorldMap(20);
+        MaleFox fox = new MaleFox(new Coordinates(4, 5), 1, 20, 1);
+        Hen hen = new Hen(new Coordinates(5, 5), 1, 20, 1);
+        map.setEntity(fox.getCoordinates(), fox);
+        map.setEntity(hen.getCoordinates(), hen);
+        map.setEntity(new Coordinates(7, 5), new Grass(new Coordinates(7, 5)));
+        List<Creature> creatures = map.getAllCreatures();
+
+        try (TwoPhaseTickScheduler scheduler = new TwoPhaseTickScheduler(2)) {
+            scheduler.moveCreatures(map, creatures);
+        }
+
+        assertSame(fox, map.getEntity(5, 5));
+        assertEquals(0, map.countEntities(EntityType.HEN));
+        assertTrue(map.getEntity(7, 5) instanceof Grass);
+    }
+
+    private Map<EntityType, Integer> runTicks(int threads) {
+        SimulationConfig config = new SimulationConfig();
+        config.setSeed(99);
+        config.setSchedulerType(TickSchedulerType.TWO_PHASE);
+        config.setParallelism(threads);
+        WorldMap map = new WorldMapFactory(config).creatMap();
+
+        try (TickRunner runner = new TickRunner(map, config)) {
+            for (int i = 0; i < 100 && runner.tick(); i++) {
+                // Every iteration performs one tick.
+            }
+        }
+        return map.countEntities();
+    }
+}